@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.eclipse.core.databinding.util.Policy;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Reads and writes a bean property. The accessor methods of the property are
+ * looked up and made accessible on first use and reused afterwards, so
+ * properties keep an accessor for their whole life instead of resolving the
+ * methods on every call.
+ */
+public class BeanPropertyAccessor {
+	private final PropertyDescriptor propertyDescriptor;
+
+	private volatile Method readMethod;
+
+	private volatile Method writeMethod;
+
+	/**
+	 * @param propertyDescriptor
+	 *            the property to access
+	 */
+	public BeanPropertyAccessor(PropertyDescriptor propertyDescriptor) {
+		this.propertyDescriptor = propertyDescriptor;
+	}
+
+	/**
+	 * Returns the contents of the property for the given bean.
+	 *
+	 * @param source
+	 *            the source bean
+	 * @return the contents of the property for the given bean.
+	 */
+	public Object read(Object source) {
+		try {
+			Method method = readMethod;
+			if (method == null) {
+				method = propertyDescriptor.getReadMethod();
+				if (method == null) {
+					throw new IllegalArgumentException(propertyDescriptor.getName()
+							+ " property does not have a read method."); //$NON-NLS-1$
+				}
+				if (!method.isAccessible()) {
+					method.setAccessible(true);
+				}
+				readMethod = method;
+			}
+			return method.invoke(source);
+		} catch (InvocationTargetException e) {
+			/*
+			 * InvocationTargetException wraps any exception thrown by the
+			 * invoked method.
+			 */
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			Policy.getLog()
+					.log(new Status(
+							IStatus.WARNING,
+							Policy.JFACE_DATABINDING,
+							IStatus.OK,
+							"Could not read value of " + source + "." + propertyDescriptor.getName(), e)); //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the contents of the property on the given source object to the
+	 * given value.
+	 *
+	 * @param source
+	 *            the source object which has the property being updated
+	 * @param value
+	 *            the new value of the property
+	 */
+	public void write(Object source, Object value) {
+		try {
+			Method method = writeMethod;
+			if (method == null) {
+				method = propertyDescriptor.getWriteMethod();
+				if (method == null) {
+					throw new IllegalArgumentException(
+							"Missing public setter method for " //$NON-NLS-1$
+									+ propertyDescriptor.getName() + " property"); //$NON-NLS-1$
+				}
+				if (!method.isAccessible()) {
+					method.setAccessible(true);
+				}
+				writeMethod = method;
+			}
+			method.invoke(source, value);
+		} catch (InvocationTargetException e) {
+			/*
+			 * InvocationTargetException wraps any exception thrown by the
+			 * invoked method.
+			 */
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			Policy.getLog()
+					.log(new Status(
+							IStatus.WARNING,
+							Policy.JFACE_DATABINDING,
+							IStatus.OK,
+							"Could not change value of " + source + "." + propertyDescriptor.getName(), e)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
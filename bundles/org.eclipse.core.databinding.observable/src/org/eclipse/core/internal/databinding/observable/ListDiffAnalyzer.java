@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *     Matthew Hall - bug 226216
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.Diffs;
+
+/**
+ * Computes the {@link org.eclipse.core.databinding.observable.list.ListDiffEntry
+ * entries} transforming a list into another one. The entries are to be
+ * processed in order, each position being relative to the list resulting from
+ * the previous entries.
+ */
+public class ListDiffAnalyzer {
+
+	/**
+	 * Computes the entries by scanning the lists for the elements to move.
+	 * Adapted from EMF's ListDifferenceAnalyzer, it is quadratic in the number
+	 * of elements but fast for small lists.
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param listDiffs
+	 *            the list to add the entries to
+	 */
+	public static void analyzeByScanning(List oldList, List newList,
+			List listDiffs) {
+		oldList = new ArrayList(oldList);
+		int index = 0;
+		for (Iterator it = newList.iterator(); it.hasNext();) {
+			Object newValue = it.next();
+			if (oldList.size() <= index) {
+				// append newValue to newList
+				listDiffs.add(Diffs.createListDiffEntry(index, true, newValue));
+			} else {
+				boolean done;
+				do {
+					done = true;
+					Object oldValue = oldList.get(index);
+					if (oldValue == null ? newValue != null : !oldValue
+							.equals(newValue)) {
+						int oldIndexOfNewValue = listIndexOf(oldList, newValue,
+								index);
+						if (oldIndexOfNewValue != -1) {
+							int newIndexOfOldValue = listIndexOf(newList,
+									oldValue, index);
+							if (newIndexOfOldValue == -1) {
+								// removing oldValue from list[index]
+								listDiffs.add(Diffs.createListDiffEntry(index,
+										false, oldValue));
+								oldList.remove(index);
+								done = false;
+							} else if (newIndexOfOldValue > oldIndexOfNewValue) {
+								// moving oldValue from list[index] to
+								// [newIndexOfOldValue]
+								if (oldList.size() <= newIndexOfOldValue) {
+									// The element cannot be moved to the
+									// correct index
+									// now, however later iterations will insert
+									// elements
+									// in front of it, eventually moving it into
+									// the
+									// correct spot.
+									newIndexOfOldValue = oldList.size() - 1;
+								}
+								listDiffs.add(Diffs.createListDiffEntry(index,
+										false, oldValue));
+								oldList.remove(index);
+								listDiffs.add(Diffs.createListDiffEntry(
+										newIndexOfOldValue, true, oldValue));
+								oldList.add(newIndexOfOldValue, oldValue);
+								done = false;
+							} else {
+								// move newValue from list[oldIndexOfNewValue]
+								// to [index]
+								listDiffs.add(Diffs.createListDiffEntry(
+										oldIndexOfNewValue, false, newValue));
+								oldList.remove(oldIndexOfNewValue);
+								listDiffs.add(Diffs.createListDiffEntry(index,
+										true, newValue));
+								oldList.add(index, newValue);
+							}
+						} else {
+							// add newValue at list[index]
+							oldList.add(index, newValue);
+							listDiffs.add(Diffs.createListDiffEntry(index,
+									true, newValue));
+						}
+					}
+				} while (!done);
+			}
+			++index;
+		}
+		for (int i = oldList.size(); i > index;) {
+			// remove excess trailing elements not present in newList
+			listDiffs.add(Diffs.createListDiffEntry(--i, false, oldList.get(i)));
+		}
+	}
+
+	/**
+	 * @param list
+	 * @param object
+	 * @param index
+	 * @return the index, or -1 if not found
+	 */
+	private static int listIndexOf(List list, Object object, int index) {
+		int size = list.size();
+		for (int i = index; i < size; i++) {
+			Object candidate = list.get(i);
+			if (candidate == null ? object == null : candidate.equals(object)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Computes the entries by matching equal elements through hashing, in
+	 * O((n + m) log n) time for lists of n and m elements.
+	 * <p>
+	 * The common prefix and suffix of the lists are skipped. Each remaining new
+	 * element is matched with the first unmatched equal old element, and the
+	 * longest run of matched elements which are in the same order in both
+	 * lists is kept in place. The other matched elements are moved, and are
+	 * reported as a removal immediately followed by an addition when they move
+	 * towards the start of the list. The unmatched elements are removed or
+	 * added.
+	 * </p>
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param listDiffs
+	 *            the list to add the entries to
+	 */
+	public static void analyzeByMatching(List oldList, List newList,
+			List listDiffs) {
+		Object[] oldElements = oldList.toArray();
+		Object[] newElements = newList.toArray();
+
+		int start = 0;
+		while (start < oldElements.length && start < newElements.length
+				&& Util.equals(oldElements[start], newElements[start])) {
+			start++;
+		}
+		int oldEnd = oldElements.length;
+		int newEnd = newElements.length;
+		while (oldEnd > start && newEnd > start
+				&& Util.equals(oldElements[oldEnd - 1], newElements[newEnd - 1])) {
+			oldEnd--;
+			newEnd--;
+		}
+		int oldCount = oldEnd - start;
+		int newCount = newEnd - start;
+
+		// Chain the old indices of equal elements, first index in the map
+		Map firstOldIndex = new HashMap();
+		int[] nextOldIndex = new int[oldCount];
+		for (int i = oldCount - 1; i >= 0; i--) {
+			Integer next = (Integer) firstOldIndex.put(oldElements[start + i],
+					new Integer(i));
+			nextOldIndex[i] = next == null ? -1 : next.intValue();
+		}
+
+		// The old index of each new element, or -1
+		int[] matches = new int[newCount];
+		for (int j = 0; j < newCount; j++) {
+			Object element = newElements[start + j];
+			Integer oldIndex = (Integer) firstOldIndex.get(element);
+			if (oldIndex == null) {
+				matches[j] = -1;
+			} else {
+				int i = oldIndex.intValue();
+				matches[j] = i;
+				if (nextOldIndex[i] == -1) {
+					firstOldIndex.remove(element);
+				} else {
+					firstOldIndex.put(element, new Integer(nextOldIndex[i]));
+				}
+			}
+		}
+
+		boolean[] kept = longestIncreasingMatches(matches);
+
+		// Apply the entries to the old elements: the first position
+		// elements form the new list, the old elements from cursor
+		// which are not removed follow.
+		boolean[] removed = new boolean[oldCount];
+		PresenceCounter present = new PresenceCounter(oldCount);
+		int position = start;
+		int cursor = 0;
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = matches[j];
+			if (kept[j]) {
+				for (; cursor < oldIndex; cursor++) {
+					if (!removed[cursor]) {
+						removed[cursor] = true;
+						listDiffs.add(Diffs.createListDiffEntry(position,
+								false, oldElements[start + cursor]));
+					}
+				}
+				removed[oldIndex] = true;
+				cursor = oldIndex + 1;
+			} else {
+				if (oldIndex != -1 && !removed[oldIndex]) {
+					// move the element up from further in the list
+					int oldPosition = position
+							+ present.count(cursor, oldIndex);
+					removed[oldIndex] = true;
+					present.remove(oldIndex);
+					listDiffs.add(Diffs.createListDiffEntry(oldPosition, false,
+							oldElements[start + oldIndex]));
+				}
+				listDiffs.add(Diffs.createListDiffEntry(position, true,
+						newElements[start + j]));
+			}
+			position++;
+		}
+		for (; cursor < oldCount; cursor++) {
+			if (!removed[cursor]) {
+				listDiffs.add(Diffs.createListDiffEntry(position, false,
+						oldElements[start + cursor]));
+			}
+		}
+	}
+
+	/**
+	 * Returns which of the matched new elements form the longest run of old
+	 * indices in increasing order.
+	 *
+	 * @param matches
+	 *            the old index of each new element, or -1
+	 * @return whether each new element is part of the run
+	 */
+	private static boolean[] longestIncreasingMatches(int[] matches) {
+		// tails[l] is the new index ending the smallest run of length l + 1
+		int[] tails = new int[matches.length];
+		int[] previous = new int[matches.length];
+		int length = 0;
+		for (int j = 0; j < matches.length; j++) {
+			if (matches[j] == -1) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (matches[tails[middle]] < matches[j]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) {
+				length++;
+			}
+		}
+		boolean[] kept = new boolean[matches.length];
+		for (int j = length > 0 ? tails[length - 1] : -1; j != -1; j = previous[j]) {
+			kept[j] = true;
+		}
+		return kept;
+	}
+
+	/**
+	 * Counts the elements not yet removed in a range of indices, as a Fenwick
+	 * tree.
+	 */
+	private static class PresenceCounter {
+		private final int[] tree;
+
+		PresenceCounter(int size) {
+			tree = new int[size + 1];
+			for (int i = 1; i <= size; i++) {
+				tree[i] = i & -i;
+			}
+		}
+
+		void remove(int index) {
+			for (int i = index + 1; i < tree.length; i += i & -i) {
+				tree[i]--;
+			}
+		}
+
+		/**
+		 * @return the number of present elements in [from, to[
+		 */
+		int count(int from, int to) {
+			return prefix(to) - prefix(from);
+		}
+
+		private int prefix(int end) {
+			int sum = 0;
+			for (int i = end; i > 0; i -= i & -i) {
+				sum += tree[i];
+			}
+			return sum;
+		}
+	}
+}
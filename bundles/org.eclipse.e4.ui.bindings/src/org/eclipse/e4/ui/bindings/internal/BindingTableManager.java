@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 IBM Corporation and others.
+ * Copyright (c) 2010, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,8 +14,11 @@ package org.eclipse.e4.ui.bindings.internal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import javax.inject.Inject;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.contexts.Context;
@@ -29,6 +32,13 @@ import org.eclipse.jface.bindings.TriggerSequence;
 public class BindingTableManager {
 	private static final String BINDING_TABLE_PREFIX = "bindingTable:"; //$NON-NLS-1$
 
+	/**
+	 * The number of context sets for which lookup results are kept. The active
+	 * context set changes with the focus, so a few recent ones are worth
+	 * keeping.
+	 */
+	private static final int MAX_CACHED_CONTEXT_SETS = 8;
+
 	@Inject
 	private IEclipseContext eclipseContext;
 
@@ -36,6 +46,15 @@ public class BindingTableManager {
 
 	private String[] activeSchemeIds;
 
+	@SuppressWarnings("serial")
+	private final Map<ContextSet, LookupCache> lookupCaches = new LinkedHashMap<ContextSet, LookupCache>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ContextSet, LookupCache> eldest) {
+			return size() > MAX_CACHED_CONTEXT_SETS;
+		}
+	};
+
 	public void addTable(BindingTable table) {
 		String contextId = getTableId(table.getId());
 		if (eclipseContext.containsKey(contextId)) {
@@ -120,6 +139,16 @@ public class BindingTableManager {
 	}
 
 	public Binding getPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
+		Map<TriggerSequence, Binding> perfectMatches = getLookupCache(contextSet).perfectMatches;
+		Binding result = perfectMatches.get(triggerSequence);
+		if (result == null && !perfectMatches.containsKey(triggerSequence)) {
+			result = findPerfectMatch(contextSet, triggerSequence);
+			perfectMatches.put(triggerSequence, result);
+		}
+		return result;
+	}
+
+	private Binding findPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
 		Binding result = null;
 		Binding currentResult = null;
 		List<Context> contexts = contextSet.getContexts();
@@ -161,8 +190,7 @@ public class BindingTableManager {
 
 	public Binding getBestSequenceFor(ContextSet contextSet,
 			ParameterizedCommand parameterizedCommand) {
-		ArrayList<Binding> bindings = (ArrayList<Binding>) getSequencesFor(contextSet,
-				parameterizedCommand);
+		List<Binding> bindings = getSortedSequencesFor(contextSet, parameterizedCommand);
 		if (bindings.size() == 0) {
 			return null;
 		}
@@ -171,6 +199,22 @@ public class BindingTableManager {
 
 	public Collection<Binding> getSequencesFor(ContextSet contextSet,
 			ParameterizedCommand parameterizedCommand) {
+		return new ArrayList<Binding>(getSortedSequencesFor(contextSet, parameterizedCommand));
+	}
+
+	private List<Binding> getSortedSequencesFor(ContextSet contextSet,
+			ParameterizedCommand parameterizedCommand) {
+		Map<ParameterizedCommand, List<Binding>> sequences = getLookupCache(contextSet).sequences;
+		List<Binding> result = sequences.get(parameterizedCommand);
+		if (result == null) {
+			result = findSequencesFor(contextSet, parameterizedCommand);
+			sequences.put(parameterizedCommand, result);
+		}
+		return result;
+	}
+
+	private List<Binding> findSequencesFor(ContextSet contextSet,
+			ParameterizedCommand parameterizedCommand) {
 		ArrayList<Binding> bindings = new ArrayList<Binding>();
 		List<Context> contexts = contextSet.getContexts();
 		ListIterator<Context> it = contexts.listIterator(contexts.size());
@@ -240,6 +284,60 @@ public class BindingTableManager {
 	public void setActiveSchemes(String[] activeSchemeIds) {
 		this.activeSchemeIds = activeSchemeIds;
 		BindingTable.BEST_SEQUENCE.setActiveSchemes(activeSchemeIds);
+		// the schemes decide the order of the bindings
+		lookupCaches.clear();
+	}
+
+	/**
+	 * Returns the lookup results for a context set, discarding them if one of
+	 * its tables was added, removed or changed since they were computed.
+	 */
+	private LookupCache getLookupCache(ContextSet contextSet) {
+		LookupCache cache = lookupCaches.get(contextSet);
+		if (cache == null || !cache.isValid(contextSet.getContexts())) {
+			cache = new LookupCache(contextSet.getContexts());
+			lookupCaches.put(contextSet, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * The results of the lookups in the tables of a context set, along with
+	 * the generations of the tables they were computed from.
+	 */
+	private class LookupCache {
+		final Map<ParameterizedCommand, List<Binding>> sequences = new HashMap<ParameterizedCommand, List<Binding>>();
+
+		final Map<TriggerSequence, Binding> perfectMatches = new HashMap<TriggerSequence, Binding>();
+
+		private final BindingTable[] tables;
+
+		private final int[] generations;
+
+		LookupCache(List<Context> contexts) {
+			tables = new BindingTable[contexts.size()];
+			generations = new int[tables.length];
+			for (int i = 0; i < tables.length; i++) {
+				tables[i] = getTable(contexts.get(i).getId());
+				if (tables[i] != null) {
+					generations[i] = tables[i].getGeneration();
+				}
+			}
+		}
+
+		boolean isValid(List<Context> contexts) {
+			if (contexts.size() != tables.length) {
+				return false;
+			}
+			for (int i = 0; i < tables.length; i++) {
+				BindingTable table = getTable(contexts.get(i).getId());
+				if (table != tables[i]
+						|| (table != null && table.getGeneration() != generations[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
 	}
 
 	/*
@@ -0,0 +1,492 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSIdConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSLangConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSPseudoClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleRule;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.CSSValue;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Precompiled index of the style rules of a set of style sheets.
+ * <p>
+ * Every selector is filed in a bucket keyed by the id, the CSS class or the
+ * element name of its rightmost compound selector (the subject of the
+ * selector). Selectors without such a key, like <code>*</code> or
+ * <code>:selected</code>, go into a bucket which is checked for every element.
+ * Only the selectors of the buckets an element falls into need to go through
+ * {@link ExtendedSelector#match(Element, String)}.
+ * </p>
+ * <p>
+ * The index also records what its selectors look at besides the element
+ * names, ids and classes of an element and its ancestors: the attribute names
+ * and pseudo classes they test. Two elements which agree on all of these
+ * compute the same style, see {@link ComputedStyleCache}. Likewise, the
+ * classes and ids tested on ancestors tell whether a class or id change has to
+ * restyle the descendants of an element, see
+ * {@link #affectsDescendants(String, String, String, String)}.
+ * </p>
+ * <p>
+ * The index is a snapshot: it must be rebuilt when the style sheets change.
+ * </p>
+ */
+public class CSSRuleIndex {
+
+	/**
+	 * A selector of a style rule together with its position in the document.
+	 */
+	static final class Entry {
+
+		final ExtendedSelector selector;
+		final CSSStyleRule rule;
+		final int order;
+
+		Entry(ExtendedSelector selector, CSSStyleRule rule, int order) {
+			this.selector = selector;
+			this.rule = rule;
+			this.order = order;
+		}
+	}
+
+	private static final Comparator<Entry> DOCUMENT_ORDER = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry entry1, Entry entry2) {
+			return entry1.order < entry2.order ? -1
+					: (entry1.order == entry2.order ? 0 : 1);
+		}
+	};
+
+	private final Map<String, List<Entry>> idRules = new HashMap<String, List<Entry>>();
+
+	private final Map<String, List<Entry>> classRules = new HashMap<String, List<Entry>>();
+
+	private final Map<String, List<Entry>> typeRules = new HashMap<String, List<Entry>>();
+
+	private final List<Entry> universalRules = new ArrayList<Entry>();
+
+	private final Set<String> attributeNames = new HashSet<String>();
+
+	private final Set<String> pseudoClasses = new HashSet<String>();
+
+	private final Set<String> ancestorClasses = new HashSet<String>();
+
+	private final Set<String> ancestorIds = new HashSet<String>();
+
+	/**
+	 * True if the class attribute of an ancestor is tested in a way which
+	 * cannot be reduced to a set of class names.
+	 */
+	private boolean ancestorClassAttribute;
+
+	/**
+	 * True if the id attribute of an ancestor is tested in a way which cannot
+	 * be reduced to a set of ids.
+	 */
+	private boolean ancestorIdAttribute;
+
+	private boolean cacheable = true;
+
+	private boolean unknownDependencies;
+
+	private boolean inheritedValues;
+
+	private int size;
+
+	/**
+	 * Creates an index over the rules of all the given style sheets, in
+	 * document order.
+	 */
+	public CSSRuleIndex(StyleSheetList styleSheets) {
+		int l = styleSheets.getLength();
+		for (int i = 0; i < l; i++) {
+			CSSStyleSheet styleSheet = (CSSStyleSheet) styleSheets.item(i);
+			CSSRuleList rules = styleSheet.getCssRules();
+			int rulesSize = rules.getLength();
+			for (int j = 0; j < rulesSize; j++) {
+				addRule(rules.item(j));
+			}
+		}
+	}
+
+	/**
+	 * Creates an index over the given rules.
+	 */
+	public CSSRuleIndex(List<CSSRule> rules) {
+		for (CSSRule rule : rules) {
+			addRule(rule);
+		}
+	}
+
+	/**
+	 * Returns the number of selectors in this index.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the names of the attributes tested by the selectors of this
+	 * index, other than the id and the CSS class.
+	 */
+	public Set<String> getAttributeNames() {
+		return attributeNames;
+	}
+
+	/**
+	 * Returns the pseudo classes tested by the selectors of this index.
+	 */
+	public Set<String> getPseudoClasses() {
+		return pseudoClasses;
+	}
+
+	/**
+	 * Returns <code>true</code> if the selectors of this index only depend on
+	 * the names, ids, classes, pseudo classes and
+	 * {@link #getAttributeNames() attributes} of an element and its ancestors,
+	 * and <code>false</code> if they depend on something else, like siblings.
+	 */
+	public boolean isCacheable() {
+		return cacheable;
+	}
+
+	private void addRule(CSSRule rule) {
+		if (rule.getType() != CSSRule.STYLE_RULE
+				|| !(rule instanceof ExtendedCSSRule)) {
+			// TODO : CSS rule is not ExtendedCSSRule,
+			// Manage this case...
+			return;
+		}
+		SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+		int l = selectorList.getLength();
+		for (int i = 0; i < l; i++) {
+			Selector selector = selectorList.item(i);
+			if (selector instanceof ExtendedSelector) {
+				addEntry(new Entry((ExtendedSelector) selector,
+						(CSSStyleRule) rule, size++));
+				collectDependencies(selector, false);
+			}
+		}
+		collectInheritedValues((CSSStyleRule) rule);
+	}
+
+	private void addEntry(Entry entry) {
+		Selector subject = getSubjectSelector(entry.selector);
+		if (subject instanceof ConditionalSelector) {
+			Condition condition = ((ConditionalSelector) subject).getCondition();
+			String id = findConditionValue(condition, CSSIdConditionImpl.class);
+			if (id != null) {
+				addEntry(idRules, id, entry);
+				return;
+			}
+			String cssClass = findConditionValue(condition,
+					CSSClassConditionImpl.class);
+			if (cssClass != null) {
+				addEntry(classRules, cssClass, entry);
+				return;
+			}
+			subject = ((ConditionalSelector) subject).getSimpleSelector();
+		}
+		if (subject.getSelectorType() == Selector.SAC_ELEMENT_NODE_SELECTOR) {
+			String name = ((ElementSelector) subject).getLocalName();
+			if (name != null) {
+				addEntry(typeRules, name, entry);
+				return;
+			}
+		}
+		universalRules.add(entry);
+	}
+
+	private static void addEntry(Map<String, List<Entry>> bucket, String key,
+			Entry entry) {
+		List<Entry> entries = bucket.get(key);
+		if (entries == null) {
+			entries = new ArrayList<Entry>(2);
+			bucket.put(key, entries);
+		}
+		entries.add(entry);
+	}
+
+	/**
+	 * Records what <code>selector</code> tests. <code>ancestor</code> tells
+	 * whether the selector is tested against an ancestor (or a preceding
+	 * sibling) of the element being styled.
+	 */
+	private void collectDependencies(Selector selector, boolean ancestor) {
+		if (selector instanceof ConditionalSelector) {
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			collectDependencies(conditional.getSimpleSelector(), ancestor);
+			collectDependencies(conditional.getCondition(), ancestor);
+		} else if (selector instanceof DescendantSelector) {
+			DescendantSelector descendant = (DescendantSelector) selector;
+			collectDependencies(descendant.getAncestorSelector(), true);
+			collectDependencies(descendant.getSimpleSelector(), ancestor);
+		} else if (selector instanceof SiblingSelector) {
+			// sibling selectors depend on the position of the element
+			cacheable = false;
+			SiblingSelector sibling = (SiblingSelector) selector;
+			collectDependencies(sibling.getSelector(), true);
+			collectDependencies(sibling.getSiblingSelector(), ancestor);
+		} else if (!(selector instanceof ElementSelector)) {
+			cacheable = false;
+			unknownDependencies = true;
+		}
+	}
+
+	private void collectDependencies(Condition condition, boolean ancestor) {
+		if (condition instanceof CSSIdConditionImpl) {
+			if (ancestor) {
+				ancestorIds.add(((AttributeCondition) condition).getValue());
+			}
+		} else if (condition instanceof CSSClassConditionImpl) {
+			if (ancestor) {
+				ancestorClasses.add(((AttributeCondition) condition).getValue());
+			}
+		} else if (condition instanceof CSSPseudoClassConditionImpl) {
+			pseudoClasses.add(((AttributeCondition) condition).getValue());
+		} else if (condition instanceof CSSLangConditionImpl) {
+			attributeNames.add("lang");
+		} else if (condition instanceof AttributeCondition
+				&& ((AttributeCondition) condition).getLocalName() != null) {
+			AttributeCondition attribute = (AttributeCondition) condition;
+			attributeNames.add(attribute.getLocalName());
+			if (ancestor) {
+				collectAncestorAttribute(attribute);
+			}
+		} else if (condition.getConditionType() == Condition.SAC_AND_CONDITION
+				&& condition instanceof CombinatorCondition) {
+			CombinatorCondition and = (CombinatorCondition) condition;
+			collectDependencies(and.getFirstCondition(), ancestor);
+			collectDependencies(and.getSecondCondition(), ancestor);
+		} else {
+			cacheable = false;
+			unknownDependencies = true;
+		}
+	}
+
+	/**
+	 * Records a test of the class or id attribute of an ancestor, like
+	 * <code>[class~='active'] Label</code>, as the equivalent class or id
+	 * condition when there is one.
+	 */
+	private void collectAncestorAttribute(AttributeCondition condition) {
+		String name = condition.getLocalName();
+		String value = condition.getValue();
+		if ("class".equals(name)) {
+			if (condition.getConditionType() == Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION
+					&& value != null) {
+				ancestorClasses.add(value);
+			} else {
+				ancestorClassAttribute = true;
+			}
+		} else if ("id".equals(name)) {
+			if (condition.getConditionType() == Condition.SAC_ATTRIBUTE_CONDITION
+					&& value != null) {
+				ancestorIds.add(value);
+			} else {
+				ancestorIdAttribute = true;
+			}
+		}
+	}
+
+	private void collectInheritedValues(CSSStyleRule rule) {
+		CSSStyleDeclaration style = rule.getStyle();
+		int l = style.getLength();
+		for (int i = 0; i < l && !inheritedValues; i++) {
+			CSSValue value = style.getPropertyCSSValue(style.item(i));
+			inheritedValues = value != null
+					&& "inherit".equals(value.getCssText());
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if changing the CSS class and/or the id of an
+	 * element from <code>oldClass</code> and <code>oldId</code> to
+	 * <code>newClass</code> and <code>newId</code> may change the style of
+	 * its descendants, i.e. if a selector tests one of the changed classes or
+	 * ids on an ancestor, either as a class or id condition or as a class or
+	 * id attribute condition, or if a rule inherits values from the parent.
+	 */
+	public boolean affectsDescendants(String oldClass, String newClass,
+			String oldId, String newId) {
+		if (unknownDependencies || inheritedValues) {
+			return true;
+		}
+		if (!equals(oldId, newId)
+				&& (ancestorIdAttribute || ancestorIds.contains(oldId) || ancestorIds
+						.contains(newId))) {
+			return true;
+		}
+		if (!equals(oldClass, newClass) && ancestorClassAttribute) {
+			return true;
+		}
+		if (!equals(oldClass, newClass) && !ancestorClasses.isEmpty()) {
+			List<String> oldTokens = tokenize(oldClass);
+			List<String> newTokens = tokenize(newClass);
+			for (String token : oldTokens) {
+				if (!newTokens.contains(token) && ancestorClasses.contains(token)) {
+					return true;
+				}
+			}
+			for (String token : newTokens) {
+				if (!oldTokens.contains(token) && ancestorClasses.contains(token)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean equals(String s1, String s2) {
+		return s1 == null ? s2 == null : s1.equals(s2);
+	}
+
+	/**
+	 * Splits a CSS class attribute the same way as
+	 * CSSClassConditionImpl#match.
+	 */
+	private static List<String> tokenize(String cssClass) {
+		List<String> tokens = new ArrayList<String>();
+		if (cssClass == null) {
+			return tokens;
+		}
+		int length = cssClass.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && Character.isSpaceChar(cssClass.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && !Character.isSpaceChar(cssClass.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				tokens.add(cssClass.substring(start, end));
+			}
+			start = end;
+		}
+		return tokens;
+	}
+
+	/**
+	 * Returns the simple selector the element under test has to match, i.e.
+	 * the rightmost part of a combinator chain.
+	 */
+	private static Selector getSubjectSelector(Selector selector) {
+		while (true) {
+			if (selector instanceof DescendantSelector) {
+				selector = ((DescendantSelector) selector).getSimpleSelector();
+			} else if (selector instanceof SiblingSelector) {
+				selector = ((SiblingSelector) selector).getSiblingSelector();
+			} else {
+				return selector;
+			}
+		}
+	}
+
+	private static String findConditionValue(Condition condition,
+			Class<? extends AttributeCondition> type) {
+		if (type.isInstance(condition)) {
+			return ((AttributeCondition) condition).getValue();
+		}
+		if (condition.getConditionType() == Condition.SAC_AND_CONDITION
+				&& condition instanceof CombinatorCondition) {
+			CombinatorCondition and = (CombinatorCondition) condition;
+			String value = findConditionValue(and.getFirstCondition(), type);
+			if (value != null) {
+				return value;
+			}
+			return findConditionValue(and.getSecondCondition(), type);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the selectors which may match the given element, in document
+	 * order. Every selector which does not appear in the result is guaranteed
+	 * not to match.
+	 */
+	List<Entry> getCandidates(Element elt) {
+		List<Entry> candidates = new ArrayList<Entry>(universalRules);
+		boolean merged = false;
+
+		String id = elt instanceof CSSStylableElement ? ((CSSStylableElement) elt)
+				.getCSSId() : elt.getAttribute("id");
+		if (id != null && !idRules.isEmpty()) {
+			merged |= addAll(candidates, idRules.get(id));
+		}
+
+		String cssClass = elt instanceof CSSStylableElement ? ((CSSStylableElement) elt)
+				.getCSSClass() : elt.getAttribute("class");
+		if (cssClass != null && cssClass.length() > 0 && !classRules.isEmpty()) {
+			merged |= addClassCandidates(candidates, cssClass);
+		}
+
+		// Same name resolution as CSSElementSelectorImpl#match
+		String name = elt.getPrefix() == null ? elt.getNodeName() : elt
+				.getLocalName();
+		if (name != null) {
+			merged |= addAll(candidates, typeRules.get(name));
+		}
+
+		if (merged) {
+			Collections.sort(candidates, DOCUMENT_ORDER);
+		}
+		return candidates;
+	}
+
+	private boolean addClassCandidates(List<Entry> candidates, String cssClass) {
+		boolean added = false;
+		List<String> tokens = tokenize(cssClass);
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (tokens.indexOf(token) == i) {
+				added |= addAll(candidates, classRules.get(token));
+			}
+		}
+		return added;
+	}
+
+	private static boolean addAll(List<Entry> candidates, List<Entry> entries) {
+		if (entries == null) {
+			return false;
+		}
+		candidates.addAll(entries);
+		return true;
+	}
+}
@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.e4.ui.css.core.dom.CSSProperty;
+import org.eclipse.e4.ui.css.core.dom.CSSPropertyList;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSAndConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSAttributeConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSBeginHyphenAttributeConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSIdConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSLangConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSOneOfAttributeConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSPseudoClassConditionImpl;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionFactory;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.LexicalUnit;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorFactory;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.css.sac.SimpleSelector;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.CSSValue;
+
+/**
+ * Writes parsed style sheets in a compact binary form, and reads them back
+ * without going through the SAC parser.
+ * <p>
+ * Selectors are stored as trees and rebuilt with the selector and condition
+ * factories of the engine. Property values are stored as the lexical units
+ * they were parsed from, so the values read back are the same as the parsed
+ * ones. Only style rules are supported: an {@link IOException} is thrown when
+ * a style sheet contains anything else, in which case it must be parsed from
+ * text. An {@link IOException} is also thrown when reading data which is
+ * corrupted, whatever the part of it that is.
+ * </p>
+ */
+public class CSSStyleSheetSerializer {
+
+	/**
+	 * Version of the binary form, to be incremented on incompatible changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final byte ELEMENT_SELECTOR = 1;
+	private static final byte PSEUDO_ELEMENT_SELECTOR = 2;
+	private static final byte CONDITIONAL_SELECTOR = 3;
+	private static final byte DESCENDANT_SELECTOR = 4;
+	private static final byte CHILD_SELECTOR = 5;
+	private static final byte DIRECT_ADJACENT_SELECTOR = 6;
+
+	private static final byte AND_CONDITION = 1;
+	private static final byte CLASS_CONDITION = 2;
+	private static final byte ID_CONDITION = 3;
+	private static final byte PSEUDO_CLASS_CONDITION = 4;
+	private static final byte LANG_CONDITION = 5;
+	private static final byte ATTRIBUTE_CONDITION = 6;
+	private static final byte ONE_OF_ATTRIBUTE_CONDITION = 7;
+	private static final byte BEGIN_HYPHEN_ATTRIBUTE_CONDITION = 8;
+
+	private final SelectorFactory selectorFactory;
+
+	private final ConditionFactory conditionFactory;
+
+	/**
+	 * @param selectorFactory
+	 *            the factory creating the selectors read back
+	 * @param conditionFactory
+	 *            the factory creating the conditions read back
+	 */
+	public CSSStyleSheetSerializer(SelectorFactory selectorFactory,
+			ConditionFactory conditionFactory) {
+		this.selectorFactory = selectorFactory;
+		this.conditionFactory = conditionFactory;
+	}
+
+	/*--------------- Write -----------------*/
+
+	public void write(CSSStyleSheet styleSheet, DataOutput out)
+			throws IOException {
+		out.writeInt(FORMAT_VERSION);
+		CSSRuleList rules = styleSheet.getCssRules();
+		out.writeInt(rules.getLength());
+		for (int i = 0; i < rules.getLength(); i++) {
+			CSSRule rule = rules.item(i);
+			if (!(rule instanceof CSSStyleRuleImpl)) {
+				throw new IOException("Unsupported rule type: " + rule.getType());
+			}
+			writeStyleRule((CSSStyleRuleImpl) rule, out);
+		}
+	}
+
+	private void writeStyleRule(CSSStyleRuleImpl rule, DataOutput out)
+			throws IOException {
+		SelectorList selectors = rule.getSelectorList();
+		out.writeInt(selectors.getLength());
+		for (int i = 0; i < selectors.getLength(); i++) {
+			writeSelector(selectors.item(i), out);
+		}
+		CSSPropertyList properties = ((CSSStyleDeclarationImpl) rule
+				.getStyle()).getCSSPropertyList();
+		out.writeInt(properties.getLength());
+		for (int i = 0; i < properties.getLength(); i++) {
+			CSSProperty property = properties.item(i);
+			out.writeUTF(property.getName());
+			out.writeBoolean(property.isImportant());
+			writeLexicalUnit(getLexicalUnit(property.getValue()), out);
+		}
+	}
+
+	private void writeSelector(Selector selector, DataOutput out)
+			throws IOException {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			ElementSelector elementSelector = (ElementSelector) selector;
+			out.writeByte(selector.getSelectorType() == Selector.SAC_ELEMENT_NODE_SELECTOR ? ELEMENT_SELECTOR
+					: PSEUDO_ELEMENT_SELECTOR);
+			writeString(elementSelector.getNamespaceURI(), out);
+			writeString(elementSelector.getLocalName(), out);
+			break;
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			ConditionalSelector conditionalSelector = (ConditionalSelector) selector;
+			out.writeByte(CONDITIONAL_SELECTOR);
+			writeSelector(conditionalSelector.getSimpleSelector(), out);
+			writeCondition(conditionalSelector.getCondition(), out);
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			DescendantSelector descendantSelector = (DescendantSelector) selector;
+			out.writeByte(selector.getSelectorType() == Selector.SAC_DESCENDANT_SELECTOR ? DESCENDANT_SELECTOR
+					: CHILD_SELECTOR);
+			writeSelector(descendantSelector.getAncestorSelector(), out);
+			writeSelector(descendantSelector.getSimpleSelector(), out);
+			break;
+		case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+			SiblingSelector siblingSelector = (SiblingSelector) selector;
+			out.writeByte(DIRECT_ADJACENT_SELECTOR);
+			out.writeShort(siblingSelector.getNodeType());
+			writeSelector(siblingSelector.getSelector(), out);
+			writeSelector(siblingSelector.getSiblingSelector(), out);
+			break;
+		default:
+			throw new IOException("Unsupported selector type: "
+					+ selector.getSelectorType());
+		}
+	}
+
+	private void writeCondition(Condition condition, DataOutput out)
+			throws IOException {
+		// the condition types are not reliable (class conditions report
+		// themselves as attribute conditions), so test the classes, most
+		// specific first
+		if (condition instanceof CSSAndConditionImpl) {
+			CombinatorCondition combinatorCondition = (CombinatorCondition) condition;
+			out.writeByte(AND_CONDITION);
+			writeCondition(combinatorCondition.getFirstCondition(), out);
+			writeCondition(combinatorCondition.getSecondCondition(), out);
+		} else if (condition instanceof CSSClassConditionImpl) {
+			out.writeByte(CLASS_CONDITION);
+			writeString(((AttributeCondition) condition).getValue(), out);
+		} else if (condition instanceof CSSIdConditionImpl) {
+			out.writeByte(ID_CONDITION);
+			writeString(((AttributeCondition) condition).getValue(), out);
+		} else if (condition instanceof CSSPseudoClassConditionImpl) {
+			AttributeCondition attributeCondition = (AttributeCondition) condition;
+			out.writeByte(PSEUDO_CLASS_CONDITION);
+			writeString(attributeCondition.getNamespaceURI(), out);
+			writeString(attributeCondition.getValue(), out);
+		} else if (condition instanceof CSSLangConditionImpl) {
+			out.writeByte(LANG_CONDITION);
+			writeString(((CSSLangConditionImpl) condition).getLang(), out);
+		} else if (condition instanceof CSSAttributeConditionImpl) {
+			AttributeCondition attributeCondition = (AttributeCondition) condition;
+			if (condition instanceof CSSOneOfAttributeConditionImpl) {
+				out.writeByte(ONE_OF_ATTRIBUTE_CONDITION);
+			} else if (condition instanceof CSSBeginHyphenAttributeConditionImpl) {
+				out.writeByte(BEGIN_HYPHEN_ATTRIBUTE_CONDITION);
+			} else if (condition.getClass() == CSSAttributeConditionImpl.class) {
+				out.writeByte(ATTRIBUTE_CONDITION);
+			} else {
+				throw new IOException("Unsupported condition: "
+						+ condition.getClass().getName());
+			}
+			writeString(attributeCondition.getLocalName(), out);
+			writeString(attributeCondition.getNamespaceURI(), out);
+			out.writeBoolean(attributeCondition.getSpecified());
+			writeString(attributeCondition.getValue(), out);
+		} else {
+			throw new IOException("Unsupported condition: "
+					+ condition.getClass().getName());
+		}
+	}
+
+	private static LexicalUnit getLexicalUnit(CSSValue value)
+			throws IOException {
+		if (value instanceof Measure) {
+			return ((Measure) value).value;
+		} else if (value instanceof RGBColorImpl) {
+			return ((RGBColorImpl) value).lexicalUnit;
+		} else if (value instanceof CSSValueListImpl) {
+			return ((CSSValueListImpl) value).lexicalUnit;
+		}
+		throw new IOException("Unsupported value: "
+				+ value.getClass().getName());
+	}
+
+	private static void writeLexicalUnit(LexicalUnit unit, DataOutput out)
+			throws IOException {
+		int length = 0;
+		for (LexicalUnit u = unit; u != null; u = u.getNextLexicalUnit()) {
+			length++;
+		}
+		out.writeInt(length);
+		for (LexicalUnit u = unit; u != null; u = u.getNextLexicalUnit()) {
+			short type = u.getLexicalUnitType();
+			out.writeShort(type);
+			switch (getKind(type)) {
+			case INTEGER:
+				out.writeInt(u.getIntegerValue());
+				break;
+			case REAL:
+				out.writeFloat(u.getFloatValue());
+				break;
+			case DIMENSION:
+				out.writeFloat(u.getFloatValue());
+				writeString(u.getDimensionUnitText(), out);
+				break;
+			case STRING:
+				writeString(u.getStringValue(), out);
+				break;
+			case FUNCTION:
+				writeString(u.getFunctionName(), out);
+				writeLexicalUnit(u.getParameters(), out);
+				break;
+			case NONE:
+				break;
+			default:
+				throw new IOException("Unsupported lexical unit type: " + type);
+			}
+		}
+	}
+
+	private static void writeString(String s, DataOutput out)
+			throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	/*--------------- Read -----------------*/
+
+	public CSSStyleSheet read(DataInput in) throws IOException {
+		int version = in.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported format version: " + version);
+		}
+		CSSStyleSheetImpl styleSheet = new CSSStyleSheetImpl();
+		CSSRuleListImpl rules = new CSSRuleListImpl();
+		styleSheet.setRuleList(rules);
+		try {
+			int length = readLength(in);
+			for (int i = 0; i < length; i++) {
+				rules.add(readStyleRule(styleSheet, in));
+			}
+		} catch (RuntimeException e) {
+			// data passing the checks below, but rejected by the factories or
+			// the values
+			throw new IOException("Corrupted style sheet", e);
+		}
+		return styleSheet;
+	}
+
+	private CSSStyleRuleImpl readStyleRule(CSSStyleSheet styleSheet,
+			DataInput in) throws IOException {
+		int length = readLength(in);
+		// not sized by the length, which may be corrupted
+		List<Selector> selectors = new ArrayList<Selector>();
+		for (int i = 0; i < length; i++) {
+			selectors.add(readSelector(in));
+		}
+		CSSStyleRuleImpl rule = new CSSStyleRuleImpl(styleSheet, null,
+				new SelectorListImpl(selectors));
+		CSSStyleDeclarationImpl style = new CSSStyleDeclarationImpl(rule);
+		rule.setStyle(style);
+		length = readLength(in);
+		for (int i = 0; i < length; i++) {
+			String name = in.readUTF();
+			boolean important = in.readBoolean();
+			LexicalUnit value = readLexicalUnit(in);
+			if (value == null) {
+				throw new IOException("Corrupted value of property: " + name);
+			}
+			style.addProperty(new CSSPropertyImpl(name, CSSValueFactory
+					.newValue(value), important));
+		}
+		return rule;
+	}
+
+	private Selector readSelector(DataInput in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case ELEMENT_SELECTOR:
+			return selectorFactory.createElementSelector(readString(in),
+					readString(in));
+		case PSEUDO_ELEMENT_SELECTOR:
+			return selectorFactory.createPseudoElementSelector(readString(in),
+					readString(in));
+		case CONDITIONAL_SELECTOR:
+			return selectorFactory.createConditionalSelector(
+					readSimpleSelector(in), readCondition(in));
+		case DESCENDANT_SELECTOR:
+			return selectorFactory.createDescendantSelector(readSelector(in),
+					readSimpleSelector(in));
+		case CHILD_SELECTOR:
+			return selectorFactory.createChildSelector(readSelector(in),
+					readSimpleSelector(in));
+		case DIRECT_ADJACENT_SELECTOR:
+			return selectorFactory.createDirectAdjacentSelector(
+					in.readShort(), readSelector(in), readSimpleSelector(in));
+		}
+		throw new IOException("Corrupted selector: " + type);
+	}
+
+	private SimpleSelector readSimpleSelector(DataInput in) throws IOException {
+		Selector selector = readSelector(in);
+		if (!(selector instanceof SimpleSelector)) {
+			throw new IOException("Corrupted simple selector: "
+					+ selector.getSelectorType());
+		}
+		return (SimpleSelector) selector;
+	}
+
+	private Condition readCondition(DataInput in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case AND_CONDITION:
+			return conditionFactory.createAndCondition(readCondition(in),
+					readCondition(in));
+		case CLASS_CONDITION:
+			return conditionFactory.createClassCondition(null, readString(in));
+		case ID_CONDITION:
+			return conditionFactory.createIdCondition(readString(in));
+		case PSEUDO_CLASS_CONDITION:
+			return conditionFactory.createPseudoClassCondition(readString(in),
+					readString(in));
+		case LANG_CONDITION:
+			return conditionFactory.createLangCondition(readString(in));
+		case ATTRIBUTE_CONDITION:
+			return conditionFactory.createAttributeCondition(readString(in),
+					readString(in), in.readBoolean(), readString(in));
+		case ONE_OF_ATTRIBUTE_CONDITION:
+			return conditionFactory.createOneOfAttributeCondition(
+					readString(in), readString(in), in.readBoolean(),
+					readString(in));
+		case BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			return conditionFactory.createBeginHyphenAttributeCondition(
+					readString(in), readString(in), in.readBoolean(),
+					readString(in));
+		}
+		throw new IOException("Corrupted condition: " + type);
+	}
+
+	private static LexicalUnit readLexicalUnit(DataInput in)
+			throws IOException {
+		int length = readLength(in);
+		StoredLexicalUnit first = null;
+		StoredLexicalUnit previous = null;
+		for (int i = 0; i < length; i++) {
+			StoredLexicalUnit unit = new StoredLexicalUnit(in.readShort());
+			switch (getKind(unit.type)) {
+			case INTEGER:
+				unit.integerValue = in.readInt();
+				break;
+			case REAL:
+				unit.floatValue = in.readFloat();
+				break;
+			case DIMENSION:
+				unit.floatValue = in.readFloat();
+				unit.dimensionUnitText = readString(in);
+				break;
+			case STRING:
+				unit.stringValue = readString(in);
+				break;
+			case FUNCTION:
+				unit.functionName = readString(in);
+				unit.parameters = readLexicalUnit(in);
+				break;
+			case NONE:
+				break;
+			default:
+				throw new IOException("Corrupted lexical unit: " + unit.type);
+			}
+			if (previous == null) {
+				first = unit;
+			} else {
+				previous.next = unit;
+				unit.previous = previous;
+			}
+			previous = unit;
+		}
+		return first;
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static int readLength(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Corrupted length: " + length);
+		}
+		return length;
+	}
+
+	/*--------------- Lexical units -----------------*/
+
+	private static final int UNSUPPORTED = 0;
+	private static final int NONE = 1;
+	private static final int INTEGER = 2;
+	private static final int REAL = 3;
+	private static final int DIMENSION = 4;
+	private static final int STRING = 5;
+	private static final int FUNCTION = 6;
+
+	/**
+	 * Returns which of the values of a lexical unit of the given type are
+	 * meaningful.
+	 */
+	private static int getKind(short lexicalUnitType) {
+		switch (lexicalUnitType) {
+		case LexicalUnit.SAC_OPERATOR_COMMA:
+		case LexicalUnit.SAC_OPERATOR_PLUS:
+		case LexicalUnit.SAC_OPERATOR_MINUS:
+		case LexicalUnit.SAC_OPERATOR_MULTIPLY:
+		case LexicalUnit.SAC_OPERATOR_SLASH:
+		case LexicalUnit.SAC_OPERATOR_MOD:
+		case LexicalUnit.SAC_OPERATOR_EXP:
+		case LexicalUnit.SAC_OPERATOR_LT:
+		case LexicalUnit.SAC_OPERATOR_GT:
+		case LexicalUnit.SAC_OPERATOR_LE:
+		case LexicalUnit.SAC_OPERATOR_GE:
+		case LexicalUnit.SAC_OPERATOR_TILDE:
+		case LexicalUnit.SAC_INHERIT:
+			return NONE;
+		case LexicalUnit.SAC_INTEGER:
+			return INTEGER;
+		case LexicalUnit.SAC_REAL:
+			return REAL;
+		case LexicalUnit.SAC_EM:
+		case LexicalUnit.SAC_EX:
+		case LexicalUnit.SAC_PIXEL:
+		case LexicalUnit.SAC_INCH:
+		case LexicalUnit.SAC_CENTIMETER:
+		case LexicalUnit.SAC_MILLIMETER:
+		case LexicalUnit.SAC_POINT:
+		case LexicalUnit.SAC_PICA:
+		case LexicalUnit.SAC_PERCENTAGE:
+		case LexicalUnit.SAC_DEGREE:
+		case LexicalUnit.SAC_GRADIAN:
+		case LexicalUnit.SAC_RADIAN:
+		case LexicalUnit.SAC_MILLISECOND:
+		case LexicalUnit.SAC_SECOND:
+		case LexicalUnit.SAC_HERTZ:
+		case LexicalUnit.SAC_KILOHERTZ:
+		case LexicalUnit.SAC_DIMENSION:
+			return DIMENSION;
+		case LexicalUnit.SAC_URI:
+		case LexicalUnit.SAC_IDENT:
+		case LexicalUnit.SAC_STRING_VALUE:
+		case LexicalUnit.SAC_ATTR:
+		case LexicalUnit.SAC_UNICODERANGE:
+			return STRING;
+		case LexicalUnit.SAC_RGBCOLOR:
+		case LexicalUnit.SAC_COUNTER_FUNCTION:
+		case LexicalUnit.SAC_COUNTERS_FUNCTION:
+		case LexicalUnit.SAC_RECT_FUNCTION:
+		case LexicalUnit.SAC_FUNCTION:
+			return FUNCTION;
+		}
+		return UNSUPPORTED;
+	}
+
+	/**
+	 * A lexical unit read back from the binary form.
+	 */
+	private static class StoredLexicalUnit implements LexicalUnit {
+
+		final short type;
+		StoredLexicalUnit next;
+		StoredLexicalUnit previous;
+		int integerValue;
+		float floatValue;
+		String dimensionUnitText;
+		String stringValue;
+		String functionName;
+		LexicalUnit parameters;
+
+		StoredLexicalUnit(short type) {
+			this.type = type;
+		}
+
+		@Override
+		public short getLexicalUnitType() {
+			return type;
+		}
+
+		@Override
+		public LexicalUnit getNextLexicalUnit() {
+			return next;
+		}
+
+		@Override
+		public LexicalUnit getPreviousLexicalUnit() {
+			return previous;
+		}
+
+		@Override
+		public int getIntegerValue() {
+			return integerValue;
+		}
+
+		@Override
+		public float getFloatValue() {
+			return floatValue;
+		}
+
+		@Override
+		public String getDimensionUnitText() {
+			return dimensionUnitText;
+		}
+
+		@Override
+		public String getFunctionName() {
+			return functionName;
+		}
+
+		@Override
+		public LexicalUnit getParameters() {
+			return parameters;
+		}
+
+		@Override
+		public String getStringValue() {
+			return stringValue;
+		}
+
+		@Override
+		public LexicalUnit getSubValues() {
+			return null;
+		}
+	}
+
+	/**
+	 * A fixed list of selectors read back from the binary form.
+	 */
+	private static class SelectorListImpl implements SelectorList {
+
+		final Selector[] selectors;
+
+		SelectorListImpl(List<Selector> selectors) {
+			this.selectors = selectors.toArray(new Selector[selectors.size()]);
+		}
+
+		@Override
+		public int getLength() {
+			return selectors.length;
+		}
+
+		@Override
+		public Selector item(int index) {
+			return selectors[index];
+		}
+	}
+}
@@ -22,7 +22,10 @@ public class CSSValueListImpl extends AbstractCSSNode implements CSSValueList {
 
 	List<CSSValue> values;
 
+	LexicalUnit lexicalUnit;
+
 	public CSSValueListImpl(LexicalUnit parsePropertyValue) {
+		lexicalUnit = parsePropertyValue;
 		values = new ArrayList<CSSValue>();
 
 		LexicalUnit unit = parsePropertyValue;
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSStyleDeclaration;
+
+/**
+ * Memoizes the styles computed by {@link ViewCSSImpl}, shared between
+ * structurally equivalent elements.
+ * <p>
+ * The signature of an element is made of the name, namespace, id and CSS
+ * class, the values of the attributes and the state of the pseudo classes
+ * tested by the style sheets, of the element and of each of its ancestors.
+ * Elements with the same signature are matched by the same selectors, so
+ * sibling widgets of the same kind only go through the cascade once.
+ * </p>
+ * <p>
+ * Between {@link #startStyling()} and {@link #endStyling()}, the signature of
+ * each looked up element is kept, so the lookup of a child only reads the state
+ * of the child itself and reuses the signature of its parent. The CSS engine
+ * styles a tree top-down within such a run, so ancestors are always looked up
+ * before their descendants. Outside of a run, the ancestors are walked on every
+ * lookup, as elements may have changed since they were styled.
+ * </p>
+ * <p>
+ * Cached styles are dropped when the {@link CSSRuleIndex} they were computed
+ * with is replaced, that is when style sheets are added or removed, and on
+ * {@link #clear()}.
+ * </p>
+ * <p>
+ * The cache is thread-safe; styles are computed outside of its lock.
+ * </p>
+ */
+public class ComputedStyleCache {
+
+	/**
+	 * Upper bound of the number of cached styles and signatures; the cache is
+	 * emptied when it is reached.
+	 */
+	private static final int MAX_SIZE = 8192;
+
+	/**
+	 * The signature of an element, linked to the signature of its parent.
+	 * Signatures of elements are interned, so parents are compared by
+	 * identity.
+	 */
+	private static final class Signature {
+		final Signature parent;
+		final Object[] values;
+		private final int hash;
+
+		Signature(Signature parent, Object[] values) {
+			this.parent = parent;
+			this.values = values;
+			this.hash = System.identityHashCode(parent) * 31
+					+ Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return hash == other.hash && parent == other.parent
+					&& Arrays.equals(values, other.values);
+		}
+	}
+
+	private final Map<Signature, CSSStyleDeclaration> styles = new HashMap<Signature, CSSStyleDeclaration>();
+
+	private final Map<Signature, Signature> signatures = new HashMap<Signature, Signature>();
+
+	/**
+	 * The signatures of the elements looked up in the current styling run.
+	 */
+	private final Map<Element, Signature> elementSignatures = new HashMap<Element, Signature>();
+
+	private int stylingDepth;
+
+	private CSSRuleIndex ruleIndex;
+
+	private long hitCount;
+
+	private long missCount;
+
+	/**
+	 * Returns the style of the given element, either from the cache or
+	 * computed by <code>viewCSS</code> against <code>ruleIndex</code>.
+	 */
+	CSSStyleDeclaration getComputedStyle(ViewCSSImpl viewCSS,
+			CSSRuleIndex ruleIndex, Element elt, String pseudoElt) {
+		Signature key;
+		synchronized (this) {
+			if (this.ruleIndex != ruleIndex) {
+				clear();
+				this.ruleIndex = ruleIndex;
+			}
+			// the pseudo element is not interned, the element signature is
+			key = new Signature(createSignature(elt),
+					new Object[] { pseudoElt });
+			CSSStyleDeclaration style = styles.get(key);
+			if (style != null || styles.containsKey(key)) {
+				hitCount++;
+				return style;
+			}
+			missCount++;
+		}
+		CSSStyleDeclaration style = viewCSS.getComputedStyle(ruleIndex, elt,
+				pseudoElt);
+		synchronized (this) {
+			if (this.ruleIndex == ruleIndex) {
+				if (styles.size() >= MAX_SIZE) {
+					styles.clear();
+				}
+				styles.put(key, style);
+			}
+		}
+		return style;
+	}
+
+	/**
+	 * Marks the start of a styling run, in which elements are not modified and
+	 * are looked up after their ancestors. Runs may be nested; every call must
+	 * be followed by a call to {@link #endStyling()}.
+	 */
+	public synchronized void startStyling() {
+		stylingDepth++;
+	}
+
+	/**
+	 * Marks the end of a styling run started by {@link #startStyling()}.
+	 */
+	public synchronized void endStyling() {
+		if (--stylingDepth == 0) {
+			elementSignatures.clear();
+		}
+	}
+
+	/**
+	 * Returns the signature of the given ancestor, kept from the current
+	 * styling run if possible.
+	 */
+	private Signature getSignature(Element elt) {
+		Signature signature = elementSignatures.get(elt);
+		return signature != null ? signature : createSignature(elt);
+	}
+
+	/**
+	 * Returns the interned signature of the given element, made of its own
+	 * state and the signature of its parent, and keeps it for the children of
+	 * the element during a styling run.
+	 */
+	private Signature createSignature(Element elt) {
+		Node parentNode = elt.getParentNode();
+		Signature parent = null;
+		if (parentNode instanceof Element) {
+			parent = getSignature((Element) parentNode);
+		}
+		Signature signature = new Signature(parent, createValues(elt));
+		Signature interned = signatures.get(signature);
+		if (interned == null) {
+			if (signatures.size() >= MAX_SIZE) {
+				// signatures which are still kept for elements then differ
+				// from new equal ones, which only costs cache misses
+				signatures.clear();
+			}
+			signatures.put(signature, signature);
+			interned = signature;
+		}
+		if (stylingDepth > 0) {
+			elementSignatures.put(elt, interned);
+		}
+		return interned;
+	}
+
+	private Object[] createValues(Element e) {
+		Set<String> attributeNames = ruleIndex.getAttributeNames();
+		Set<String> pseudoClasses = ruleIndex.getPseudoClasses();
+		Object[] values = new Object[4 + pseudoClasses.size()
+				+ attributeNames.size()];
+		int i = 0;
+		values[i++] = e.getPrefix() == null ? e.getNodeName() : e
+				.getLocalName();
+		values[i++] = e.getNamespaceURI();
+		if (e instanceof CSSStylableElement) {
+			CSSStylableElement stylableElement = (CSSStylableElement) e;
+			values[i++] = stylableElement.getCSSId();
+			values[i++] = stylableElement.getCSSClass();
+			for (String pseudoClass : pseudoClasses) {
+				// pseudo classes are tested with the element as well as with
+				// its static pseudo instances
+				int state = stylableElement.isPseudoInstanceOf(pseudoClass) ? 1 : 0;
+				if (stylableElement.isStaticPseudoInstance(pseudoClass)) {
+					state |= 2;
+				}
+				values[i++] = Integer.valueOf(state);
+			}
+		} else {
+			values[i++] = e.getAttribute("id");
+			values[i++] = e.getAttribute("class");
+			i += pseudoClasses.size();
+		}
+		for (String attributeName : attributeNames) {
+			values[i++] = e.getAttribute(attributeName);
+		}
+		return values;
+	}
+
+	/**
+	 * Drops all the cached styles. The hit and miss counts are kept.
+	 */
+	public synchronized void clear() {
+		styles.clear();
+		signatures.clear();
+		elementSignatures.clear();
+		ruleIndex = null;
+	}
+
+	/**
+	 * Returns the number of cached styles.
+	 */
+	public synchronized int size() {
+		return styles.size();
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of lookups which had to compute the style.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the ratio of lookups answered from the cache, between 0 and 1.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * Resets the hit and miss counts.
+	 */
+	public synchronized void resetCounters() {
+		hitCount = 0;
+		missCount = 0;
+	}
+}
@@ -43,6 +43,12 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	 */
 	private Map styleDeclarationMap = null;
 
+	/**
+	 * Index of the style rules, built lazily and discarded whenever the style
+	 * sheets change.
+	 */
+	private CSSRuleIndex ruleIndex = null;
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.w3c.dom.stylesheets.DocumentStyle#getStyleSheets()
@@ -68,6 +74,7 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	@Override
 	public void addStyleSheet(StyleSheet styleSheet) {
 		styleSheetList.addStyleSheet(styleSheet);
+		this.ruleIndex = null;
 	}
 
 	/*
@@ -78,6 +85,18 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	public void removeAllStyleSheets() {
 		styleSheetList.removeAllStyleSheets();
 		this.styleDeclarationMap = null;
+		this.ruleIndex = null;
+	}
+
+	/**
+	 * Returns the index of the style rules of all the style sheets of this
+	 * document. The index is rebuilt after style sheets are added or removed.
+	 */
+	public CSSRuleIndex getRuleIndex() {
+		if (ruleIndex == null) {
+			ruleIndex = new CSSRuleIndex(styleSheetList);
+		}
+		return ruleIndex;
 	}
 
 	@Override
@@ -23,7 +23,10 @@ public class RGBColorImpl extends CSSValueImpl implements RGBColor {
 	private CSSPrimitiveValue green;
 	private CSSPrimitiveValue blue;
 
+	LexicalUnit lexicalUnit;
+
 	public RGBColorImpl(LexicalUnit lexicalUnit) {
+		this.lexicalUnit = lexicalUnit;
 		LexicalUnit nextUnit = lexicalUnit.getParameters();
 		red = new Measure(nextUnit);
 		nextUnit = nextUnit.getNextLexicalUnit().getNextLexicalUnit();
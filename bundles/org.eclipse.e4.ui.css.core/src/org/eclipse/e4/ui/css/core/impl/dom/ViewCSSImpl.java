@@ -15,19 +15,12 @@ package org.eclipse.e4.ui.css.core.impl.dom;
 
 import java.util.ArrayList;
 import java.util.List;
-import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
 import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
-import org.w3c.css.sac.Selector;
-import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
 import org.w3c.dom.css.CSSRule;
-import org.w3c.dom.css.CSSRuleList;
 import org.w3c.dom.css.CSSStyleDeclaration;
-import org.w3c.dom.css.CSSStyleRule;
-import org.w3c.dom.css.CSSStyleSheet;
 import org.w3c.dom.css.DocumentCSS;
 import org.w3c.dom.css.ViewCSS;
-import org.w3c.dom.stylesheets.StyleSheetList;
 import org.w3c.dom.views.DocumentView;
 
 
@@ -38,6 +31,8 @@ public class ViewCSSImpl implements ViewCSS {
 
 	protected DocumentCSS documentCSS;
 
+	private ComputedStyleCache computedStyleCache = new ComputedStyleCache();
+
 	/**
 	 * Creates a new ViewCSS.
 	 */
@@ -59,70 +54,69 @@ public class ViewCSSImpl implements ViewCSS {
 	 */
 	@Override
 	public CSSStyleDeclaration getComputedStyle(Element elt, String pseudoElt) {
-		// Loop over the CSS styleSheet list
-		StyleSheetList styleSheetList = documentCSS.getStyleSheets();
-		int l = styleSheetList.getLength();
+		CSSRuleIndex ruleIndex = getRuleIndex();
+		// Only the index of a DocumentCSSImpl lives long enough to be cached
+		if (computedStyleCache != null && documentCSS instanceof DocumentCSSImpl
+				&& ruleIndex.isCacheable()) {
+			return computedStyleCache.getComputedStyle(this, ruleIndex, elt, pseudoElt);
+		}
+		return getComputedStyle(ruleIndex, elt, pseudoElt);
+	}
 
-		List<CSSRule> combinedRuleList = new ArrayList<CSSRule>();
-		for (int i = 0; i < l; i++) {
-			CSSStyleSheet styleSheet = (CSSStyleSheet) styleSheetList.item(i);
+	public CSSStyleDeclaration getComputedStyle(List<CSSRule> ruleList, Element elt, String pseudoElt) {
+		return getComputedStyle(new CSSRuleIndex(ruleList), elt, pseudoElt);
+	}
 
-			CSSRuleList styleSheetRules = styleSheet.getCssRules();
-			int rulesSize = styleSheetRules.getLength();
-			for (int j = 0; j < rulesSize; j++) {
-				combinedRuleList.add(styleSheetRules.item(j));
-			}
-		}
+	/**
+	 * Returns the cache of computed styles, or <code>null</code> if computed
+	 * styles are not cached.
+	 */
+	public ComputedStyleCache getComputedStyleCache() {
+		return computedStyleCache;
+	}
 
-		CSSStyleDeclaration styleDeclaration = getComputedStyle(combinedRuleList, elt, pseudoElt);
-		return styleDeclaration;
+	/**
+	 * Sets the cache of computed styles; <code>null</code> disables caching.
+	 */
+	public void setComputedStyleCache(ComputedStyleCache computedStyleCache) {
+		this.computedStyleCache = computedStyleCache;
 	}
 
-	public CSSStyleDeclaration getComputedStyle(List<CSSRule> ruleList, Element elt, String pseudoElt) {
+	/**
+	 * Returns the rule index of the current style sheets. The index is shared
+	 * with the {@link DocumentCSSImpl} which rebuilds it when its style sheets
+	 * change; other documents get a fresh index on every call.
+	 */
+	protected CSSRuleIndex getRuleIndex() {
+		if (documentCSS instanceof DocumentCSSImpl) {
+			return ((DocumentCSSImpl) documentCSS).getRuleIndex();
+		}
+		return new CSSRuleIndex(documentCSS.getStyleSheets());
+	}
+
+	protected CSSStyleDeclaration getComputedStyle(CSSRuleIndex ruleIndex, Element elt, String pseudoElt) {
 		List<StyleWrapper> styleDeclarations = null;
 		StyleWrapper firstStyleDeclaration = null;
-		int length = ruleList.size();
 		int position = 0;
-		for (int i = 0; i < length; i++) {
-			CSSRule rule = ruleList.get(i);
-			if (rule.getType() == CSSRule.STYLE_RULE) {
-				CSSStyleRule styleRule = (CSSStyleRule) rule;
-				if (rule instanceof ExtendedCSSRule) {
-					ExtendedCSSRule r = (ExtendedCSSRule) rule;
-					SelectorList selectorList = r.getSelectorList();
-					// Loop for SelectorList
-					int l = selectorList.getLength();
-					for (int j = 0; j < l; j++) {
-						Selector selector = selectorList.item(j);
-						if (selector instanceof ExtendedSelector) {
-							ExtendedSelector extendedSelector = (ExtendedSelector) selector;
-							if (extendedSelector.match(elt, pseudoElt)) {
-								CSSStyleDeclaration style = styleRule
-										.getStyle();
-								int specificity = extendedSelector
-										.getSpecificity();
-								StyleWrapper wrapper = new StyleWrapper(style,
-										specificity, position++);
-								if (firstStyleDeclaration == null) {
-									firstStyleDeclaration = wrapper;
-								} else {
-									// There is several Style Declarations which
-									// match the current element
-									if (styleDeclarations == null) {
-										styleDeclarations = new ArrayList<StyleWrapper>();
-										styleDeclarations.add(firstStyleDeclaration);
-									}
-									styleDeclarations.add(wrapper);
-								}
-							}
-						} else {
-							// TODO : selector is not batik ExtendedSelector,
-							// Manage this case...
-						}
-					}
+		// Only the selectors indexed under the id, classes and name of the
+		// element (plus the unkeyed ones) can match, in document order
+		for (CSSRuleIndex.Entry candidate : ruleIndex.getCandidates(elt)) {
+			ExtendedSelector extendedSelector = candidate.selector;
+			if (extendedSelector.match(elt, pseudoElt)) {
+				CSSStyleDeclaration style = candidate.rule.getStyle();
+				int specificity = extendedSelector.getSpecificity();
+				StyleWrapper wrapper = new StyleWrapper(style, specificity,
+						position++);
+				if (firstStyleDeclaration == null) {
+					firstStyleDeclaration = wrapper;
 				} else {
-					// TODO : CSS rule is not ExtendedCSSRule,
-					// Manage this case...
+					// There is several Style Declarations which
+					// match the current element
+					if (styleDeclarations == null) {
+						styleDeclarations = new ArrayList<StyleWrapper>();
+						styleDeclarations.add(firstStyleDeclaration);
+					}
+					styleDeclarations.add(wrapper);
 				}
 			}
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 Angelo Zerr and others.
+ * Copyright (c) 2008, 2015 Angelo Zerr and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,9 +15,12 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.css.core.impl.engine;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.net.URL;
@@ -47,8 +50,11 @@ import org.eclipse.e4.ui.css.core.engine.CSSElementContext;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
 import org.eclipse.e4.ui.css.core.engine.CSSErrorHandler;
 import org.eclipse.e4.ui.css.core.exceptions.UnsupportedPropertyException;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSRuleIndex;
 import org.eclipse.e4.ui.css.core.impl.dom.CSSRuleListImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetSerializer;
+import org.eclipse.e4.ui.css.core.impl.dom.ComputedStyleCache;
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
@@ -132,12 +138,29 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	private Map<String, String> currentCSSPropertiesApplyed;
 
+	/**
+	 * Key of the {@link CSSElementContext} data holding the CSS text of the
+	 * values last applied to an element, by property and pseudo instance.
+	 */
+	private static final String APPLIED_VALUES_KEY = "org.eclipse.e4.ui.css.core.appliedValues"; //$NON-NLS-1$
+
+	/**
+	 * True while restyling elements whose property values were already
+	 * applied: handlers are not called for values which did not change.
+	 */
+	private boolean skipUnchangedValues;
+
 	private boolean throwError;
 
 	private Map<Object, ICSSValueConverter> valueConverters = null;
 
 	private boolean parseImport;
 
+	/**
+	 * The URLs of the style sheets imported by the last parsed style sheet.
+	 */
+	private List<URL> importedURLs = new ArrayList<URL>();
+
 	private ResourceRegistryKeyFactory keyFactory;
 
 	public AbstractCSSEngine() {
@@ -170,6 +193,9 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 	public StyleSheet parseStyleSheet(InputSource source) throws IOException {
 		// Check that CharacterStream or ByteStream is not null
 		checkInputSource(source);
+		if (!parseImport) {
+			importedURLs = new ArrayList<URL>();
+		}
 		CSSParser parser = makeCSSParser();
 		CSSStyleSheet styleSheet = parser.parseStyleSheet(source);
 
@@ -204,6 +230,7 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 					}
 				}
 			}
+			importedURLs.add(url);
 			InputStream stream = null;
 			try {
 				stream = url.openStream();
@@ -238,6 +265,71 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		return s;
 	}
 
+	/**
+	 * Returns the URLs of the style sheets imported by the style sheet last
+	 * parsed with {@link #parseStyleSheet(InputSource)}, including the
+	 * imports of the imported style sheets.
+	 */
+	public List<URL> getImportedStyleSheetURLs() {
+		return importedURLs;
+	}
+
+	/**
+	 * Writes a style sheet returned by {@link #parseStyleSheet(InputSource)}
+	 * in a binary form, which {@link #readStyleSheet(InputStream)} loads
+	 * faster than the style sheet text.
+	 *
+	 * @throws IOException
+	 *             if the style sheet cannot be written in binary form, or
+	 *             when writing to <code>stream</code> fails
+	 */
+	public void writeStyleSheet(StyleSheet styleSheet, OutputStream stream)
+			throws IOException {
+		CSSStyleSheetSerializer serializer = makeStyleSheetSerializer();
+		if (serializer == null) {
+			throw new IOException(
+					"The style sheets of this engine cannot be written in binary form");
+		}
+		DataOutputStream out = new DataOutputStream(stream);
+		serializer.write((CSSStyleSheet) styleSheet, out);
+		out.flush();
+	}
+
+	/**
+	 * Reads a style sheet written by
+	 * {@link #writeStyleSheet(StyleSheet, OutputStream)} and adds it to the
+	 * document, like {@link #parseStyleSheet(InputSource)} does.
+	 *
+	 * @throws IOException
+	 *             if the binary form is corrupted or was written by an
+	 *             incompatible version
+	 */
+	public StyleSheet readStyleSheet(InputStream stream) throws IOException {
+		CSSStyleSheetSerializer serializer = makeStyleSheetSerializer();
+		if (serializer == null) {
+			throw new IOException(
+					"The style sheets of this engine cannot be read from binary form");
+		}
+		CSSStyleSheet styleSheet = serializer.read(new DataInputStream(stream));
+		documentCSS.addStyleSheet(styleSheet);
+		return styleSheet;
+	}
+
+	/**
+	 * Returns the serializer of the style sheets in binary form, creating the
+	 * selectors and conditions with the factories of the parser; or
+	 * <code>null</code> if the parser uses its default factories.
+	 */
+	protected CSSStyleSheetSerializer makeStyleSheetSerializer() {
+		CSSParser parser = makeCSSParser();
+		if (parser.getSelectorFactory() == null
+				|| parser.getConditionFactory() == null) {
+			return null;
+		}
+		return new CSSStyleSheetSerializer(parser.getSelectorFactory(),
+				parser.getConditionFactory());
+	}
+
 	/**
 	 * Return true if <code>source</code> is valid and false otherwise.
 	 *
@@ -357,6 +449,25 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 	@Override
 	public void applyStyles(Object element, boolean applyStylesToChildNodes,
 			boolean computeDefaultStyle) {
+		// Children are styled after their parent in the same run, so the cache
+		// can reuse the signature of the parent
+		ComputedStyleCache computedStyleCache = getComputedStyleCache();
+		if (computedStyleCache == null) {
+			internalApplyStyles(element, applyStylesToChildNodes,
+					computeDefaultStyle);
+			return;
+		}
+		computedStyleCache.startStyling();
+		try {
+			internalApplyStyles(element, applyStylesToChildNodes,
+					computeDefaultStyle);
+		} finally {
+			computedStyleCache.endStyling();
+		}
+	}
+
+	private void internalApplyStyles(Object element,
+			boolean applyStylesToChildNodes, boolean computeDefaultStyle) {
 		Element elt = getElement(element);
 		if (elt != null) {
 			if (!isVisible(elt)) {
@@ -436,6 +547,59 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	}
 
+	/**
+	 * Restyles an element after its CSS class and/or id changed. This does the
+	 * same as {@link #applyStyles(Object, boolean)}, except that the
+	 * descendants of the element are only restyled if the style sheets select
+	 * elements by the changed classes or ids of an ancestor.
+	 * <p>
+	 * All the values are applied again, even the ones which did not change,
+	 * as the element may have been modified by other means since it was last
+	 * styled.
+	 * </p>
+	 *
+	 * @param element
+	 *            the element or widget whose class or id changed
+	 * @param oldCSSClass
+	 *            the CSS class of the element before the change
+	 * @param oldCSSId
+	 *            the CSS id of the element before the change
+	 */
+	public void restyle(Object element, String oldCSSClass, String oldCSSId) {
+		Element elt = getElement(element);
+		if (elt == null) {
+			return;
+		}
+		boolean applyStylesToChildNodes = true;
+		if (elt instanceof CSSStylableElement
+				&& documentCSS instanceof DocumentCSSImpl) {
+			CSSStylableElement stylableElement = (CSSStylableElement) elt;
+			CSSRuleIndex ruleIndex = ((DocumentCSSImpl) documentCSS)
+					.getRuleIndex();
+			applyStylesToChildNodes = ruleIndex.affectsDescendants(oldCSSClass,
+					stylableElement.getCSSClass(), oldCSSId,
+					stylableElement.getCSSId());
+		}
+		applyStyles(element, applyStylesToChildNodes);
+	}
+
+	/**
+	 * Applies styles like {@link #applyStyles(Object, boolean)}, but without
+	 * calling the property handlers for values that are the same as the ones
+	 * last applied to an element. Only use this when the elements were not
+	 * modified by other means since they were last styled.
+	 */
+	public void applyStylesSkippingUnchangedValues(Object element,
+			boolean applyStylesToChildNodes) {
+		boolean oldSkipUnchangedValues = skipUnchangedValues;
+		skipUnchangedValues = true;
+		try {
+			applyStyles(element, applyStylesToChildNodes);
+		} finally {
+			skipUnchangedValues = oldSkipUnchangedValues;
+		}
+	}
+
 	/**
 	 * Allow the CSS engine to skip particular elements if they are not visible.
 	 * Elements need to be restyled when they become visible.
@@ -723,6 +887,19 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 			value = parsePropertyValue(parentValueString);
 		}
 
+		String appliedKey = pseudo == null ? property : property + ':' + pseudo;
+		String cssText = value.getCssText();
+		CSSElementContext elementContext = getCSSElementContext(element);
+		Map<String, String> appliedValues = getAppliedValues(elementContext);
+		if (skipUnchangedValues && appliedValues != null
+				&& cssText != null && cssText.equals(appliedValues.get(appliedKey))) {
+			// Value is already applied, don't call the handlers again
+			if (currentCSSPropertiesApplyed != null) {
+				currentCSSPropertiesApplyed.put(property, property);
+			}
+			return null;
+		}
+
 		for (ICSSPropertyHandlerProvider provider : propertyHandlerProviders) {
 			Collection<ICSSPropertyHandler> handlers = provider
 					.getCSSPropertyHandlers(element, property);
@@ -740,6 +917,14 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 						if (currentCSSPropertiesApplyed != null) {
 							currentCSSPropertiesApplyed.put(property, property);
 						}
+						if (elementContext != null) {
+							if (appliedValues == null) {
+								appliedValues = new HashMap<String, String>();
+								elementContext.setData(APPLIED_VALUES_KEY,
+										appliedValues);
+							}
+							appliedValues.put(appliedKey, cssText);
+						}
 						return handler;
 					}
 				} catch (Exception e) {
@@ -754,6 +939,15 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		return null;
 	}
 
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> getAppliedValues(
+			CSSElementContext elementContext) {
+		if (elementContext == null) {
+			return null;
+		}
+		return (Map<String, String>) elementContext.getData(APPLIED_VALUES_KEY);
+	}
+
 	@Override
 	public String retrieveCSSProperty(Object element, String property,
 			String pseudo) {
@@ -1004,6 +1198,18 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		return viewCSS;
 	}
 
+	/**
+	 * Returns the cache of the styles computed by the view CSS, or
+	 * <code>null</code> if they are not cached. The hit and miss counts of the
+	 * cache tell how often the cascade was avoided.
+	 */
+	public ComputedStyleCache getComputedStyleCache() {
+		if (viewCSS instanceof ViewCSSImpl) {
+			return ((ViewCSSImpl) viewCSS).getComputedStyleCache();
+		}
+		return null;
+	}
+
 	@Override
 	public void dispose() {
 		reset();
@@ -1027,6 +1233,18 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 	public void reset() {
 		// Remove All Style Sheets
 		documentCSS.removeAllStyleSheets();
+		// The elements are back to their defaults, so the values applied with
+		// the removed style sheets must not be skipped when they are styled
+		// again
+		if (elementsContext != null) {
+			for (CSSElementContext elementContext : elementsContext.values()) {
+				elementContext.setData(APPLIED_VALUES_KEY, null);
+			}
+		}
+		ComputedStyleCache computedStyleCache = getComputedStyleCache();
+		if (computedStyleCache != null) {
+			computedStyleCache.clear();
+		}
 	}
 
 	/*--------------- Resources Registry -----------------*/
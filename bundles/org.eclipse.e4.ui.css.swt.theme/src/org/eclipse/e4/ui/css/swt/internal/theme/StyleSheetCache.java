@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.swt.internal.theme;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.w3c.dom.stylesheets.StyleSheet;
+
+/**
+ * Caches the parsed style sheets in binary form under the workspace metadata,
+ * so that they are not parsed from text on every startup.
+ * <p>
+ * An entry is keyed by the URI of the style sheet, and records the last
+ * modification time of the style sheet and of the style sheets it imports.
+ * Entries are only used when none of these changed; otherwise the style sheet
+ * is parsed from text and the entry is written again.
+ * </p>
+ */
+class StyleSheetCache {
+
+	private static final int MAGIC = 0xE4C55000;
+
+	private final File directory;
+
+	StyleSheetCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the cache in the state location of this bundle, or
+	 * <code>null</code> if there is no workspace.
+	 */
+	static StyleSheetCache create() {
+		try {
+			Bundle bundle = FrameworkUtil.getBundle(StyleSheetCache.class);
+			if (bundle == null) {
+				return null;
+			}
+			File directory = Platform.getStateLocation(bundle)
+					.append("stylesheets").toFile(); //$NON-NLS-1$
+			return new StyleSheetCache(directory);
+		} catch (IllegalStateException e) {
+			// no instance location
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the cached style sheet of the given URI to the engine.
+	 *
+	 * @return <code>true</code> if the style sheet was added,
+	 *         <code>false</code> if there is no up to date entry for it
+	 */
+	boolean load(String uri, AbstractCSSEngine engine) {
+		File file = getFile(uri);
+		if (!file.isFile()) {
+			return false;
+		}
+		InputStream stream = null;
+		try {
+			stream = new BufferedInputStream(new FileInputStream(file));
+			DataInputStream in = new DataInputStream(stream);
+			if (in.readInt() != MAGIC || !uri.equals(in.readUTF())) {
+				return false;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				URL url = new URL(in.readUTF());
+				if (in.readLong() != getLastModified(url)) {
+					return false;
+				}
+			}
+			engine.readStyleSheet(in);
+			return true;
+		} catch (IOException e) {
+			// corrupted or incompatible entry, parse the text
+			file.delete();
+			return false;
+		} catch (RuntimeException e) {
+			// corrupted in a way the engine did not detect
+			file.delete();
+			return false;
+		} finally {
+			close(stream);
+		}
+	}
+
+	/**
+	 * Writes the entry of a style sheet parsed from text by the engine.
+	 *
+	 * @param uri
+	 *            the URI the style sheet was registered with
+	 * @param url
+	 *            the resolved URL the style sheet was parsed from
+	 */
+	void store(String uri, URL url, StyleSheet styleSheet,
+			AbstractCSSEngine engine) {
+		List<URL> urls = new ArrayList<URL>();
+		urls.add(url);
+		urls.addAll(engine.getImportedStyleSheetURLs());
+		List<Long> lastModified = new ArrayList<Long>(urls.size());
+		for (URL u : urls) {
+			long time = getLastModified(u);
+			if (time == 0) {
+				// changes could not be detected
+				return;
+			}
+			lastModified.add(Long.valueOf(time));
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		File file = getFile(uri);
+		DataOutputStream out = null;
+		boolean written = false;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeUTF(uri);
+			out.writeInt(urls.size());
+			for (int i = 0; i < urls.size(); i++) {
+				out.writeUTF(urls.get(i).toString());
+				out.writeLong(lastModified.get(i).longValue());
+			}
+			engine.writeStyleSheet(styleSheet, out);
+			out.close();
+			written = true;
+		} catch (IOException e) {
+			// the style sheet cannot be cached
+		} finally {
+			if (!written) {
+				close(out);
+				file.delete();
+			}
+		}
+	}
+
+	private File getFile(String uri) {
+		return new File(directory, Integer.toHexString(uri.hashCode())
+				+ ".bcss"); //$NON-NLS-1$
+	}
+
+	private static long getLastModified(URL url) {
+		if ("file".equals(url.getProtocol())) { //$NON-NLS-1$
+			return new File(url.getFile()).lastModified();
+		}
+		try {
+			URLConnection connection = url.openConnection();
+			return connection.getLastModified();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
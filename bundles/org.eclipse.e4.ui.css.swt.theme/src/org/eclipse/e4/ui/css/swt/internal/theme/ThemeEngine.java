@@ -41,6 +41,7 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.e4.ui.css.core.engine.CSSElementContext;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
 import org.eclipse.e4.ui.css.core.util.impl.resources.FileResourcesLocatorImpl;
 import org.eclipse.e4.ui.css.core.util.impl.resources.OSGiResourceLocator;
 import org.eclipse.e4.ui.css.core.util.resources.IResourceLocator;
@@ -59,6 +60,7 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.w3c.css.sac.InputSource;
 import org.w3c.dom.Element;
 import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.stylesheets.StyleSheet;
 
 public class ThemeEngine implements IThemeEngine {
 	private List<Theme> themes = new ArrayList<Theme>();
@@ -78,6 +80,13 @@ public class ThemeEngine implements IThemeEngine {
 
 	private static final String THEMEID_KEY = "themeid";
 
+	/**
+	 * System property disabling the cache of the parsed style sheets.
+	 */
+	private static final String DISABLE_STYLESHEET_CACHE = "org.eclipse.e4.ui.css.swt.theme.disableStyleSheetCache"; //$NON-NLS-1$
+
+	private StyleSheetCache styleSheetCache;
+
 	public static final String THEME_PLUGIN_ID = "org.eclipse.e4.ui.css.swt.theme";
 
 	public ThemeEngine(Display display) {
@@ -420,12 +429,16 @@ public class ThemeEngine implements IThemeEngine {
 				try {
 					url = FileLocator.resolve(new URL(stylesheet.toString()));
 					for (CSSEngine engine : cssEngines) {
+						if (loadCachedStyleSheet(stylesheet, engine)) {
+							continue;
+						}
 						try {
 							stream = url.openStream();
 							InputSource source = new InputSource();
 							source.setByteStream(stream);
 							source.setURI(url.toString());
-							engine.parseStyleSheet(source);
+							StyleSheet styleSheet = engine.parseStyleSheet(source);
+							cacheStyleSheet(stylesheet, url, styleSheet, engine);
 						} catch (IOException e) {
 							// TODO Auto-generated catch block
 							e.printStackTrace();
@@ -470,6 +483,32 @@ public class ThemeEngine implements IThemeEngine {
 		}
 	}
 
+	/**
+	 * Adds the style sheet of the given URI to the engine from the style sheet
+	 * cache, if it is cached and up to date.
+	 */
+	private boolean loadCachedStyleSheet(String stylesheet, CSSEngine engine) {
+		StyleSheetCache cache = getStyleSheetCache();
+		return cache != null && engine instanceof AbstractCSSEngine
+				&& cache.load(stylesheet, (AbstractCSSEngine) engine);
+	}
+
+	private void cacheStyleSheet(String stylesheet, URL url,
+			StyleSheet styleSheet, CSSEngine engine) {
+		StyleSheetCache cache = getStyleSheetCache();
+		if (cache != null && engine instanceof AbstractCSSEngine) {
+			cache.store(stylesheet, url, styleSheet, (AbstractCSSEngine) engine);
+		}
+	}
+
+	private StyleSheetCache getStyleSheetCache() {
+		if (styleSheetCache == null
+				&& !Boolean.getBoolean(DISABLE_STYLESHEET_CACHE)) {
+			styleSheetCache = StyleSheetCache.create();
+		}
+		return styleSheetCache;
+	}
+
 	/**
 	 * Broadcast theme-change event using OSGi Event Admin.
 	 */
@@ -518,6 +557,21 @@ public class ThemeEngine implements IThemeEngine {
 		}
 	}
 
+	@Override
+	public void restyle(Object widget, String oldClassname, String oldId) {
+		for (CSSEngine engine : cssEngines) {
+			Object element = engine.getElement(widget);
+			if (element != null) {
+				if (engine instanceof AbstractCSSEngine) {
+					((AbstractCSSEngine) engine).restyle(element, oldClassname,
+							oldId);
+				} else {
+					engine.applyStyles(element, true);
+				}
+			}
+		}
+	}
+
 	private String getPreferenceThemeId() {
 		return getPreferences().get(THEMEID_KEY, null);
 	}
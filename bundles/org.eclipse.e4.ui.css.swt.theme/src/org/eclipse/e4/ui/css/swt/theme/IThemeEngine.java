@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 Tom Schindl and others.
+ * Copyright (c) 2010, 2015 Tom Schindl and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -152,6 +152,21 @@ public interface IThemeEngine {
 	 */
 	public void applyStyles(Object widget, boolean applyStylesToChildNodes);
 
+	/**
+	 * Reapply the style to a widget whose CSS class and/or id changed. The
+	 * children are only updated if the style sheets depend on the changed
+	 * class or id of their parent.
+	 * 
+	 * @param widget
+	 *            the widget
+	 * @param oldClassname
+	 *            the CSS class of the widget before the change
+	 * @param oldId
+	 *            the CSS id of the widget before the change
+	 * @since 0.10
+	 */
+	public void restyle(Object widget, String oldClassname, String oldId);
+
 	/**
 	 * Get the style currently active for a widget
 	 * 
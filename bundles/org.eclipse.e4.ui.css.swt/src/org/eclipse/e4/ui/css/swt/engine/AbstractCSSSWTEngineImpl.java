@@ -65,7 +65,8 @@ public abstract class AbstractCSSSWTEngineImpl extends CSSEngineImpl {
 		super.registerCSSValueConverter(CSSValueSWTImageConverterImpl.INSTANCE);
 
 		if (lazyApplyingStyles) {
-			new CSSSWTApplyStylesListener(display, this);
+			new CSSSWTApplyStylesListener(display, this,
+					Boolean.getBoolean(CSSSWTApplyStylesListener.BATCH_STYLING_PROPERTY));
 		}
 
 		initializeCSSElementProvider();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Angelo Zerr and others.
+ * Copyright (c) 2008, 2015 Angelo Zerr and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,32 +7,141 @@
  *
  * Contributors:
  *     Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ *     IBM Corporation - batched styling of skinned widgets
  *******************************************************************************/
 package org.eclipse.e4.ui.css.swt.engine;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Widget;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 
 /**
  * Add SWT filter to the {@link Display} to apply styles when SWT widget is
  * resized or showed.
+ * <p>
+ * In batched mode, the skinned widgets are not styled as soon as their
+ * {@link SWT#Skin} event is sent, but queued and styled once, parents before
+ * children, in a single {@link Display#asyncExec(Runnable)} pass. The batched
+ * mode is enabled with the {@value #BATCH_STYLING_PROPERTY} system property.
+ * </p>
  */
 public class CSSSWTApplyStylesListener {
+
+	/**
+	 * System property enabling the batched styling of skinned widgets by the
+	 * engines created with <code>lazyApplyingStyles</code>.
+	 */
+	public static final String BATCH_STYLING_PROPERTY = "org.eclipse.e4.ui.css.swt.batchStyling"; //$NON-NLS-1$
+
 	CSSEngine engine;
+
+	private final Display display;
+
+	/**
+	 * The widgets waiting to be styled, in the order of their skin events.
+	 */
+	private Set<Widget> pendingWidgets = new LinkedHashSet<Widget>();
+
+	private final Runnable applyPendingStyles = new Runnable() {
+		@Override
+		public void run() {
+			applyPendingStyles();
+		}
+	};
+
 	public CSSSWTApplyStylesListener(Display display, final CSSEngine engine) {
+		this(display, engine, false);
+	}
+
+	/**
+	 * @param display
+	 *            the display sending the skin events
+	 * @param engine
+	 *            the engine styling the widgets
+	 * @param batched
+	 *            <code>true</code> to style the skinned widgets once per
+	 *            asyncExec pass, <code>false</code> to style each widget
+	 *            when its skin event is sent
+	 */
+	public CSSSWTApplyStylesListener(Display display, final CSSEngine engine,
+			final boolean batched) {
 		this.engine = engine;
+		this.display = display;
 		display.addListener(SWT.Skin, new Listener() {
 			@Override
 			public void handleEvent(Event event) {
 				if (engine != null) {
-					engine.applyStyles(event.widget, false);
+					if (batched) {
+						queue(event.widget);
+					} else {
+						engine.applyStyles(event.widget, false);
+					}
 				}
 			}
 		});
 	}
-	
+
+	private void queue(Widget widget) {
+		if (pendingWidgets.isEmpty()) {
+			display.asyncExec(applyPendingStyles);
+		}
+		pendingWidgets.add(widget);
+	}
+
+	/**
+	 * Styles the queued widgets, top-down. Widgets skinned while the styles
+	 * are applied are styled in the next pass.
+	 */
+	private void applyPendingStyles() {
+		Set<Widget> widgets = pendingWidgets;
+		pendingWidgets = new LinkedHashSet<Widget>();
+		List<Widget> queue = new ArrayList<Widget>(widgets.size());
+		final Map<Widget, Integer> depths = new HashMap<Widget, Integer>();
+		for (Widget widget : widgets) {
+			if (widget.isDisposed()) {
+				continue;
+			}
+			Element element = engine.getElement(widget);
+			if (element != null) {
+				queue.add(widget);
+				depths.put(widget, Integer.valueOf(getDepth(element)));
+			}
+		}
+		// stable sort, widgets of the same depth keep the skin event order
+		Collections.sort(queue, new Comparator<Widget>() {
+			@Override
+			public int compare(Widget w1, Widget w2) {
+				return depths.get(w1).compareTo(depths.get(w2));
+			}
+		});
+		for (Widget widget : queue) {
+			// the styling of a parent may have disposed a child
+			if (!widget.isDisposed()) {
+				engine.applyStyles(widget, false);
+			}
+		}
+	}
+
+	private static int getDepth(Element element) {
+		int depth = 0;
+		for (Node node = element.getParentNode(); node != null; node = node
+				.getParentNode()) {
+			depth++;
+		}
+		return depth;
+	}
 }
@@ -75,7 +75,9 @@ public class CSSSWTEngineImpl extends AbstractCSSSWTEngineImpl {
 			try {
 				s.setRedraw(false);
 				s.reskin(SWT.ALL);
-				applyStyles(s, true);
+				// the widgets are styled once more by the skin events, so
+				// only apply the values which changed in this pass
+				applyStylesSkippingUnchangedValues(s, true);
 			} catch (Exception e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
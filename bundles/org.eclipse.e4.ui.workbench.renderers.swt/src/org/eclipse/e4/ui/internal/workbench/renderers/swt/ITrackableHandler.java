@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench.renderers.swt;
+
+/**
+ * A handler which can tell whether its enablement only depends on the
+ * expression variables it reads from the evaluation context.
+ * <p>
+ * Tool items only skip the enablement updates of handlers implementing this
+ * interface, and only while {@link #isEnablementTrackable()} returns
+ * <code>true</code>. All other handlers are updated on every variable change.
+ * </p>
+ */
+public interface ITrackableHandler {
+
+	/**
+	 * @return <code>true</code> if the enablement is computed from the
+	 *         values of the variables read from the evaluation context only,
+	 *         without querying the state of these values or running other
+	 *         code
+	 */
+	public boolean isEnablementTrackable();
+
+}
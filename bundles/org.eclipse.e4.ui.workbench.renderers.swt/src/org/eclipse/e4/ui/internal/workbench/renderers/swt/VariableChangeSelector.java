@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench.renderers.swt;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.workbench.Selector;
+
+/**
+ * Value of a {@link org.eclipse.e4.ui.workbench.UIEvents#REQUEST_ENABLEMENT_UPDATE_TOPIC} event
+ * telling which expression variables changed.
+ * <p>
+ * It selects every element, but the tool items whose enablement was computed
+ * without reading any of the changed variables, and whose active handler did
+ * not change, are not updated. This only applies to handlers which are
+ * {@link ITrackableHandler}s.
+ * </p>
+ */
+public class VariableChangeSelector implements Selector {
+
+	private final Set<String> variableNames;
+
+	/**
+	 * @param variableNames
+	 *            the names of the changed variables
+	 */
+	public VariableChangeSelector(Collection<String> variableNames) {
+		this.variableNames = Collections.unmodifiableSet(new HashSet<String>(variableNames));
+	}
+
+	/**
+	 * @return the names of the changed variables
+	 */
+	public Set<String> getVariableNames() {
+		return variableNames;
+	}
+
+	@Override
+	public boolean select(MApplicationElement element) {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "VariableChangeSelector " + variableNames; //$NON-NLS-1$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2014 IBM Corporation and others.
+ * Copyright (c) 2010, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,16 +18,20 @@ package org.eclipse.e4.ui.workbench.renderers.swt;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.inject.Inject;
 import org.eclipse.core.commands.IStateListener;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.State;
 import org.eclipse.core.commands.common.NotDefinedException;
+import org.eclipse.core.expressions.IEvaluationContext;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.e4.core.commands.ECommandService;
 import org.eclipse.e4.core.commands.EHandlerService;
+import org.eclipse.e4.core.commands.ExpressionContext;
+import org.eclipse.e4.core.commands.internal.HandlerServiceImpl;
 import org.eclipse.e4.core.commands.internal.ICommandHelpService;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IContextFunction;
@@ -40,8 +44,10 @@ import org.eclipse.e4.ui.internal.workbench.ContributionsAnalyzer;
 import org.eclipse.e4.ui.internal.workbench.EHelpService;
 import org.eclipse.e4.ui.internal.workbench.Policy;
 import org.eclipse.e4.ui.internal.workbench.RenderedElementUtil;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.ITrackableHandler;
 import org.eclipse.e4.ui.internal.workbench.renderers.swt.IUpdateService;
 import org.eclipse.e4.ui.internal.workbench.swt.AbstractPartRenderer;
+import org.eclipse.e4.ui.model.application.MApplication;
 import org.eclipse.e4.ui.model.application.commands.MCommand;
 import org.eclipse.e4.ui.model.application.commands.MParameter;
 import org.eclipse.e4.ui.model.application.ui.MContext;
@@ -158,12 +164,23 @@ public class HandledContributionItem extends ContributionItem {
 		resUtils = (ISWTResourceUtilities) utils;
 	}
 
+	/**
+	 * The active handler when the enablement was last updated.
+	 */
+	private Object enablementHandler;
+
+	/**
+	 * The names of the variables read when the enablement was last updated, or
+	 * <code>null</code> if the enablement may depend on other values.
+	 */
+	private Set<String> enablementVariables;
+
 	private ISafeRunnable getUpdateRunner() {
 		if (updateRunner == null) {
 			updateRunner = new ISafeRunnable() {
 				@Override
 				public void run() throws Exception {
-					boolean shouldEnable = canExecuteItem(null);
+					boolean shouldEnable = canExecuteItemRecording();
 					if (shouldEnable != model.isEnabled()) {
 						model.setEnabled(shouldEnable);
 						update();
@@ -816,6 +833,74 @@ public class HandledContributionItem extends ContributionItem {
 		return service.canExecute(cmd, staticContext);
 	}
 
+	/**
+	 * Computes the enablement like {@link #canExecuteItem(Event)}, recording
+	 * the active handler and the expression variables the enablement depends
+	 * on.
+	 */
+	private boolean canExecuteItemRecording() {
+		enablementHandler = null;
+		enablementVariables = null;
+		ParameterizedCommand cmd = model.getWbCommand();
+		if (cmd == null) {
+			return false;
+		}
+		final IEclipseContext lclContext = getContext(model);
+		MApplication application = lclContext.get(MApplication.class);
+		if (application == null) {
+			return canExecuteItem(null);
+		}
+		// the evaluation context legacy handlers are given by default
+		RecordingEvaluationContext evaluationContext = new RecordingEvaluationContext(
+				new ExpressionContext(application.getContext()));
+		final IEclipseContext staticContext = getStaticContext(null);
+		staticContext.set(IEvaluationContext.class, evaluationContext);
+		try {
+			Object handler = HandlerServiceImpl.lookUpHandler(lclContext, cmd.getId());
+			boolean result = canExecuteItem(null);
+			Set<String> variables = evaluationContext.getVariableNames();
+			if (variables != null && !variables.isEmpty() && isTrackable(handler)) {
+				// handlers which do not read variables, like the e4 handlers
+				// getting their arguments injected, and handlers which may run
+				// code or query the values they read, are always updated
+				enablementHandler = handler;
+				enablementVariables = variables;
+			}
+			return result;
+		} finally {
+			staticContext.remove(IEvaluationContext.class);
+		}
+	}
+
+	/**
+	 * @param changedVariables
+	 *            the names of changed expression variables
+	 * @return whether the enablement of this item may have changed
+	 */
+	boolean isEnablementAffected(Set<String> changedVariables) {
+		if (enablementVariables == null) {
+			return true;
+		}
+		ParameterizedCommand cmd = model.getWbCommand();
+		if (cmd == null
+				|| HandlerServiceImpl.lookUpHandler(getContext(model), cmd.getId()) != enablementHandler
+				|| !isTrackable(enablementHandler)) {
+			// a handler proxy may have loaded its handler since
+			return true;
+		}
+		for (String name : enablementVariables) {
+			if (changedVariables.contains(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isTrackable(Object handler) {
+		return handler instanceof ITrackableHandler
+				&& ((ITrackableHandler) handler).isEnablementTrackable();
+	}
+
 	@Override
 	public void setParent(IContributionManager parent) {
 		if (getParent() instanceof IMenuManager) {
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.workbench.renderers.swt;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.core.expressions.IEvaluationContext;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.services.IServiceConstants;
+
+/**
+ * An evaluation context recording the names of the variables read through it,
+ * so that an enablement computed with it is only computed again when one of
+ * them changes.
+ */
+class RecordingEvaluationContext implements IEvaluationContext {
+
+	private final IEvaluationContext delegate;
+
+	private final Set<String> variableNames = new HashSet<String>();
+
+	private boolean untracked = false;
+
+	RecordingEvaluationContext(IEvaluationContext delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return the names of the variables read, or <code>null</code> if values
+	 *         were read which are not identified by a variable name
+	 */
+	Set<String> getVariableNames() {
+		return untracked ? null : variableNames;
+	}
+
+	@Override
+	public IEvaluationContext getParent() {
+		// the parent is read outside of this context
+		untracked = true;
+		return delegate.getParent();
+	}
+
+	@Override
+	public IEvaluationContext getRoot() {
+		untracked = true;
+		return delegate.getRoot();
+	}
+
+	@Override
+	public void setAllowPluginActivation(boolean value) {
+		delegate.setAllowPluginActivation(value);
+	}
+
+	@Override
+	public boolean getAllowPluginActivation() {
+		return delegate.getAllowPluginActivation();
+	}
+
+	@Override
+	public Object getDefaultVariable() {
+		variableNames.add(IServiceConstants.ACTIVE_SELECTION);
+		return delegate.getDefaultVariable();
+	}
+
+	@Override
+	public void addVariable(String name, Object value) {
+		delegate.addVariable(name, value);
+	}
+
+	@Override
+	public Object removeVariable(String name) {
+		return delegate.removeVariable(name);
+	}
+
+	@Override
+	public Object getVariable(String name) {
+		if (IEclipseContext.class.getName().equals(name)) {
+			// any value of the context may be read
+			untracked = true;
+		} else {
+			variableNames.add(name);
+		}
+		return delegate.getVariable(name);
+	}
+
+	@Override
+	public Object resolveVariable(String name, Object[] args) throws CoreException {
+		variableNames.add(name);
+		return delegate.resolveVariable(name, args);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 IBM Corporation and others.
+ * Copyright (c) 2014, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,33 +12,48 @@
 package org.eclipse.e4.ui.workbench.renderers.swt;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.VariableChangeSelector;
 import org.eclipse.e4.ui.workbench.Selector;
 import org.eclipse.swt.widgets.Display;
 
 public class ToolItemUpdater {
 	Display display = Display.getCurrent();
 
-	List<HandledContributionItem> itemsToCheck = new ArrayList<HandledContributionItem>();
+	final Set<HandledContributionItem> itemsToCheck = Collections
+			.newSetFromMap(new IdentityHashMap<HandledContributionItem, Boolean>());
 	final List<HandledContributionItem> orphanedToolItems = new ArrayList<HandledContributionItem>();
 
 	void registerItem(HandledContributionItem item) {
-		if (!itemsToCheck.contains(item)) {
-			itemsToCheck.add(item);
-		}
+		itemsToCheck.add(item);
 	}
 
 	void removeItem(HandledContributionItem item) {
 		itemsToCheck.remove(item);
 	}
 
+	/**
+	 * Updates the enablement of the selected items. When the selector is a
+	 * {@link VariableChangeSelector}, only the items whose enablement depends
+	 * on the changed variables are updated.
+	 *
+	 * @param selector
+	 *            selects the items to update
+	 */
 	public void updateContributionItems(Selector selector) {
+		Set<String> changedVariables = null;
+		if (selector instanceof VariableChangeSelector) {
+			changedVariables = ((VariableChangeSelector) selector).getVariableNames();
+		}
 		for (final HandledContributionItem hci : itemsToCheck) {
-			if (hci.model != null && hci.model.getParent() != null
-					&& selector.select(hci.model)) {
-				hci.updateItemEnablement();
-			} else {
+			if (hci.model == null || hci.model.getParent() == null) {
 				orphanedToolItems.add(hci);
+			} else if (selector.select(hci.model)
+					&& (changedVariables == null || hci.isEnablementAffected(changedVariables))) {
+				hci.updateItemEnablement();
 			}
 		}
 		if (!orphanedToolItems.isEmpty()) {
@@ -1293,14 +1293,18 @@ public class PartRenderingEngine implements IPresentationEngine {
 			appContext.set(IStylingEngine.SERVICE_NAME, new IStylingEngine() {
 				@Override
 				public void setClassname(Object widget, String classname) {
+					String oldClassname = WidgetElement.getCSSClass((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
-					themeEngine.applyStyles(widget, true);
+					themeEngine.restyle(widget, oldClassname,
+							WidgetElement.getID((Widget) widget));
 				}
 
 				@Override
 				public void setId(Object widget, String id) {
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setID((Widget) widget, id);
-					themeEngine.applyStyles(widget, true);
+					themeEngine.restyle(widget,
+							WidgetElement.getCSSClass((Widget) widget), oldId);
 				}
 
 				@Override
@@ -1316,9 +1320,11 @@ public class PartRenderingEngine implements IPresentationEngine {
 				@Override
 				public void setClassnameAndId(Object widget, String classname,
 						String id) {
+					String oldClassname = WidgetElement.getCSSClass((Widget) widget);
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
 					WidgetElement.setID((Widget) widget, id);
-					themeEngine.applyStyles(widget, true);
+					themeEngine.restyle(widget, oldClassname, oldId);
 				}
 			});
 
@@ -1339,14 +1345,18 @@ public class PartRenderingEngine implements IPresentationEngine {
 			appContext.set(IStylingEngine.SERVICE_NAME, new IStylingEngine() {
 				@Override
 				public void setClassname(Object widget, String classname) {
+					String oldClassname = WidgetElement.getCSSClass((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
-					cssEngine.applyStyles(widget, true);
+					cssEngine.restyle(widget, oldClassname,
+							WidgetElement.getID((Widget) widget));
 				}
 
 				@Override
 				public void setId(Object widget, String id) {
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setID((Widget) widget, id);
-					cssEngine.applyStyles(widget, true);
+					cssEngine.restyle(widget,
+							WidgetElement.getCSSClass((Widget) widget), oldId);
 				}
 
 				@Override
@@ -1367,9 +1377,11 @@ public class PartRenderingEngine implements IPresentationEngine {
 				@Override
 				public void setClassnameAndId(Object widget, String classname,
 						String id) {
+					String oldClassname = WidgetElement.getCSSClass((Widget) widget);
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
 					WidgetElement.setID((Widget) widget, id);
-					cssEngine.applyStyles(widget, true);
+					cssEngine.restyle(widget, oldClassname, oldId);
 				}
 			});
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,6 +50,8 @@ public class Activator implements BundleActivator {
 
 	private DebugTrace trace;
 
+	private EventTopicSubscriptions eventSubscriptions;
+
 	/**
 	 * Get the default activator.
 	 * 
@@ -100,6 +102,18 @@ public class Activator implements BundleActivator {
 		return locationTracker.getService();
 	}
 
+	/**
+	 * @return the topics subscribed to by event handlers, or <code>null</code>
+	 *         if the bundle is not started
+	 */
+	synchronized EventTopicSubscriptions getEventSubscriptions() {
+		if (eventSubscriptions == null && context != null) {
+			eventSubscriptions = new EventTopicSubscriptions(context);
+			eventSubscriptions.open();
+		}
+		return eventSubscriptions;
+	}
+
 	@Override
 	public void start(BundleContext context) throws Exception {
 		activator = this;
@@ -126,6 +140,12 @@ public class Activator implements BundleActivator {
 			logTracker.close();
 			logTracker = null;
 		}
+		synchronized (this) {
+			if (eventSubscriptions != null) {
+				eventSubscriptions.close();
+				eventSubscriptions = null;
+			}
+		}
 		if (resolvedBundles != null) {
 			// the close of the BundleTracker will also remove all entries form the BundleFinder
 			resolvedBundles.close();
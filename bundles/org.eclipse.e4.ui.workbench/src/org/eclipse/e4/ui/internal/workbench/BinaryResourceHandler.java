@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.File;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.eclipse.e4.ui.workbench.IWorkbench;
+import org.osgi.service.log.LogService;
+
+/**
+ * Loads and saves the model in the binary format of {@link E4BinaryResource},
+ * which is faster to load and save than XMI.
+ * <p>
+ * When no binary model of the current version was saved, the model saved as
+ * XMI is restored, and saved in the binary format from then on. This handler
+ * is selected with the {@link IWorkbench#MODEL_RESOURCE_HANDLER} argument:
+ * </p>
+ *
+ * <pre>
+ * -modelResourceHandler bundleclass://org.eclipse.e4.ui.workbench/org.eclipse.e4.ui.internal.workbench.BinaryResourceHandler
+ * </pre>
+ */
+public class BinaryResourceHandler extends ResourceHandler {
+
+	/**
+	 * Constructor.
+	 *
+	 * @param saveAndRestore
+	 *            whether the model is saved and restored
+	 * @param clearPersistedState
+	 *            whether the saved model is discarded on start
+	 * @param deltaRestore
+	 *            whether model deltas are restored
+	 */
+	@Inject
+	public BinaryResourceHandler(@Named(IWorkbench.PERSIST_STATE) boolean saveAndRestore,
+			@Named(IWorkbench.CLEAR_PERSISTED_STATE) boolean clearPersistedState,
+			@Named(E4Workbench.DELTA_RESTORE) boolean deltaRestore) {
+		super(saveAndRestore, clearPersistedState, deltaRestore);
+	}
+
+	@Override
+	protected File getWorkbenchSaveLocation() {
+		return new File(getBaseLocation(), "workbench." + E4BinaryResource.FILE_EXTENSION); //$NON-NLS-1$
+	}
+
+	@Override
+	protected File getWorkbenchRestoreLocation() {
+		File binaryData = getWorkbenchSaveLocation();
+		if (binaryData.exists()) {
+			int version = E4BinaryResource.getVersion(binaryData);
+			if (version == E4BinaryResource.VERSION) {
+				return binaryData;
+			}
+			Activator.log(LogService.LOG_WARNING, "Ignoring the model saved in " + binaryData //$NON-NLS-1$
+					+ " with binary format version " + version + ", expected version " //$NON-NLS-1$ //$NON-NLS-2$
+					+ E4BinaryResource.VERSION);
+		}
+		// migrate the model saved as XMI
+		return super.getWorkbenchSaveLocation();
+	}
+}
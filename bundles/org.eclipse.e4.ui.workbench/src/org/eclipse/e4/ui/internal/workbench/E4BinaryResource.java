@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectInputStream;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectOutputStream;
+
+/**
+ * An {@link E4XMIResource} saved in the compact binary format of EMF, which
+ * is loaded without parsing XML and resolving references by ID.
+ * <p>
+ * The binary content is preceded by a signature and the version of the format,
+ * and followed by the IDs of the elements. Content without the signature is
+ * loaded as XMI, so that models saved as XMI can be migrated.
+ * </p>
+ */
+public class E4BinaryResource extends E4XMIResource {
+
+	/**
+	 * The file extension of binary models.
+	 */
+	public static final String FILE_EXTENSION = "e4bin"; //$NON-NLS-1$
+
+	/**
+	 * The version of the format written by this resource.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * "E4MB"
+	 */
+	private static final int SIGNATURE = 0x45344D42;
+
+	public E4BinaryResource() {
+	}
+
+	public E4BinaryResource(URI uri) {
+		super(uri);
+	}
+
+	@Override
+	public void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		DataOutputStream header = new DataOutputStream(outputStream);
+		header.writeInt(SIGNATURE);
+		header.writeInt(VERSION);
+		header.flush();
+		EObjectOutputStream out = new EObjectOutputStream(outputStream, getOptions(options));
+		out.saveResource(this);
+		for (EObject element : getPersistedContents()) {
+			out.writeString(getID(element));
+		}
+		out.flush();
+	}
+
+	@Override
+	public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		InputStream in = new BufferedInputStream(inputStream);
+		in.mark(8);
+		int version = readVersion(in);
+		if (version == -1) {
+			in.reset();
+			super.doLoad(in, options);
+			return;
+		}
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary model version " + version); //$NON-NLS-1$
+		}
+		EObjectInputStream eIn = new EObjectInputStream(in, getOptions(options));
+		eIn.loadResource(this);
+		for (EObject element : getPersistedContents()) {
+			setID(element, eIn.readString());
+		}
+	}
+
+	private static Map<?, ?> getOptions(Map<?, ?> options) {
+		return options == null ? Collections.emptyMap() : options;
+	}
+
+	/**
+	 * Returns the elements having an ID, in the order they are saved. The
+	 * elements of transient features are not saved.
+	 */
+	private List<EObject> getPersistedContents() {
+		List<EObject> elements = new ArrayList<EObject>();
+		for (TreeIterator<EObject> it = getAllContents(); it.hasNext();) {
+			EObject element = it.next();
+			EReference containment = element.eContainmentFeature();
+			if (containment != null && containment.isTransient()) {
+				it.prune();
+			} else if (!(element instanceof Map.Entry<?, ?>)) {
+				elements.add(element);
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Returns the version of the binary model saved in a file.
+	 *
+	 * @param file
+	 *            the model file
+	 * @return the version of the format, or <code>-1</code> if the file does
+	 *         not contain a binary model
+	 */
+	public static int getVersion(File file) {
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				return readVersion(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	private static int readVersion(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		try {
+			if (data.readInt() != SIGNATURE) {
+				return -1;
+			}
+			return data.readInt();
+		} catch (EOFException e) {
+			return -1;
+		}
+	}
+}
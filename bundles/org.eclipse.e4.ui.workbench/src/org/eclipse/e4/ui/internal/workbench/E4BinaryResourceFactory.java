@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+
+/**
+ * Resource factory for {@link E4BinaryResource}.
+ */
+public class E4BinaryResourceFactory extends E4XMIResourceFactory {
+
+	@Override
+	public Resource createResource(URI uri) {
+		return configure(new E4BinaryResource(uri));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,8 +43,17 @@ public class E4XMIResourceFactory extends XMIResourceFactoryImpl {
 
 	@Override
 	public Resource createResource(URI uri) {
-		final E4XMIResource resource = new E4XMIResource(uri);
+		return configure(new E4XMIResource(uri));
+	}
 
+	/**
+	 * Sets the default save and load options of a resource created by this factory.
+	 *
+	 * @param resource
+	 *            the created resource
+	 * @return the resource
+	 */
+	protected E4XMIResource configure(final E4XMIResource resource) {
 		// configure default save/load options, as suggested by
 		// EMF: Eclipse Modeling Framework, Second Edition
 		// Section 15.5.1
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+
+/**
+ * Tracks the topics of the registered {@link EventHandler} services, which
+ * include the subscriptions made through the
+ * {@link org.eclipse.e4.core.services.events.IEventBroker}, to tell whether an
+ * event sent on a topic would be handled at all.
+ */
+class EventTopicSubscriptions implements
+		ServiceTrackerCustomizer<EventHandler, ServiceReference<EventHandler>> {
+
+	private final ServiceTracker<EventHandler, ServiceReference<EventHandler>> tracker;
+
+	/**
+	 * Whether each topic has subscribers, valid as long as the tracking count
+	 * of the tracker is {@link #cachedTrackingCount}.
+	 */
+	private final Map<String, Boolean> topicCache = new HashMap<String, Boolean>();
+
+	private int cachedTrackingCount = -1;
+
+	EventTopicSubscriptions(BundleContext context) {
+		tracker = new ServiceTracker<EventHandler, ServiceReference<EventHandler>>(
+				context, EventHandler.class, this);
+	}
+
+	void open() {
+		tracker.open();
+	}
+
+	void close() {
+		tracker.close();
+	}
+
+	/**
+	 * @param topic
+	 *            the topic of an event
+	 * @return <code>false</code> if no event handler is subscribed to the topic,
+	 *         <code>true</code> otherwise
+	 */
+	synchronized boolean hasSubscribers(String topic) {
+		int trackingCount = tracker.getTrackingCount();
+		if (trackingCount == -1) {
+			// not tracking, assume there are subscribers
+			return true;
+		}
+		if (trackingCount != cachedTrackingCount) {
+			topicCache.clear();
+			cachedTrackingCount = trackingCount;
+		}
+		Boolean subscribed = topicCache.get(topic);
+		if (subscribed == null) {
+			subscribed = Boolean.valueOf(computeHasSubscribers(topic));
+			if (trackingCount == tracker.getTrackingCount()) {
+				topicCache.put(topic, subscribed);
+			}
+		}
+		return subscribed.booleanValue();
+	}
+
+	private boolean computeHasSubscribers(String topic) {
+		ServiceReference<EventHandler>[] references = tracker.getServiceReferences();
+		if (references == null) {
+			return false;
+		}
+		for (ServiceReference<EventHandler> reference : references) {
+			Object topics = reference.getProperty(EventConstants.EVENT_TOPIC);
+			if (topics instanceof String) {
+				if (matches((String) topics, topic)) {
+					return true;
+				}
+			} else if (topics instanceof String[]) {
+				for (String pattern : (String[]) topics) {
+					if (matches(pattern, topic)) {
+						return true;
+					}
+				}
+			} else if (topics instanceof Collection<?>) {
+				for (Object pattern : (Collection<?>) topics) {
+					if (pattern instanceof String && matches((String) pattern, topic)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Matches a topic like the Event Admin service does: a pattern is either a
+	 * topic, or a topic prefix ending with <code>/*</code>, or <code>*</code>.
+	 */
+	private static boolean matches(String pattern, String topic) {
+		if (pattern.equals("*")) { //$NON-NLS-1$
+			return true;
+		}
+		if (pattern.endsWith("/*")) { //$NON-NLS-1$
+			return topic.startsWith(pattern.substring(0, pattern.length() - 1));
+		}
+		return pattern.equals(topic);
+	}
+
+	@Override
+	public ServiceReference<EventHandler> addingService(
+			ServiceReference<EventHandler> reference) {
+		// only the topics are needed, do not get the handler
+		return reference;
+	}
+
+	@Override
+	public void modifiedService(ServiceReference<EventHandler> reference,
+			ServiceReference<EventHandler> service) {
+		// the tracking count changed
+	}
+
+	@Override
+	public void removedService(ServiceReference<EventHandler> reference,
+			ServiceReference<EventHandler> service) {
+		// the tracking count changed
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2014 BestSolution.at and others.
+ * Copyright (c) 2010, 2015 BestSolution.at and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,8 +16,16 @@ package org.eclipse.e4.ui.internal.workbench;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Inject;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IContributor;
@@ -35,7 +43,6 @@ import org.eclipse.e4.ui.model.application.MApplicationElement;
 import org.eclipse.e4.ui.model.fragment.MModelFragment;
 import org.eclipse.e4.ui.model.fragment.MModelFragments;
 import org.eclipse.e4.ui.model.fragment.impl.FragmentPackageImpl;
-import org.eclipse.e4.ui.model.internal.ModelUtils;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
@@ -43,6 +50,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EContentsEList;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
@@ -64,6 +72,12 @@ public class ModelAssembler {
 
 	final private static String extensionPointID = "org.eclipse.e4.workbench.model"; //$NON-NLS-1$
 
+	/**
+	 * The maximum number of threads parsing fragments at startup.
+	 */
+	private static final int MAX_PARSER_THREADS = Math.min(4, Runtime.getRuntime()
+			.availableProcessors());
+
 	//	private static final String ALWAYS = "always"; //$NON-NLS-1$
 	private static final String INITIAL = "initial"; //$NON-NLS-1$ 
 	private static final String NOTEXISTS = "notexists"; //$NON-NLS-1$ 
@@ -80,7 +94,19 @@ public class ModelAssembler {
 
 		// run processors which are marked to run before fragments
 		runProcessors(extensions, initial, false);
-		processFragments(extensions, imports, addedElements, initial);
+		// the model events of the merged fragments are sent once they are
+		// all merged, if the workbench is already running
+		UIEventPublisher publisher = context.get(UIEventPublisher.class);
+		if (publisher != null) {
+			publisher.beginBatch();
+		}
+		try {
+			processFragments(extensions, imports, addedElements, initial);
+		} finally {
+			if (publisher != null) {
+				publisher.endBatch();
+			}
+		}
 		// run processors which are marked to run after fragments
 		runProcessors(extensions, initial, true);
 
@@ -94,54 +120,174 @@ public class ModelAssembler {
 	 */
 	private void processFragments(IExtension[] extensions, List<MApplicationElement> imports,
 			List<MApplicationElement> addedElements, boolean initial) {
-
+		List<IConfigurationElement> fragmentElements = new ArrayList<IConfigurationElement>();
+		List<URI> uris = new ArrayList<URI>();
 		for (IExtension extension : extensions) {
 			IConfigurationElement[] ces = extension.getConfigurationElements();
 			for (IConfigurationElement ce : ces) {
 				if ("fragment".equals(ce.getName())) { //$NON-NLS-1$
 					if (initial || !INITIAL.equals(ce.getAttribute("apply"))) { //$NON-NLS-1$ 
-						processFragment(ce, imports, addedElements, initial);
+						URI uri = getFragmentURI(ce);
+						if (uri != null) {
+							fragmentElements.add(ce);
+							uris.add(uri);
+						}
 					}
 				}
 			}
 		}
+
+		// parse the fragments in the background, and merge them in order
+		ResourceSet resourceSet = ((EObject) application).eResource().getResourceSet();
+		Map<URI, Future<ParsedFragment>> parsedFragments = parseFragments(uris, resourceSet);
+		for (int i = 0; i < fragmentElements.size(); i++) {
+			processFragment(fragmentElements.get(i), uris.get(i), parsedFragments.get(uris.get(i)),
+					imports, addedElements, initial);
+		}
 	}
 
-	private void processFragment(IConfigurationElement ce, List<MApplicationElement> imports,
-			List<MApplicationElement> addedElements, boolean initial) {
-		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
-		ResourceSet resourceSet = applicationResource.getResourceSet();
-		IContributor contributor = ce.getContributor();
+	private URI getFragmentURI(IConfigurationElement ce) {
 		String attrURI = ce.getAttribute("uri"); //$NON-NLS-1$
-		String bundleName = contributor.getName();
+		String bundleName = ce.getContributor().getName();
 		if (attrURI == null) {
 			logger.warn("Unable to find location for the model extension \"{0}\"", bundleName); //$NON-NLS-1$
-			return;
+			return null;
 		}
 
-		URI uri;
 		try {
 			// check if the attrURI is already a platform URI
 			if (URIHelper.isPlatformURI(attrURI)) {
-				uri = URI.createURI(attrURI);
-			} else {
-				String path = bundleName + '/' + attrURI;
-				uri = URI.createPlatformPluginURI(path, false);
+				return URI.createURI(attrURI);
 			}
+			String path = bundleName + '/' + attrURI;
+			return URI.createPlatformPluginURI(path, false);
 		} catch (RuntimeException e) {
 			logger.warn(e, "Invalid location \"" + attrURI + "\" of model extension \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			return;
+			return null;
+		}
+	}
+
+	/**
+	 * Starts parsing the fragments which are not loaded yet, each in its own
+	 * resource set, on a bounded number of threads. The workbench jobs may be
+	 * suspended during startup, so the threads are not jobs.
+	 *
+	 * @return the parsed fragments by URI, without the fragments to be parsed
+	 *         on the calling thread
+	 */
+	private Map<URI, Future<ParsedFragment>> parseFragments(List<URI> uris,
+			ResourceSet resourceSet) {
+		Map<URI, Future<ParsedFragment>> parsedFragments = new HashMap<URI, Future<ParsedFragment>>();
+		Set<URI> toParse = new LinkedHashSet<URI>();
+		for (URI uri : uris) {
+			if (resourceSet.getResource(uri, false) == null) {
+				toParse.add(uri);
+			}
+		}
+		int threads = Math.min(toParse.size(), MAX_PARSER_THREADS);
+		if (threads < 2) {
+			return parsedFragments;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Model Fragment Parser"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			for (final URI uri : toParse) {
+				final ResourceSet fragmentResourceSet = createResourceSet(resourceSet);
+				parsedFragments.put(uri, executor.submit(new Callable<ParsedFragment>() {
+					@Override
+					public ParsedFragment call() throws Exception {
+						long start = System.nanoTime();
+						Resource resource = fragmentResourceSet.getResource(uri, true);
+						return new ParsedFragment(resource, System.nanoTime() - start);
+					}
+				}));
+			}
+		} finally {
+			// the threads end once the submitted fragments are parsed
+			executor.shutdown();
 		}
+		return parsedFragments;
+	}
+
+	/**
+	 * Creates a resource set loading resources as the application resource set.
+	 */
+	private static ResourceSet createResourceSet(ResourceSet resourceSet) {
+		ResourceSetImpl fragmentResourceSet = new ResourceSetImpl();
+		fragmentResourceSet.setResourceFactoryRegistry(resourceSet.getResourceFactoryRegistry());
+		fragmentResourceSet.getPackageRegistry().putAll(resourceSet.getPackageRegistry());
+		fragmentResourceSet.getURIConverter().getURIMap()
+				.putAll(resourceSet.getURIConverter().getURIMap());
+		return fragmentResourceSet;
+	}
+
+	/**
+	 * Returns the resource of a fragment, parsed in the background or on the
+	 * calling thread, and moves it to the application resource set.
+	 */
+	private ParsedFragment getFragment(URI uri, Future<ParsedFragment> parsedFragment,
+			ResourceSet resourceSet) {
+		if (parsedFragment != null) {
+			try {
+				ParsedFragment fragment = parsedFragment.get();
+				if (fragment.resource.getResourceSet() != resourceSet) {
+					resourceSet.getResources().add(fragment.resource);
+				}
+				return fragment;
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				// parse it on this thread
+				Thread.currentThread().interrupt();
+			}
+		}
+		long start = System.nanoTime();
+		Resource resource = resourceSet.getResource(uri, true);
+		return new ParsedFragment(resource, System.nanoTime() - start);
+	}
+
+	private void processFragment(IConfigurationElement ce, URI uri,
+			Future<ParsedFragment> parsedFragment, List<MApplicationElement> imports,
+			List<MApplicationElement> addedElements, boolean initial) {
+		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
+		ResourceSet resourceSet = applicationResource.getResourceSet();
+		IContributor contributor = ce.getContributor();
+		String bundleName = contributor.getName();
 
 		String contributorURI = URIHelper.constructPlatformURI(contributor);
-		Resource resource;
+		ParsedFragment fragment;
 		try {
-			resource = resourceSet.getResource(uri, true);
+			fragment = getFragment(uri, parsedFragment, resourceSet);
 		} catch (RuntimeException e) {
 			logger.warn(e, "Unable to read model extension from \"" + uri.toString() +"\" of \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			return;
 		}
+		long mergeStart = System.nanoTime();
+		try {
+			mergeFragment(ce, uri, fragment.resource, contributorURI, applicationResource,
+					imports, addedElements, initial);
+		} finally {
+			Activator.trace(Policy.DEBUG_MODEL_ASSEMBLY, "Fragment " + uri + " parsed in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ fragment.parseTime / 1000000 + " ms, merged in " //$NON-NLS-1$
+					+ (System.nanoTime() - mergeStart) / 1000000 + " ms", null); //$NON-NLS-1$
+		}
+	}
 
+	private void mergeFragment(IConfigurationElement ce, URI uri, Resource resource,
+			String contributorURI, E4XMIResource applicationResource,
+			List<MApplicationElement> imports, List<MApplicationElement> addedElements,
+			boolean initial) {
+		String bundleName = ce.getContributor().getName();
 		EList<?> contents = resource.getContents();
 		if (contents.isEmpty()) {
 			return;
@@ -207,6 +353,19 @@ public class ModelAssembler {
 		}
 	}
 
+	/**
+	 * A fragment resource and the time it took to parse it.
+	 */
+	private static class ParsedFragment {
+		final Resource resource;
+		final long parseTime;
+
+		ParsedFragment(Resource resource, long parseTime) {
+			this.resource = resource;
+			this.parseTime = parseTime;
+		}
+	}
+
 	/**
 	 * @param extensions
 	 * @param afterFragments
@@ -242,7 +401,7 @@ public class ModelAssembler {
 				key = id;
 			}
 
-			MApplicationElement el = ModelUtils.findElementById(application, id);
+			MApplicationElement el = ModelIndex.getIndex(application).findElementById(id);
 			if (el == null) {
 				logger.warn("Could not find element with id '" + id + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
@@ -270,7 +429,7 @@ public class ModelAssembler {
 		// now that we have all components loaded, resolve imports
 		Map<MApplicationElement, MApplicationElement> importMaps = new HashMap<MApplicationElement, MApplicationElement>();
 		for (MApplicationElement importedElement : imports) {
-			MApplicationElement realElement = ModelUtils.findElementById(application,
+			MApplicationElement realElement = ModelIndex.getIndex(application).findElementById(
 					importedElement.getElementId());
 			if (realElement == null) {
 				logger.warn("Could not resolve an import element for '" + realElement + "'"); //$NON-NLS-1$ //$NON-NLS-2$
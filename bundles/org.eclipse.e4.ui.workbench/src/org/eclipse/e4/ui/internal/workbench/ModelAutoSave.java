@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.workbench.IModelResourceHandler;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/**
+ * Saves the application model periodically without copying it on the UI
+ * thread every time.
+ * <p>
+ * The model is copied once into a mirror, and its changes are recorded from
+ * then on. Each save hands the recorded changes to a background job, which
+ * applies them to the mirror and appends them to the {@link ModelJournal}.
+ * When the journal grows too large, the job saves a copy of the mirror in
+ * full instead. Saves are skipped when the model did not change.
+ * </p>
+ * <p>
+ * The elements for which
+ * {@link #isSaved(EObject, EStructuralFeature, EObject)} returns
+ * <code>false</code> are left out of the mirror and of the journal, so that
+ * replaying the journal does not add them back to the saved model.
+ * </p>
+ */
+public class ModelAutoSave {
+
+	private static final long MAX_JOURNAL_LENGTH = 256 * 1024;
+
+	private final MApplication application;
+
+	private final IModelResourceHandler handler;
+
+	private final ModelJournal journal;
+
+	private ModelDeltaRecorder recorder;
+
+	// the following fields are guarded by this
+
+	private XMLResource mirror;
+
+	private List<byte[]> pendingChanges = new ArrayList<byte[]>();
+
+	private boolean fullSaveRequested;
+
+	private boolean mirrorInvalid;
+
+	// the following field is only accessed by the job
+
+	private ModelDeltaApplier applier;
+
+	private final Job job = new Job("Workbench Auto-Save Background Job") { //$NON-NLS-1$
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			saveChanges();
+			return Status.OK_STATUS;
+		}
+	};
+
+	/**
+	 * @param application
+	 *            the application model, in an {@link XMLResource}
+	 * @param handler
+	 *            the handler creating the resources to save the model with
+	 * @param journal
+	 *            the journal of the saved model, or <code>null</code> to
+	 *            always save the model in full
+	 */
+	public ModelAutoSave(MApplication application, IModelResourceHandler handler,
+			ModelJournal journal) {
+		this.application = application;
+		this.handler = handler;
+		this.journal = journal;
+		job.setPriority(Job.SHORT);
+		job.setSystem(true);
+	}
+
+	/**
+	 * Saves the changes made to the model since the last save, in the
+	 * background. Must be called on the thread changing the model.
+	 */
+	public void save() {
+		boolean invalid;
+		synchronized (this) {
+			invalid = mirrorInvalid;
+		}
+		if (recorder == null || invalid) {
+			createMirror();
+		} else if (recorder.isDirty()) {
+			byte[] changes = recorder.takeChanges();
+			synchronized (this) {
+				pendingChanges.add(changes);
+			}
+		} else {
+			return;
+		}
+		job.schedule();
+	}
+
+	/**
+	 * Waits for the pending save.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public void join() throws InterruptedException {
+		job.join();
+	}
+
+	/**
+	 * Stops recording the changes and waits for the pending save.
+	 */
+	public void dispose() {
+		if (recorder != null) {
+			((EObject) application).eAdapters().remove(recorder);
+			recorder = null;
+		}
+		job.cancel();
+		try {
+			join();
+		} catch (InterruptedException e) {
+			// the save is not waited for
+		}
+	}
+
+	/**
+	 * Tells whether an element is saved with the model. Called on the thread
+	 * changing the model, and in the background on copies of the model.
+	 * Subclasses may override.
+	 *
+	 * @param container
+	 *            the element containing the element, or which it is removed
+	 *            from
+	 * @param feature
+	 *            the feature of the container holding the element
+	 * @param element
+	 *            the element
+	 * @return <code>true</code> if the element and its children are saved
+	 */
+	protected boolean isSaved(EObject container, EStructuralFeature feature, EObject element) {
+		return true;
+	}
+
+	/**
+	 * Cleans up a copy of the model before it is saved in full. Called in the
+	 * background.
+	 *
+	 * @param appCopy
+	 *            the copy to save
+	 * @return <code>false</code> to skip the save
+	 */
+	protected boolean prepareCopy(MApplication appCopy) {
+		return true;
+	}
+
+	/**
+	 * Tells whether the model may be saved, once the last changes are applied
+	 * to the mirror. When it may not, the changes are neither appended to the
+	 * journal nor saved in full, and the model is saved in full once it is
+	 * valid again. Called in the background.
+	 *
+	 * @param model
+	 *            the mirror of the model, which must not be changed
+	 * @return <code>false</code> to skip the save
+	 */
+	protected boolean isValid(MApplication model) {
+		return true;
+	}
+
+	private void createMirror() {
+		XMLResource resource = (XMLResource) ((EObject) application).eResource();
+		if (recorder == null) {
+			recorder = new ModelDeltaRecorder(resource) {
+				@Override
+				protected boolean isRecorded(EObject container, EStructuralFeature feature,
+						EObject element) {
+					return isSaved(container, feature, element);
+				}
+			};
+			((EObject) application).eAdapters().add(recorder);
+		} else {
+			recorder.takeChanges();
+		}
+		EcoreUtil.Copier copier = copy((EObject) application);
+		E4XMIResource newMirror = new E4XMIResource();
+		newMirror.getContents().add(copier.get(application));
+		copyIds(copier, resource, newMirror);
+		synchronized (this) {
+			mirror = newMirror;
+			pendingChanges.clear();
+			fullSaveRequested = true;
+			mirrorInvalid = false;
+		}
+	}
+
+	private void saveChanges() {
+		XMLResource current;
+		List<byte[]> changes;
+		boolean fullSave;
+		synchronized (this) {
+			current = mirror;
+			changes = pendingChanges;
+			pendingChanges = new ArrayList<byte[]>();
+			fullSave = fullSaveRequested;
+			fullSaveRequested = false;
+		}
+		if (current == null) {
+			return;
+		}
+		try {
+			if (applier == null || fullSave) {
+				applier = new ModelDeltaApplier(current);
+			}
+			for (byte[] change : changes) {
+				if (applier.apply(change) > 0) {
+					invalidate(current);
+					return;
+				}
+			}
+		} catch (IOException e) {
+			invalidate(current);
+			return;
+		}
+		if (!isValid((MApplication) current.getContents().get(0))) {
+			// keep the journal of the last valid model, and save in full once
+			// the model is valid again
+			requestFullSave();
+			return;
+		}
+		try {
+			if (!fullSave) {
+				if (journal == null) {
+					fullSave = true;
+				} else {
+					for (byte[] change : changes) {
+						journal.append(change);
+					}
+					fullSave = journal.length() > MAX_JOURNAL_LENGTH;
+				}
+			}
+			if (fullSave && !saveInFull(current)) {
+				requestFullSave();
+			}
+		} catch (IOException e) {
+			// Just auto-save, save in full next time
+			requestFullSave();
+		}
+	}
+
+	private synchronized void requestFullSave() {
+		fullSaveRequested = true;
+	}
+
+	/**
+	 * The mirror differs from the model, it is copied again on the next save.
+	 */
+	private synchronized void invalidate(XMLResource current) {
+		if (mirror == current) {
+			mirrorInvalid = true;
+		}
+	}
+
+	/**
+	 * @return <code>false</code> if the copy was not saved
+	 */
+	private boolean saveInFull(XMLResource current) throws IOException {
+		EObject model = current.getContents().get(0);
+		EcoreUtil.Copier copier = copy(model);
+		MApplication appCopy = (MApplication) copier.get(model);
+		if (!prepareCopy(appCopy)) {
+			return false;
+		}
+		final Resource res = handler.createResourceWithApp(appCopy);
+		try {
+			if (res instanceof XMLResource) {
+				copyIds(copier, current, (XMLResource) res);
+			}
+			res.save(null);
+			if (journal != null) {
+				journal.reset();
+			}
+			return true;
+		} finally {
+			res.unload();
+			res.getResourceSet().getResources().remove(res);
+		}
+	}
+
+	/**
+	 * Copies the persisted features and saved elements of a model.
+	 */
+	private EcoreUtil.Copier copy(EObject model) {
+		EcoreUtil.Copier copier = new PersistedCopier();
+		copier.copy(model);
+		copier.copyReferences();
+		return copier;
+	}
+
+	/**
+	 * Gives the copied elements the IDs of the original elements.
+	 */
+	private static void copyIds(EcoreUtil.Copier copier, XMLResource resource,
+			XMLResource copyResource) {
+		for (Map.Entry<EObject, EObject> entry : copier.entrySet()) {
+			if (!(entry.getKey() instanceof Map.Entry<?, ?>)) {
+				copyResource.setID(entry.getValue(), resource.getID(entry.getKey()));
+			}
+		}
+	}
+
+	/**
+	 * Copies the features saved with the model, leaving out the widgets,
+	 * renderers and contexts, and the elements which are not saved. References
+	 * to elements left out are not copied.
+	 */
+	private class PersistedCopier extends EcoreUtil.Copier {
+
+		private static final long serialVersionUID = 1L;
+
+		PersistedCopier() {
+			super(true, false);
+		}
+
+		@Override
+		protected void copyAttribute(EAttribute eAttribute, EObject eObject, EObject copyEObject) {
+			if (!eAttribute.isTransient()) {
+				super.copyAttribute(eAttribute, eObject, copyEObject);
+			}
+		}
+
+		@Override
+		protected void copyContainment(EReference eReference, EObject eObject,
+				EObject copyEObject) {
+			if (eReference.isTransient() || !eObject.eIsSet(eReference)) {
+				return;
+			}
+			Object value = eObject.eGet(eReference);
+			if (eReference.isMany()) {
+				@SuppressWarnings("unchecked")
+				Collection<EObject> copies = (Collection<EObject>) copyEObject.eGet(eReference);
+				for (Object element : (List<?>) value) {
+					if (isSaved(eObject, eReference, (EObject) element)) {
+						copies.add(copy((EObject) element));
+					}
+				}
+			} else if (value == null || isSaved(eObject, eReference, (EObject) value)) {
+				copyEObject.eSet(eReference, value == null ? null : copy((EObject) value));
+			}
+		}
+
+		@Override
+		protected void copyReference(EReference eReference, EObject eObject, EObject copyEObject) {
+			if (!eReference.isTransient()) {
+				super.copyReference(eReference, eObject, copyEObject);
+			}
+		}
+	}
+}
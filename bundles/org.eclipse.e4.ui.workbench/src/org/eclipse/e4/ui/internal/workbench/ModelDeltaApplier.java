@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/**
+ * Applies the deltas written by a {@link ModelDeltaRecorder} to a copy of the
+ * recorded model, whose elements have the same IDs.
+ * <p>
+ * Changes to elements which cannot be found in the copy are skipped.
+ * </p>
+ */
+public class ModelDeltaApplier {
+
+	private static final Object UNSET = new Object();
+
+	private final XMLResource resource;
+
+	private final Map<String, EObject> elements = new HashMap<String, EObject>();
+
+	private final Map<EObject, String> ids = new IdentityHashMap<EObject, String>();
+
+	/**
+	 * The elements read from the delta being applied.
+	 */
+	private final Map<String, EObject> created = new HashMap<String, EObject>();
+
+	/**
+	 * The non containment references read from the delta being applied, as
+	 * triples of element, feature and value.
+	 */
+	private final List<Object> references = new ArrayList<Object>();
+
+	/**
+	 * @param resource
+	 *            the resource of the copy to change, identifying its elements
+	 */
+	public ModelDeltaApplier(XMLResource resource) {
+		this.resource = resource;
+		for (TreeIterator<EObject> it = resource.getAllContents(); it.hasNext();) {
+			EObject element = it.next();
+			if (!(element instanceof Map.Entry<?, ?>)) {
+				String id = resource.getID(element);
+				if (id != null) {
+					elements.put(id, element);
+					ids.put(element, id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies recorded changes.
+	 *
+	 * @param changes
+	 *            the changes, as returned by
+	 *            {@link ModelDeltaRecorder#takeChanges()}
+	 * @return the number of changes which could not be applied
+	 * @throws IOException
+	 *             if the changes are corrupted
+	 */
+	public int apply(byte[] changes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(changes));
+		int skipped = 0;
+		while (in.available() > 0) {
+			if (!applyChange(in)) {
+				skipped++;
+			}
+			created.clear();
+			references.clear();
+		}
+		return skipped;
+	}
+
+	private boolean applyChange(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		EObject owner = getElement(readString(in));
+		String featureName = readString(in);
+		EStructuralFeature feature = owner == null ? null : owner.eClass().getEStructuralFeature(
+				featureName);
+		switch (kind) {
+		case ModelDeltaRecorder.SET: {
+			Object value = readValue(in);
+			if (feature == null) {
+				return false;
+			}
+			setValue(owner, feature, value);
+			break;
+		}
+		case ModelDeltaRecorder.ADD: {
+			int position = in.readInt();
+			EObject element = readObject(in);
+			if (!isContainmentList(feature) || element == null) {
+				return false;
+			}
+			EList<Object> list = getList(owner, feature);
+			list.add(Math.min(position, list.size()), element);
+			break;
+		}
+		case ModelDeltaRecorder.REMOVE: {
+			String elementId = readString(in);
+			if (!isContainmentList(feature)) {
+				return false;
+			}
+			int index = indexOf(getList(owner, feature), elementId);
+			if (index == -1) {
+				return false;
+			}
+			EObject element = (EObject) getList(owner, feature).remove(index);
+			ids.remove(element);
+			if (elements.get(elementId) == element) {
+				elements.remove(elementId);
+			}
+			break;
+		}
+		case ModelDeltaRecorder.MOVE: {
+			String elementId = readString(in);
+			int position = in.readInt();
+			if (!isContainmentList(feature)) {
+				return false;
+			}
+			EList<Object> list = getList(owner, feature);
+			int index = indexOf(list, elementId);
+			if (index == -1) {
+				return false;
+			}
+			list.move(Math.min(position, list.size() - 1), index);
+			break;
+		}
+		default:
+			throw new IOException("Unknown model change " + kind); //$NON-NLS-1$
+		}
+		for (Map.Entry<String, EObject> entry : created.entrySet()) {
+			resource.setID(entry.getValue(), entry.getKey());
+			elements.put(entry.getKey(), entry.getValue());
+			ids.put(entry.getValue(), entry.getKey());
+		}
+		for (Iterator<Object> it = references.iterator(); it.hasNext();) {
+			EObject element = (EObject) it.next();
+			EStructuralFeature reference = (EStructuralFeature) it.next();
+			setReference(element, reference, it.next());
+		}
+		return true;
+	}
+
+	private EObject getElement(String id) {
+		if (id == null) {
+			return null;
+		}
+		EObject element = elements.get(id);
+		if (element != null && element.eResource() != resource) {
+			// removed from the model
+			return null;
+		}
+		return element;
+	}
+
+	private int indexOf(EList<Object> list, String id) {
+		for (int i = 0; i < list.size(); i++) {
+			if (id.equals(ids.get(list.get(i)))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isContainmentList(EStructuralFeature feature) {
+		return feature instanceof EReference && ((EReference) feature).isContainment()
+				&& feature.isMany();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EList<Object> getList(EObject owner, EStructuralFeature feature) {
+		return (EList<Object>) owner.eGet(feature);
+	}
+
+	private void setValue(EObject owner, EStructuralFeature feature, Object value) {
+		if (value == UNSET) {
+			owner.eUnset(feature);
+		} else if (feature instanceof EReference && !((EReference) feature).isContainment()) {
+			// resolved once the new elements are known
+			references.add(owner);
+			references.add(feature);
+			references.add(value);
+		} else if (feature.isMany()) {
+			EList<Object> list = getList(owner, feature);
+			list.clear();
+			for (Object element : (List<?>) value) {
+				element = convert(feature, element);
+				if (element != null || !(feature instanceof EReference)) {
+					list.add(element);
+				}
+			}
+		} else {
+			owner.eSet(feature, convert(feature, value));
+		}
+	}
+
+	private void setReference(EObject owner, EStructuralFeature feature, Object value) {
+		if (feature.isMany()) {
+			EList<Object> list = getList(owner, feature);
+			list.clear();
+			for (Object id : (List<?>) value) {
+				EObject element = getElement((String) id);
+				if (element != null) {
+					list.add(element);
+				}
+			}
+		} else {
+			EObject element = getElement((String) value);
+			if (element != null || value == null) {
+				owner.eSet(feature, element);
+			}
+		}
+	}
+
+	private static Object convert(EStructuralFeature feature, Object value) {
+		if (value instanceof String && feature instanceof EAttribute) {
+			return EcoreUtil.createFromString((EDataType) feature.getEType(), (String) value);
+		}
+		return value;
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		switch (in.readByte()) {
+		case ModelDeltaRecorder.UNSET_VALUE:
+			return UNSET;
+		case ModelDeltaRecorder.SINGLE_VALUE:
+			return readElement(in);
+		case ModelDeltaRecorder.MANY_VALUE:
+			int size = in.readInt();
+			List<Object> values = new ArrayList<Object>(size);
+			for (int i = 0; i < size; i++) {
+				values.add(readElement(in));
+			}
+			return values;
+		default:
+			throw new IOException("Unknown model value"); //$NON-NLS-1$
+		}
+	}
+
+	private Object readElement(DataInputStream in) throws IOException {
+		switch (in.readByte()) {
+		case ModelDeltaRecorder.NULL_ELEMENT:
+			return null;
+		case ModelDeltaRecorder.STRING_ELEMENT:
+			return readString(in);
+		case ModelDeltaRecorder.OBJECT_ELEMENT:
+			return readObject(in);
+		default:
+			throw new IOException("Unknown model element"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Reads an element written in full. Its features unknown to the current
+	 * model are skipped, and it is <code>null</code> if its class is unknown.
+	 */
+	private EObject readObject(DataInputStream in) throws IOException {
+		String nsURI = readString(in);
+		String className = readString(in);
+		String id = readString(in);
+		EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+		EClassifier eClass = ePackage == null ? null : ePackage.getEClassifier(className);
+		EObject object = null;
+		if (eClass instanceof EClass) {
+			object = EcoreUtil.create((EClass) eClass);
+			if (id != null) {
+				created.put(id, object);
+			}
+		}
+		for (String featureName = readString(in); featureName != null; featureName = readString(in)) {
+			Object value = readValue(in);
+			EStructuralFeature feature = object == null ? null : object.eClass()
+					.getEStructuralFeature(featureName);
+			if (feature != null) {
+				setValue(object, feature, value);
+			}
+		}
+		return object;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return ModelJournal.readString(in);
+	}
+}
@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicPackageImpl;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/**
+ * Records the changes made to the persisted features of a model as compact
+ * deltas, which {@link ModelDeltaApplier} applies to a copy of the model.
+ * <p>
+ * Model elements are identified by their ID in the resource of the model.
+ * Elements added to a containment list are written in full, the other changes
+ * write the new value of the changed feature.
+ * </p>
+ * <p>
+ * Elements for which {@link #isRecorded(EObject, EStructuralFeature, EObject)}
+ * returns <code>false</code> are left out of the changes, together with their
+ * children, and positions in lists are given among the recorded elements only.
+ * </p>
+ */
+public class ModelDeltaRecorder extends EContentAdapter {
+
+	static final byte SET = 1;
+	static final byte ADD = 2;
+	static final byte REMOVE = 3;
+	static final byte MOVE = 4;
+
+	static final byte UNSET_VALUE = 0;
+	static final byte SINGLE_VALUE = 1;
+	static final byte MANY_VALUE = 2;
+
+	static final byte NULL_ELEMENT = 0;
+	static final byte STRING_ELEMENT = 1;
+	static final byte OBJECT_ELEMENT = 2;
+
+	private final XMLResource resource;
+
+	private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	private DataOutputStream out = new DataOutputStream(buffer);
+
+	/**
+	 * @param resource
+	 *            the resource of the recorded model, identifying its elements
+	 */
+	public ModelDeltaRecorder(XMLResource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * @return whether changes were recorded since they were last taken
+	 */
+	public synchronized boolean isDirty() {
+		return buffer.size() > 0;
+	}
+
+	/**
+	 * Returns the changes recorded since they were last taken, and starts
+	 * recording again.
+	 *
+	 * @return the recorded changes
+	 */
+	public synchronized byte[] takeChanges() {
+		byte[] changes = buffer.toByteArray();
+		buffer.reset();
+		return changes;
+	}
+
+	/**
+	 * Tells whether an element is recorded with the model. Subclasses may
+	 * override.
+	 *
+	 * @param container
+	 *            the element containing the element, or which it is removed
+	 *            from
+	 * @param feature
+	 *            the feature of the container holding the element
+	 * @param element
+	 *            the element
+	 * @return <code>true</code> if the element and its children are recorded
+	 */
+	protected boolean isRecorded(EObject container, EStructuralFeature feature, EObject element) {
+		return true;
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch() || !(notification.getNotifier() instanceof EObject)
+				|| !(notification.getFeature() instanceof EStructuralFeature)) {
+			return;
+		}
+		EObject owner = (EObject) notification.getNotifier();
+		if (!isRecordedWithAncestors(owner)) {
+			return;
+		}
+		try {
+			if (notification.getFeature() == BasicPackageImpl.Literals.TRIM_BAR__PENDING_CLEANUP) {
+				recordPendingCleanup(owner, notification);
+			} else {
+				record(owner, (EStructuralFeature) notification.getFeature(), notification);
+			}
+		} catch (IOException e) {
+			// not thrown when writing to memory
+		}
+	}
+
+	private boolean isRecordedWithAncestors(EObject element) {
+		for (EObject container = element.eContainer(); container != null; container = element
+				.eContainer()) {
+			if (!isRecorded(container, element.eContainmentFeature(), element)) {
+				return false;
+			}
+			element = container;
+		}
+		return true;
+	}
+
+	/**
+	 * The trim elements added by contributions are removed from the trim bar
+	 * when it is cleaned up. Removes those which were recorded once they are
+	 * known.
+	 */
+	private void recordPendingCleanup(EObject trimBar, Notification notification)
+			throws IOException {
+		List<?> elements;
+		switch (notification.getEventType()) {
+		case Notification.ADD:
+			elements = Collections.singletonList(notification.getNewValue());
+			break;
+		case Notification.ADD_MANY:
+			elements = (List<?>) notification.getNewValue();
+			break;
+		default:
+			return;
+		}
+		String id = getId(trimBar);
+		if (id == null) {
+			return;
+		}
+		for (Object element : elements) {
+			EObject child = (EObject) element;
+			EStructuralFeature feature = child.eContainmentFeature();
+			if (child.eContainer() == trimBar && !isRecorded(trimBar, feature, child)
+					&& !recordRemove(id, feature, child)) {
+				recordSet(id, trimBar, feature);
+			}
+		}
+	}
+
+	private void record(EObject owner, EStructuralFeature feature, Notification notification)
+			throws IOException {
+		String id = getId(owner);
+		while (id == null) {
+			// changes inside map entries write the whole map
+			EObject container = owner.eContainer();
+			if (container == null) {
+				return;
+			}
+			feature = owner.eContainmentFeature();
+			owner = container;
+			id = getId(owner);
+			notification = null;
+		}
+		if (!isPersisted(feature)) {
+			return;
+		}
+		if (notification != null && feature.isMany() && feature instanceof EReference
+				&& ((EReference) feature).isContainment()) {
+			switch (notification.getEventType()) {
+			case Notification.ADD:
+				if (recordAddMany(id, owner, feature, notification.getPosition(),
+						Collections.singletonList(notification.getNewValue()))) {
+					return;
+				}
+				break;
+			case Notification.ADD_MANY:
+				if (recordAddMany(id, owner, feature, notification.getPosition(),
+						(List<?>) notification.getNewValue())) {
+					return;
+				}
+				break;
+			case Notification.REMOVE:
+				if (recordRemoveMany(id, owner, feature,
+						Collections.singletonList(notification.getOldValue()))) {
+					return;
+				}
+				break;
+			case Notification.REMOVE_MANY:
+				if (recordRemoveMany(id, owner, feature, (List<?>) notification.getOldValue())) {
+					return;
+				}
+				break;
+			case Notification.MOVE:
+				if (recordMove(id, owner, feature, notification.getPosition(),
+						(EObject) notification.getNewValue())) {
+					return;
+				}
+				break;
+			}
+		}
+		recordSet(id, owner, feature);
+	}
+
+	private void recordSet(String id, EObject owner, EStructuralFeature feature)
+			throws IOException {
+		out.writeByte(SET);
+		writeString(id);
+		writeString(feature.getName());
+		writeValue(owner, feature);
+	}
+
+	private boolean recordAddMany(String id, EObject owner, EStructuralFeature feature,
+			int position, List<?> elements) throws IOException {
+		for (Object element : elements) {
+			if (getId((EObject) element) == null) {
+				return false;
+			}
+		}
+		for (Object element : elements) {
+			if (isRecorded(owner, feature, (EObject) element)) {
+				out.writeByte(ADD);
+				writeString(id);
+				writeString(feature.getName());
+				out.writeInt(getRecordedPosition(owner, feature, position));
+				writeObject((EObject) element);
+			}
+			position++;
+		}
+		return true;
+	}
+
+	private boolean recordRemove(String id, EStructuralFeature feature, EObject element)
+			throws IOException {
+		String elementId = getId(element);
+		if (elementId == null) {
+			return false;
+		}
+		out.writeByte(REMOVE);
+		writeString(id);
+		writeString(feature.getName());
+		writeString(elementId);
+		return true;
+	}
+
+	private boolean recordRemoveMany(String id, EObject owner, EStructuralFeature feature,
+			List<?> elements) throws IOException {
+		for (Object element : elements) {
+			if (getId((EObject) element) == null) {
+				return false;
+			}
+		}
+		for (Object element : elements) {
+			if (isRecorded(owner, feature, (EObject) element)) {
+				recordRemove(id, feature, (EObject) element);
+			}
+		}
+		return true;
+	}
+
+	private boolean recordMove(String id, EObject owner, EStructuralFeature feature,
+			int position, EObject element) throws IOException {
+		String elementId = getId(element);
+		if (elementId == null) {
+			return false;
+		}
+		if (isRecorded(owner, feature, element)) {
+			out.writeByte(MOVE);
+			writeString(id);
+			writeString(feature.getName());
+			writeString(elementId);
+			out.writeInt(getRecordedPosition(owner, feature, position));
+		}
+		return true;
+	}
+
+	/**
+	 * @return the position in a list of the model among its recorded elements
+	 */
+	private int getRecordedPosition(EObject owner, EStructuralFeature feature, int position) {
+		List<?> values = (List<?>) owner.eGet(feature, false);
+		int recordedPosition = position;
+		for (int i = 0; i < position && i < values.size(); i++) {
+			if (!isRecorded(owner, feature, (EObject) values.get(i))) {
+				recordedPosition--;
+			}
+		}
+		return recordedPosition;
+	}
+
+	private static boolean isContainment(EStructuralFeature feature) {
+		return feature instanceof EReference && ((EReference) feature).isContainment();
+	}
+
+	/**
+	 * @return the values of a feature of the model, without the elements which
+	 *         are not recorded
+	 */
+	private List<?> getRecordedValues(EObject owner, EStructuralFeature feature) {
+		List<?> values = (List<?>) owner.eGet(feature, false);
+		if (!isContainment(feature)) {
+			return values;
+		}
+		List<Object> recordedValues = new ArrayList<Object>(values.size());
+		for (Object value : values) {
+			if (isRecorded(owner, feature, (EObject) value)) {
+				recordedValues.add(value);
+			}
+		}
+		return recordedValues;
+	}
+
+	private String getId(EObject object) {
+		if (object instanceof Map.Entry<?, ?>) {
+			return null;
+		}
+		return resource.getID(object);
+	}
+
+	private void writeValue(EObject owner, EStructuralFeature feature) throws IOException {
+		if (!owner.eIsSet(feature)) {
+			out.writeByte(UNSET_VALUE);
+		} else if (feature.isMany()) {
+			out.writeByte(MANY_VALUE);
+			List<?> values = getRecordedValues(owner, feature);
+			out.writeInt(values.size());
+			for (Object value : values) {
+				writeElement(feature, value);
+			}
+		} else {
+			Object value = owner.eGet(feature, false);
+			if (isContainment(feature) && value != null
+					&& !isRecorded(owner, feature, (EObject) value)) {
+				out.writeByte(UNSET_VALUE);
+			} else {
+				out.writeByte(SINGLE_VALUE);
+				writeElement(feature, value);
+			}
+		}
+	}
+
+	private void writeElement(EStructuralFeature feature, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL_ELEMENT);
+		} else if (feature instanceof EAttribute) {
+			out.writeByte(STRING_ELEMENT);
+			writeString(EcoreUtil.convertToString((EDataType) feature.getEType(), value));
+		} else if (((EReference) feature).isContainment()) {
+			out.writeByte(OBJECT_ELEMENT);
+			writeObject((EObject) value);
+		} else {
+			String id = getId((EObject) value);
+			if (id == null) {
+				out.writeByte(NULL_ELEMENT);
+			} else {
+				out.writeByte(STRING_ELEMENT);
+				writeString(id);
+			}
+		}
+	}
+
+	private void writeObject(EObject object) throws IOException {
+		EClass eClass = object.eClass();
+		writeString(eClass.getEPackage().getNsURI());
+		writeString(eClass.getName());
+		writeString(getId(object));
+		for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+			if (isPersisted(feature) && object.eIsSet(feature)) {
+				writeString(feature.getName());
+				writeValue(object, feature);
+			}
+		}
+		writeString(null);
+	}
+
+	private void writeString(String string) throws IOException {
+		ModelJournal.writeString(out, string);
+	}
+
+	/**
+	 * @return whether the values of the feature are saved with the model
+	 */
+	static boolean isPersisted(EStructuralFeature feature) {
+		if (feature.isTransient() || feature.isDerived() || !feature.isChangeable()) {
+			return false;
+		}
+		if (feature instanceof EReference) {
+			return !((EReference) feature).isContainer();
+		}
+		return ((EDataType) feature.getEType()).isSerializable();
+	}
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.impl.ApplicationPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+/**
+ * A live index of the elements of an application model by element ID and by
+ * tag, kept up to date as the model changes.
+ * <p>
+ * The index is attached to the application the first time it is requested,
+ * and is only accessed from the thread changing the model.
+ * </p>
+ */
+public class ModelIndex extends EContentAdapter {
+
+	private final Map<String, Set<MApplicationElement>> elementsById = new HashMap<String, Set<MApplicationElement>>();
+
+	private final Map<String, Set<MApplicationElement>> elementsByTag = new HashMap<String, Set<MApplicationElement>>();
+
+	private final Set<MPlaceholder> placeholders = new HashSet<MPlaceholder>();
+
+	private ModelIndex() {
+	}
+
+	/**
+	 * Returns the index of an application model, creating it if needed.
+	 *
+	 * @param application
+	 *            the application model
+	 * @return the index of the model
+	 */
+	public static ModelIndex getIndex(MApplication application) {
+		List<Adapter> adapters = ((EObject) application).eAdapters();
+		for (Adapter adapter : adapters) {
+			if (adapter instanceof ModelIndex) {
+				return (ModelIndex) adapter;
+			}
+		}
+		ModelIndex index = new ModelIndex();
+		adapters.add(index);
+		return index;
+	}
+
+	/**
+	 * @param id
+	 *            an element ID
+	 * @return the elements of the model with this ID, in no particular order
+	 */
+	public Collection<MApplicationElement> getElementsById(String id) {
+		return get(elementsById, id);
+	}
+
+	/**
+	 * @param tag
+	 *            a tag
+	 * @return the elements of the model with this tag, in no particular order
+	 */
+	public Collection<MApplicationElement> getElementsByTag(String tag) {
+		return get(elementsByTag, tag);
+	}
+
+	/**
+	 * @return the placeholders of the model, in no particular order
+	 */
+	public Collection<MPlaceholder> getPlaceholders() {
+		return Collections.unmodifiableSet(placeholders);
+	}
+
+	/**
+	 * Returns the first element with an ID in a depth first search through the
+	 * model elements contained in the application, as
+	 * {@link org.eclipse.e4.ui.model.internal.ModelUtils#findElementById(MApplicationElement, String)}
+	 * does.
+	 *
+	 * @param id
+	 *            an element ID
+	 * @return the element, or <code>null</code> if none has the ID
+	 */
+	public MApplicationElement findElementById(String id) {
+		if (id == null || id.length() == 0) {
+			return null;
+		}
+		List<EObject> firstPath = null;
+		for (MApplicationElement element : getElementsById(id)) {
+			List<EObject> path = getPath((EObject) element);
+			if (path != null && (firstPath == null || comparePaths(path, firstPath) < 0)) {
+				firstPath = path;
+			}
+		}
+		return firstPath == null ? null : (MApplicationElement) firstPath.get(firstPath.size() - 1);
+	}
+
+	/**
+	 * Returns the path from the application to an element, or
+	 * <code>null</code> if an element of the path is not a model element.
+	 */
+	private List<EObject> getPath(EObject element) {
+		List<EObject> path = new ArrayList<EObject>();
+		for (EObject current = element; current != null; current = current.eContainer()) {
+			if (!(current instanceof MApplicationElement)) {
+				return null;
+			}
+			path.add(current);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	private static int comparePaths(List<EObject> path1, List<EObject> path2) {
+		int length = Math.min(path1.size(), path2.size());
+		for (int i = 1; i < length; i++) {
+			EObject element1 = path1.get(i);
+			EObject element2 = path2.get(i);
+			if (element1 != element2) {
+				List<EObject> siblings = path1.get(i - 1).eContents();
+				return siblings.indexOf(element1) - siblings.indexOf(element2);
+			}
+		}
+		return path1.size() - path2.size();
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch()
+				|| !(notification.getNotifier() instanceof MApplicationElement)) {
+			return;
+		}
+		MApplicationElement element = (MApplicationElement) notification.getNotifier();
+		Object feature = notification.getFeature();
+		if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__ELEMENT_ID) {
+			remove(elementsById, notification.getOldStringValue(), element);
+			add(elementsById, notification.getNewStringValue(), element);
+		} else if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__TAGS) {
+			switch (notification.getEventType()) {
+			case Notification.ADD:
+				add(elementsByTag, (String) notification.getNewValue(), element);
+				break;
+			case Notification.ADD_MANY:
+				for (Object tag : (List<?>) notification.getNewValue()) {
+					add(elementsByTag, (String) tag, element);
+				}
+				break;
+			case Notification.SET:
+				removeTag((String) notification.getOldValue(), element);
+				add(elementsByTag, (String) notification.getNewValue(), element);
+				break;
+			case Notification.REMOVE:
+				removeTag((String) notification.getOldValue(), element);
+				break;
+			case Notification.REMOVE_MANY:
+				for (Object tag : (List<?>) notification.getOldValue()) {
+					removeTag((String) tag, element);
+				}
+				break;
+			}
+		}
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		if (target instanceof MApplicationElement) {
+			MApplicationElement element = (MApplicationElement) target;
+			add(elementsById, element.getElementId(), element);
+			for (String tag : element.getTags()) {
+				add(elementsByTag, tag, element);
+			}
+			if (element instanceof MPlaceholder) {
+				placeholders.add((MPlaceholder) element);
+			}
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		if (target instanceof MApplicationElement) {
+			MApplicationElement element = (MApplicationElement) target;
+			remove(elementsById, element.getElementId(), element);
+			for (String tag : element.getTags()) {
+				remove(elementsByTag, tag, element);
+			}
+			placeholders.remove(element);
+		}
+	}
+
+	private void removeTag(String tag, MApplicationElement element) {
+		// the tag may have been added more than once
+		if (!element.getTags().contains(tag)) {
+			remove(elementsByTag, tag, element);
+		}
+	}
+
+	private static Collection<MApplicationElement> get(Map<String, Set<MApplicationElement>> map,
+			String key) {
+		Set<MApplicationElement> elements = map.get(key);
+		if (elements == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(elements);
+	}
+
+	private static void add(Map<String, Set<MApplicationElement>> map, String key,
+			MApplicationElement element) {
+		if (key == null) {
+			return;
+		}
+		Set<MApplicationElement> elements = map.get(key);
+		if (elements == null) {
+			elements = new HashSet<MApplicationElement>(2);
+			map.put(key, elements);
+		}
+		elements.add(element);
+	}
+
+	private static void remove(Map<String, Set<MApplicationElement>> map, String key,
+			MApplicationElement element) {
+		if (key == null) {
+			return;
+		}
+		Set<MApplicationElement> elements = map.get(key);
+		if (elements != null && elements.remove(element) && elements.isEmpty()) {
+			map.remove(key);
+		}
+	}
+}
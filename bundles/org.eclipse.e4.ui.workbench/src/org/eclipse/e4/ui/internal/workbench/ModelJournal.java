@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/**
+ * An append-only file of the model changes made since the model was last
+ * saved in full, written by the workbench auto-save and replayed when the
+ * saved model is loaded.
+ * <p>
+ * The journal records the modification time and the size of the saved model
+ * it applies to, and is ignored once the model is saved again. Changes are
+ * appended in blocks preceded by their size, so that a block partially
+ * written when the workbench crashed is ignored.
+ * </p>
+ */
+public class ModelJournal {
+
+	private static final int MAGIC = 0xE4D17A00;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_LENGTH = 24;
+
+	private final File file;
+
+	private final File baseFile;
+
+	/**
+	 * @param file
+	 *            the journal file
+	 * @param baseFile
+	 *            the file of the saved model the journal applies to
+	 */
+	public ModelJournal(File file, File baseFile) {
+		this.file = file;
+		this.baseFile = baseFile;
+	}
+
+	/**
+	 * @return the size of the journal in bytes
+	 */
+	public long length() {
+		return file.length();
+	}
+
+	/**
+	 * Deletes the journal, after the model was saved in full.
+	 */
+	public void reset() {
+		file.delete();
+	}
+
+	/**
+	 * Appends changes to the journal.
+	 *
+	 * @param changes
+	 *            changes recorded by a {@link ModelDeltaRecorder}
+	 * @throws IOException
+	 *             if the journal cannot be written
+	 */
+	public void append(byte[] changes) throws IOException {
+		boolean exists = file.isFile();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file, exists)));
+		try {
+			if (!exists) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(baseFile.lastModified());
+				out.writeLong(baseFile.length());
+			}
+			out.writeInt(changes.length);
+			out.write(changes);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Applies the journal to the model loaded from the saved model file.
+	 *
+	 * @param resource
+	 *            the resource loaded from the saved model file
+	 * @return the number of changes which could not be applied
+	 * @throws IOException
+	 *             if the journal cannot be read
+	 */
+	public int replay(XMLResource resource) throws IOException {
+		if (!file.isFile()) {
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION
+					|| in.readLong() != baseFile.lastModified()
+					|| in.readLong() != baseFile.length()) {
+				// written for another saved model
+				return 0;
+			}
+			ModelDeltaApplier applier = new ModelDeltaApplier(resource);
+			long remaining = file.length() - HEADER_LENGTH;
+			int skipped = 0;
+			while (remaining >= 4) {
+				int length = in.readInt();
+				remaining -= 4;
+				if (length < 0 || length > remaining) {
+					// a partially written block
+					break;
+				}
+				byte[] changes = new byte[length];
+				in.readFully(changes);
+				remaining -= length;
+				skipped += applier.apply(changes);
+			}
+			return skipped;
+		} catch (EOFException e) {
+			// truncated header or corrupted changes
+			return 0;
+		} finally {
+			in.close();
+		}
+	}
+
+	static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = string.getBytes("UTF-8"); //$NON-NLS-1$
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 IBM Corporation and others.
+ * Copyright (c) 2013, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,4 +23,5 @@ public class Policy {
 	public static final String DEBUG_CONTEXTS_VERBOSE = "/trace/eclipse.context.verbose"; //$NON-NLS-1$
 	public static final String DEBUG_WORKBENCH = "/trace/workbench"; //$NON-NLS-1$
 	public static final String DEBUG_RENDERER = "/trace/renderer"; //$NON-NLS-1$
+	public static final String DEBUG_MODEL_ASSEMBLY = "/trace/modelAssembly"; //$NON-NLS-1$
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2014 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -53,6 +54,7 @@ import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.osgi.framework.Bundle;
 import org.w3c.dom.Document;
@@ -64,6 +66,7 @@ public class ResourceHandler implements IModelResourceHandler {
 
 	private ResourceSetImpl resourceSetImpl;
 	private Resource resource;
+	private ModelJournal journal;
 
 	@Inject
 	private Logger logger;
@@ -110,6 +113,8 @@ public class ResourceHandler implements IModelResourceHandler {
 		resourceSetImpl = new ResourceSetImpl();
 		resourceSetImpl.getResourceFactoryRegistry().getExtensionToFactoryMap()
 				.put(Resource.Factory.Registry.DEFAULT_EXTENSION, new E4XMIResourceFactory());
+		resourceSetImpl.getResourceFactoryRegistry().getExtensionToFactoryMap()
+				.put(E4BinaryResource.FILE_EXTENSION, new E4BinaryResourceFactory());
 
 		resourceSetImpl.getPackageRegistry().put(ApplicationPackageImpl.eNS_URI,
 				ApplicationPackageImpl.eINSTANCE);
@@ -208,14 +213,15 @@ public class ResourceHandler implements IModelResourceHandler {
 		URI restoreLocation = null;
 
 		if (saveAndRestore) {
-			workbenchData = getWorkbenchSaveLocation();
+			if (clearPersistedState) {
+				getWorkbenchSaveLocation().delete();
+				getWorkbenchRestoreLocation().delete();
+				getJournal().reset();
+			}
+			workbenchData = getWorkbenchRestoreLocation();
 			restoreLocation = URI.createFileURI(workbenchData.getAbsolutePath());
 		}
 
-		if (clearPersistedState && workbenchData != null && workbenchData.exists()) {
-			workbenchData.delete();
-		}
-
 		// last stored time-stamp
 		long restoreLastModified = restoreLocation == null ? 0L : new File(
 				restoreLocation.toFileString()).lastModified();
@@ -229,6 +235,21 @@ public class ResourceHandler implements IModelResourceHandler {
 		resource = null;
 		if (restore && saveAndRestore) {
 			resource = loadResource(restoreLocation);
+			if (resource instanceof XMLResource) {
+				// apply the changes auto-saved since the model was saved
+				try {
+					new ModelJournal(getJournalLocation(), workbenchData)
+							.replay((XMLResource) resource);
+				} catch (IOException e) {
+					if (logger != null) {
+						logger.error(e, "Unable to apply the model journal"); //$NON-NLS-1$
+					}
+				}
+			}
+			if (resource != null && !workbenchData.equals(getWorkbenchSaveLocation())) {
+				// the model is saved in another format from now on
+				resource = migrateResource(resource);
+			}
 			// If the saved model does not have any top-level windows, Eclipse will exit
 			// immediately, so throw out the persisted state and reinitialize with the defaults.
 			if (!hasTopLevelWindows(resource)) {
@@ -275,8 +296,55 @@ public class ResourceHandler implements IModelResourceHandler {
 
 	@Override
 	public void save() throws IOException {
-		if (saveAndRestore)
+		if (saveAndRestore) {
 			resource.save(null);
+			getJournal().reset();
+		}
+	}
+
+	/**
+	 * @return the journal of the changes auto-saved since the model was saved
+	 *         in full, or <code>null</code> if the model is not saved
+	 */
+	public ModelJournal getJournal() {
+		if (!saveAndRestore) {
+			return null;
+		}
+		if (journal == null) {
+			journal = new ModelJournal(getJournalLocation(), getWorkbenchSaveLocation());
+		}
+		return journal;
+	}
+
+	private File getJournalLocation() {
+		return new File(getBaseLocation(), "workbench.journal"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Moves a model loaded from the restore location into a resource saved at
+	 * the save location, keeping the IDs of its elements.
+	 */
+	private Resource migrateResource(Resource oldResource) {
+		Resource newResource = createResource();
+		if (oldResource instanceof XMLResource && newResource instanceof XMLResource) {
+			Map<EObject, String> ids = new IdentityHashMap<EObject, String>();
+			for (TreeIterator<EObject> it = oldResource.getAllContents(); it.hasNext();) {
+				EObject element = it.next();
+				if (!(element instanceof Map.Entry<?, ?>)) {
+					ids.put(element, ((XMLResource) oldResource).getID(element));
+				}
+			}
+			newResource.getContents().addAll(oldResource.getContents());
+			for (Map.Entry<EObject, String> entry : ids.entrySet()) {
+				if (entry.getValue() != null) {
+					((XMLResource) newResource).setID(entry.getKey(), entry.getValue());
+				}
+			}
+		} else {
+			newResource.getContents().addAll(oldResource.getContents());
+		}
+		resourceSetImpl.getResources().remove(oldResource);
+		return newResource;
 	}
 
 	/**
@@ -301,12 +369,29 @@ public class ResourceHandler implements IModelResourceHandler {
 		return resourceSetImpl.createResource(URI.createURI("workbench.xmi")); //$NON-NLS-1$
 	}
 
-	private File getWorkbenchSaveLocation() {
+	/**
+	 * @return the file the model is saved to, its extension selects the
+	 *         resource factory
+	 */
+	protected File getWorkbenchSaveLocation() {
 		File workbenchData = new File(getBaseLocation(), "workbench.xmi"); //$NON-NLS-1$
 		return workbenchData;
 	}
 
-	private File getBaseLocation() {
+	/**
+	 * Returns the file the model is restored from. This is the save location,
+	 * unless the model was saved in another format which has to be migrated.
+	 *
+	 * @return the file the model is restored from
+	 */
+	protected File getWorkbenchRestoreLocation() {
+		return getWorkbenchSaveLocation();
+	}
+
+	/**
+	 * @return the directory the model is saved in
+	 */
+	protected File getBaseLocation() {
 		File baseLocation;
 		try {
 			baseLocation = new File(URIUtil.toURI(instanceLocation.getURL()));
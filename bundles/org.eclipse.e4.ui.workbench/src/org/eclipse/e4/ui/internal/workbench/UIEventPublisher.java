@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.e4.core.contexts.IEclipseContext;
@@ -29,16 +31,42 @@ import org.eclipse.emf.ecore.util.EContentAdapter;
 
 /**
  * Transforms E4 MPart events into 3.x legacy events.
+ * <p>
+ * The events are only formatted and sent for the topics some event handler is
+ * subscribed to. Between {@link #beginBatch()} and {@link #endBatch()}, the
+ * events are collected and sent when the batch ends, the successive
+ * {@link EventTypes#SET SET} events of the same attribute of an element being
+ * coalesced in a single event, which is dropped if the attribute ends up with
+ * its original value.
+ * </p>
  */
 public class UIEventPublisher extends EContentAdapter {
 
 	private IEclipseContext context;
 
+	private final EventTopicSubscriptions subscriptions;
+
+	private int batchDepth;
+
+	/**
+	 * The events collected in the current batch, in the order of their
+	 * notifications.
+	 */
+	private List<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
+
+	/**
+	 * The last collected SET events, to coalesce the next SET events of the
+	 * same attributes.
+	 */
+	private Map<PendingEvent, PendingEvent> pendingSetEvents = new HashMap<PendingEvent, PendingEvent>();
+
 	/**
 	 * @param e4Context
 	 */
 	public UIEventPublisher(IEclipseContext e4Context) {
 		this.context = e4Context;
+		Activator activator = Activator.getDefault();
+		subscriptions = activator == null ? null : activator.getEventSubscriptions();
 	}
 
 	@Override
@@ -49,17 +77,179 @@ public class UIEventPublisher extends EContentAdapter {
 		if (notification.isTouch())
 			return;
 
+		String topic = getTopic(notification);
+		if (topic == null || (subscriptions != null && !subscriptions.hasSubscribers(topic))) {
+			return;
+		}
+
 		// Format the EMF event as an E4 UIEvent
 		Map<String, Object> argMap = new HashMap<String, Object>();
+		formatData(notification, argMap);
 
-		String topic = formatData(notification, argMap);
-
-		if (topic != null) {
+		if (batchDepth > 0) {
+			addPendingEvent(new PendingEvent(topic, argMap));
+		} else {
 			IEventBroker eventManager = context.get(IEventBroker.class);
 			eventManager.send(topic, argMap);
 		}
 	}
 
+	/**
+	 * Starts collecting the events instead of sending them, until the matching
+	 * call to {@link #endBatch()}. Batches may be nested, the events are sent
+	 * when the outermost batch ends.
+	 * <p>
+	 * Both methods must be called by the thread changing the model, typically
+	 * around a bulk change of the model:
+	 * </p>
+	 *
+	 * <pre>
+	 * publisher.beginBatch();
+	 * try {
+	 * 	// change the model
+	 * } finally {
+	 * 	publisher.endBatch();
+	 * }
+	 * </pre>
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+
+	/**
+	 * Ends a batch started with {@link #beginBatch()}. When the outermost batch
+	 * ends, the collected events are sent in the order of the model changes,
+	 * the SET events of an attribute being sent as a single event at the
+	 * position of the last one, with the old value of the first one and the
+	 * new value of the last one. That event is not sent if both values are
+	 * equal.
+	 */
+	public void endBatch() {
+		if (batchDepth == 0) {
+			throw new IllegalStateException("No batch to end"); //$NON-NLS-1$
+		}
+		if (--batchDepth > 0) {
+			return;
+		}
+		List<PendingEvent> events = pendingEvents;
+		pendingEvents = new ArrayList<PendingEvent>();
+		pendingSetEvents.clear();
+		if (events.isEmpty()) {
+			return;
+		}
+		IEventBroker eventManager = context.get(IEventBroker.class);
+		for (PendingEvent event : events) {
+			if (!event.replaced && !(event.coalesced && event.isUnchanged())) {
+				eventManager.send(event.topic, event.argMap);
+			}
+		}
+	}
+
+	private void addPendingEvent(PendingEvent event) {
+		if (EventTypes.SET.equals(event.argMap.get(EventTags.TYPE))) {
+			PendingEvent previous = pendingSetEvents.put(event, event);
+			if (previous != null) {
+				// The coalesced event is sent at the position of the last SET,
+				// after the events collected since the previous one
+				previous.replaced = true;
+				event.coalesced = true;
+				Object oldValue = previous.argMap.get(EventTags.OLD_VALUE);
+				if (oldValue == null) {
+					event.argMap.remove(EventTags.OLD_VALUE);
+				} else {
+					event.argMap.put(EventTags.OLD_VALUE, oldValue);
+				}
+			}
+		}
+		pendingEvents.add(event);
+	}
+
+	/**
+	 * An event collected in a batch. Two SET events are equal if they change
+	 * the same attribute of the same element, and the same key for map
+	 * attributes.
+	 */
+	private static class PendingEvent {
+		final String topic;
+		final Map<String, Object> argMap;
+		final Object element;
+		final Object mapKey;
+
+		/**
+		 * True if a later SET event of the same attribute replaces this one.
+		 */
+		boolean replaced;
+
+		/**
+		 * True if this SET event replaces earlier ones.
+		 */
+		boolean coalesced;
+
+		PendingEvent(String topic, Map<String, Object> argMap) {
+			this.topic = topic;
+			this.argMap = argMap;
+			element = argMap.get(EventTags.ELEMENT);
+			Object value = argMap.get(EventTags.NEW_VALUE);
+			if (value == null) {
+				value = argMap.get(EventTags.OLD_VALUE);
+			}
+			Object attributeName = argMap.get(EventTags.ATTNAME);
+			if ((UIEvents.ApplicationElement.TRANSIENTDATA.equals(attributeName) || UIEvents.ApplicationElement.PERSISTEDSTATE
+					.equals(attributeName)) && value instanceof Map.Entry<?, ?>) {
+				mapKey = ((Map.Entry<?, ?>) value).getKey();
+			} else {
+				mapKey = null;
+			}
+		}
+
+		/**
+		 * @return <code>true</code> if the old and new values of the event are
+		 *         equal
+		 */
+		boolean isUnchanged() {
+			Object oldValue = argMap.get(EventTags.OLD_VALUE);
+			Object newValue = argMap.get(EventTags.NEW_VALUE);
+			if (oldValue instanceof Map.Entry<?, ?> && newValue instanceof Map.Entry<?, ?>) {
+				oldValue = ((Map.Entry<?, ?>) oldValue).getValue();
+				newValue = ((Map.Entry<?, ?>) newValue).getValue();
+			}
+			return oldValue == null ? newValue == null : oldValue.equals(newValue);
+		}
+
+		@Override
+		public int hashCode() {
+			return topic.hashCode() ^ System.identityHashCode(element)
+					^ (mapKey == null ? 0 : mapKey.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PendingEvent)) {
+				return false;
+			}
+			PendingEvent other = (PendingEvent) obj;
+			return topic.equals(other.topic) && element == other.element
+					&& (mapKey == null ? other.mapKey == null : mapKey.equals(other.mapKey));
+		}
+	}
+
+	/**
+	 * @return the topic of the event for the notification, or
+	 *         <code>null</code> if no event is sent for the notification
+	 */
+	private String getTopic(Notification notification) {
+		Object notifier = notification.getNotifier();
+		if (notifier instanceof MApplicationElement) {
+			return getTopic((EStructuralFeature) notification.getFeature(),
+					getEventType(notification));
+		} else if (notifier instanceof StringToObjectMapImpl) {
+			return getTopic(UIEvents.ApplicationElement.TRANSIENTDATA, getEventType(notification));
+		} else if (notifier instanceof StringToStringMapImpl) {
+			return getTopic(UIEvents.ApplicationElement.PERSISTEDSTATE, getEventType(notification));
+		}
+		return null;
+	}
+
 	/**
 	 * Large hack here. Open to better suggestions
 	 * 
@@ -98,11 +288,10 @@ public class UIEventPublisher extends EContentAdapter {
 	 * Likely there is some "simple" EMF wisdom we are missing to make this work with a couple of
 	 * annotations, a white swan and a full moon.
 	 */
-	private String formatData(final Notification notification, Map<String, Object> argMap) {
+	private void formatData(final Notification notification, Map<String, Object> argMap) {
 		MApplicationElement appElement = null;
 		EStructuralFeature feature = null;
 		String attributeName = null;
-		String topic = null;
 
 		Object notifier = notification.getNotifier();
 		Object oldValue = null;
@@ -114,7 +303,6 @@ public class UIEventPublisher extends EContentAdapter {
 			appElement = (MApplicationElement) notifier;
 			feature = (EStructuralFeature) notification.getFeature();
 			attributeName = feature.getName();
-			topic = getTopic(feature, getEventType(notification));
 			switch (notification.getEventType()) {
 			case Notification.MOVE:
 				// for MOVE, oldValue is actually the source position
@@ -164,7 +352,6 @@ public class UIEventPublisher extends EContentAdapter {
 			}
 
 			attributeName = UIEvents.ApplicationElement.TRANSIENTDATA;
-			topic = getTopic(attributeName, getEventType(notification));
 
 			// We need to send MapEntries for the old and new values.
 			oldValue = createMapEntry(key, notification.getOldValue());
@@ -187,12 +374,11 @@ public class UIEventPublisher extends EContentAdapter {
 			}
 
 			attributeName = UIEvents.ApplicationElement.PERSISTEDSTATE;
-			topic = getTopic(attributeName, getEventType(notification));
 			oldValue = createMapEntry(key, notification.getOldValue());
 			newValue = createMapEntry(key, notification.getNewValue());
 		} else {
 			// Unhandled notification type. Ignore event
-			return null;
+			return;
 		}
 
 		argMap.put(EventTags.TYPE, getEventType(notification));
@@ -220,8 +406,6 @@ public class UIEventPublisher extends EContentAdapter {
 		if (appElement instanceof MUIElement) {
 			argMap.put(EventTags.WIDGET, ((MUIElement) appElement).getWidget());
 		}
-
-		return topic;
 	}
 
 	private String getEventType(Notification notification) {
@@ -12,6 +12,8 @@
 
 package org.eclipse.jface.viewers;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
 
@@ -48,6 +50,17 @@ public class ViewerComparator {
 	 */
 	private Comparator comparator;
 
+	/**
+	 * Whether a subclass overrides {@link #compare(Viewer, Object, Object)},
+	 * computed on the first sort.
+	 */
+	private Boolean compareOverridden;
+
+	/**
+	 * The minimum number of elements sorted on several threads, or 0.
+	 */
+	private int parallelSortThreshold;
+
 	/**
      * Creates a new {@link ViewerComparator}, which uses the default comparator
      * to sort strings.
@@ -178,6 +191,14 @@ public class ViewerComparator {
      * calling <code>compare</code> to compare elements.
      * </p>
      * <p>
+     * If <code>compare</code> is not overridden, the category and the label
+     * of each element are only computed once per sort, and labels are compared
+     * through collation keys when the string comparator is a
+     * {@link Collator}. Arrays of at least
+     * {@link #setParallelSortThreshold(int) the parallel sort threshold}
+     * elements are then sorted on several threads.
+     * </p>
+     * <p>
      * Subclasses may reimplement this method to provide a more optimized implementation.
      * </p>
      *
@@ -186,12 +207,16 @@ public class ViewerComparator {
      */
 	public void sort(final Viewer viewer, Object[] elements) {
 		try {
-			Arrays.sort(elements, new Comparator() {
-				@Override
-				public int compare(Object a, Object b) {
-					return ViewerComparator.this.compare(viewer, a, b);
-				}
-			});
+			if (isCompareOverridden()) {
+				Arrays.sort(elements, new Comparator() {
+					@Override
+					public int compare(Object a, Object b) {
+						return ViewerComparator.this.compare(viewer, a, b);
+					}
+				});
+			} else {
+				sortByKeys(viewer, elements);
+			}
 		} catch (IllegalArgumentException e) {
 			String msg = "Workaround for comparator violation:\n\t- set system property java.util.Arrays.useLegacyMergeSort=true\n\t- use a 1.6 JRE "  //$NON-NLS-1$
 					+ "\nmessage: " + e.getLocalizedMessage() //$NON-NLS-1$
@@ -205,4 +230,188 @@ public class ViewerComparator {
 			throw e;
 		}
 	}
+
+	/**
+	 * Sets the minimum number of elements for which {@link #sort(Viewer, Object[])}
+	 * sorts on several threads. Categories and labels are still computed in the
+	 * calling thread. Parallel sorting is disabled by default.
+	 * <p>
+	 * Only use this with a string comparator which can be called from
+	 * several threads.
+	 * </p>
+	 *
+	 * @param threshold
+	 *            the minimum number of elements, or <code>0</code> to disable
+	 *            parallel sorting
+	 * @since 3.11
+	 */
+	public void setParallelSortThreshold(int threshold) {
+		this.parallelSortThreshold = threshold;
+	}
+
+	/**
+	 * Returns whether a subclass overrides
+	 * {@link #compare(Viewer, Object, Object)}, in which case the elements
+	 * must be compared by calling it.
+	 */
+	private boolean isCompareOverridden() {
+		if (compareOverridden == null) {
+			try {
+				compareOverridden = Boolean.valueOf(getClass().getMethod(
+						"compare", Viewer.class, Object.class, Object.class) //$NON-NLS-1$
+						.getDeclaringClass() != ViewerComparator.class);
+			} catch (NoSuchMethodException e) {
+				compareOverridden = Boolean.TRUE;
+			}
+		}
+		return compareOverridden.booleanValue();
+	}
+
+	/**
+	 * Sorts the elements like {@link #compare(Viewer, Object, Object)} does,
+	 * with the category and sort key of each element computed once.
+	 */
+	private void sortByKeys(Viewer viewer, Object[] elements) {
+		Comparator stringComparator = getComparator();
+		Collator collator = stringComparator instanceof Collator ? (Collator) stringComparator
+				: null;
+		SortKey[] keys = new SortKey[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			Object element = elements[i];
+			String label = getLabel(viewer, element);
+			keys[i] = new SortKey(element, category(element),
+					collator == null ? label : collator.getCollationKey(label));
+		}
+		Comparator<SortKey> keyComparator = new SortKeyComparator(
+				collator == null ? stringComparator : null);
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+		if (parallelSortThreshold > 0 && elements.length >= parallelSortThreshold
+				&& threads > 1) {
+			parallelSort(keys, keyComparator, threads);
+		} else {
+			Arrays.sort(keys, keyComparator);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			elements[i] = keys[i].element;
+		}
+	}
+
+	/**
+	 * Sorts chunks of the keys on several threads, then merges them. Like
+	 * {@link Arrays#sort(Object[], Comparator)}, the sort is stable.
+	 */
+	private static void parallelSort(final SortKey[] keys,
+			final Comparator<SortKey> keyComparator, int threads) {
+		final int[] bounds = new int[threads + 1];
+		for (int i = 0; i <= threads; i++) {
+			bounds[i] = (int) ((long) keys.length * i / threads);
+		}
+		final RuntimeException[] failure = new RuntimeException[1];
+		Thread[] workers = new Thread[threads - 1];
+		for (int i = 0; i < workers.length; i++) {
+			final int chunk = i + 1;
+			workers[i] = new Thread("ViewerComparator sort") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					try {
+						Arrays.sort(keys, bounds[chunk], bounds[chunk + 1],
+								keyComparator);
+					} catch (RuntimeException e) {
+						failure[0] = e;
+					}
+				}
+			};
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		Arrays.sort(keys, bounds[0], bounds[1], keyComparator);
+		for (Thread worker : workers) {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					worker.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		SortKey[] buffer = new SortKey[keys.length];
+		for (int width = 1; width < threads; width *= 2) {
+			for (int i = 0; i + width < threads; i += 2 * width) {
+				merge(keys, buffer, bounds[i], bounds[i + width],
+						bounds[Math.min(i + 2 * width, threads)], keyComparator);
+			}
+		}
+	}
+
+	/**
+	 * Merges the sorted ranges [from, middle[ and [middle, to[ of the keys,
+	 * taking the keys of the first range first on ties.
+	 */
+	private static void merge(SortKey[] keys, SortKey[] buffer, int from,
+			int middle, int to, Comparator<SortKey> keyComparator) {
+		System.arraycopy(keys, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to
+					|| (left < middle && keyComparator.compare(buffer[left],
+							buffer[right]) <= 0)) {
+				keys[i] = buffer[left++];
+			} else {
+				keys[i] = buffer[right++];
+			}
+		}
+	}
+
+	/**
+	 * An element with its precomputed category and sort key, which is either
+	 * its label or the collation key of its label.
+	 */
+	private static final class SortKey {
+		final Object element;
+		final int category;
+		final Object key;
+
+		SortKey(Object element, int category, Object key) {
+			this.element = element;
+			this.category = category;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Compares sort keys like {@link ViewerComparator#compare(Viewer, Object, Object)}
+	 * compares elements.
+	 */
+	private static final class SortKeyComparator implements Comparator<SortKey> {
+		private final Comparator stringComparator;
+
+		/**
+		 * @param stringComparator
+		 *            the comparator of the labels, or <code>null</code> if
+		 *            the keys are collation keys
+		 */
+		SortKeyComparator(Comparator stringComparator) {
+			this.stringComparator = stringComparator;
+		}
+
+		@Override
+		public int compare(SortKey k1, SortKey k2) {
+			if (k1.category != k2.category) {
+				return k1.category - k2.category;
+			}
+			if (stringComparator == null) {
+				return ((CollationKey) k1.key).compareTo((CollationKey) k2.key);
+			}
+			return stringComparator.compare(k1.key, k2.key);
+		}
+	}
 }
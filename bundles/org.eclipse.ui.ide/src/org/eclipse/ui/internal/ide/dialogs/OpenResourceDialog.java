@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -155,6 +155,10 @@ public class OpenResourceDialog extends FilteredResourcesSelectionDialog {
 			int typesMask) {
 		super(parentShell, true, container, typesMask);
 		setTitle(IDEWorkbenchMessages.OpenResourceDialog_title);
+		// resource filters only read the name and state of resources
+		setParallelMatching(true);
+		// and resources are sorted independently of the filter
+		setReuseSortedResults(true);
 	}
 
 	@Override
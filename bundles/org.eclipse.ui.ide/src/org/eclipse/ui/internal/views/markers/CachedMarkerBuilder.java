@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -134,10 +134,8 @@ public class CachedMarkerBuilder {
 			.removePropertyChangeListener(getWorkingSetListener());
 		}
 		
-		if (isIncremental()) {
-			if(incrementJob!=null){
-				incrementJob.clearEntries();
-			}
+		if(incrementJob!=null){
+			incrementJob.clearUpdates();
 		}
 	}
 
@@ -467,13 +465,12 @@ public class CachedMarkerBuilder {
 				// ensure cancellation before calling the method
 				// updateJob.cancel();
 			} else {
-				/*
-				 * updateJob = isIncremental() ? new IncrementUpdateJob(this):
-				 * new MarkerUpdateJob(this);
-				 */
-				updateJob = new MarkerUpdateJob(this);
+				incrementJob = new IncrementUpdateJob(this);
+				updateJob = incrementJob;
 				updateJob.setPriority(Job.LONG);
 				updateJob.setSystem(true);
+				// the first update gathers the markers
+				updateJob.setClean();
 			}
 			if (clean) {
 				updateJob.setClean();
@@ -615,21 +612,6 @@ public class CachedMarkerBuilder {
 	 
 ///////	<Incremental update code>///////
 		private IncrementUpdateJob incrementJob;
-	/**
-	 * Checks whether the builder should perform incrementally Note : Incremental
-	 * updating method is NOT used and tested yet but left out for further
-	 * investigation(*).
-	 * 
-	 * @return Returns true if we should collect markers incrementally.
-	 */
-	boolean isIncremental() {
-		/*
-		 * We do not update incrementally. We have 
-		 * code for further investigation(*) for this anyway.
-		 */
-		return false;
-	}
-	
 	/**
 	 * @return Returns the changeFlags {added,removed,changed}.
 	 */
@@ -657,12 +639,14 @@ public class CachedMarkerBuilder {
 	 * @param update
 	 */
 	void incrementalUpdate(MarkerUpdate update) {
+		IncrementUpdateJob job;
 		synchronized (getUpdateScheduler().getSchedulingLock()) {
-			if (incrementJob == null) {
-				scheduleUpdateJob(MarkerUpdateScheduler.SHORT_DELAY, true);
-			}
+			job = incrementJob;
+		}
+		// without a job the markers have not been gathered yet
+		if (job != null) {
+			job.addUpdate(update);
 		}
-		incrementJob.addUpdate(update);
 	}
 ///////	</Incremental update code>///////
 	
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.internal.views.markers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * The entries of a category, or of all markers when they are not grouped,
+ * while they are updated by {@link Markers#applyUpdates}. The first
+ * {@link #getSortedCount()} entries are sorted, and none of the other entries
+ * comes before them.
+ *
+ * @since 3.10
+ */
+public class MarkerEntrySection {
+
+	private List entries;
+
+	private int sorted;
+
+	/**
+	 * Create a section of the entries in [start, end) of the array, of which
+	 * the first <code>sorted</code> ones are sorted.
+	 *
+	 * @param array
+	 * @param start
+	 * @param end
+	 * @param sorted
+	 */
+	MarkerEntrySection(MarkerEntry[] array, int start, int end, int sorted) {
+		entries = new ArrayList(end - start);
+		for (int i = start; i < end; i++) {
+			entries.add(array[i]);
+		}
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Create a section of the given entries, of which the first
+	 * <code>sorted</code> ones are sorted.
+	 *
+	 * @param entries
+	 *            the marker entries
+	 * @param sorted
+	 */
+	public MarkerEntrySection(List entries, int sorted) {
+		this.entries = new ArrayList(entries);
+		this.sorted = sorted;
+	}
+
+	/**
+	 * @return the marker entries, the sorted ones first
+	 */
+	public List getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return the number of sorted entries at the start of the section
+	 */
+	public int getSortedCount() {
+		return sorted;
+	}
+
+	/**
+	 * Remove the entries of the markers, and of markers which no longer
+	 * exist.
+	 *
+	 * @param markers
+	 *            the {@link IMarker}s to remove
+	 */
+	public void remove(Collection markers) {
+		List kept = new ArrayList(entries.size());
+		int keptSorted = 0;
+		for (int i = 0; i < entries.size(); i++) {
+			MarkerEntry entry = (MarkerEntry) entries.get(i);
+			IMarker marker = entry.getMarker();
+			if (marker == null || markers.contains(marker)
+					|| entry.getStaleState()) {
+				continue;
+			}
+			kept.add(entry);
+			if (i < sorted) {
+				keptSorted++;
+			}
+		}
+		entries = kept;
+		sorted = keptSorted;
+	}
+
+	/**
+	 * Add entries, merging those coming before the last sorted entry into the
+	 * sorted ones.
+	 *
+	 * @param added
+	 *            the marker entries to add
+	 * @param comparator
+	 */
+	public void add(List added, Comparator comparator) {
+		Collections.sort(added, comparator);
+		boolean hasUnsorted = sorted < entries.size();
+		MarkerEntry lastSorted = sorted == 0 ? null
+				: (MarkerEntry) entries.get(sorted - 1);
+		List merged = new ArrayList(entries.size() + added.size());
+		List unsorted = new ArrayList();
+		int i = 0;
+		Iterator iterator = added.iterator();
+		while (iterator.hasNext()) {
+			MarkerEntry entry = (MarkerEntry) iterator.next();
+			if (hasUnsorted
+					&& (lastSorted == null || comparator.compare(entry,
+							lastSorted) >= 0)) {
+				unsorted.add(entry);
+				continue;
+			}
+			while (i < sorted
+					&& comparator.compare(entries.get(i), entry) <= 0) {
+				merged.add(entries.get(i++));
+			}
+			merged.add(entry);
+		}
+		while (i < sorted) {
+			merged.add(entries.get(i++));
+		}
+		int newSorted = merged.size();
+		merged.addAll(entries.subList(sorted, entries.size()));
+		merged.addAll(unsorted);
+		entries = merged;
+		sorted = newSorted;
+	}
+
+	/**
+	 * Sort the entries up to the showing limit, if removals left fewer
+	 * entries sorted. Only the unsorted entries are sorted, and only as far as
+	 * needed.
+	 *
+	 * @param limit
+	 *            the number of entries shown
+	 * @param comparator
+	 */
+	public void fillShowing(int limit, Comparator comparator) {
+		int size = entries.size();
+		limit = Math.min(limit, size);
+		if (sorted >= limit || sorted >= size - 1) {
+			sorted = Math.max(sorted, limit);
+			return;
+		}
+		MarkerEntry[] array = new MarkerEntry[size];
+		entries.toArray(array);
+		MarkerSortUtil.sortStartingKElement(array, comparator, sorted,
+				size - 1, limit - sorted, new NullProgressMonitor());
+		entries = new ArrayList(size);
+		Collections.addAll(entries, array);
+		sorted = limit;
+	}
+}
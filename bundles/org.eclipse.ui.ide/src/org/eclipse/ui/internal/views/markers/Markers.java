@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -180,6 +180,130 @@ class Markers {
 		}
 	}
 
+	/**
+	 * Apply marker changes to the entries, without gathering and sorting all
+	 * the markers again. The entries stay in their categories, and as in
+	 * {@link #sortMarkerEntries(IProgressMonitor)} only the entries up to the
+	 * showing limit of a category are kept sorted, so that adding an entry
+	 * costs a binary search and removing one from the showing entries a
+	 * bounded sort of the others.
+	 * 
+	 * @param updates
+	 *            map from the changed markers to their new {@link MarkerEntry},
+	 *            or to <code>null</code> for removed markers
+	 * @param generator
+	 *            the generator selecting the new entries
+	 * @return <code>false</code> if the entries were not sorted and grouped
+	 *         in the way the builder shows them, in which case they have to
+	 *         be gathered again
+	 */
+	synchronized boolean applyUpdates(Map updates,
+			MarkerContentGenerator generator) {
+		boolean initialVal = inChange;
+		try {
+			inChange = true;
+			boolean hierarchy = builder.isShowingHierarchy();
+			MarkerGroup group = builder.getCategoryGroup();
+			Comparator comparator;
+			Map sections;
+			if (hierarchy) {
+				if (group == null
+						|| (categories.length == 0 && markerEntryArray.length > 0)) {
+					return false;
+				}
+				comparator = builder.getComparator().getFieldsComparator();
+				sections = new TreeMap(group.getEntriesComparator());
+				for (int i = 0; i < categories.length; i++) {
+					MarkerCategory category = categories[i];
+					if (category.groupingEntry == null) {
+						return false;
+					}
+					sections.put(category.groupingEntry, new MarkerEntrySection(
+							markerEntryArray, category.start, category.end + 1,
+							getShowingLimit(category.end - category.start + 1)));
+				}
+			} else {
+				comparator = builder.getComparator();
+				sections = new HashMap();
+				sections.put(this, new MarkerEntrySection(markerEntryArray, 0,
+						markerEntryArray.length,
+						getShowingLimit(markerEntryArray.length)));
+			}
+
+			Map added = new HashMap();
+			Iterator iterator = updates.values().iterator();
+			while (iterator.hasNext()) {
+				MarkerEntry entry = (MarkerEntry) iterator.next();
+				if (entry == null || !generator.select(entry)) {
+					continue;
+				}
+				Object key = this;
+				if (hierarchy) {
+					IMarker marker = entry.getMarker();
+					try {
+						key = group.findGroupValue(marker.getType(), marker);
+					} catch (CoreException e) {
+						// the marker was deleted since
+						continue;
+					}
+				}
+				List list = (List) added.get(key);
+				if (list == null) {
+					list = new ArrayList();
+					added.put(key, list);
+				}
+				list.add(entry);
+			}
+
+			Iterator keys = added.keySet().iterator();
+			while (keys.hasNext()) {
+				Object key = keys.next();
+				if (!sections.containsKey(key)) {
+					sections.put(key, new MarkerEntrySection(EMPTY_ENTRY_ARRAY, 0, 0, 0));
+				}
+			}
+
+			List newEntries = new ArrayList(markerEntryArray.length);
+			List newCategories = new ArrayList(sections.size());
+			keys = sections.keySet().iterator();
+			while (keys.hasNext()) {
+				Object key = keys.next();
+				MarkerEntrySection section = (MarkerEntrySection) sections.get(key);
+				section.remove(updates.keySet());
+				List list = (List) added.get(key);
+				if (list != null) {
+					section.add(list, comparator);
+				}
+				List entries = section.getEntries();
+				if (entries.isEmpty()) {
+					continue;
+				}
+				section.fillShowing(getShowingLimit(entries.size()),
+						comparator);
+				int start = newEntries.size();
+				newEntries.addAll(section.getEntries());
+				if (hierarchy) {
+					MarkerCategory category = new MarkerCategory(this, start,
+							newEntries.size() - 1, group.getMarkerField()
+									.getValue((MarkerEntry) newEntries
+											.get(start)));
+					category.groupingEntry = (MarkerGroupingEntry) key;
+					newCategories.add(category);
+				}
+			}
+
+			markerToEntryMap = null;
+			markerCounts = null;
+			markerEntryArray = new MarkerEntry[newEntries.size()];
+			newEntries.toArray(markerEntryArray);
+			categories = new MarkerCategory[newCategories.size()];
+			newCategories.toArray(categories);
+			return true;
+		} finally {
+			inChange = initialVal;
+		}
+	}
+
 	/**
 	 * get marker limit to show, if any.
 	 * 
@@ -219,9 +343,11 @@ class Markers {
 		while (iterator.hasNext()) {
 			Object key = iterator.next();
 			end = ((Integer) boundaryInfoMap.get(key)).intValue();
-			markerCategories[i++] = new MarkerCategory(this, start, end,
+			MarkerCategory category = new MarkerCategory(this, start, end,
 					builder.getCategoryGroup().getMarkerField()
 							.getValue(newMarkers[start]));
+			category.groupingEntry = (MarkerGroupingEntry) key;
+			markerCategories[i++] = category;
 			start = end + 1;
 		}
 		return markerCategories;
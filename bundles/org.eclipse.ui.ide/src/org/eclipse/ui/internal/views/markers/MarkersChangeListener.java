@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -132,6 +132,11 @@ class MarkersChangeListener implements IResourceChangeListener {
 				builder.getUpdateScheduler().speedUpPendingUpdates();
 				return;
 			}
+			if (hasOpenedOrClosedProjects(event)) {
+				// markers of opened or closed projects have no deltas
+				builder.scheduleUpdate();
+				return;
+			}
 			if(!hasApplicableTypes(event)){
 				return;
 			}
@@ -139,10 +144,6 @@ class MarkersChangeListener implements IResourceChangeListener {
 			// return;
 			// }
 			
-			if (!builder.isIncremental()) {
-				handleMarkerChange(event);
-				return;
-			}
 			handleIncrementalChange(event);
 		} finally {
 			setReceivingChange(false);
@@ -164,14 +165,6 @@ class MarkersChangeListener implements IResourceChangeListener {
 		this.receiving = receiving;
 	}
 
-	/**
-	 * Handle marker change event
-	 * @param event
-	 */
-	private void handleMarkerChange(IResourceChangeEvent event) {
-		builder.getUpdateScheduler().scheduleUpdate();
-	}
-	
 	/**
 	 * Markers have not changed
 	 */
@@ -185,10 +178,7 @@ class MarkersChangeListener implements IResourceChangeListener {
 	 * of the markers that were gathered initially, and keeps them synched at
 	 * any point with the markers of interest in Workspace. Unfortunately marker
 	 * operations cannot be locked so locking between gathering of markers and
-	 * marker deltas is not possible.
-	 * 
-	 * Note : this method of updating is NOT used and tested yet and has holes
-	 * but left out SOLELY for further investigation(*).
+	 * marker deltas is not possible, see {@link IncrementUpdateJob}.
 	 * 
 	 * @param event
 	 */
@@ -239,6 +229,25 @@ class MarkersChangeListener implements IResourceChangeListener {
 		return;
 	}
 
+	/**
+	 * @param event
+	 * @return true if a project was opened or closed, else false.
+	 */
+	private boolean hasOpenedOrClosedProjects(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return false;
+		}
+		IResourceDelta[] projectDeltas = delta
+				.getAffectedChildren(IResourceDelta.CHANGED);
+		for (int i = 0; i < projectDeltas.length; i++) {
+			if ((projectDeltas[i].getFlags() & IResourceDelta.OPEN) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * @param event
 	 * @return true if the marker delta has a change in an applicable marker
@@ -546,6 +555,19 @@ class MarkerUpdateScheduler {
 		// updateTimer.reset();
 	}
 
+	/**
+	 * Schedule marker update for changed markers. The update only applies
+	 * the changes to the markers gathered before.
+	 */
+	private void scheduleMarkerChangeUpdate(long delay, boolean cancelPrevious) {
+		builder.setBuilding(true);
+		if (cancelPrevious) {
+			cancelQueuedUIUpdates();
+			cancelUpdate();
+		}
+		updateJob = builder.scheduleUpdateJob(delay, false);
+	}
+
 	/**
 	 * Schedule marker update.
 	 */
@@ -809,7 +831,7 @@ class MarkerUpdateScheduler {
 
 		private void go(long delay, boolean cancelPrevious) {
 			timeB4Update = System.currentTimeMillis() + delay;
-			scheduleUpdate(delay + AFTER_MARGIN, cancelPrevious);
+			scheduleMarkerChangeUpdate(delay + AFTER_MARGIN, cancelPrevious);
 		}
 	}
 }
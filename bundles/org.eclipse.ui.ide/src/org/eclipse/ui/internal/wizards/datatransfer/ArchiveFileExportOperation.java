@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,16 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.wizards.datatransfer;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
@@ -55,6 +59,14 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
 
     private boolean createLeadupStructure = true;
 
+    private boolean useParallelCompression = false;
+
+    private int exportedFileCount;
+
+    private long exportedBytes;
+
+    private long elapsedTime;
+
     /**
      *	Create an instance of this class.  Use this constructor if you wish to
      *	export specific resources without a common parent resource
@@ -195,11 +207,14 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
 
             try {
                 exporter.write((IFile) exportResource, destinationName);
+                exportedFileCount++;
+                exportedBytes += getLength(exportResource);
             } catch (IOException e) {
                 addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
             } catch (CoreException e) {
                 addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
             }
+            reportExporterFailures();
 
             monitor.worked(1);
             ModalContext.checkCanceled(monitor);
@@ -220,6 +235,7 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
                 } catch (IOException e) {
                     addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
                 }
+                reportExporterFailures();
             }
 
             for (int i = 0; i < children.length; i++) {
@@ -229,6 +245,39 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
         }
     }
 
+    /**
+     * Report the resources which the exporter accepted but failed to write
+     * later on, such as the files compressed by a
+     * {@link ParallelZipFileExporter}.
+     */
+    private void reportExporterFailures() {
+    	if (!(exporter instanceof ParallelZipFileExporter)) {
+    		return;
+    	}
+    	Map<IResource, Throwable> failures = ((ParallelZipFileExporter) exporter).takeFailures();
+    	for (Map.Entry<IResource, Throwable> failure : failures.entrySet()) {
+    		IResource failed = failure.getKey();
+    		Throwable cause = failure.getValue();
+    		addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, failed.getFullPath().makeRelative(), cause.getMessage()), cause);
+    		if (failed.getType() == IResource.FILE) {
+    			exportedFileCount--;
+    			exportedBytes -= getLength(failed);
+    		}
+    	}
+    }
+
+    private static long getLength(IResource file) {
+    	URI location = file.getLocationURI();
+    	if (location == null) {
+    		return 0;
+    	}
+    	try {
+    		return EFS.getStore(location).fetchInfo().getLength();
+    	} catch (CoreException e) {
+    		return 0;
+    	}
+    }
+
     /**
      *	Export the resources contained in the previously-defined
      *	resourcesToExport collection
@@ -261,6 +310,58 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
                 null);
     }
 
+    /**
+     * Returns the number of files written to the archive by the last run of
+     * this operation.
+     *
+     * @return the number of files
+     */
+    public int getExportedFileCount() {
+    	return exportedFileCount;
+    }
+
+    /**
+     * Returns the total size of the files written to the archive by the last
+     * run of this operation, before compression.
+     *
+     * @return the number of bytes
+     */
+    public long getExportedBytes() {
+    	return exportedBytes;
+    }
+
+    /**
+     * Returns the size of the archive written by the last run of this
+     * operation.
+     *
+     * @return the number of bytes
+     */
+    public long getArchiveSize() {
+    	return new File(destinationFilename).length();
+    }
+
+    /**
+     * Returns the time taken by the last run of this operation.
+     *
+     * @return the time in milliseconds
+     */
+    public long getElapsedTime() {
+    	return elapsedTime;
+    }
+
+    /**
+     * Returns the rate at which the files were exported by the last run of
+     * this operation, before compression.
+     *
+     * @return the number of bytes per second, or 0 if nothing was exported
+     */
+    public long getThroughput() {
+    	if (elapsedTime == 0) {
+    		return 0;
+    	}
+    	return exportedBytes * 1000 / elapsedTime;
+    }
+
     /**
      *	Initialize this operation
      *
@@ -269,6 +370,8 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
     protected void initialize() throws IOException {
     	if(useTarFormat) {
     		exporter = new TarFileExporter(destinationFilename, useCompression);
+    	} else if (useParallelCompression) {
+    		exporter = new ParallelZipFileExporter(destinationFilename, useCompression);
     	} else {
         	exporter = new ZipFileExporter(destinationFilename, useCompression);
     	}
@@ -303,6 +406,9 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
 	public void run(IProgressMonitor progressMonitor)
             throws InvocationTargetException, InterruptedException {
         this.monitor = progressMonitor;
+        exportedFileCount = 0;
+        exportedBytes = 0;
+        long start = System.currentTimeMillis();
 
         try {
             initialize();
@@ -336,8 +442,11 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
                 throw new InvocationTargetException(
                         e,
                         NLS.bind(DataTransferMessages.ZipExport_cannotClose, e.getMessage()));
+            } finally {
+                reportExporterFailures();
             }
         } finally {
+            elapsedTime = System.currentTimeMillis() - start;
             monitor.done();
         }
     }
@@ -362,6 +471,17 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
         useCompression = value;
     }
     
+    /**
+     * Set this boolean indicating whether files should be compressed on
+     * several threads when writing a .zip file.
+     *
+     * @param value boolean
+     * @see ParallelZipFileExporter
+     */
+    public void setUseParallelCompression(boolean value) {
+    	useParallelCompression = value;
+    }
+    
     /**
      * Set this boolean indicating whether the file should be output
      * in tar.gz format rather than .zip format.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 IBM Corporation and others.
+ * Copyright (c) 2005, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -131,6 +131,7 @@ public class DataTransferMessages extends NLS {
 	public static String FileExport_damageWarning;
 
 	public static String ZipExport_compressContents;
+	public static String ZipExport_parallelCompression;
 	public static String ZipExport_destinationLabel;
 	public static String ZipExport_mustBeFile;
 	public static String ZipExport_alreadyExists;
@@ -0,0 +1,593 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.wizards.datatransfer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Exports resources to a .zip file, compressing files on several threads.
+ * <p>
+ * Files are read on the calling thread. Files up to {@link #MAX_BUFFERED_SIZE}
+ * are compressed in memory by a pool of threads, and the results are written
+ * to the archive in the order the files were passed in. At most
+ * {@link #MAX_PENDING_SIZE} bytes of file contents wait to be written. Larger
+ * files are compressed on the calling thread while they are written. Their
+ * checksum and sizes are filled into the entry header afterwards, in a ZIP64
+ * field only if they do not fit in 32 bits. Every file is read once, whether
+ * it is compressed or stored.
+ * </p>
+ * <p>
+ * A file which fails to be compressed on the pool is left out of the archive,
+ * and reported by {@link #takeFailures()} once its turn to be written comes.
+ * </p>
+ *
+ * @since 3.11
+ */
+public class ParallelZipFileExporter implements IFileExporter {
+	/**
+	 * The size up to which a file is compressed in memory on the thread pool.
+	 */
+	private static final int MAX_BUFFERED_SIZE = 4 << 20;
+
+	/**
+	 * The size of the file contents which may wait to be compressed or written,
+	 * whatever the number of threads.
+	 */
+	private static final long MAX_PENDING_SIZE = 4 * MAX_BUFFERED_SIZE;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+	private static final int END_SIGNATURE = 0x06054b50;
+
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+
+	/**
+	 * The ID of an alignment padding field, which readers skip. It reserves
+	 * the space of a ZIP64 field in the headers of large entries.
+	 */
+	private static final int PADDING_EXTRA_ID = 0xA11E;
+
+	private static final int ZIP64_EXTRA_LENGTH = 20;
+
+	private static final int VERSION = 20;
+
+	private static final int ZIP64_VERSION = 45;
+
+	private static final int UTF8_FLAG = 0x800;
+
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private final FileOutputStream fileStream;
+
+	private final BufferedOutputStream outputStream;
+
+	private long position;
+
+	private final boolean useCompression;
+
+	private final ThreadPoolExecutor executor;
+
+	private final int maxPendingEntries;
+
+	private final LinkedList<PendingEntry> pendingEntries = new LinkedList<PendingEntry>();
+
+	private long pendingSize;
+
+	private final Map<IResource, Throwable> failures = new LinkedHashMap<IResource, Throwable>();
+
+	private final List<Entry> writtenEntries = new ArrayList<Entry>();
+
+	private final byte[] readBuffer = new byte[BUFFER_SIZE];
+
+	private final byte[] deflateBuffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * Create an instance of this class.
+	 *
+	 * @param filename
+	 *            the name of the archive
+	 * @param compress
+	 *            <code>true</code> to compress files, <code>false</code> to
+	 *            store them
+	 * @exception java.io.IOException
+	 */
+	public ParallelZipFileExporter(String filename, boolean compress) throws IOException {
+		fileStream = new FileOutputStream(filename);
+		outputStream = new BufferedOutputStream(fileStream, BUFFER_SIZE);
+		useCompression = compress;
+		int threads = Runtime.getRuntime().availableProcessors();
+		executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Zip Export Compressor"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		// don't leave threads behind if the export is canceled
+		executor.allowCoreThreadTimeOut(true);
+		maxPendingEntries = threads * 2;
+	}
+
+	/**
+	 * Write the remaining entries and the central directory, and close the
+	 * archive.
+	 *
+	 * @exception java.io.IOException
+	 */
+	@Override
+	public void finished() throws IOException {
+		try {
+			while (!pendingEntries.isEmpty()) {
+				writePendingEntry();
+			}
+			writeCentralDirectory();
+		} finally {
+			executor.shutdown();
+			outputStream.close();
+		}
+	}
+
+	/**
+	 * Returns the files which were left out of the archive since the last call,
+	 * because compressing them failed.
+	 *
+	 * @return the causes of the failures, by file, in the order of the files
+	 */
+	public Map<IResource, Throwable> takeFailures() {
+		Map<IResource, Throwable> taken = new LinkedHashMap<IResource, Throwable>(failures);
+		failures.clear();
+		return taken;
+	}
+
+	@Override
+	public void write(IContainer container, String destinationPath) throws IOException {
+		Entry entry = new Entry(destinationPath, container.getLocalTimeStamp());
+		compress(entry, new byte[0]);
+		FutureTask<Entry> done = new FutureTask<Entry>(new Runnable() {
+			@Override
+			public void run() {
+				// already computed
+			}
+		}, entry);
+		done.run();
+		addPendingEntry(container, done, 0);
+	}
+
+	/**
+	 * Write the passed resource to the current archive.
+	 *
+	 * @param resource
+	 *            org.eclipse.core.resources.IFile
+	 * @param destinationPath
+	 *            java.lang.String
+	 * @exception java.io.IOException
+	 * @exception org.eclipse.core.runtime.CoreException
+	 */
+	@Override
+	public void write(IFile resource, String destinationPath) throws IOException, CoreException {
+		final Entry entry = new Entry(destinationPath, resource.getLocalTimeStamp());
+		InputStream contentStream = resource.getContents(false);
+		try {
+			ByteArrayOutputStream contents = new ByteArrayOutputStream(BUFFER_SIZE);
+			int n;
+			while ((n = contentStream.read(readBuffer)) > 0) {
+				contents.write(readBuffer, 0, n);
+				if (contents.size() > MAX_BUFFERED_SIZE) {
+					writeLargeEntry(entry, contents.toByteArray(), contentStream);
+					return;
+				}
+			}
+			final byte[] data = contents.toByteArray();
+			addPendingEntry(resource, executor.submit(new Callable<Entry>() {
+				@Override
+				public Entry call() {
+					compress(entry, data);
+					return entry;
+				}
+			}), data.length);
+		} finally {
+			contentStream.close();
+		}
+	}
+
+	private void compress(Entry entry, byte[] data) {
+		CRC32 checksumCalculator = new CRC32();
+		checksumCalculator.update(data);
+		entry.crc = checksumCalculator.getValue();
+		entry.size = data.length;
+		if (useCompression) {
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			try {
+				deflater.setInput(data);
+				deflater.finish();
+				byte[] buffer = new byte[Math.max(64, data.length / 2)];
+				int length = 0;
+				while (!deflater.finished()) {
+					if (length == buffer.length) {
+						buffer = Arrays.copyOf(buffer, buffer.length * 2);
+					}
+					length += deflater.deflate(buffer, length, buffer.length - length);
+				}
+				entry.setData(buffer, length, ZipEntry.DEFLATED);
+			} finally {
+				deflater.end();
+			}
+		} else {
+			entry.setData(data, data.length, ZipEntry.STORED);
+		}
+	}
+
+	private void addPendingEntry(IResource resource, Future<Entry> entry, int size)
+			throws IOException {
+		pendingEntries.add(new PendingEntry(resource, entry, size));
+		pendingSize += size;
+		while (pendingEntries.size() > maxPendingEntries || pendingSize > MAX_PENDING_SIZE) {
+			writePendingEntry();
+		}
+	}
+
+	private void writePendingEntry() throws IOException {
+		PendingEntry pending = pendingEntries.removeFirst();
+		pendingSize -= pending.size;
+		Entry entry;
+		try {
+			entry = pending.future.get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			// nothing was written for the entry, so the archive stays valid
+			failures.put(pending.resource, e.getCause());
+			return;
+		}
+		entry.offset = position;
+		writeLocalHeader(entry, false);
+		writeBytes(entry.data, 0, entry.dataLength);
+		// keep only the header fields until the central directory is written
+		entry.data = null;
+		writtenEntries.add(entry);
+	}
+
+	/**
+	 * Writes a file too large to be kept in memory, compressing it on the
+	 * calling thread. The header is written with room for a ZIP64 field, and
+	 * its checksum and sizes are filled in once the contents are written. The
+	 * ZIP64 field is only used if the sizes reach 4GB, so that the archive
+	 * stays readable by tools without ZIP64 support. If the file cannot be
+	 * read, the archive is truncated back to the start of the entry.
+	 */
+	private void writeLargeEntry(Entry entry, byte[] head, InputStream contentStream)
+			throws IOException {
+		while (!pendingEntries.isEmpty()) {
+			writePendingEntry();
+		}
+		entry.method = useCompression ? ZipEntry.DEFLATED : ZipEntry.STORED;
+		entry.offset = position;
+		writeLocalHeader(entry, true);
+		long start = position;
+		CRC32 checksumCalculator = new CRC32();
+		Deflater deflater = useCompression ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+		boolean written = false;
+		try {
+			byte[] input = head;
+			int n = head.length;
+			do {
+				checksumCalculator.update(input, 0, n);
+				entry.size += n;
+				if (deflater == null) {
+					writeBytes(input, 0, n);
+				} else {
+					deflater.setInput(input, 0, n);
+					while (!deflater.needsInput()) {
+						writeBytes(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+					}
+				}
+				input = readBuffer;
+			} while ((n = contentStream.read(readBuffer)) > 0);
+			if (deflater != null) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					writeBytes(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+				}
+			}
+			written = true;
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+			if (!written) {
+				truncate(entry.offset);
+			}
+		}
+		entry.crc = checksumCalculator.getValue();
+		entry.compressedSize = position - start;
+
+		entry.zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+
+		outputStream.flush();
+		ByteBuffer version = newBuffer(2);
+		version.putShort((short) (entry.zip64 ? ZIP64_VERSION : VERSION)).flip();
+		writeAt(version, entry.offset + 4);
+		ByteBuffer fields = newBuffer(12);
+		fields.putInt((int) entry.crc);
+		fields.putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.compressedSize));
+		fields.putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.size));
+		writeAt((ByteBuffer) fields.flip(), entry.offset + 14);
+		if (entry.zip64) {
+			ByteBuffer extra = newBuffer(ZIP64_EXTRA_LENGTH);
+			extra.putShort((short) ZIP64_EXTRA_ID);
+			extra.putShort((short) (ZIP64_EXTRA_LENGTH - 4));
+			extra.putLong(entry.size);
+			extra.putLong(entry.compressedSize);
+			writeAt((ByteBuffer) extra.flip(), entry.offset + 30 + entry.name.length);
+		}
+		writtenEntries.add(entry);
+	}
+
+	/**
+	 * Overwrites bytes already written to the archive.
+	 */
+	private void writeAt(ByteBuffer buffer, long offset) throws IOException {
+		while (buffer.hasRemaining()) {
+			offset += fileStream.getChannel().write(buffer, offset);
+		}
+	}
+
+	/**
+	 * Removes everything written from the given position on.
+	 */
+	private void truncate(long offset) throws IOException {
+		outputStream.flush();
+		fileStream.getChannel().truncate(offset);
+		position = offset;
+	}
+
+	/**
+	 * Writes the local header of an entry. When the sizes are not known yet,
+	 * they are left at 0 and room is reserved for a ZIP64 field.
+	 */
+	private void writeLocalHeader(Entry entry, boolean sizesUnknown) throws IOException {
+		int extraLength = sizesUnknown ? ZIP64_EXTRA_LENGTH : 0;
+		ByteBuffer header = newBuffer(30 + entry.name.length + extraLength);
+		header.putInt(LOCAL_HEADER_SIGNATURE);
+		header.putShort((short) VERSION);
+		header.putShort((short) UTF8_FLAG);
+		header.putShort((short) entry.method);
+		header.putInt(entry.time);
+		if (sizesUnknown) {
+			// the checksum and sizes are filled in once known
+			header.putInt(0);
+			header.putInt(0);
+			header.putInt(0);
+		} else {
+			header.putInt((int) entry.crc);
+			header.putInt((int) entry.compressedSize);
+			header.putInt((int) entry.size);
+		}
+		header.putShort((short) entry.name.length);
+		header.putShort((short) extraLength);
+		header.put(entry.name);
+		if (sizesUnknown) {
+			header.putShort((short) PADDING_EXTRA_ID);
+			header.putShort((short) (ZIP64_EXTRA_LENGTH - 4));
+			header.put(new byte[ZIP64_EXTRA_LENGTH - 4]);
+		}
+		writeBytes(header.array(), 0, header.position());
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		long start = position;
+		for (Entry entry : writtenEntries) {
+			// keep the sizes in a ZIP64 field when the local header has one
+			boolean largeSize = entry.zip64 || entry.size >= ZIP64_MAGIC;
+			boolean largeCompressedSize = entry.zip64 || entry.compressedSize >= ZIP64_MAGIC;
+			boolean largeOffset = entry.offset >= ZIP64_MAGIC;
+			int extraLength = (largeSize ? 8 : 0) + (largeCompressedSize ? 8 : 0)
+					+ (largeOffset ? 8 : 0);
+			if (extraLength > 0) {
+				extraLength += 4;
+			}
+			ByteBuffer header = newBuffer(46 + entry.name.length + extraLength);
+			header.putInt(CENTRAL_HEADER_SIGNATURE);
+			header.putShort((short) ZIP64_VERSION);
+			header.putShort((short) (extraLength > 0 ? ZIP64_VERSION : VERSION));
+			header.putShort((short) UTF8_FLAG);
+			header.putShort((short) entry.method);
+			header.putInt(entry.time);
+			header.putInt((int) entry.crc);
+			header.putInt((int) (largeCompressedSize ? ZIP64_MAGIC : entry.compressedSize));
+			header.putInt((int) (largeSize ? ZIP64_MAGIC : entry.size));
+			header.putShort((short) entry.name.length);
+			header.putShort((short) extraLength);
+			header.putShort((short) 0); // comment length
+			header.putShort((short) 0); // disk number
+			header.putShort((short) 0); // internal attributes
+			header.putInt(0); // external attributes
+			header.putInt((int) Math.min(entry.offset, ZIP64_MAGIC));
+			header.put(entry.name);
+			if (extraLength > 0) {
+				header.putShort((short) ZIP64_EXTRA_ID);
+				header.putShort((short) (extraLength - 4));
+				if (largeSize) {
+					header.putLong(entry.size);
+				}
+				if (largeCompressedSize) {
+					header.putLong(entry.compressedSize);
+				}
+				if (largeOffset) {
+					header.putLong(entry.offset);
+				}
+			}
+			writeBytes(header.array(), 0, header.position());
+		}
+		long size = position - start;
+		int count = writtenEntries.size();
+
+		if (count >= ZIP64_MAGIC_COUNT || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+			long end = position;
+			ByteBuffer zip64End = newBuffer(56 + 20);
+			zip64End.putInt(ZIP64_END_SIGNATURE);
+			zip64End.putLong(44);
+			zip64End.putShort((short) ZIP64_VERSION);
+			zip64End.putShort((short) ZIP64_VERSION);
+			zip64End.putInt(0); // disk number
+			zip64End.putInt(0); // disk of the central directory
+			zip64End.putLong(count);
+			zip64End.putLong(count);
+			zip64End.putLong(size);
+			zip64End.putLong(start);
+			zip64End.putInt(ZIP64_LOCATOR_SIGNATURE);
+			zip64End.putInt(0); // disk of the ZIP64 end record
+			zip64End.putLong(end);
+			zip64End.putInt(1); // number of disks
+			writeBytes(zip64End.array(), 0, zip64End.position());
+		}
+
+		ByteBuffer end = newBuffer(22);
+		end.putInt(END_SIGNATURE);
+		end.putShort((short) 0); // disk number
+		end.putShort((short) 0); // disk of the central directory
+		end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+		end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+		end.putInt((int) Math.min(size, ZIP64_MAGIC));
+		end.putInt((int) Math.min(start, ZIP64_MAGIC));
+		end.putShort((short) 0); // comment length
+		writeBytes(end.array(), 0, end.position());
+	}
+
+	private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		outputStream.write(bytes, offset, length);
+		position += length;
+	}
+
+	private static ByteBuffer newBuffer(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Converts a time to the MS-DOS format used in zip headers.
+	 */
+	private static int toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+				| calendar.get(Calendar.DAY_OF_MONTH) << 16
+				| calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5
+				| calendar.get(Calendar.SECOND) >> 1;
+	}
+
+	/**
+	 * An entry waiting to be written, with the file it is read from and the
+	 * size of its contents.
+	 */
+	private static class PendingEntry {
+		final IResource resource;
+
+		final Future<Entry> future;
+
+		final int size;
+
+		PendingEntry(IResource resource, Future<Entry> future, int size) {
+			this.resource = resource;
+			this.future = future;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * The header fields and contents of an archive entry.
+	 */
+	private static class Entry {
+		final byte[] name;
+
+		final int time;
+
+		int method;
+
+		long crc;
+
+		long size;
+
+		long compressedSize;
+
+		long offset;
+
+		boolean zip64;
+
+		byte[] data;
+
+		int dataLength;
+
+		Entry(String name, long timeStamp) {
+			try {
+				this.name = name.getBytes("UTF-8"); //$NON-NLS-1$
+			} catch (UnsupportedEncodingException e) {
+				// UTF-8 is always supported
+				throw new IllegalStateException(e);
+			}
+			time = toDosTime(timeStamp != IResource.NULL_STAMP ? timeStamp : System
+					.currentTimeMillis());
+		}
+
+		void setData(byte[] data, int length, int method) {
+			this.data = data;
+			this.dataLength = length;
+			this.method = method;
+			compressedSize = length;
+		}
+	}
+}
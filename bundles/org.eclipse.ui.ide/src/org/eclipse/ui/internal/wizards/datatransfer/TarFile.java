@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2008 IBM Corporation and others.
+ * Copyright (c) 2004, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,8 +13,10 @@ package org.eclipse.ui.internal.wizards.datatransfer;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Enumeration;
 import java.util.zip.GZIPInputStream;
 
@@ -23,6 +25,13 @@ import java.util.zip.GZIPInputStream;
  * Reads a .tar or .tar.gz archive file, providing an index enumeration
  * and allows for accessing an InputStream for arbitrary files in the
  * archive.
+ * <p>
+ * Entries are read in the order they are requested. An entry after the
+ * current one is reached by skipping forward. An entry before it is reached
+ * by seeking to its header offset in the file. For a compressed archive,
+ * the seek happens in a temporary uncompressed copy, written the first time
+ * an earlier entry is requested.
+ * </p>
  * 
  * @since 3.1
  */
@@ -33,6 +42,19 @@ public class TarFile {
 	private TarInputStream entryStream;
 
 	private InputStream internalEntryStream;
+
+	private boolean compressed;
+
+	/**
+	 * The uncompressed copy of a compressed archive, or <code>null</code>.
+	 */
+	private File uncompressedFile;
+
+	/**
+	 * The stream of the uncompressed archive positioned at the entries, or
+	 * <code>null</code> while reading the compressed archive forward.
+	 */
+	private FileInputStream seekableStream;
 	
 	/**
 	 * Create a new TarFile for the given file.
@@ -48,6 +70,7 @@ public class TarFile {
 		// First, check if it's a GZIPInputStream.
 		try {
 			in = new GZIPInputStream(in);
+			compressed = true;
 		} catch(IOException e) {
 			//If it is not compressed we close
 			//the old one and recreate
@@ -73,6 +96,10 @@ public class TarFile {
 			entryEnumerationStream.close();
 		if (internalEntryStream != null)
 			internalEntryStream.close();
+		if (uncompressedFile != null) {
+			uncompressedFile.delete();
+			uncompressedFile = null;
+		}
 	}
 
 	/**
@@ -122,28 +149,72 @@ public class TarFile {
 	 * @throws IOException
 	 */
 	public InputStream getInputStream(TarEntry entry) throws TarException, IOException {
-		if(entryStream == null || !entryStream.skipToEntry(entry)) {
+		if (entryStream != null && entryStream.skipToEntry(entry)) {
+			return entryStream;
+		}
+		if (compressed && entryStream == null) {
+			// Read forward through the compressed archive until an
+			// earlier entry is requested.
+			internalEntryStream = new GZIPInputStream(new FileInputStream(file));
+			entryStream = createEntryStream(internalEntryStream, 0, entry);
+			return entryStream;
+		}
+		if (seekableStream == null) {
 			if (internalEntryStream != null) {
 				internalEntryStream.close();
 			}
-			internalEntryStream = new FileInputStream(file);
-			// First, check if it's a GZIPInputStream.
-			try {
-				internalEntryStream = new GZIPInputStream(internalEntryStream);
-			} catch(IOException e) {
-				//If it is not compressed we close
-				//the old one and recreate
-				internalEntryStream.close();
-				internalEntryStream = new FileInputStream(file);
+			seekableStream = new FileInputStream(compressed ? getUncompressedFile() : file);
+			internalEntryStream = seekableStream;
+		}
+		seekableStream.getChannel().position(entry.filepos);
+		entryStream = createEntryStream(seekableStream, entry.filepos, entry);
+		return entryStream;
+	}
+
+	private TarInputStream createEntryStream(InputStream in, int position, TarEntry entry)
+			throws TarException, IOException {
+		return new TarInputStream(in, position, entry) {
+			@Override
+			public void close() {
+				// Ignore close() since we want to reuse the stream.
 			}
-			entryStream = new TarInputStream(internalEntryStream, entry) {
-				@Override
-				public void close() {
-					// Ignore close() since we want to reuse the stream.
+		};
+	}
+
+	/**
+	 * Returns an uncompressed copy of the archive, which is deleted when this
+	 * file is closed.
+	 * 
+	 * @return the uncompressed file
+	 * @throws IOException
+	 */
+	private File getUncompressedFile() throws IOException {
+		if (uncompressedFile == null) {
+			File tempFile = File.createTempFile("archive", ".tar"); //$NON-NLS-1$ //$NON-NLS-2$
+			tempFile.deleteOnExit();
+			boolean success = false;
+			InputStream in = new GZIPInputStream(new FileInputStream(file));
+			try {
+				OutputStream out = new FileOutputStream(tempFile);
+				try {
+					byte[] buffer = new byte[8192];
+					int count;
+					while ((count = in.read(buffer)) != -1) {
+						out.write(buffer, 0, count);
+					}
+				} finally {
+					out.close();
 				}
-			};
+				success = true;
+			} finally {
+				in.close();
+				if (!success) {
+					tempFile.delete();
+				}
+			}
+			uncompressedFile = tempFile;
 		}
-		return entryStream;
+		return uncompressedFile;
 	}
 
 	/**
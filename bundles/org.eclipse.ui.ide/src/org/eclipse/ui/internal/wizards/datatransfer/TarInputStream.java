@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2006 IBM Corporation and others.
+ * Copyright (c) 2004, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -59,6 +59,22 @@ public class TarInputStream extends FilterInputStream
 		skipToEntry(entry);
 	}
 
+	/**
+	 * Create a new tar input stream on an input stream positioned at the
+	 * given offset in the archive, skipping ahead to the given entry.
+	 *
+	 * @param in input stream
+	 * @param position the offset of the input stream in the archive
+	 * @param entry skips to this entry in the file
+	 * @throws TarException
+	 * @throws IOException
+	 */
+	TarInputStream(InputStream in, int position, TarEntry entry) throws TarException, IOException {
+		super(in);
+		bytesread = position;
+		skipToEntry(entry);
+	}
+
 	/**
 	 *  The checksum of a tar file header is simply the sum of the bytes in
 	 *  the header.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,8 @@ import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
@@ -38,6 +40,8 @@ public class WizardArchiveFileResourceExportPage1 extends
 
     // widgets
     protected Button compressContentsCheckbox;
+
+    private Button parallelCompressionCheckbox;
     
     private Button zipFormatButton;
     private Button targzFormatButton;
@@ -49,6 +53,8 @@ public class WizardArchiveFileResourceExportPage1 extends
 
     private final static String STORE_COMPRESS_CONTENTS_ID = "WizardZipFileResourceExportPage1.STORE_COMPRESS_CONTENTS_ID"; //$NON-NLS-1$
 
+    private final static String STORE_PARALLEL_COMPRESSION_ID = "WizardZipFileResourceExportPage1.STORE_PARALLEL_COMPRESSION_ID"; //$NON-NLS-1$
+
     /**
      *	Create an instance of this class. 
      *
@@ -100,6 +106,17 @@ public class WizardArchiveFileResourceExportPage1 extends
         compressContentsCheckbox.setText(DataTransferMessages.ZipExport_compressContents);
         compressContentsCheckbox.setFont(font);
 
+        // compress in parallel... checkbox, only for zip files
+        parallelCompressionCheckbox = new Button(left, SWT.CHECK | SWT.LEFT);
+        parallelCompressionCheckbox.setText(DataTransferMessages.ZipExport_parallelCompression);
+        parallelCompressionCheckbox.setFont(font);
+        zipFormatButton.addSelectionListener(new SelectionAdapter() {
+        	@Override
+			public void widgetSelected(SelectionEvent e) {
+        		parallelCompressionCheckbox.setEnabled(zipFormatButton.getSelection());
+        	}
+        });
+
         Composite right = new Composite(optionsGroup, SWT.NONE);
         right.setLayoutData(new GridData(SWT.LEFT, SWT.TOP, true, false));
         right.setLayout(new GridLayout(1, true));
@@ -110,6 +127,7 @@ public class WizardArchiveFileResourceExportPage1 extends
         createDirectoryStructureButton.setSelection(true);
         createSelectionOnlyButton.setSelection(false);
         compressContentsCheckbox.setSelection(true);
+        parallelCompressionCheckbox.setSelection(false);
     }
 
     /**
@@ -200,6 +218,7 @@ public class WizardArchiveFileResourceExportPage1 extends
                 .getSelection());
         op.setUseCompression(compressContentsCheckbox.getSelection());
         op.setUseTarFormat(targzFormatButton.getSelection());
+        op.setUseParallelCompression(parallelCompressionCheckbox.getSelection());
 
         try {
             getContainer().run(true, true, op);
@@ -346,6 +365,9 @@ public class WizardArchiveFileResourceExportPage1 extends
 
             settings.put(STORE_COMPRESS_CONTENTS_ID, compressContentsCheckbox
                     .getSelection());
+
+            settings.put(STORE_PARALLEL_COMPRESSION_ID,
+                    parallelCompressionCheckbox.getSelection());
         }
     }
 
@@ -377,6 +399,9 @@ public class WizardArchiveFileResourceExportPage1 extends
 
             compressContentsCheckbox.setSelection(settings
                     .getBoolean(STORE_COMPRESS_CONTENTS_ID));
+
+            parallelCompressionCheckbox.setSelection(settings
+                    .getBoolean(STORE_PARALLEL_COMPRESSION_ID));
         }
     }
 
@@ -399,14 +424,17 @@ public class WizardArchiveFileResourceExportPage1 extends
     		compressContentsCheckbox.setSelection(false);
     		targzFormatButton.setSelection(true);
     		zipFormatButton.setSelection(false);
+    		parallelCompressionCheckbox.setEnabled(false);
     	} else if (destinationValue.endsWith(".tar.gz") //$NON-NLS-1$
 				|| destinationValue.endsWith(".tgz")) { //$NON-NLS-1$
     		compressContentsCheckbox.setSelection(true);
     		targzFormatButton.setSelection(true);
     		zipFormatButton.setSelection(false);
+    		parallelCompressionCheckbox.setEnabled(false);
     	} else if (destinationValue.endsWith(".zip")) { //$NON-NLS-1$
     		zipFormatButton.setSelection(true);
     		targzFormatButton.setSelection(false);
+    		parallelCompressionCheckbox.setEnabled(true);
     	}
     	
     	return super.validateDestinationGroup();
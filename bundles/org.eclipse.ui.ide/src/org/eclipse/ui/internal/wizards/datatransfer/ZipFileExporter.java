@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.wizards.datatransfer;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,6 +29,14 @@ import org.eclipse.core.runtime.CoreException;
  *	Exports resources to a .zip file
  */
 public class ZipFileExporter implements IFileExporter {
+	/**
+	 * The size up to which the contents of a stored file are kept in memory,
+	 * so the file is only read once to compute its checksum and copy it.
+	 */
+	private static final int MAX_BUFFERED_SIZE = 1 << 20;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
     private ZipOutputStream outputStream;
 
     private boolean useCompression = true;
@@ -39,7 +49,8 @@ public class ZipFileExporter implements IFileExporter {
      *	@exception java.io.IOException
      */
     public ZipFileExporter(String filename, boolean compress) throws IOException {
-        outputStream = new ZipOutputStream(new FileOutputStream(filename));
+        outputStream = new ZipOutputStream(new BufferedOutputStream(
+				new FileOutputStream(filename), BUFFER_SIZE));
         useCompression = compress;
     }
 
@@ -63,19 +74,29 @@ public class ZipFileExporter implements IFileExporter {
      *  @exception org.eclipse.core.runtime.CoreException
      */
     private void write(ZipEntry entry, IFile contents) throws IOException, CoreException {
-        byte[] readBuffer = new byte[4096];
+        byte[] readBuffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream bufferedContents = null;
 
         // If the contents are being compressed then we get the below for free.
         if (!useCompression) {
             entry.setMethod(ZipEntry.STORED);
         	InputStream contentStream = contents.getContents(false);
-        	int length = 0;
+        	long length = 0;
             CRC32 checksumCalculator = new CRC32();
+            bufferedContents = new ByteArrayOutputStream(BUFFER_SIZE);
             try {
                 int n;
                 while ((n = contentStream.read(readBuffer)) > 0) {
                     checksumCalculator.update(readBuffer, 0, n);
                     length += n;
+                    if (bufferedContents != null) {
+                    	if (length <= MAX_BUFFERED_SIZE) {
+                    		bufferedContents.write(readBuffer, 0, n);
+                    	} else {
+                    		// too large to keep, read it again below
+                    		bufferedContents = null;
+                    	}
+                    }
                 }
             } finally {
                 if (contentStream != null) {
@@ -93,6 +114,11 @@ public class ZipFileExporter implements IFileExporter {
         	entry.setTime(localTimeStamp);
         
         outputStream.putNextEntry(entry);
+        if (bufferedContents != null) {
+        	bufferedContents.writeTo(outputStream);
+        	outputStream.closeEntry();
+        	return;
+        }
     	InputStream contentStream = contents.getContents(false);
         try {
             int n;
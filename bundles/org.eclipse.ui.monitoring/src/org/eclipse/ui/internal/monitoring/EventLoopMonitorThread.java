@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,11 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.monitoring;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
@@ -42,7 +47,9 @@ import org.eclipse.ui.monitoring.UiFreezeEvent;
 /**
  * Event loop monitoring thread. Detects events that take long time to process, collects stack
  * traces of the UI thread during processing of those events, and logs the long events to the error
- * log.
+ * log. Records the latencies of all events in {@link EventLoopStatistics}. Optionally samples
+ * the UI thread continuously while it is busy and aggregates the samples into
+ * a {@link StackHistogram}.
  */
 public class EventLoopMonitorThread extends Thread {
 	private static final int EVENT_HISTORY_SIZE = 100;
@@ -77,6 +84,27 @@ public class EventLoopMonitorThread extends Thread {
 		public String uiThreadFilter;
 		/** @see org.eclipse.ui.monitoring.PreferenceConstants#NONINTERESTING_THREAD_FILTER */
 		public String noninterestingThreadFilter;
+		/**
+		 * Interval between continuous samples of the UI thread. Zero disables continuous
+		 * sampling.
+		 */
+		public int continuousSamplingInterval;
+		/** Maximum number of distinct stacks in the continuous sampling histogram. */
+		public int continuousSamplingMaxStacks;
+		/**
+		 * File the continuous sampling histogram is written to when the thread is shut down,
+		 * or {@code null} to not write it.
+		 */
+		public String continuousSamplingOutputFile;
+		/** Receives the latencies of dispatched events, may be {@code null}. */
+		public EventLoopStatistics eventLoopStatistics;
+		/**
+		 * Interval between appending the event latency statistics to
+		 * {@link #latencyStatisticsOutputFile}. Zero disables writing of the statistics.
+		 */
+		public int latencyStatisticsDumpInterval;
+		/** CSV file the event latency statistics are appended to. */
+		public String latencyStatisticsOutputFile;
 
 		/**
 		 * Checks if the values of parameters for UI responsiveness monitoring are valid.
@@ -104,6 +132,20 @@ public class EventLoopMonitorThread extends Thread {
 						NLS.bind(Messages.EventLoopMonitorThread_deadlock_threshold_too_low_error_2,
 								deadlockThreshold, longEventErrorThreshold));
 			}
+			if (continuousSamplingInterval < 0) {
+				problems.append(NEW_LINE_AND_BULLET +
+						NLS.bind(Messages.EventLoopMonitorThread_sampling_interval_error_1,
+								continuousSamplingInterval));
+			} else if (continuousSamplingInterval > 0 && continuousSamplingMaxStacks <= 0) {
+				problems.append(NEW_LINE_AND_BULLET +
+						NLS.bind(Messages.EventLoopMonitorThread_sampling_max_stacks_error_1,
+								continuousSamplingMaxStacks));
+			}
+			if (latencyStatisticsDumpInterval < 0) {
+				problems.append(NEW_LINE_AND_BULLET +
+						NLS.bind(Messages.EventLoopMonitorThread_latency_dump_interval_error_1,
+								latencyStatisticsDumpInterval));
+			}
 
 			if (problems.length() != 0) {
 				throw new IllegalArgumentException(
@@ -132,6 +174,13 @@ public class EventLoopMonitorThread extends Thread {
 		private int[] nestingLevelStack = new int[64];
 		private int nestingLevelStackSize;
 
+		/**
+		 * The {@link System#nanoTime()} times at which the events currently being dispatched
+		 * were started, innermost last. Used for recording event latencies.
+		 */
+		private long[] dispatchStartTimes = new long[64];
+		private int dispatchDepth;
+
 		@Override
 		public void handleEvent(Event event) {
 			/*
@@ -160,6 +209,12 @@ public class EventLoopMonitorThread extends Thread {
 			 */
 			switch (event.type) {
 			case SWT.PreEvent:
+				if (eventLoopStatistics != null) {
+					if (dispatchDepth < dispatchStartTimes.length) {
+						dispatchStartTimes[dispatchDepth] = System.nanoTime();
+					}
+					dispatchDepth++;
+				}
 				if (!doesEventIndicateResponsiveUI(event.detail)) {
 					break;  // Ignore events that may be produced during a UI freeze.
 				}
@@ -171,6 +226,12 @@ public class EventLoopMonitorThread extends Thread {
 				handleEventTransition(true, true);
 				break;
 			case SWT.PostEvent:
+				if (eventLoopStatistics != null && dispatchDepth > 0) {
+					if (--dispatchDepth < dispatchStartTimes.length) {
+						eventLoopStatistics.recordLatency(event.detail,
+								(System.nanoTime() - dispatchStartTimes[dispatchDepth]) / 1000);
+					}
+				}
 				if (!doesEventIndicateResponsiveUI(event.detail)) {
 					break;  // Ignore events that may be produced during a UI freeze.
 				}
@@ -396,6 +457,12 @@ public class EventLoopMonitorThread extends Thread {
 	private final long uiThreadId;
 	private final Object sleepMonitor;
 	private final boolean logToErrorLog;
+	private final long continuousSamplingInterval;
+	private final StackHistogram stackHistogram;
+	private final String continuousSamplingOutputFile;
+	private final EventLoopStatistics eventLoopStatistics;
+	private final long latencyStatisticsDumpInterval;
+	private final String latencyStatisticsOutputFile;
 	private EventHistory eventHistory;
 	private ThreadMXBean threadMXBean;
 	private boolean dumpLockedMonitors;
@@ -433,6 +500,14 @@ public class EventLoopMonitorThread extends Thread {
 		logToErrorLog = args.logToErrorLog;
 		uiThreadFilter = new FilterHandler(args.uiThreadFilter);
 		noninterestingThreadFilter = new FilterHandler(args.noninterestingThreadFilter);
+		continuousSamplingInterval = args.continuousSamplingInterval;
+		stackHistogram = continuousSamplingInterval > 0 ?
+				new StackHistogram(args.continuousSamplingMaxStacks, uiThreadFilter) : null;
+		continuousSamplingOutputFile = args.continuousSamplingOutputFile;
+		eventLoopStatistics = args.eventLoopStatistics;
+		latencyStatisticsDumpInterval =
+				eventLoopStatistics != null ? args.latencyStatisticsDumpInterval : 0;
+		latencyStatisticsOutputFile = args.latencyStatisticsOutputFile;
 		sleepMonitor = new Object();
 	}
 
@@ -448,6 +523,64 @@ public class EventLoopMonitorThread extends Thread {
 			display.removeListener(SWT.PostExternalEventDispatch, eventLoopState);
 		}
 		wakeUp();
+		if (stackHistogram != null && continuousSamplingOutputFile != null) {
+			writeStackHistogram(continuousSamplingOutputFile);
+		}
+		if (latencyStatisticsDumpInterval > 0 && latencyStatisticsOutputFile != null) {
+			writeLatencyStatistics(latencyStatisticsOutputFile);
+		}
+	}
+
+	/**
+	 * Returns the histogram of the UI thread stacks collected by continuous sampling, or
+	 * {@code null} if continuous sampling is disabled.
+	 */
+	public StackHistogram getStackHistogram() {
+		return stackHistogram;
+	}
+
+	/**
+	 * Writes the histogram of the UI thread stacks collected by continuous sampling to a file in
+	 * the collapsed stack format. Errors are logged.
+	 */
+	private void writeStackHistogram(String fileName) {
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8"); //$NON-NLS-1$
+			try {
+				stackHistogram.writeCollapsedStacks(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			MonitoringPlugin.logError(
+					NLS.bind(Messages.EventLoopMonitorThread_sampling_write_error_1, fileName), e);
+		}
+	}
+
+	/**
+	 * Appends the event latency statistics to a CSV file, preceded by a header if the file is
+	 * empty. Errors are logged. May be called by both the UI and the monitoring thread.
+	 */
+	private void writeLatencyStatistics(String fileName) {
+		synchronized (eventLoopStatistics) {
+			try {
+				File file = new File(fileName);
+				boolean writeHeader = file.length() == 0;
+				Writer writer =
+						new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"); //$NON-NLS-1$
+				try {
+					if (writeHeader) {
+						writer.write(EventLoopStatistics.CSV_HEADER);
+					}
+					eventLoopStatistics.writeCsv(writer, System.currentTimeMillis());
+				} finally {
+					writer.close();
+				}
+			} catch (IOException e) {
+				MonitoringPlugin.logError(
+						NLS.bind(Messages.EventLoopMonitorThread_latency_write_error_1, fileName), e);
+			}
+		}
 	}
 
 	/**
@@ -532,6 +665,8 @@ public class EventLoopMonitorThread extends Thread {
 		});
 
 		long currTime = getTimestamp();
+		long continuousSampleAt = currTime + continuousSamplingInterval;
+		long latencyStatisticsDumpAt = currTime + latencyStatisticsDumpInterval;
 
 		while (!cancelled.get()) {
 			long sleepFor;
@@ -558,6 +693,9 @@ public class EventLoopMonitorThread extends Thread {
 			} else {
 				sleepFor = Math.min(pollingNyquistDelay, Math.max(1, grabStackSampleAt - currTime));
 			}
+			if (stackHistogram != null) {
+				sleepFor = Math.min(sleepFor, Math.max(1, continuousSampleAt - currTime));
+			}
 
 			// This is the top of the polling loop.
 			long sleepAt = getTimestamp();
@@ -577,6 +715,22 @@ public class EventLoopMonitorThread extends Thread {
 			boolean starvedSleep = sleepDuration > (sleepFor + longEventWarningThreshold / 2);
 			boolean starved = starvedSleep || starvedAwake;
 
+			// Sample the UI thread if it is busy, independently of how long the event takes.
+			if (stackHistogram != null && currTime >= continuousSampleAt) {
+				if (currEventStartOrResumeTime != 0) {
+					ThreadInfo threadInfo = threadMXBean.getThreadInfo(uiThreadId, Integer.MAX_VALUE);
+					if (threadInfo != null) {
+						stackHistogram.addSample(threadInfo.getStackTrace());
+					}
+				}
+				continuousSampleAt = currTime + continuousSamplingInterval;
+			}
+
+			if (latencyStatisticsDumpInterval > 0 && currTime >= latencyStatisticsDumpAt) {
+				writeLatencyStatistics(latencyStatisticsOutputFile);
+				latencyStatisticsDumpAt = currTime + latencyStatisticsDumpInterval;
+			}
+
 			/*
 			 * If after sleeping we see that a new event has been dispatched, mark that we should
 			 * update the stalled event state. Otherwise, check if we have surpassed our threshold
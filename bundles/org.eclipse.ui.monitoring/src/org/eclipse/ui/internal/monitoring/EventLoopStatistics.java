@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.ui.monitoring.IEventLoopStatistics;
+import org.eclipse.ui.monitoring.LatencyStatistics;
+
+/**
+ * Keeps a {@link LatencyHistogram} of event latencies in microseconds per SWT event type.
+ * Latencies of event types outside of the range 0..127 are not recorded.
+ */
+public class EventLoopStatistics implements IEventLoopStatistics {
+	/** The header of the CSV output written by {@link #writeCsv(Writer, long)}. */
+	public static final String CSV_HEADER =
+			"timestamp,event_type,count,mean_us,p50_us,p99_us,p999_us,max_us\n"; //$NON-NLS-1$
+	private static final int MAX_EVENT_TYPES = 128;
+
+	private final AtomicReferenceArray<LatencyHistogram> histograms =
+			new AtomicReferenceArray<LatencyHistogram>(MAX_EVENT_TYPES);
+
+	/**
+	 * Records the latency of an event.
+	 *
+	 * @param eventType the SWT event type
+	 * @param latency the latency in microseconds
+	 */
+	public void recordLatency(int eventType, long latency) {
+		if (eventType < 0 || eventType >= MAX_EVENT_TYPES) {
+			return;
+		}
+		LatencyHistogram histogram = histograms.get(eventType);
+		if (histogram == null) {
+			histograms.compareAndSet(eventType, null, new LatencyHistogram());
+			histogram = histograms.get(eventType);
+		}
+		histogram.record(latency);
+	}
+
+	@Override
+	public int[] getEventTypes() {
+		int[] eventTypes = new int[MAX_EVENT_TYPES];
+		int count = 0;
+		for (int i = 0; i < MAX_EVENT_TYPES; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			if (histogram != null && histogram.getCount() != 0) {
+				eventTypes[count++] = i;
+			}
+		}
+		return Arrays.copyOf(eventTypes, count);
+	}
+
+	@Override
+	public LatencyStatistics getStatistics(int eventType) {
+		if (eventType < 0 || eventType >= MAX_EVENT_TYPES) {
+			return null;
+		}
+		LatencyHistogram histogram = histograms.get(eventType);
+		if (histogram == null || histogram.getCount() == 0) {
+			return null;
+		}
+		return new LatencyStatistics(eventType, histogram.getCount(), histogram.getMean(),
+				histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+				histogram.getValueAtPercentile(99.9), histogram.getMax());
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < MAX_EVENT_TYPES; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			if (histogram != null) {
+				histogram.reset();
+			}
+		}
+	}
+
+	/**
+	 * Writes the statistics of all event types with recorded latencies as comma separated values,
+	 * one line per event type, in the columns described by {@link #CSV_HEADER}. The header itself
+	 * is not written.
+	 *
+	 * @param writer the writer to write to
+	 * @param timestamp the value of the timestamp column, in milliseconds since January 1, 1970
+	 *     UTC
+	 * @throws IOException if writing fails
+	 */
+	public void writeCsv(Writer writer, long timestamp) throws IOException {
+		for (int eventType : getEventTypes()) {
+			LatencyStatistics statistics = getStatistics(eventType);
+			if (statistics == null) {
+				continue;
+			}
+			StringBuilder line = new StringBuilder();
+			line.append(timestamp).append(',');
+			line.append(eventType).append(',');
+			line.append(statistics.getCount()).append(',');
+			line.append(Math.round(statistics.getMean())).append(',');
+			line.append(statistics.getMedian()).append(',');
+			line.append(statistics.getPercentile99()).append(',');
+			line.append(statistics.getPercentile999()).append(',');
+			line.append(statistics.getMax()).append('\n');
+			writer.write(line.toString());
+		}
+		writer.flush();
+	}
+}
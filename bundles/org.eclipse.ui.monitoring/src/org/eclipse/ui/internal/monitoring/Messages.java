@@ -31,9 +31,14 @@ public final class Messages extends NLS {
 	public static String EventLoopMonitorThread_invalid_argument_error_1;
 	public static String EventLoopMonitorThread_invalid_logger_type_error_4;
 	public static String EventLoopMonitorThread_invalid_parameters_error;
+	public static String EventLoopMonitorThread_latency_dump_interval_error_1;
+	public static String EventLoopMonitorThread_latency_write_error_1;
 	public static String EventLoopMonitorThread_logging_disabled_error;
 	public static String EventLoopMonitorThread_warning_threshold_error_1;
 	public static String EventLoopMonitorThread_max_event_loop_depth_exceeded_1;
+	public static String EventLoopMonitorThread_sampling_interval_error_1;
+	public static String EventLoopMonitorThread_sampling_max_stacks_error_1;
+	public static String EventLoopMonitorThread_sampling_write_error_1;
 	public static String EventLoopMonitorThread_workbench_was_null;
 	public static String FilterHandler_missing_thread_error;
 	public static String MonitoringStartup_initialization_error;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,24 +14,34 @@ package org.eclipse.ui.internal.monitoring;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.ui.monitoring.IEventLoopStatistics;
 import org.eclipse.ui.monitoring.PreferenceConstants;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 /**
  * The activator class that controls the plug-in life cycle.
  */
 public class MonitoringPlugin extends AbstractUIPlugin {
 	private static MonitoringPlugin plugin;
+	private final EventLoopStatistics eventLoopStatistics = new EventLoopStatistics();
+	private ServiceRegistration<IEventLoopStatistics> eventLoopStatisticsRegistration;
 
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		eventLoopStatisticsRegistration =
+				context.registerService(IEventLoopStatistics.class, eventLoopStatistics, null);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (eventLoopStatisticsRegistration != null) {
+			eventLoopStatisticsRegistration.unregister();
+			eventLoopStatisticsRegistration = null;
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -40,6 +50,13 @@ public class MonitoringPlugin extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the event latency statistics recorded by the event loop monitoring thread.
+	 */
+	public EventLoopStatistics getEventLoopStatistics() {
+		return eventLoopStatistics;
+	}
+
 	public static void logError(String message, Throwable e) {
 		log(new Status(IStatus.ERROR, PreferenceConstants.PLUGIN_ID, message, e));
 	}
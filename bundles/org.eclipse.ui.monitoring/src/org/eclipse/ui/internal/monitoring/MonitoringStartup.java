@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,8 @@ import org.eclipse.ui.monitoring.PreferenceConstants;
  * Starts the event loop monitoring thread. Initializes preferences from {@link IPreferenceStore}.
  */
 public class MonitoringStartup implements IStartup {
+	private static final String CONTINUOUS_SAMPLING_FILE_NAME = "ui_thread_stacks.txt"; //$NON-NLS-1$
+	private static final String LATENCY_STATISTICS_FILE_NAME = "event_latencies.csv"; //$NON-NLS-1$
 	private EventLoopMonitorThread monitoringThread;
 
 	@Override
@@ -73,7 +75,8 @@ public class MonitoringStartup implements IStartup {
 	}
 
 	private static EventLoopMonitorThread.Parameters loadPreferences() {
-		IPreferenceStore preferences = MonitoringPlugin.getDefault().getPreferenceStore();
+		MonitoringPlugin plugin = MonitoringPlugin.getDefault();
+		IPreferenceStore preferences = plugin.getPreferenceStore();
 		EventLoopMonitorThread.Parameters args = new EventLoopMonitorThread.Parameters();
 
 		args.longEventWarningThreshold =
@@ -87,6 +90,25 @@ public class MonitoringStartup implements IStartup {
 		args.noninterestingThreadFilter =
 				preferences.getString(PreferenceConstants.NONINTERESTING_THREAD_FILTER);
 		args.logToErrorLog = preferences.getBoolean(PreferenceConstants.LOG_TO_ERROR_LOG);
+		args.continuousSamplingInterval =
+				preferences.getInt(PreferenceConstants.CONTINUOUS_SAMPLING_INTERVAL_MILLIS);
+		args.continuousSamplingMaxStacks =
+				preferences.getInt(PreferenceConstants.CONTINUOUS_SAMPLING_MAX_STACKS);
+		args.continuousSamplingOutputFile =
+				preferences.getString(PreferenceConstants.CONTINUOUS_SAMPLING_OUTPUT_FILE);
+		if (args.continuousSamplingOutputFile.length() == 0) {
+			args.continuousSamplingOutputFile = plugin.getStateLocation()
+					.append(CONTINUOUS_SAMPLING_FILE_NAME).toOSString();
+		}
+		args.eventLoopStatistics = plugin.getEventLoopStatistics();
+		args.latencyStatisticsDumpInterval =
+				preferences.getInt(PreferenceConstants.LATENCY_STATISTICS_DUMP_INTERVAL_MILLIS);
+		args.latencyStatisticsOutputFile =
+				preferences.getString(PreferenceConstants.LATENCY_STATISTICS_OUTPUT_FILE);
+		if (args.latencyStatisticsOutputFile.length() == 0) {
+			args.latencyStatisticsOutputFile = plugin.getStateLocation()
+					.append(LATENCY_STATISTICS_FILE_NAME).toOSString();
+		}
 
 		return args;
 	}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Histogram of folded stack traces collected by sampling a thread at regular intervals.
+ * A folded stack is the list of frames of a stack trace from the outermost to the innermost one,
+ * separated by semicolons. Stacks deeper than {@link #MAX_DEPTH} frames are cut after their
+ * outermost frames and end with {@link #TRUNCATED_FRAME}. The number of distinct stacks,
+ * including {@link #OVERFLOW_STACK}, is bounded so that the histogram occupies fixed memory;
+ * once the limit is reached, samples of new stacks are counted under {@link #OVERFLOW_STACK}.
+ * <p>
+ * The histogram can be written out in the collapsed stack format, one stack per line followed by
+ * its sample count, which is understood by flame graph tools.
+ * <p>
+ * The class is thread-safe.
+ */
+public class StackHistogram {
+	/** The stack under which samples of stacks that did not fit in the histogram are counted. */
+	public static final String OVERFLOW_STACK = "[other stacks]"; //$NON-NLS-1$
+	/** The frame that replaces the innermost frames of stacks deeper than {@link #MAX_DEPTH}. */
+	public static final String TRUNCATED_FRAME = "[truncated]"; //$NON-NLS-1$
+	/** The maximum number of frames of a folded stack. */
+	public static final int MAX_DEPTH = 256;
+
+	private final int maxStacks;
+	private final FilterHandler filter;
+	private final Map<String, long[]> counts = new HashMap<String, long[]>();
+	private final StringBuilder buffer = new StringBuilder();
+	private long totalSamples;
+	private long filteredSamples;
+
+	/**
+	 * @param maxStacks the maximum number of distinct stacks to keep, including
+	 *     {@link #OVERFLOW_STACK}
+	 * @param filter samples containing a stack frame matching this filter are not counted,
+	 *     may be {@code null}
+	 */
+	public StackHistogram(int maxStacks, FilterHandler filter) {
+		this.maxStacks = Math.max(maxStacks, 1);
+		this.filter = filter;
+	}
+
+	/**
+	 * Adds a stack trace sample to the histogram.
+	 *
+	 * @param stackTrace the stack trace, innermost frame first, as returned by
+	 *     {@link Thread#getStackTrace()}
+	 * @return {@code true} if the sample was counted, {@code false} if it was filtered out
+	 */
+	public synchronized boolean addSample(StackTraceElement[] stackTrace) {
+		if (stackTrace.length == 0) {
+			return false;
+		}
+		if (filter != null) {
+			for (StackTraceElement frame : stackTrace) {
+				if (filter.matchesFilter(frame)) {
+					filteredSamples++;
+					return false;
+				}
+			}
+		}
+		buffer.setLength(0);
+		int depth = Math.min(stackTrace.length, MAX_DEPTH);
+		for (int i = stackTrace.length; --i >= stackTrace.length - depth;) {
+			StackTraceElement frame = stackTrace[i];
+			if (buffer.length() != 0) {
+				buffer.append(';');
+			}
+			buffer.append(frame.getClassName()).append('.').append(frame.getMethodName());
+		}
+		if (depth < stackTrace.length) {
+			buffer.append(';').append(TRUNCATED_FRAME);
+		}
+		String stack = buffer.toString();
+		long[] count = counts.get(stack);
+		if (count == null) {
+			// Keep one entry free for the overflow stack.
+			if (counts.size() >= maxStacks - 1) {
+				stack = OVERFLOW_STACK;
+				count = counts.get(stack);
+			}
+			if (count == null) {
+				count = new long[1];
+				counts.put(stack, count);
+			}
+		}
+		count[0]++;
+		totalSamples++;
+		return true;
+	}
+
+	/**
+	 * Returns the number of samples counted in the histogram.
+	 */
+	public synchronized long getTotalSamples() {
+		return totalSamples;
+	}
+
+	/**
+	 * Returns the number of samples that were not counted because they matched the filter.
+	 */
+	public synchronized long getFilteredSamples() {
+		return filteredSamples;
+	}
+
+	/**
+	 * Returns the number of samples counted for a folded stack.
+	 */
+	public synchronized long getCount(String foldedStack) {
+		long[] count = counts.get(foldedStack);
+		return count == null ? 0 : count[0];
+	}
+
+	/**
+	 * Removes all samples from the histogram.
+	 */
+	public synchronized void clear() {
+		counts.clear();
+		totalSamples = 0;
+		filteredSamples = 0;
+	}
+
+	/**
+	 * Writes the histogram in the collapsed stack format, sorted by stack.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeCollapsedStacks(Writer writer) throws IOException {
+		Map<String, Long> snapshot = new TreeMap<String, Long>();
+		synchronized (this) {
+			for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+				snapshot.put(entry.getKey(), entry.getValue()[0]);
+			}
+		}
+		for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+			writer.write(entry.getKey());
+			writer.write(' ');
+			writer.write(entry.getValue().toString());
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+}
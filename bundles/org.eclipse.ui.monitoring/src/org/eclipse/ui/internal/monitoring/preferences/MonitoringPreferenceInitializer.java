@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,5 +42,10 @@ public class MonitoringPreferenceInitializer extends AbstractPreferenceInitializ
 				+ ",org.eclipse.osgi.framework.eventmgr.EventManager$EventThread.run" //$NON-NLS-1$
 				+ ",org.eclipse.equinox.internal.util.impl.tpt.timer.TimerImpl.run" //$NON-NLS-1$
 				+ ",org.eclipse.equinox.internal.util.impl.tpt.threadpool.Executor.run"); //$NON-NLS-1$
+		store.setDefault(PreferenceConstants.CONTINUOUS_SAMPLING_INTERVAL_MILLIS, 0); // Disabled
+		store.setDefault(PreferenceConstants.CONTINUOUS_SAMPLING_MAX_STACKS, 10000);
+		store.setDefault(PreferenceConstants.CONTINUOUS_SAMPLING_OUTPUT_FILE, ""); //$NON-NLS-1$
+		store.setDefault(PreferenceConstants.LATENCY_STATISTICS_DUMP_INTERVAL_MILLIS, 0); // Disabled
+		store.setDefault(PreferenceConstants.LATENCY_STATISTICS_OUTPUT_FILE, ""); //$NON-NLS-1$
 	}
 }
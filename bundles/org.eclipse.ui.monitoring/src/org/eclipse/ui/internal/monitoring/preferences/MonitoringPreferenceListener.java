@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,7 +50,12 @@ public class MonitoringPreferenceListener implements IPropertyChangeListener {
 				&& !property.equals(PreferenceConstants.LOG_TO_ERROR_LOG)
 				&& !property.equals(PreferenceConstants.MAX_STACK_SAMPLES)
 				&& !property.equals(PreferenceConstants.UI_THREAD_FILTER)
-				&& !property.equals(PreferenceConstants.NONINTERESTING_THREAD_FILTER)) {
+				&& !property.equals(PreferenceConstants.NONINTERESTING_THREAD_FILTER)
+				&& !property.equals(PreferenceConstants.CONTINUOUS_SAMPLING_INTERVAL_MILLIS)
+				&& !property.equals(PreferenceConstants.CONTINUOUS_SAMPLING_MAX_STACKS)
+				&& !property.equals(PreferenceConstants.CONTINUOUS_SAMPLING_OUTPUT_FILE)
+				&& !property.equals(PreferenceConstants.LATENCY_STATISTICS_DUMP_INTERVAL_MILLIS)
+				&& !property.equals(PreferenceConstants.LATENCY_STATISTICS_OUTPUT_FILE)) {
 			return;
 		}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -143,6 +143,10 @@ public class MonitoringPreferencePage extends FieldEditorPreferencePage
 		createIntegerEditor(
 				PreferenceConstants.MAX_STACK_SAMPLES,
 				Messages.MonitoringPreferencePage_max_stack_samples_label, topGroup, 0, 100);
+		createIntegerEditor(
+				PreferenceConstants.CONTINUOUS_SAMPLING_INTERVAL_MILLIS,
+				Messages.MonitoringPreferencePage_continuous_sampling_interval_label, topGroup,
+				0, 1000);
 
 		topGroup.setLayout(layout);
 
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+/**
+ * Aggregated latencies of the events dispatched by the UI thread, grouped by the SWT event type.
+ * The latency of an event is the time from the moment it is dispatched to its listeners until
+ * the listeners return, including the time spent in nested events. Latencies are recorded while
+ * event loop monitoring is enabled.
+ * <p>
+ * An instance of this interface is registered as an OSGi service while the monitoring plug-in
+ * is active.
+ *
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @since 1.1
+ */
+public interface IEventLoopStatistics {
+	/**
+	 * Returns the SWT event types for which latencies have been recorded, in ascending order.
+	 */
+	int[] getEventTypes();
+
+	/**
+	 * Returns the statistics of the latencies recorded for an event type.
+	 *
+	 * @param eventType the SWT event type, e.g. {@code SWT.Selection}
+	 * @return the statistics, or {@code null} if no latencies have been recorded for the type
+	 */
+	LatencyStatistics getStatistics(int eventType);
+
+	/**
+	 * Discards all recorded latencies.
+	 */
+	void reset();
+}
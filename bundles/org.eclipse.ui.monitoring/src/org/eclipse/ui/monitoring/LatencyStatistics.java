@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+/**
+ * A snapshot of the statistics of event latencies recorded for an SWT event type. All latencies
+ * are in microseconds. Percentiles are approximate, with a relative error of at most 1/16.
+ *
+ * @see IEventLoopStatistics
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 1.1
+ */
+public class LatencyStatistics {
+	private final int eventType;
+	private final long count;
+	private final double mean;
+	private final long median;
+	private final long percentile99;
+	private final long percentile999;
+	private final long max;
+
+	/**
+	 * Creates a LatencyStatistics.
+	 *
+	 * @param eventType the SWT event type
+	 * @param count the number of recorded events
+	 * @param mean the mean latency in microseconds
+	 * @param median the 50th percentile of the latencies in microseconds
+	 * @param percentile99 the 99th percentile of the latencies in microseconds
+	 * @param percentile999 the 99.9th percentile of the latencies in microseconds
+	 * @param max the maximum latency in microseconds
+	 */
+	public LatencyStatistics(int eventType, long count, double mean, long median,
+			long percentile99, long percentile999, long max) {
+		this.eventType = eventType;
+		this.count = count;
+		this.mean = mean;
+		this.median = median;
+		this.percentile99 = percentile99;
+		this.percentile999 = percentile999;
+		this.max = max;
+	}
+
+	/**
+	 * Returns the SWT event type.
+	 */
+	public int getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Returns the number of recorded events.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean latency in microseconds.
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns the 50th percentile of the latencies in microseconds.
+	 */
+	public long getMedian() {
+		return median;
+	}
+
+	/**
+	 * Returns the 99th percentile of the latencies in microseconds.
+	 */
+	public long getPercentile99() {
+		return percentile99;
+	}
+
+	/**
+	 * Returns the 99.9th percentile of the latencies in microseconds.
+	 */
+	public long getPercentile999() {
+		return percentile999;
+	}
+
+	/**
+	 * Returns the maximum latency in microseconds.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/** For debugging only. */
+	@Override
+	public String toString() {
+		return String.format("Event type %d: count=%d mean=%.1fus p50=%dus p99=%dus p99.9=%dus max=%dus", //$NON-NLS-1$
+				eventType, count, mean, median, percentile99, percentile999, max);
+	}
+}
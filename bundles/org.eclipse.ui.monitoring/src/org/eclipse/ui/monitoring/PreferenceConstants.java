@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, Google Inc and others.
+ * Copyright (C) 2014, 2015 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -55,6 +55,42 @@ public class PreferenceConstants {
 	 * message if all stack frames of the thread match the filter.
 	 */
 	public static final String NONINTERESTING_THREAD_FILTER = "noninteresting_thread_filter"; //$NON-NLS-1$
+	/**
+	 * Interval in milliseconds between samples of the UI thread stack taken while the UI thread
+	 * is busy, regardless of the duration of the event being processed. The samples are
+	 * aggregated into a histogram of folded stacks. Zero disables continuous sampling.
+	 *
+	 * @since 1.1
+	 */
+	public static final String CONTINUOUS_SAMPLING_INTERVAL_MILLIS = "continuous_sampling_interval"; //$NON-NLS-1$
+	/**
+	 * Maximum number of distinct stacks kept in the continuous sampling histogram.
+	 *
+	 * @since 1.1
+	 */
+	public static final String CONTINUOUS_SAMPLING_MAX_STACKS = "continuous_sampling_max_stacks"; //$NON-NLS-1$
+	/**
+	 * File the continuous sampling histogram is written to in the collapsed stack format when
+	 * monitoring stops. If empty, the file is written to the state location of the plug-in.
+	 *
+	 * @since 1.1
+	 */
+	public static final String CONTINUOUS_SAMPLING_OUTPUT_FILE = "continuous_sampling_output_file"; //$NON-NLS-1$
+	/**
+	 * Interval in milliseconds between writes of the event latency statistics to
+	 * {@link #LATENCY_STATISTICS_OUTPUT_FILE}. Zero disables writing of the statistics.
+	 *
+	 * @see IEventLoopStatistics
+	 * @since 1.1
+	 */
+	public static final String LATENCY_STATISTICS_DUMP_INTERVAL_MILLIS = "latency_statistics_dump_interval"; //$NON-NLS-1$
+	/**
+	 * CSV file the event latency statistics are appended to periodically. If empty, the file
+	 * is written to the state location of the plug-in.
+	 *
+	 * @since 1.1
+	 */
+	public static final String LATENCY_STATISTICS_OUTPUT_FILE = "latency_statistics_output_file"; //$NON-NLS-1$
 
 	private PreferenceConstants() {}
 }
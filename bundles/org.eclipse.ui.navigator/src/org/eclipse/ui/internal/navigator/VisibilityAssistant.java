@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,9 @@
 
 package org.eclipse.ui.internal.navigator;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -38,6 +40,8 @@ public class VisibilityAssistant implements IExtensionActivationListener {
 
 	private final INavigatorActivationService activationService;
 
+	private final Map caches = new HashMap();
+
 	/**
 	 * Notifies clients of changes in extension visibility or activation.
 	 * 
@@ -119,7 +123,30 @@ public class VisibilityAssistant implements IExtensionActivationListener {
 		listeners.remove(aListener);
 	}
 
+	/**
+	 * Return a cache for results that depend on the visibility and activation
+	 * of extensions. The cache is discarded when the visibility or activation
+	 * state associated with this assistant changes.
+	 * 
+	 * @param aKey
+	 *            the key identifying the cache
+	 * @return a map which must be accessed while synchronized on it
+	 */
+	public Map getCache(Object aKey) {
+		synchronized (caches) {
+			Map cache = (Map) caches.get(aKey);
+			if (cache == null) {
+				cache = new HashMap();
+				caches.put(aKey, cache);
+			}
+			return cache;
+		}
+	}
+
 	private void notifyClients() {
+		synchronized (caches) {
+			caches.clear();
+		}
 		Object[] clients = listeners.getListeners();
 		for (int i = 0; i < clients.length; i++) {
 			((VisibilityListener) clients[i]).onVisibilityOrActivationChange();
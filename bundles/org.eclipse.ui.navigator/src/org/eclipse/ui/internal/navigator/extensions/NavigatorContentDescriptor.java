@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2010 IBM Corporation and others.
+ * Copyright (c) 2003, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.core.expressions.ElementHandler;
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
 import org.eclipse.core.expressions.ExpressionConverter;
+import org.eclipse.core.expressions.ExpressionTagNames;
 import org.eclipse.core.expressions.IEvaluationContext;
 
 import org.eclipse.core.runtime.CoreException;
@@ -76,6 +77,10 @@ public final class NavigatorContentDescriptor implements
 
 	private Expression possibleChildren;
 
+	private boolean triggerPointsClassOnly = true;
+
+	private boolean possibleChildrenClassOnly = true;
+
 	private Expression initialActivation;
 	
 	private String icon;
@@ -257,6 +262,8 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_TRIGGER_POINTS);
 			if (children.length == 1) {
 				enablement = new CustomAndExpression(children[0]);
+				triggerPointsClassOnly = isClassOnly(children[0].getChildren());
+				possibleChildrenClassOnly = triggerPointsClassOnly;
 			} else {
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -270,6 +277,7 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_POSSIBLE_CHILDREN);
 			if (children.length == 1) {
 				possibleChildren = new CustomAndExpression(children[0]);
+				possibleChildrenClassOnly = isClassOnly(children[0].getChildren());
 			} else if(children.length > 1){
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -283,6 +291,8 @@ public final class NavigatorContentDescriptor implements
 			try {
 				enablement = ElementHandler.getDefault().create(
 						ExpressionConverter.getDefault(), children[0]);
+				triggerPointsClassOnly = isClassOnly(children[0].getChildren());
+				possibleChildrenClassOnly = triggerPointsClassOnly;
 			} catch (CoreException e) {
 				NavigatorPlugin.log(IStatus.ERROR, 0, e.getMessage(), e);
 			}
@@ -315,6 +325,48 @@ public final class NavigatorContentDescriptor implements
 
 	}
 
+	/**
+	 * Returns whether expressions created from the given elements and combined
+	 * with AND only test the type of the element they are evaluated for, so
+	 * that their result only depends on its class.
+	 * 
+	 * @param elements
+	 *            the configuration elements of the expressions
+	 * @return True if the expressions only depend on the class of the element.
+	 */
+	private static boolean isClassOnly(IConfigurationElement[] elements) {
+		for (int i = 0; i < elements.length; i++) {
+			String name = elements[i].getName();
+			if (ExpressionTagNames.INSTANCEOF.equals(name)) {
+				continue;
+			}
+			if ((ExpressionTagNames.AND.equals(name)
+					|| ExpressionTagNames.OR.equals(name) || ExpressionTagNames.NOT
+						.equals(name))
+					&& isClassOnly(elements[i].getChildren())) {
+				continue;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if {@link #isTriggerPoint(Object)} only depends on the
+	 *         class of the element.
+	 */
+	boolean hasClassOnlyTriggerPoints() {
+		return triggerPointsClassOnly;
+	}
+
+	/**
+	 * @return True if {@link #isPossibleChild(Object)} only depends on the
+	 *         class of the element, unless the element is a selection.
+	 */
+	boolean hasClassOnlyPossibleChildren() {
+		return possibleChildrenClassOnly;
+	}
+
 	/**
 	 * @return Returns the icon.
 	 */
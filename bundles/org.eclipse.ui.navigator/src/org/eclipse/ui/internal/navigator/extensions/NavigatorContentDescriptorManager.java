@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2011 IBM Corporation and others.
+ * Copyright (c) 2003, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@
 package org.eclipse.ui.internal.navigator.extensions;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -27,6 +28,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.internal.navigator.NavigatorPlugin;
 import org.eclipse.ui.internal.navigator.NavigatorSafeRunnable;
@@ -144,14 +146,37 @@ public class NavigatorContentDescriptorManager {
 
 	private static final boolean POSSIBLE_CHILD = true;
 
+	/*
+	 * Keys of the caches of descriptors found for elements of a class, for
+	 * trigger points and possible children, with and without overrides.
+	 */
+	private static final Object[] CACHE_KEYS = { new Object(), new Object(), new Object(),
+			new Object() };
 
 	private Set<NavigatorContentDescriptor> findDescriptors(Object anElement,
 			VisibilityAssistant aVisibilityAssistant, boolean considerOverrides, boolean possibleChild) {
 
+		/*
+		 * When all the expressions evaluated only test the type of the element,
+		 * the descriptors found are cached by the class of the element.
+		 */
+		Map<Class<?>, Set<NavigatorContentDescriptor>> cache = null;
+		if (anElement != null && !(anElement instanceof IStructuredSelection)) {
+			cache = getCache(aVisibilityAssistant, considerOverrides, possibleChild);
+			Set<NavigatorContentDescriptor> descriptors;
+			synchronized (cache) {
+				descriptors = cache.get(anElement.getClass());
+			}
+			if (descriptors != null) {
+				return descriptors;
+			}
+		}
+
 		Set<NavigatorContentDescriptor> descriptors = new TreeSet<NavigatorContentDescriptor>(ExtensionSequenceNumberComparator.INSTANCE);
+		Evaluation evaluation = new Evaluation(anElement, aVisibilityAssistant, possibleChild);
 
 		if (considerOverrides) {
-			addDescriptorsConsideringOverrides(anElement, firstClassDescriptorsSet, aVisibilityAssistant, descriptors, possibleChild);
+			addDescriptorsConsideringOverrides(evaluation, firstClassDescriptorsSet, descriptors);
 			if (Policy.DEBUG_RESOLUTION) {
 				System.out.println("Find descriptors for: " + Policy.getObjectString(anElement) + //$NON-NLS-1$
 						": " + descriptors); //$NON-NLS-1$
@@ -162,20 +187,37 @@ public class NavigatorContentDescriptorManager {
 			for (Iterator<NavigatorContentDescriptor> contentDescriptorsItr = firstClassDescriptorsSet.iterator(); contentDescriptorsItr.hasNext();) {
 				NavigatorContentDescriptor descriptor = contentDescriptorsItr.next();
 
-				if (aVisibilityAssistant.isActive(descriptor) && aVisibilityAssistant.isVisible(descriptor)
-						&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement))) {
+				if (evaluation.isApplicable(descriptor)) {
 					descriptors.add(descriptor);
 				}
 			}
 		}
 
+		descriptors = Collections.unmodifiableSet(descriptors);
+		if (cache != null && evaluation.classOnly) {
+			synchronized (cache) {
+				cache.put(anElement.getClass(), descriptors);
+			}
+		}
 		return descriptors;
 	}
 
-	private boolean addDescriptorsConsideringOverrides(Object anElement,
-			Set<NavigatorContentDescriptor> theChildDescriptors, VisibilityAssistant aVisibilityAssistant,
-			Set<NavigatorContentDescriptor> theFoundDescriptors, boolean possibleChild) {
-		int initialSize = theFoundDescriptors.size();
+	@SuppressWarnings("unchecked")
+	private static Map<Class<?>, Set<NavigatorContentDescriptor>> getCache(
+			VisibilityAssistant aVisibilityAssistant, boolean considerOverrides, boolean possibleChild) {
+		return aVisibilityAssistant.getCache(CACHE_KEYS[(possibleChild ? 2 : 0) + (considerOverrides ? 1 : 0)]);
+	}
+
+	/**
+	 * Adds the applicable descriptors, or the applicable descriptors overriding
+	 * them.
+	 *
+	 * @return true if a descriptor was found
+	 */
+	private boolean addDescriptorsConsideringOverrides(Evaluation anEvaluation,
+			Set<NavigatorContentDescriptor> theChildDescriptors,
+			Set<NavigatorContentDescriptor> theFoundDescriptors) {
+		boolean found = false;
 
 		NavigatorContentDescriptor descriptor;
 		/* Find other ContentProviders which enable for this object */
@@ -184,31 +226,57 @@ public class NavigatorContentDescriptorManager {
 			descriptor = contentDescriptorsItr
 					.next();
 
-			boolean isApplicable = aVisibilityAssistant.isActive(descriptor)
-					&& aVisibilityAssistant.isVisible(descriptor)
-					&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement));
+			boolean isApplicable = anEvaluation.isApplicable(descriptor);
+
+			/*
+			 * The overriding descriptors found are added directly, as the
+			 * descriptor is not added when it is overridden.
+			 */
+			if (descriptor.hasOverridingExtensions()
+					&& addDescriptorsConsideringOverrides(anEvaluation,
+							descriptor.getOverriddingExtensions(), theFoundDescriptors)) {
+				found = true;
+			} else if (isApplicable) {
+				theFoundDescriptors.add(descriptor);
+				found = true;
+			}
+
+		}
+		return found;
 
-			if (descriptor.hasOverridingExtensions()) {
+	}
 
-				boolean isOverridden;
+	/**
+	 * Evaluates whether descriptors are enabled for an element, recording
+	 * whether all the expressions evaluated only depend on its class.
+	 */
+	private static class Evaluation {
 
-				Set<NavigatorContentDescriptor> overridingDescriptors = new TreeSet<NavigatorContentDescriptor>(ExtensionSequenceNumberComparator.INSTANCE);
-				isOverridden = addDescriptorsConsideringOverrides(anElement, descriptor.getOverriddingExtensions(),
-						aVisibilityAssistant, overridingDescriptors, possibleChild);
+		private final Object element;
 
-				if (!isOverridden && isApplicable) {
-					theFoundDescriptors.add(descriptor);
-				} else if (isOverridden) {
-					theFoundDescriptors.addAll(overridingDescriptors);
-				}
+		private final VisibilityAssistant visibilityAssistant;
 
-			} else if (isApplicable) {
-				theFoundDescriptors.add(descriptor);
-			}
+		private final boolean possibleChild;
+
+		boolean classOnly = true;
 
+		Evaluation(Object anElement, VisibilityAssistant aVisibilityAssistant, boolean isPossibleChild) {
+			element = anElement;
+			visibilityAssistant = aVisibilityAssistant;
+			possibleChild = isPossibleChild;
 		}
-		return initialSize < theFoundDescriptors.size();
 
+		boolean isApplicable(NavigatorContentDescriptor descriptor) {
+			if (!visibilityAssistant.isActive(descriptor) || !visibilityAssistant.isVisible(descriptor)) {
+				return false;
+			}
+			if (possibleChild) {
+				classOnly &= descriptor.hasClassOnlyPossibleChildren();
+				return descriptor.isPossibleChild(element);
+			}
+			classOnly &= descriptor.hasClassOnlyTriggerPoints();
+			return descriptor.isTriggerPoint(element);
+		}
 	}
 
 	/**
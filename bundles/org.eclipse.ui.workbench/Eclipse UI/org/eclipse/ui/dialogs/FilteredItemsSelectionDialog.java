@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -216,6 +217,16 @@ public abstract class FilteredItemsSelectionDialog extends
 
 	private ItemsFilter lastCompletedFilter;
 
+	private boolean parallelMatching = false;
+
+	private boolean reuseSortedResults = false;
+
+	/**
+	 * The minimum number of items matched on several threads when parallel
+	 * matching is enabled.
+	 */
+	private static final int PARALLEL_MATCHING_THRESHOLD = 10000;
+
 	private String initialPatternText;
 
 	private int selectionMode;
@@ -1308,6 +1319,142 @@ public abstract class FilteredItemsSelectionDialog extends
 		this.itemsListSeparator = new ItemsListSeparator(separatorLabel);
 	}
 
+	/**
+	 * Sets whether large numbers of items are matched against the filter on
+	 * several threads. This applies to the items added by
+	 * {@link #fillContentProvider(AbstractContentProvider, ItemsFilter, IProgressMonitor)}
+	 * as well as to the last result matched against a narrower filter. The
+	 * <code>matchItem(Object)</code> method of the filters created by
+	 * {@link #createFilter()} must support being called concurrently.
+	 * <p>
+	 * By default, this is set to <code>false</code>.
+	 * </p>
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to match items on several threads,
+	 *            <code>false</code> otherwise
+	 * @since 3.107
+	 */
+	public void setParallelMatching(boolean enabled) {
+		this.parallelMatching = enabled;
+	}
+
+	/**
+	 * Sets whether the items matching a narrower filter are taken in the order
+	 * of the last result instead of being sorted again. This is only correct
+	 * if the order of the comparator returned by {@link #getItemsComparator()}
+	 * does not depend on the filter.
+	 * <p>
+	 * By default, this is set to <code>false</code>.
+	 * </p>
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to keep the order of the last result,
+	 *            <code>false</code> to sort the matching items again
+	 * @since 3.107
+	 */
+	public void setReuseSortedResults(boolean enabled) {
+		this.reuseSortedResults = enabled;
+	}
+
+	/**
+	 * Returns the items matching the filter, in the order of the given items.
+	 * If parallel matching is enabled, many items are matched by several jobs.
+	 */
+	private List matchItems(final Object[] items,
+			final ItemsFilter itemsFilter, final IProgressMonitor monitor) {
+		int chunks = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+		if (!parallelMatching || items.length < PARALLEL_MATCHING_THRESHOLD
+				|| chunks < 2) {
+			return matchItems(items, 0, items.length, itemsFilter, monitor);
+		}
+		final int[] bounds = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++) {
+			bounds[i] = (int) ((long) items.length * i / chunks);
+		}
+		final List[] matched = new List[chunks];
+		final Throwable[] failure = new Throwable[1];
+		Job[] jobs = new Job[chunks - 1];
+		for (int i = 0; i < jobs.length; i++) {
+			final int chunk = i + 1;
+			jobs[i] = new Job(
+					WorkbenchMessages.FilteredItemsSelectionDialog_jobLabel) {
+				@Override
+				protected IStatus run(IProgressMonitor jobMonitor) {
+					try {
+						matched[chunk] = matchItems(items, bounds[chunk],
+								bounds[chunk + 1], itemsFilter, monitor);
+					} catch (Throwable e) {
+						synchronized (failure) {
+							if (failure[0] == null) {
+								failure[0] = e;
+							}
+						}
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			jobs[i].setSystem(true);
+			jobs[i].schedule();
+		}
+		matched[0] = matchItems(items, bounds[0], bounds[1], itemsFilter,
+				monitor);
+		boolean interrupted = false;
+		for (int i = 0; i < jobs.length; i++) {
+			while (true) {
+				try {
+					jobs[i].join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (failure) {
+			if (failure[0] instanceof RuntimeException) {
+				throw (RuntimeException) failure[0];
+			}
+			if (failure[0] instanceof Error) {
+				throw (Error) failure[0];
+			}
+			if (failure[0] != null) {
+				throw new RuntimeException(failure[0]);
+			}
+		}
+		int size = 0;
+		for (int i = 0; i < chunks; i++) {
+			if (matched[i] == null) {
+				// the job did not run, e.g. because the job manager is
+				// shutting down
+				matched[i] = matchItems(items, bounds[i], bounds[i + 1],
+						itemsFilter, monitor);
+			}
+			size += matched[i].size();
+		}
+		List result = new ArrayList(size);
+		for (int i = 0; i < chunks; i++) {
+			result.addAll(matched[i]);
+		}
+		return result;
+	}
+
+	private static List matchItems(Object[] items, int from, int to,
+			ItemsFilter itemsFilter, IProgressMonitor monitor) {
+		List matched = new ArrayList();
+		for (int i = from; i < to; i++) {
+			if ((i - from) % 500 == 0 && monitor.isCanceled()) {
+				break;
+			}
+			if (itemsFilter.matchItem(items[i])) {
+				matched.add(items[i]);
+			}
+		}
+		return matched;
+	}
+
 	/**
 	 * Returns name for then given object.
 	 * 
@@ -2068,23 +2215,22 @@ public abstract class FilteredItemsSelectionDialog extends
 			if (lastCompletedFilter != null
 					&& lastCompletedFilter.isSubFilter(this.itemsFilter)) {
 
-				int length = lastCompletedResult.size() / 500;
 				monitor
 						.beginTask(
 								WorkbenchMessages.FilteredItemsSelectionDialog_cacheSearchJob_taskName,
-								length);
-
-				for (int pos = 0; pos < lastCompletedResult.size(); pos++) {
-
-					Object item = lastCompletedResult.get(pos);
-					if (monitor.isCanceled())
-						break;
-					contentProvider.add(item, itemsFilter);
-
-					if ((pos % 500) == 0) {
-						monitor.worked(1);
+								1);
+
+				Object[] lastItems = lastCompletedResult.toArray();
+				List matched = matchItems(lastItems, itemsFilter, monitor);
+				if (!monitor.isCanceled()) {
+					if (reuseSortedResults) {
+						// the items matching a sub-filter keep their order
+						contentProvider.addSorted(matched, itemsFilter);
+					} else {
+						contentProvider.addAll(matched, itemsFilter);
 					}
 				}
+				monitor.worked(1);
 
 			} else {
 
@@ -2101,7 +2247,26 @@ public abstract class FilteredItemsSelectionDialog extends
 
 				}
 
-				fillContentProvider(contentProvider, itemsFilter, subMonitor);
+				if (parallelMatching) {
+					// gather the items, then match them on several threads
+					Object[] items;
+					contentProvider.startGathering();
+					try {
+						fillContentProvider(contentProvider, itemsFilter,
+								subMonitor);
+					} finally {
+						items = contentProvider.stopGathering();
+					}
+					IProgressMonitor matchMonitor = monitor != null ? monitor
+							: new NullProgressMonitor();
+					List matched = matchItems(items, itemsFilter, matchMonitor);
+					if (!matchMonitor.isCanceled()) {
+						contentProvider.addAll(matched, itemsFilter);
+					}
+				} else {
+					fillContentProvider(contentProvider, itemsFilter,
+							subMonitor);
+				}
 
 				if (monitor != null && !monitor.isCanceled()) {
 					monitor.worked(2);
@@ -2544,6 +2709,12 @@ public abstract class FilteredItemsSelectionDialog extends
 		 */
 		private boolean reset;
 
+		/**
+		 * The items added while they are gathered to be matched on several
+		 * threads, or <code>null</code> if added items are matched at once.
+		 */
+		private volatile List gatheredItems;
+
 		/**
 		 * Creates new instance of <code>ContentProvider</code>.
 		 */
@@ -2598,7 +2769,10 @@ public abstract class FilteredItemsSelectionDialog extends
 		@Override
 		public void add(Object item, ItemsFilter itemsFilter) {
 			if (itemsFilter == filter) {
-				if (itemsFilter != null) {
+				List gathered = gatheredItems;
+				if (gathered != null && itemsFilter != null) {
+					gathered.add(item);
+				} else if (itemsFilter != null) {
 					if (itemsFilter.matchItem(item)) {
 						this.items.add(item);
 					}
@@ -2608,6 +2782,53 @@ public abstract class FilteredItemsSelectionDialog extends
 			}
 		}
 
+		/**
+		 * Starts gathering the added items instead of matching them.
+		 */
+		public void startGathering() {
+			gatheredItems = Collections.synchronizedList(new ArrayList(2048));
+		}
+
+		/**
+		 * Stops gathering the added items.
+		 * 
+		 * @return the items added since gathering started, not matched yet
+		 */
+		public Object[] stopGathering() {
+			Object[] gathered = gatheredItems.toArray();
+			gatheredItems = null;
+			return gathered;
+		}
+
+		/**
+		 * Adds items that matched the filter.
+		 * 
+		 * @param matchedItems
+		 * @param itemsFilter
+		 */
+		public void addAll(Collection matchedItems, ItemsFilter itemsFilter) {
+			if (itemsFilter == filter) {
+				this.items.addAll(matchedItems);
+			}
+		}
+
+		/**
+		 * Adds items that matched the filter and are sorted, so that they are
+		 * not sorted again. Only used if sorted results are reused.
+		 * 
+		 * @param sortedItems
+		 * @param itemsFilter
+		 */
+		public void addSorted(List sortedItems, ItemsFilter itemsFilter) {
+			if (itemsFilter == filter) {
+				synchronized (lastSortedItems) {
+					this.items.addAll(sortedItems);
+					lastSortedItems.clear();
+					lastSortedItems.addAll(sortedItems);
+				}
+			}
+		}
+
 		/**
 		 * Add all history items to <code>contentProvider</code>.
 		 * 
@@ -2660,6 +2881,7 @@ public abstract class FilteredItemsSelectionDialog extends
 			synchronized (lastSortedItems) {
 				Collections.sort(lastSortedItems, getHistoryComparator());
 			}
+			sortLastCompletedResult();
 			return item;
 		}
 
@@ -2680,9 +2902,23 @@ public abstract class FilteredItemsSelectionDialog extends
 			synchronized (lastSortedItems) {
 				Collections.sort(lastSortedItems, getHistoryComparator());
 			}
+			sortLastCompletedResult();
 			this.refresh();
 		}
 
+		/**
+		 * Sorts the last completed result again after the history changed,
+		 * if the items matching a sub-filter are taken in its order.
+		 */
+		private void sortLastCompletedResult() {
+			List result = lastCompletedResult;
+			if (reuseSortedResults && result != null) {
+				synchronized (result) {
+					Collections.sort(result, getHistoryComparator());
+				}
+			}
+		}
+
 		/**
 		 * @param item
 		 * @return <code>true</code> if given item is part of the history
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2014 IBM Corporation and others.
+ * Copyright (c) 2004, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -134,6 +134,18 @@ public class FilteredTree extends Composite {
 	 */
 	private Job refreshJob;
 
+	/**
+	 * The job used to filter the tree in the background before refreshing it,
+	 * or <code>null</code> if the tree is filtered while refreshing it.
+	 */
+	private Job filterJob;
+
+	/**
+	 * Whether the tree is being refreshed because the filter pattern changed,
+	 * in which case the results cached by the pattern filter remain valid.
+	 */
+	private boolean refreshingFilter;
+
 	/**
 	 * The parent composite of the filtered tree.
 	 * 
@@ -419,6 +431,9 @@ public class FilteredTree extends Composite {
 			@Override
 			public void widgetDisposed(DisposeEvent e) {
 				refreshJob.cancel();
+				if (filterJob != null) {
+					filterJob.cancel();
+				}
 			}
 		});
 		if (treeViewer instanceof NotifyingTreeViewer) {
@@ -520,7 +535,12 @@ public class FilteredTree extends Composite {
 							}
 						}
 					}
-					treeViewer.refresh(true);
+					refreshingFilter = true;
+					try {
+						treeViewer.refresh(true);
+					} finally {
+						refreshingFilter = false;
+					}
 
 					if (text.length() > 0 && !initial) {
 						/*
@@ -849,6 +869,16 @@ public class FilteredTree extends Composite {
 		previousFilterText = getFilterString();
 		// cancel currently running job first, to prevent unnecessary redraw
 		refreshJob.cancel();
+		if (filterJob != null) {
+			filterJob.cancel();
+			String text = getFilterString();
+			if (text != null) {
+				patternFilter.setPattern(initialText != null
+						&& initialText.equals(text) ? null : text);
+			}
+			filterJob.schedule(getRefreshJobDelay());
+			return;
+		}
 		refreshJob.schedule(getRefreshJobDelay());
 	}
 	
@@ -1118,6 +1148,48 @@ public class FilteredTree extends Composite {
 		this.quickSelectionMode = enabled;
 	}
 
+	/**
+	 * Sets whether the elements of the tree are matched against the filter
+	 * text in a background job before the tree is refreshed, so that typing
+	 * in the filter text is not blocked by large trees. Typing cancels the
+	 * matching that is still in progress.
+	 * <p>
+	 * The content provider and the label provider of the tree viewer must
+	 * support being called from a background thread, and the tree viewer must
+	 * be created by {@link #doCreateTreeViewer(Composite, int)} of this class.
+	 * By default, this is set to <code>false</code>.
+	 * </p>
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to match the elements in the background,
+	 *            <code>false</code> to match them while refreshing the tree
+	 * @since 3.107
+	 */
+	public void setBackgroundFiltering(boolean enabled) {
+		if (!enabled || !(treeViewer instanceof NotifyingTreeViewer)) {
+			if (filterJob != null) {
+				filterJob.cancel();
+				filterJob = null;
+			}
+			return;
+		}
+		if (filterJob == null) {
+			filterJob = new Job("Filter") { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					patternFilter.computeFilteredElements(treeViewer, monitor);
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					// refreshes the tree even if the content changed meanwhile
+					refreshJob.schedule();
+					return Status.OK_STATUS;
+				}
+			};
+			filterJob.setSystem(true);
+		}
+	}
+
 	/**
 	 * Select all text in the filter text field.
 	 * 
@@ -1230,7 +1302,9 @@ public class FilteredTree extends Composite {
 
 		@Override
 		public void refresh(boolean updateLabels) {
-			getPatternFilter().clearCaches();
+			if (!refreshingFilter) {
+				getPatternFilter().clearCaches();
+			}
 			super.refresh(updateLabels);
 		}
 
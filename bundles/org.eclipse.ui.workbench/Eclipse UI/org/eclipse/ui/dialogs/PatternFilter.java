@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2014 IBM Corporation and others.
+ * Copyright (c) 2004, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,12 @@
 package org.eclipse.ui.dialogs;
 
 import com.ibm.icu.text.BreakIterator;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
@@ -44,7 +46,28 @@ public class PatternFilter extends ViewerFilter {
      * Maps parent elements to TRUE or FALSE
      */
     private Map foundAnyCache = new HashMap();
-    
+
+	/*
+	 * The caches for the previous patterns, kept while each pattern refines
+	 * the previous one: an element filtered out for a previous pattern is
+	 * also filtered out for the current one.
+	 */
+	private Map previousCache = new HashMap();
+
+	private Map previousFoundAnyCache = new HashMap();
+
+	/*
+	 * Incremented whenever the caches are cleared, results computed before
+	 * are not cached.
+	 */
+	private volatile int generation;
+
+	/*
+	 * Whether a subclass changes how elements are matched, in which case
+	 * results are not reused for refined patterns.
+	 */
+	private Boolean matchingOverridden;
+
     private boolean useCache = false;
     
 	/**
@@ -56,7 +79,12 @@ public class PatternFilter extends ViewerFilter {
 	/**
 	 * The string pattern matcher used for this pattern filter.  
 	 */
-    private StringMatcher matcher;
+    private volatile StringMatcher matcher;
+
+	/**
+	 * The pattern string of the matcher.
+	 */
+	private String pattern;
     
     private boolean useEarlyReturnIfMatcherIsNull = true;
     
@@ -74,18 +102,35 @@ public class PatternFilter extends ViewerFilter {
         if (!useCache) {
         	return super.filter(viewer, parent, elements);
         }
-        
-        Object[] filtered = (Object[]) cache.get(parent);
-        if (filtered == null) {
-        	Boolean foundAny = (Boolean) foundAnyCache.get(parent);
-        	if (foundAny != null && !foundAny.booleanValue()) {
-        		filtered = EMPTY;
-        	} else {
-        		filtered = super.filter(viewer, parent, elements);
-        	}
-            cache.put(parent, filtered);
-        }
-        return filtered;
+
+		Boolean foundAny;
+		Object[] candidates;
+		int cacheGeneration;
+		synchronized (this) {
+			Object[] filtered = (Object[]) cache.get(parent);
+			if (filtered != null) {
+				return filtered;
+			}
+			foundAny = (Boolean) foundAnyCache.get(parent);
+			if (foundAny == null) {
+				foundAny = (Boolean) previousFoundAnyCache.get(parent);
+			}
+			candidates = (Object[]) previousCache.get(parent);
+			cacheGeneration = generation;
+		}
+		Object[] filtered;
+		if (foundAny != null && !foundAny.booleanValue()) {
+			filtered = EMPTY;
+		} else {
+			filtered = super.filter(viewer, parent,
+					candidates != null ? candidates : elements);
+		}
+		synchronized (this) {
+			if (cacheGeneration == generation) {
+				cache.put(parent, filtered);
+			}
+		}
+		return filtered;
     }
 
     /**
@@ -106,16 +151,33 @@ public class PatternFilter extends ViewerFilter {
     	if (!useCache) {
     		return computeAnyVisible(viewer, elements);
     	}
-    	
-    	Object[] filtered = (Object[]) cache.get(parent);
-    	if (filtered != null) {
-    		return filtered.length > 0;
-    	}
-    	Boolean foundAny = (Boolean) foundAnyCache.get(parent);
-    	if (foundAny == null) {
-    		foundAny = computeAnyVisible(viewer, elements) ? Boolean.TRUE : Boolean.FALSE;
-    		foundAnyCache.put(parent, foundAny);
-    	}
+
+		Boolean foundAny;
+		Object[] candidates;
+		int cacheGeneration;
+		synchronized (this) {
+			Object[] filtered = (Object[]) cache.get(parent);
+			if (filtered != null) {
+				return filtered.length > 0;
+			}
+			foundAny = (Boolean) foundAnyCache.get(parent);
+			if (foundAny != null) {
+				return foundAny.booleanValue();
+			}
+			foundAny = (Boolean) previousFoundAnyCache.get(parent);
+			candidates = (Object[]) previousCache.get(parent);
+			cacheGeneration = generation;
+		}
+		if (foundAny == null || foundAny.booleanValue()) {
+			foundAny = computeAnyVisible(viewer,
+					candidates != null ? candidates : elements) ? Boolean.TRUE
+					: Boolean.FALSE;
+		}
+		synchronized (this) {
+			if (cacheGeneration == generation) {
+				foundAnyCache.put(parent, foundAny);
+			}
+		}
     	return foundAny.booleanValue();
     }
 
@@ -156,6 +218,11 @@ public class PatternFilter extends ViewerFilter {
     /**
      * The pattern string for which this filter should select 
      * elements in the viewer.
+     * <p>
+     * When caching is enabled by the filtered tree, setting the same pattern
+     * again keeps the cached results, and when the pattern is extended only
+     * the elements matching the previous pattern are matched again.
+     * </p>
      * 
      * @param patternString
      */
@@ -169,25 +236,139 @@ public class PatternFilter extends ViewerFilter {
     		useEarlyReturnIfMatcherIsNull = false;
     		return;
     	}
-        clearCaches();
-        if (patternString == null || patternString.equals("")) { //$NON-NLS-1$
-			matcher = null;
+		if (patternString == null || patternString.equals("")) { //$NON-NLS-1$
+			patternString = null;
 		} else {
-			String pattern = patternString + "*"; //$NON-NLS-1$
+			patternString = patternString + "*"; //$NON-NLS-1$
 			if (includeLeadingWildcard) {
-				pattern = "*" + pattern; //$NON-NLS-1$
+				patternString = "*" + patternString; //$NON-NLS-1$
 			}
-			matcher = new StringMatcher(pattern, true, false);
+		}
+		synchronized (this) {
+			boolean reuseResults = canReuseResults();
+			if (reuseResults && patternString != null
+					&& patternString.equals(pattern)) {
+				return;
+			}
+			if (reuseResults && isRefinement(patternString)) {
+				previousCache.putAll(cache);
+				previousFoundAnyCache.putAll(foundAnyCache);
+				cache.clear();
+				foundAnyCache.clear();
+				generation++;
+			} else {
+				clearCaches();
+			}
+			pattern = patternString;
+			matcher = patternString == null ? null : new StringMatcher(
+					patternString, true, false);
 		}
     }
 
+	/**
+	 * Returns whether the elements matching the new pattern are among the
+	 * elements matching the current pattern. Appending characters to a pattern
+	 * ending with a wildcard only restricts it, unless the added characters
+	 * follow an escape character.
+	 */
+	private boolean isRefinement(String newPattern) {
+		if (pattern == null || newPattern == null) {
+			return false;
+		}
+		String prefix = pattern.substring(0, pattern.length() - 1);
+		return newPattern.startsWith(prefix) && !prefix.endsWith("\\"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns whether the cached results can be kept when the pattern is set,
+	 * which is not the case if a subclass changes how elements are matched.
+	 */
+	private boolean canReuseResults() {
+		if (!useCache || !useEarlyReturnIfMatcherIsNull) {
+			return false;
+		}
+		if (matchingOverridden == null) {
+			matchingOverridden = Boolean.valueOf(isMatchingOverridden());
+		}
+		return !matchingOverridden.booleanValue();
+	}
+
+	private boolean isMatchingOverridden() {
+		for (Class clazz = getClass(); clazz != PatternFilter.class; clazz = clazz
+				.getSuperclass()) {
+			Method[] methods = clazz.getDeclaredMethods();
+			for (int i = 0; i < methods.length; i++) {
+				String name = methods[i].getName();
+				if (name.equals("isElementVisible") //$NON-NLS-1$
+						|| name.equals("isParentMatch") //$NON-NLS-1$
+						|| name.equals("isLeafMatch") //$NON-NLS-1$
+						|| name.equals("wordMatches")) { //$NON-NLS-1$
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Clears the caches used for optimizing this filter. Needs to be called whenever
 	 * the tree content changes.
 	 */
-	/* package */ void clearCaches() {
+	/* package */ synchronized void clearCaches() {
 		cache.clear();
         foundAnyCache.clear();
+		previousCache.clear();
+		previousFoundAnyCache.clear();
+		generation++;
+	}
+
+	/**
+	 * Filters the elements of the tree shown in the viewer, and the children of
+	 * the elements making it through the filter, caching the results so that
+	 * refreshing the viewer does not match them again. Called by the filtered
+	 * tree from a background job, the content and label providers of the
+	 * viewer must support it.
+	 * 
+	 * @param viewer
+	 *            the viewer
+	 * @param monitor
+	 *            the monitor to cancel the computation
+	 * @return <code>false</code> if the computation was canceled or the
+	 *         pattern changed in the meantime
+	 */
+	/* package */ boolean computeFilteredElements(AbstractTreeViewer viewer,
+			IProgressMonitor monitor) {
+		ITreeContentProvider contentProvider = (ITreeContentProvider) viewer
+				.getContentProvider();
+		Object input = viewer.getInput();
+		if (!useCache || matcher == null || contentProvider == null
+				|| input == null) {
+			return true;
+		}
+		return computeFilteredElements(viewer, contentProvider, input,
+				contentProvider.getElements(input), generation, monitor);
+	}
+
+	private boolean computeFilteredElements(Viewer viewer,
+			ITreeContentProvider contentProvider, Object parent,
+			Object[] elements, int cacheGeneration, IProgressMonitor monitor) {
+		if (elements == null) {
+			return true;
+		}
+		Object[] filtered = filter(viewer, parent, elements);
+		for (int i = 0; i < filtered.length; i++) {
+			if (monitor.isCanceled() || cacheGeneration != generation) {
+				return false;
+			}
+			Object[] children = contentProvider.getChildren(filtered[i]);
+			if (children != null
+					&& children.length > 0
+					&& !computeFilteredElements(viewer, contentProvider,
+							filtered[i], children, cacheGeneration, monitor)) {
+				return false;
+			}
+		}
+		return cacheGeneration == generation;
 	}
 
     /**
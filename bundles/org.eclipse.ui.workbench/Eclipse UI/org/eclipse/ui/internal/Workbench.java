@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -78,6 +78,8 @@ import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.di.InjectionException;
 import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.internal.workbench.E4Workbench;
+import org.eclipse.e4.ui.internal.workbench.ModelAutoSave;
+import org.eclipse.e4.ui.internal.workbench.ResourceHandler;
 import org.eclipse.e4.ui.internal.workbench.renderers.swt.IUpdateService;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.internal.workbench.swt.IEventLoopAdvisor;
@@ -97,17 +99,22 @@ import org.eclipse.e4.ui.model.application.ui.basic.MTrimElement;
 import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
 import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
 import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.impl.UiPackageImpl;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
 import org.eclipse.e4.ui.model.application.ui.menu.MTrimContribution;
+import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuPackageImpl;
 import org.eclipse.e4.ui.services.EContextService;
 import org.eclipse.e4.ui.workbench.IModelResourceHandler;
 import org.eclipse.e4.ui.workbench.IPresentationEngine;
 import org.eclipse.e4.ui.workbench.UIEvents;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 import org.eclipse.jface.action.ActionContributionItem;
@@ -474,6 +481,8 @@ public final class Workbench extends EventManager implements IWorkbench,
 
 	private Job autoSaveJob;
 
+	private ModelAutoSave modelAutoSave;
+
 	private String id;
 	private ServiceRegistration<?> e4WorkbenchService;
 
@@ -1107,6 +1116,10 @@ public final class Workbench extends EventManager implements IWorkbench,
 			autoSaveJob.cancel();
 			autoSaveJob = null;
 		}
+		if (modelAutoSave != null) {
+			modelAutoSave.dispose();
+			modelAutoSave = null;
+		}
 
 		boolean closeEditors = !force
 				&& PrefUtil.getAPIPreferenceStore().getBoolean(
@@ -1282,11 +1295,42 @@ public final class Workbench extends EventManager implements IWorkbench,
 	 * part of persist(false) during auto-save.
 	 */
 	private void persistWorkbenchModel() {
+		final IModelResourceHandler handler = e4Context.get(IModelResourceHandler.class);
+		if (handler instanceof ResourceHandler
+				&& ((EObject) application).eResource() instanceof XMLResource) {
+			// only save the changes, without copying the model every time
+			if (modelAutoSave == null) {
+				modelAutoSave = new ModelAutoSave(application, handler,
+						((ResourceHandler) handler).getJournal()) {
+					@Override
+					protected boolean prepareCopy(MApplication appCopy) {
+						if (detectWorkbenchCorruption(appCopy)) {
+							return false;
+						}
+						cleanUpCopy(appCopy, e4Context);
+						return !detectWorkbenchCorruption(appCopy);
+					}
+
+					@Override
+					protected boolean isValid(MApplication model) {
+						return !detectWorkbenchCorruption(model);
+					}
+
+					@Override
+					protected boolean isSaved(EObject container, EStructuralFeature feature,
+							EObject element) {
+						return !isCleanedUp(container, feature, element);
+					}
+				};
+			}
+			modelAutoSave.save();
+			return;
+		}
+
 		final MApplication appCopy = (MApplication) EcoreUtil.copy((EObject) application);
 		if (detectWorkbenchCorruption(appCopy)) {
 			return;
 		}
-		final IModelResourceHandler handler = e4Context.get(IModelResourceHandler.class);
 
 		Job cleanAndSaveJob = new Job("Workbench Auto-Save Background Job") { //$NON-NLS-1$
 			@Override
@@ -1353,6 +1397,31 @@ public final class Workbench extends EventManager implements IWorkbench,
 		element.getPendingCleanup().clear();
 	}
 
+	/**
+	 * Tells whether {@link #cleanUpCopy(MApplication, IEclipseContext)}
+	 * removes an element from the saved model, or the children of an element
+	 * it clears.
+	 */
+	private static boolean isCleanedUp(EObject container, EStructuralFeature feature,
+			EObject element) {
+		if (feature == BasicPackageImpl.Literals.WINDOW__MAIN_MENU) {
+			return container instanceof MTrimmedWindow;
+		}
+		if (container instanceof MTrimBar) {
+			return ((MTrimBar) container).getPendingCleanup().contains(element);
+		}
+		if (container instanceof MApplication) {
+			return feature == MenuPackageImpl.Literals.MENU_CONTRIBUTIONS__MENU_CONTRIBUTIONS
+					|| feature == MenuPackageImpl.Literals.TOOL_BAR_CONTRIBUTIONS__TOOL_BAR_CONTRIBUTIONS
+					|| feature == MenuPackageImpl.Literals.TRIM_CONTRIBUTIONS__TRIM_CONTRIBUTIONS;
+		}
+		// the children of the menus and tool bar of parts
+		EStructuralFeature containerFeature = container.eContainmentFeature();
+		return feature == UiPackageImpl.Literals.ELEMENT_CONTAINER__CHILDREN
+				&& (containerFeature == BasicPackageImpl.Literals.PART__MENUS
+						|| containerFeature == BasicPackageImpl.Literals.PART__TOOLBAR);
+	}
+
 	@Override
 	public boolean saveAllEditors(boolean confirm) {
 		return saveAllEditors(confirm, false);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,17 +9,19 @@
  *     IBM Corporation - initial API and implementation
  *     Francis Upton <francisu@ieee.org> - 
  *     		Fix for Bug 216667 [Decorators] DecorationScheduler hangs onto objects forever sometimes
+ *     IBM Corporation - several decoration workers and concurrent result cache
  *******************************************************************************/
 package org.eclipse.ui.internal.decorators;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -41,18 +43,46 @@ import org.eclipse.ui.progress.WorkbenchJob;
 
 /**
  * The DecorationScheduler is the class that handles the decoration of elements
- * using a background thread.
+ * using background threads.
+ * <p>
+ * The decorations are computed by up to {@link #WORKER_COUNT} jobs. Elements
+ * whose labels are requested by a viewer are decorated before the elements
+ * queued by label provider change events, which are often not visible.
+ * </p>
  */
 public class DecorationScheduler {
 
 	static final ILabelProviderListener[] EMPTY_LISTENER_LIST = new ILabelProviderListener[0];
 
+	/**
+	 * The number of jobs computing decorations, defaults to the number of
+	 * processors up to 4. Can be set with the
+	 * <code>org.eclipse.ui.decorators.workers</code> system property.
+	 */
+	static final int WORKER_COUNT = Math.max(1, Integer.getInteger(
+			"org.eclipse.ui.decorators.workers", //$NON-NLS-1$
+			Math.min(Runtime.getRuntime().availableProcessors(), 4)).intValue());
+
+	/**
+	 * The number of computed decorations after which the labels are updated
+	 * even if more decorations are being computed.
+	 */
+	static final int UPDATE_BATCH_SIZE = 100;
+
 	// When decorations are computed they are added to this cache via
-	// decorated() method
-	Map resultCache = new HashMap();
+	// decorated() method. It maps each context to the results of its
+	// elements, so that the workers do not contend on a single map.
+	ConcurrentMap resultCache = new ConcurrentHashMap();
 
 	// Objects that need an icon and text computed for display to the user
-	List awaitingDecoration = new ArrayList();
+	LinkedList awaitingDecoration = new LinkedList();
+
+	// Objects that need a decoration but are not known to be displayed.
+	// They are decorated once awaitingDecoration is empty.
+	LinkedList awaitingBackgroundDecoration = new LinkedList();
+
+	// The number of elements being decorated by the workers
+	int decorating;
 
 	// Objects that are awaiting a label update.
 	Set pendingUpdate = new HashSet();
@@ -66,7 +96,7 @@ public class DecorationScheduler {
 
 	boolean shutdown = false;
 
-	Job decorationJob;
+	Job[] decorationJobs;
 
 	UIJob updateJob;
 
@@ -89,7 +119,11 @@ public class DecorationScheduler {
 	 */
 	DecorationScheduler(DecoratorManager manager) {
 		decoratorManager = manager;
-		createDecorationJob();
+		decorationJobs = new Job[WORKER_COUNT];
+		for (int i = 0; i < decorationJobs.length; i++) {
+			decorationJobs[i] = createDecorationJob();
+		}
+		decorationJobs[0].schedule();
 	}
 
 	/**
@@ -134,9 +168,34 @@ public class DecorationScheduler {
 	 *            The decoration context
 	 */
 
-	synchronized void queueForDecoration(Object element, Object adaptedElement,
+	void queueForDecoration(Object element, Object adaptedElement,
 			boolean forceUpdate, String undecoratedText,
 			IDecorationContext context) {
+		queueForDecoration(element, adaptedElement, forceUpdate,
+				undecoratedText, context, true);
+	}
+
+	/**
+	 * Queue the element and its adapted value if it has not been already.
+	 * 
+	 * @param element
+	 * @param adaptedElement
+	 *            The adapted value of element. May be null.
+	 * @param forceUpdate
+	 *            If true then a labelProviderChanged is fired whether
+	 *            decoration occurred or not.
+	 * @param undecoratedText
+	 *            The original text for the element if it is known.
+	 * @param context
+	 *            The decoration context
+	 * @param visible
+	 *            <code>true</code> if a viewer requested the label of the
+	 *            element, <code>false</code> to decorate it after the
+	 *            requested elements
+	 */
+	synchronized void queueForDecoration(Object element, Object adaptedElement,
+			boolean forceUpdate, String undecoratedText,
+			IDecorationContext context, boolean visible) {
 
 		Assert.isNotNull(context);
 		DecorationReference reference = (DecorationReference) awaitingDecorationValues
@@ -146,21 +205,45 @@ public class DecorationScheduler {
 				reference.setForceUpdate(forceUpdate);
 			}
 			reference.addContext(context);
+			if (visible && !reference.isVisible()) {
+				// Move it ahead, nextElement() skips the stale entry
+				reference.setVisible(true);
+				awaitingDecoration.add(element);
+			}
 		} else {
 			reference = new DecorationReference(element, adaptedElement,
 					context);
 			reference.setForceUpdate(forceUpdate);
 			reference.setUndecoratedText(undecoratedText);
+			reference.setVisible(visible);
 			awaitingDecorationValues.put(element, reference);
-			awaitingDecoration.add(element);
+			if (visible) {
+				awaitingDecoration.add(element);
+			} else {
+				awaitingBackgroundDecoration.add(element);
+			}
 			if (shutdown) {
 				return;
 			}
-			decorationJob.schedule();
+			scheduleWorkers();
 		}
 
 	}
 
+	/**
+	 * Schedule enough workers for the queued elements. The first worker is
+	 * always scheduled so that it runs again if it is finishing.
+	 */
+	private void scheduleWorkers() {
+		decorationJobs[0].schedule();
+		int queued = awaitingDecorationValues.size();
+		for (int i = 1; i < decorationJobs.length && i < queued; i++) {
+			if (decorationJobs[i].getState() == Job.NONE) {
+				decorationJobs[i].schedule();
+			}
+		}
+	}
+
 	/**
 	 * Decorate the supplied image, element and its adapted value.
 	 * 
@@ -230,8 +313,11 @@ public class DecorationScheduler {
 			IDecorationContext context, DecorationResult result) {
 		Map results = (Map) resultCache.get(context);
 		if (results == null) {
-			results = new HashMap();
-			resultCache.put(context, results);
+			results = new ConcurrentHashMap();
+			Map existing = (Map) resultCache.putIfAbsent(context, results);
+			if (existing != null) {
+				results = existing;
+			}
 		}
 		results.put(element, result);
 	}
@@ -269,19 +355,61 @@ public class DecorationScheduler {
 	 */
 	synchronized DecorationReference nextElement() {
 
-		if (shutdown || awaitingDecoration.isEmpty()) {
-			return null;
+		while (!shutdown) {
+			Object element;
+			if (!awaitingDecoration.isEmpty()) {
+				element = awaitingDecoration.removeFirst();
+			} else if (!awaitingBackgroundDecoration.isEmpty()) {
+				element = awaitingBackgroundDecoration.removeFirst();
+			} else {
+				return null;
+			}
+			DecorationReference reference = (DecorationReference) awaitingDecorationValues
+					.remove(element);
+			// null if the element was moved ahead and already taken
+			if (reference != null) {
+				decorating++;
+				return reference;
+			}
 		}
-		Object element = awaitingDecoration.remove(0);
+		return null;
+	}
 
-		return (DecorationReference) awaitingDecorationValues.remove(element);
+	/**
+	 * The decoration of an element returned by {@link #nextElement()} is
+	 * done. Notify the listeners if all the queued elements are decorated, or
+	 * if enough of them are waiting for a label update.
+	 */
+	void elementDecorated() {
+		boolean update;
+		synchronized (this) {
+			decorating--;
+			update = isIdle();
+		}
+		if (!update) {
+			synchronized (pendingKey) {
+				update = pendingUpdate.size() >= UPDATE_BATCH_SIZE;
+			}
+		}
+		if (update) {
+			decorated();
+		}
+	}
+
+	/**
+	 * Return whether no element is queued for or being decorated.
+	 * 
+	 * @return boolean
+	 */
+	synchronized boolean isIdle() {
+		return awaitingDecorationValues.isEmpty() && decorating == 0;
 	}
 
 	/**
-	 * Create the Thread used for running decoration.
+	 * Create a Job used for running decoration.
 	 */
-	private void createDecorationJob() {
-		decorationJob = new Job(
+	private Job createDecorationJob() {
+		Job decorationJob = new Job(
 				WorkbenchMessages.DecorationScheduler_CalculationJobName) {
 			/*
 			 * (non-Javadoc)
@@ -327,17 +455,16 @@ public class DecorationScheduler {
 					Object element = reference.getElement();
 					boolean force = reference.shouldForceUpdate();
 					IDecorationContext[] contexts = reference.getContexts();
-					for (int i = 0; i < contexts.length; i++) {
-						IDecorationContext context = contexts[i];
-						ensureResultCached(element, force, context);
-					}
-
-					// Only notify listeners when we have exhausted the
-					// queue of decoration requests.
-					synchronized (DecorationScheduler.this) {
-						if (awaitingDecoration.isEmpty()) {
-							decorated();
+					try {
+						for (int i = 0; i < contexts.length; i++) {
+							IDecorationContext context = contexts[i];
+							ensureResultCached(element, force, context);
 						}
+					} finally {
+						// Only notify listeners when we have exhausted the
+						// queue of decoration requests or have a batch of
+						// updates.
+						elementDecorated();
 					}
 				}
 				monitor.worked(100 - workCount);
@@ -376,15 +503,11 @@ public class DecorationScheduler {
 					// anyways
 					if (cacheResult.hasValue() || force) {
 
-						// Synchronize on the result lock as we want to
-						// be sure that we do not try and decorate during
-						// label update servicing.
-						// Note: resultCache and pendingUpdate modifications
-						// must be done atomically.
-
 						// Add the decoration even if it's empty in
 						// order to indicate that the decoration is
-						// ready
+						// ready. It is put in the concurrent cache
+						// before the element is queued for update, so
+						// the label update always finds it.
 						internalPutResult(element, context, cacheResult
 								.createResult());
 
@@ -423,7 +546,7 @@ public class DecorationScheduler {
 
 		decorationJob.setSystem(true);
 		decorationJob.setPriority(Job.DECORATE);
-		decorationJob.schedule();
+		return decorationJob;
 	}
 
 	/**
@@ -569,7 +692,7 @@ public class DecorationScheduler {
                 // Other decoration requests may have occurred due to
                 // updates or we may have timed out updating listeners.
                 // Only clear the results if there are none pending.
-                if (awaitingDecoration.isEmpty()) {
+                if (isIdle()) {
                     resultCache.clear();
                 }
             }
@@ -692,7 +815,7 @@ public class DecorationScheduler {
 	 * @return boolean
 	 */
 	public boolean processingUpdates() {
-		return !hasPendingUpdates() && !awaitingDecoration.isEmpty();
+		return !hasPendingUpdates() && !isIdle();
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -786,7 +786,6 @@ public class DecoratorManager implements ILabelProviderListener,
 	 * may occur due to changes in enablement.
 	 */
 	public void clearCaches() {
-		getLightweightManager().reset();
 		fullTextRunnable.clearReferences();
 		fullImageRunnable.clearReferences();
 	}
@@ -836,7 +835,7 @@ public class DecoratorManager implements ILabelProviderListener,
 				// Force an update in case full decorators are the only ones
 				// enabled
 				scheduler.queueForDecoration(elements[i], adapted, true, null,
-						DecorationContext.DEFAULT_CONTEXT);
+						DecorationContext.DEFAULT_CONTEXT, false);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,15 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 
 	static final String ATT_ICON = "icon"; //$NON-NLS-1$
 
+	private static final String ATT_CONCURRENT = "concurrent"; //$NON-NLS-1$
+
+	/**
+	 * The lock held while decorating with a contributed decorator which did
+	 * not declare that it can decorate concurrently. The decoration workers
+	 * call these decorators one at a time, as the single decoration job did.
+	 */
+	private static final Object SERIAL_LOCK = new Object();
+
 	// Constants for quadrants
 	/**
 	 * Position <code>TOP_LEFT</code>. Value <code>0</code>
@@ -82,7 +91,9 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * The DeclarativeDecorator is the internal decorator supplied by the
 	 * decorator definition.
 	 */
-	private ILightweightLabelDecorator decorator;
+	private volatile ILightweightLabelDecorator decorator;
+
+	private final boolean concurrent;
 
 	private int quadrant;
 
@@ -93,12 +104,17 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	LightweightDecoratorDefinition(String identifier,
 			IConfigurationElement element) {
 		super(identifier, element);
+		concurrent = isDeclarative()
+				|| Boolean.valueOf(element.getAttribute(ATT_CONCURRENT))
+						.booleanValue();
 	}
 
 	/**
 	 * Gets the decorator and creates it if it does not exist yet. Throws a
 	 * CoreException if there is a problem creating the decorator. This method
 	 * should not be called unless a check for enabled to be true is done first.
+	 * The decoration workers call it concurrently, so the decorator is only
+	 * created once.
 	 * 
 	 * @return Returns a ILabelDecorator
 	 */
@@ -108,6 +124,28 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 			return null;
 		}
 
+		ILightweightLabelDecorator current = decorator;
+		if (current != null) {
+			return current;
+		}
+
+		synchronized (this) {
+			return createDecorator();
+		}
+	}
+
+	/**
+	 * Create the decorator if another thread did not create it already. Must
+	 * be called while holding the lock of this definition.
+	 * 
+	 * @return the decorator or <code>null</code> if it could not be created
+	 * @throws CoreException
+	 */
+	private ILightweightLabelDecorator createDecorator() throws CoreException {
+		if (labelProviderCreationFailed) {
+			return null;
+		}
+
 		final CoreException[] exceptions = new CoreException[1];
 
 		if (decorator == null) {
@@ -121,11 +159,13 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 					@Override
 					public void run() {
 						try {
-							decorator = (ILightweightLabelDecorator) WorkbenchPlugin
+							ILightweightLabelDecorator created = (ILightweightLabelDecorator) WorkbenchPlugin
 									.createExtension(definingElement,
 											DecoratorDefinition.ATT_CLASS);
-							decorator.addListener(WorkbenchPlugin.getDefault()
+							created.addListener(WorkbenchPlugin.getDefault()
 									.getDecoratorManager());
+							// only publish the decorator once it is set up
+							decorator = created;
 						} catch (CoreException exception) {
 							exceptions[0] = exception;
 						}
@@ -165,6 +205,18 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 		return definingElement.getAttribute(DecoratorDefinition.ATT_CLASS) == null;
 	}
 
+	/**
+	 * Return whether or not the decorator can decorate several elements at the
+	 * same time. Contributed decorators must declare it with the
+	 * <code>concurrent</code> attribute.
+	 * 
+	 * @return boolean <code>true</code> if the decorator can be called
+	 *         concurrently
+	 */
+	public boolean isConcurrent() {
+		return concurrent;
+	}
+
 	/**
 	 * Return the icon location.
 	 * 
@@ -245,7 +297,9 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	}
 
 	/**
-	 * Decorate the element using the decoration to store the result.
+	 * Decorate the element using the decoration to store the result. Unless
+	 * the decorator is {@link #isConcurrent() concurrent}, this waits for the
+	 * other non concurrent decorators to finish.
 	 * @param element
 	 * @param decoration
 	 */
@@ -256,21 +310,12 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 			if(currentDecorator == null) {
 				return;
 			}
-			
-			if (isAdaptable()) {
-				String[] classes = getObjectClasses();
-				for (int i = 0; i < classes.length; i++) {
-					String className = classes[i];
-					Object adapted = LegacyResourceSupport.getAdapter(element,
-							className);
-					if (adapted != null) {
-						currentDecorator.decorate(adapted, decoration);
-					}					
-				}				
-			}
-			else{
-				if (currentDecorator != null && element != null) {
-					currentDecorator.decorate(element, decoration);
+
+			if (concurrent) {
+				decorate(currentDecorator, element, decoration);
+			} else {
+				synchronized (SERIAL_LOCK) {
+					decorate(currentDecorator, element, decoration);
 				}
 			}
 		} catch (CoreException exception) {
@@ -279,6 +324,27 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 
 	}
 
+	/**
+	 * Decorate the element, or the objects it adapts to if this decorator is
+	 * adaptable.
+	 */
+	private void decorate(ILightweightLabelDecorator currentDecorator,
+			Object element, IDecoration decoration) {
+		if (isAdaptable()) {
+			String[] classes = getObjectClasses();
+			for (int i = 0; i < classes.length; i++) {
+				String className = classes[i];
+				Object adapted = LegacyResourceSupport.getAdapter(element,
+						className);
+				if (adapted != null) {
+					currentDecorator.decorate(adapted, decoration);
+				}
+			}
+		} else if (element != null) {
+			currentDecorator.decorate(element, decoration);
+		}
+	}
+
 	/**
 	 * Returns the lightweight decorator, or <code>null</code> if not enabled.
 	 * 
@@ -294,7 +360,7 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * @see org.eclipse.ui.internal.decorators.DecoratorDefinition#refreshDecorator()
 	 */
 	@Override
-	protected void refreshDecorator() {
+	protected synchronized void refreshDecorator() {
 		// Only do something if disabled so as to prevent
 		// gratutitous activation
 		if (!this.enabled && decorator != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 IBM Corporation and others.
+ * Copyright (c) 2010, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,6 +35,7 @@ import org.eclipse.e4.core.di.annotations.Execute;
 import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.ui.internal.workbench.Activator;
 import org.eclipse.e4.ui.internal.workbench.Policy;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.ITrackableHandler;
 import org.eclipse.e4.ui.model.application.MApplication;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.ui.PlatformUI;
@@ -47,7 +48,8 @@ import org.eclipse.ui.menus.UIElement;
  * @since 3.5
  * 
  */
-public class E4HandlerProxy implements IHandler2, IHandlerListener, IElementUpdater {
+public class E4HandlerProxy implements IHandler2, IHandlerListener, IElementUpdater,
+		ITrackableHandler {
 	public HandlerActivation activation = null;
 	private Command command;
 	private IHandler handler;
@@ -97,6 +99,16 @@ public class E4HandlerProxy implements IHandler2, IHandlerListener, IElementUpda
 		return handler;
 	}
 
+	/**
+	 * Only the enablement of a {@link HandlerProxy} which has not loaded its
+	 * handler is known to depend on the variables it reads alone.
+	 */
+	@Override
+	public boolean isEnablementTrackable() {
+		return handler instanceof HandlerProxy
+				&& ((HandlerProxy) handler).isEnablementTrackable();
+	}
+
 	@Override
 	public void handlerChanged(HandlerEvent handlerEvent) {
 		IHandler handler = command.getHandler();
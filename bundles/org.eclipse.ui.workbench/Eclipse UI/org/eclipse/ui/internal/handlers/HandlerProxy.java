@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.eclipse.core.commands.IStateListener;
 import org.eclipse.core.commands.State;
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
+import org.eclipse.core.expressions.ExpressionInfo;
 import org.eclipse.core.expressions.IEvaluationContext;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -97,6 +98,12 @@ public final class HandlerProxy extends AbstractHandlerWithState implements
 
 	private IHandlerListener handlerListener;
 
+	/**
+	 * Whether the <code>enabledWhen</code> expression only depends on the
+	 * variables it reads, or <code>null</code> until computed.
+	 */
+	private Boolean expressionTrackable;
+
 	/**
 	 * The evaluation service to use when evaluating
 	 * <code>enabledWhenExpression</code>. This value may be
@@ -236,6 +243,34 @@ public final class HandlerProxy extends AbstractHandlerWithState implements
 		}
 	}
 
+	/**
+	 * Returns whether the enablement of this proxy is the value of its
+	 * <code>enabledWhen</code> expression, so that it only changes when a
+	 * variable read by the expression changes. This is not the case once the
+	 * handler is loaded, or may be loaded, as the handler computes its own
+	 * enablement, nor when the expression tests properties of the values it
+	 * reads.
+	 *
+	 * @return <code>true</code> if the enablement only depends on the
+	 *         variables read by the <code>enabledWhen</code> expression
+	 */
+	public boolean isEnablementTrackable() {
+		if (handler != null || isOkToLoad()) {
+			return false;
+		}
+		if (expressionTrackable == null) {
+			boolean trackable = true;
+			if (enabledWhenExpression != null) {
+				ExpressionInfo info = enabledWhenExpression.computeExpressionInfo();
+				trackable = info.getAccessedPropertyNames().length == 0
+						&& !info.hasSystemPropertyAccess()
+						&& info.getMisbehavingExpressionTypes() == null;
+			}
+			expressionTrackable = Boolean.valueOf(trackable);
+		}
+		return expressionTrackable.booleanValue();
+	}
+
 	void setProxyEnabled(boolean enabled) {
 		proxyEnabled = enabled;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 IBM Corporation and others.
+ * Copyright (c) 2005, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,12 @@ package org.eclipse.ui.internal.quickaccess;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import org.eclipse.core.commands.util.Tracing;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.bindings.TriggerSequence;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.layout.GridDataFactory;
@@ -47,6 +53,7 @@ import org.eclipse.swt.graphics.TextStyle;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
@@ -57,6 +64,7 @@ import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbenchPreferenceConstants;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.misc.Policy;
 import org.eclipse.ui.keys.IBindingService;
 import org.eclipse.ui.themes.ColorUtil;
 
@@ -75,6 +83,7 @@ public abstract class QuickAccessContents {
 	private static final String QUICK_ACCESS_COMMAND_ID = "org.eclipse.ui.window.quickAccess"; //$NON-NLS-1$
 	private static final int INITIAL_COUNT_PER_PROVIDER = 5;
 	private static final int MAX_COUNT_TOTAL = 20;
+	private static final String TRACING_COMPONENT = "QUICK_ACCESS"; //$NON-NLS-1$
 
 	protected Text filterText;
 
@@ -98,6 +107,12 @@ public abstract class QuickAccessContents {
 	protected boolean resized = false;
 	private TriggerSequence keySequence;
 
+	/**
+	 * The job matching the elements against the filter text, or
+	 * <code>null</code> if the table shows the entries matching it.
+	 */
+	private MatchJob matchJob;
+
 	public QuickAccessContents(QuickAccessProvider[] providers) {
 		this.providers = providers;
 	}
@@ -121,28 +136,59 @@ public abstract class QuickAccessContents {
 	 */
 	public void refresh(String filter) {
 		if (table != null) {
-			boolean filterTextEmpty = filter.length() == 0;
-
+			if (matchJob != null) {
+				matchJob.cancel();
+				matchJob = null;
+			}
 			// perfect match, to be selected in the table if not null
 			QuickAccessElement perfectMatch = getPerfectMatch(filter);
-			List<QuickAccessEntry>[] entries = computeMatchingEntries(filter, perfectMatch);
-			int selectionIndex = refreshTable(perfectMatch, entries);
-
-			if (table.getItemCount() > 0) {
-				table.setSelection(selectionIndex);
-			} else if (filterTextEmpty) {
-				TableItem item = new TableItem(table, SWT.NONE);
-				item.setText(0, QuickAccessMessages.QuickAccessContents_QuickAccess);
-				item.setText(1, QuickAccessMessages.QuickAccess_StartTypingToFindMatches);
-				item.setForeground(1, grayColor);
+			MatchRequest request = new MatchRequest(filter, perfectMatch);
+			if (filter.length() == 0) {
+				showEntries(request,
+						request.computeMatchingEntries(new NullProgressMonitor()));
 			} else {
-				TableItem item = new TableItem(table, SWT.NONE);
-				item.setText(0, QuickAccessMessages.QuickAccessContents_NoMatchingResults);
-				item.setForeground(0, grayColor);
+				// match in the background, typing cancels the matching
+				matchJob = new MatchJob(request);
+				matchJob.schedule();
 			}
+		}
+	}
 
-			updateFeedback(filterTextEmpty, showAllMatches);
+	/**
+	 * Shows the entries matching the filter text, if they are still being
+	 * matched in the background, so that a selection can be made among them.
+	 */
+	private void completeMatching() {
+		MatchJob job = matchJob;
+		if (job != null) {
+			job.cancel();
+			matchJob = null;
+			showEntries(job.request,
+					job.request.computeMatchingEntries(new NullProgressMonitor()));
+		}
+	}
+
+	/**
+	 * Shows the entries matching a filter in the table.
+	 */
+	private void showEntries(MatchRequest request, List<QuickAccessEntry>[] entries) {
+		boolean filterTextEmpty = request.filter.length() == 0;
+		int selectionIndex = refreshTable(request.perfectMatch, entries);
+
+		if (table.getItemCount() > 0) {
+			table.setSelection(selectionIndex);
+		} else if (filterTextEmpty) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(0, QuickAccessMessages.QuickAccessContents_QuickAccess);
+			item.setText(1, QuickAccessMessages.QuickAccess_StartTypingToFindMatches);
+			item.setForeground(1, grayColor);
+		} else {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(0, QuickAccessMessages.QuickAccessContents_NoMatchingResults);
+			item.setForeground(0, grayColor);
 		}
+
+		updateFeedback(filterTextEmpty, showAllMatches);
 	}
 
 	/**
@@ -277,142 +323,252 @@ public abstract class QuickAccessContents {
 	}
 
 	/**
-	 * Returns a list per provider containing matching {@link QuickAccessEntry}
-	 * that should be displayed in the table given a text filter and a perfect
-	 * match entry that should be given priority. The number of items returned
-	 * is affected by {@link #getShowAllMatches()} and the size of the table's
-	 * composite.
-	 * 
-	 * @param filter
-	 *            the string text filter to apply, possibly empty
-	 * @param perfectMatch
-	 *            a quick access element that should be given priority or
-	 *            <code>null</code>
-	 * @return the array of lists (one per provider) containg the quick access
-	 *         entries that should be added to the table, possibly empty
+	 * The elements of the providers and the state of the table captured on the
+	 * UI thread, so that the elements can be matched against a filter on any
+	 * thread.
 	 */
-	private List<QuickAccessEntry>[] computeMatchingEntries(String filter,
-			QuickAccessElement perfectMatch) {
-		// collect matches in an array of lists
-		@SuppressWarnings("unchecked")
-		List<QuickAccessEntry>[] entries = new List[providers.length];
-
-		int maxCount = computeNumberOfItems();
-		int[] indexPerProvider = new int[providers.length];
-		int countPerProvider = Math.min(maxCount / 4,
-				INITIAL_COUNT_PER_PROVIDER);
-		int countTotal = 0;
-		boolean perfectMatchAdded = true;
-		if (perfectMatch != null) {
-			// reserve one entry for the perfect match
-			maxCount--;
-			perfectMatchAdded = false;
-		}
-		boolean done;
-		do {
-			// will be set to false if we find a provider with remaining
-			// elements
-			done = true;
-			for (int i = 0; i < providers.length
-					&& (showAllMatches || countTotal < maxCount); i++) {
-				if (entries[i] == null) {
-					entries[i] = new ArrayList<QuickAccessEntry>();
-					indexPerProvider[i] = 0;
-				}
-				int count = 0;
+	private class MatchRequest {
+		final String filter;
+		final QuickAccessElement perfectMatch;
+		final boolean showAll;
+		final int maxCount;
+
+		/*
+		 * The enabled elements of each provider, or null for providers not
+		 * contributing entries, and the strings they are matched on.
+		 */
+		final QuickAccessElement[][] elements;
+		final QuickAccessElement.MatchStrings[][] strings;
+
+		/*
+		 * The entry of the perfect match, if it is enabled.
+		 */
+		final QuickAccessEntry perfectMatchEntry;
+
+		MatchRequest(String filter, QuickAccessElement perfectMatch) {
+			this.filter = filter;
+			this.perfectMatch = perfectMatch;
+			showAll = showAllMatches;
+			maxCount = computeNumberOfItems();
+			elements = new QuickAccessElement[providers.length][];
+			strings = new QuickAccessElement.MatchStrings[providers.length][];
+			for (int i = 0; i < providers.length; i++) {
 				QuickAccessProvider provider = providers[i];
-				if (filter.length() > 0 || provider.isAlwaysPresent() || showAllMatches) {
+				if (filter.length() > 0 || provider.isAlwaysPresent() || showAll) {
 					QuickAccessElement[] sortedElements = provider.getElementsSorted();
-					List<QuickAccessEntry> poorFilterMatches = new ArrayList<QuickAccessEntry>();
-					
-					int j = indexPerProvider[i];
-					while (j < sortedElements.length
-							&& (showAllMatches || (count < countPerProvider && countTotal < maxCount))) {
-						QuickAccessElement element = sortedElements[j];
-						QuickAccessEntry entry = null;
-						if (filter.length() == 0) {
-							if (i == 0 || showAllMatches) {
-								entry = new QuickAccessEntry(element, provider, new int[0][0],
-										new int[0][0], QuickAccessEntry.MATCH_PERFECT);
-							} else {
-								entry = null;
+					QuickAccessElement.MatchStrings[] sortedStrings = filter.length() > 0 ? provider
+							.getMatchStrings(sortedElements) : null;
+					if (provider instanceof PreviousPicksProvider) {
+						List<QuickAccessElement> enabledElements = new ArrayList<QuickAccessElement>();
+						List<QuickAccessElement.MatchStrings> enabledStrings = new ArrayList<QuickAccessElement.MatchStrings>();
+						for (int j = 0; j < sortedElements.length; j++) {
+							if (elementEnabled(provider, sortedElements[j])) {
+								enabledElements.add(sortedElements[j]);
+								if (sortedStrings != null) {
+									enabledStrings.add(sortedStrings[j]);
+								}
 							}
-						} else {
-							QuickAccessEntry possibleMatch = element.match(filter, provider);
-							// We only have limited space so only display
-							// excellent filter matches (Bug 398455)
-							if (possibleMatch != null) {
-								if (possibleMatch.getMatchQuality() <= QuickAccessEntry.MATCH_EXCELLENT) {
-									entry = possibleMatch;
+						}
+						sortedElements = enabledElements
+								.toArray(new QuickAccessElement[enabledElements.size()]);
+						if (sortedStrings != null) {
+							sortedStrings = enabledStrings
+									.toArray(new QuickAccessElement.MatchStrings[enabledStrings
+											.size()]);
+						}
+					}
+					elements[i] = sortedElements;
+					strings[i] = sortedStrings;
+				}
+			}
+			QuickAccessEntry entry = null;
+			if (perfectMatch != null && elementEnabled(providers[0], perfectMatch)) {
+				entry = perfectMatch.match(filter, providers[0]);
+			}
+			perfectMatchEntry = entry;
+		}
+
+		/**
+		 * Returns a list per provider containing matching
+		 * {@link QuickAccessEntry} that should be displayed in the table given
+		 * the text filter and the perfect match entry that should be given
+		 * priority. The number of items returned is affected by
+		 * {@link #getShowAllMatches()} and the size of the table's composite.
+		 * 
+		 * @param monitor
+		 *            the monitor to cancel the matching
+		 * @return the array of lists (one per provider) containg the quick
+		 *         access entries that should be added to the table, possibly
+		 *         empty, or <code>null</code> if the matching was canceled
+		 */
+		List<QuickAccessEntry>[] computeMatchingEntries(IProgressMonitor monitor) {
+			// collect matches in an array of lists
+			@SuppressWarnings("unchecked")
+			List<QuickAccessEntry>[] entries = new List[providers.length];
+
+			int maxCount = this.maxCount;
+			int[] indexPerProvider = new int[providers.length];
+			long[] matchTimePerProvider = new long[providers.length];
+			int countPerProvider = Math.min(maxCount / 4,
+					INITIAL_COUNT_PER_PROVIDER);
+			int countTotal = 0;
+			boolean perfectMatchAdded = true;
+			if (perfectMatch != null) {
+				// reserve one entry for the perfect match
+				maxCount--;
+				perfectMatchAdded = false;
+			}
+			boolean done;
+			do {
+				// will be set to false if we find a provider with remaining
+				// elements
+				done = true;
+				for (int i = 0; i < providers.length
+						&& (showAll || countTotal < maxCount); i++) {
+					if (entries[i] == null) {
+						entries[i] = new ArrayList<QuickAccessEntry>();
+						indexPerProvider[i] = 0;
+					}
+					int count = 0;
+					QuickAccessProvider provider = providers[i];
+					if (elements[i] != null) {
+						long startTime = Policy.DEBUG_QUICK_ACCESS_PERFORMANCE ? System
+								.nanoTime() : 0;
+						QuickAccessElement[] sortedElements = elements[i];
+						List<QuickAccessEntry> poorFilterMatches = new ArrayList<QuickAccessEntry>();
+
+						int j = indexPerProvider[i];
+						while (j < sortedElements.length
+								&& (showAll || (count < countPerProvider && countTotal < maxCount))) {
+							if (monitor.isCanceled()) {
+								return null;
+							}
+							QuickAccessElement element = sortedElements[j];
+							QuickAccessEntry entry = null;
+							if (filter.length() == 0) {
+								if (i == 0 || showAll) {
+									entry = new QuickAccessEntry(element, provider, new int[0][0],
+											new int[0][0], QuickAccessEntry.MATCH_PERFECT);
 								} else {
-									poorFilterMatches.add(possibleMatch);
+									entry = null;
+								}
+							} else {
+								QuickAccessEntry possibleMatch = element.match(filter, provider,
+										strings[i][j]);
+								// We only have limited space so only display
+								// excellent filter matches (Bug 398455)
+								if (possibleMatch != null) {
+									if (possibleMatch.getMatchQuality() <= QuickAccessEntry.MATCH_EXCELLENT) {
+										entry = possibleMatch;
+									} else {
+										poorFilterMatches.add(possibleMatch);
+									}
+								}
+
+							}
+							if (entry != null) {
+								entries[i].add(entry);
+								count++;
+								countTotal++;
+								if (i == 0 && entry.element == perfectMatch) {
+									perfectMatchAdded = true;
+									maxCount = MAX_COUNT_TOTAL;
 								}
 							}
 
+							j++;
 						}
-						if (entryEnabled(provider, entry)) {
-							entries[i].add(entry);
+
+						indexPerProvider[i] = j;
+						// If there were low quality matches and there is still
+						// room, add them (Bug 398455)
+						for (Iterator<QuickAccessEntry> iterator = poorFilterMatches.iterator(); iterator
+								.hasNext()
+								&& (showAll || (count < countPerProvider && countTotal < maxCount));) {
+							QuickAccessEntry quickAccessEntry = iterator.next();
+							entries[i].add(quickAccessEntry);
 							count++;
 							countTotal++;
-							if (i == 0 && entry.element == perfectMatch) {
+							if (i == 0 && quickAccessEntry.element == perfectMatch) {
 								perfectMatchAdded = true;
 								maxCount = MAX_COUNT_TOTAL;
 							}
 						}
-
-						j++;
-					}
-
-					indexPerProvider[i] = j;
-					// If there were low quality matches and there is still
-					// room, add them (Bug 398455)
-					for (Iterator<QuickAccessEntry> iterator = poorFilterMatches.iterator(); iterator
-							.hasNext()
-							&& (showAllMatches || (count < countPerProvider && countTotal < maxCount));) {
-						QuickAccessEntry quickAccessEntry = iterator.next();
-						entries[i].add(quickAccessEntry);
-						count++;
-						countTotal++;
-						if (i == 0 && quickAccessEntry.element == perfectMatch) {
-							perfectMatchAdded = true;
-							maxCount = MAX_COUNT_TOTAL;
+						if (j < sortedElements.length) {
+							done = false;
+						}
+						if (Policy.DEBUG_QUICK_ACCESS_PERFORMANCE) {
+							matchTimePerProvider[i] += System.nanoTime() - startTime;
 						}
-					}
-					if (j < sortedElements.length) {
-						done = false;
 					}
 				}
-			}
-			// from now on, add one element per provider
-			countPerProvider = 1;
-		} while ((showAllMatches || countTotal < maxCount) && !done);
-		if (!perfectMatchAdded) {
-			QuickAccessEntry entry = perfectMatch.match(filter, providers[0]);
-			if (entryEnabled(providers[0], entry)) {
+				// from now on, add one element per provider
+				countPerProvider = 1;
+			} while ((showAll || countTotal < maxCount) && !done);
+			if (!perfectMatchAdded && perfectMatchEntry != null) {
 				if (entries[0] == null) {
 					entries[0] = new ArrayList<QuickAccessEntry>();
 					indexPerProvider[0] = 0;
 				}
-				entries[0].add(entry);
+				entries[0].add(perfectMatchEntry);
 			}
+			if (Policy.DEBUG_QUICK_ACCESS_PERFORMANCE) {
+				for (int i = 0; i < providers.length; i++) {
+					if (elements[i] != null) {
+						Tracing.printTrace(TRACING_COMPONENT, providers[i].getId() + ": " //$NON-NLS-1$
+								+ indexPerProvider[i] + " of " + elements[i].length //$NON-NLS-1$
+								+ " elements matched in " //$NON-NLS-1$
+								+ matchTimePerProvider[i] / 1000000 + "ms"); //$NON-NLS-1$
+					}
+				}
+			}
+			return entries;
 		}
-		return entries;
 	}
 
 	/**
-	 * @param provider
-	 * @param entry
-	 * @return <code>true</code> if the entry is enabled
+	 * Matches the elements against the filter text in the background, and
+	 * shows the matching entries in the table.
 	 */
-	private boolean entryEnabled(QuickAccessProvider provider, QuickAccessEntry entry) {
-		if (entry == null) {
-			return false;
+	private class MatchJob extends Job {
+		final MatchRequest request;
+		private final Display display;
+
+		MatchJob(MatchRequest request) {
+			super("Quick Access Matching"); //$NON-NLS-1$
+			this.request = request;
+			display = table.getDisplay();
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final List<QuickAccessEntry>[] entries = request.computeMatchingEntries(monitor);
+			if (entries == null || display.isDisposed()) {
+				return Status.CANCEL_STATUS;
+			}
+			display.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					if (matchJob == MatchJob.this && table != null && !table.isDisposed()) {
+						matchJob = null;
+						showEntries(request, entries);
+					}
+				}
+			});
+			return Status.OK_STATUS;
 		}
+	}
 
+	/**
+	 * @param provider
+	 * @param element
+	 * @return <code>true</code> if the element is enabled
+	 */
+	private boolean elementEnabled(QuickAccessProvider provider, QuickAccessElement element) {
 		// For a previous pick provider, check that the original provider does
 		// also provide the element
 		if (provider instanceof PreviousPicksProvider) {
-			QuickAccessElement element = entry.element;
 			final QuickAccessProvider originalProvider = element.getProvider();
 			QuickAccessElement match = originalProvider.getElementForId(element.getId());
 			return match != null;
@@ -422,6 +578,10 @@ public abstract class QuickAccessContents {
 	}
 
 	private void doDispose() {
+		if (matchJob != null) {
+			matchJob.cancel();
+			matchJob = null;
+		}
 		if (textLayout != null && !textLayout.isDisposed()) {
 			textLayout.dispose();
 		}
@@ -449,6 +609,7 @@ public abstract class QuickAccessContents {
 	protected abstract void handleElementSelected(String text, Object selectedElement);
 
 	private void handleSelection() {
+		completeMatching();
 		QuickAccessElement selectedElement = null;
 		String text = filterText.getText().toLowerCase();
 		if (table.getSelectionCount() == 1) {
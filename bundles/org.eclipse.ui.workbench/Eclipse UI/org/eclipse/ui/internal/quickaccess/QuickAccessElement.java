@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -89,21 +89,39 @@ public abstract class QuickAccessElement {
 	 */
 	public QuickAccessEntry match(String filter,
 			QuickAccessProvider providerForMatching) {
-		String sortLabel = getLabel();
-		int index = sortLabel.toLowerCase().indexOf(filter);
+		return match(filter, providerForMatching, new MatchStrings(getLabel(),
+				providerForMatching.getName()));
+	}
+
+	/**
+	 * Matches this element like {@link #match(String, QuickAccessProvider)}
+	 * does, using the strings computed from its label beforehand. Only reads
+	 * the given strings, so that it can be called from any thread.
+	 * 
+	 * @param filter
+	 *            filter for matching
+	 * @param providerForMatching
+	 *            the provider that will own the entry
+	 * @param strings
+	 *            the strings computed from the label of this element and the
+	 *            name of the provider
+	 * @return a quick access entry or <code>null</code>
+	 */
+	QuickAccessEntry match(String filter,
+			QuickAccessProvider providerForMatching, MatchStrings strings) {
+		int index = strings.lowerCaseLabel.indexOf(filter);
 		if (index != -1) {
-			int quality = sortLabel.toLowerCase().equals(filter) ? QuickAccessEntry.MATCH_PERFECT
-					: (sortLabel.toLowerCase().startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
+			int quality = strings.lowerCaseLabel.equals(filter) ? QuickAccessEntry.MATCH_PERFECT
+					: (strings.lowerCaseLabel.startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
 							: QuickAccessEntry.MATCH_GOOD);
 			return new QuickAccessEntry(this, providerForMatching,
 					new int[][] { { index, index + filter.length() - 1 } },
  EMPTY_INDICES, quality);
 		}
-		String combinedLabel = (providerForMatching.getName() + " " + getLabel()); //$NON-NLS-1$
-		index = combinedLabel.toLowerCase().indexOf(filter);
+		index = strings.lowerCaseCombinedLabel.indexOf(filter);
 		if (index != -1) {
 			int lengthOfElementMatch = index + filter.length()
-					- providerForMatching.getName().length() - 1;
+					- strings.providerName.length() - 1;
 			if (lengthOfElementMatch > 0) {
 				return new QuickAccessEntry(this, providerForMatching,
 						new int[][] { { 0, lengthOfElementMatch - 1 } },
@@ -114,37 +132,57 @@ public abstract class QuickAccessElement {
 					EMPTY_INDICES, new int[][] { { index,
  index + filter.length() - 1 } }, QuickAccessEntry.MATCH_GOOD);
 		}
-		String camelCase = CamelUtil.getCamelCase(sortLabel);
-		index = camelCase.indexOf(filter);
+		index = strings.camelCase.indexOf(filter);
 		if (index != -1) {
-			int[][] indices = CamelUtil.getCamelCaseIndices(sortLabel, index, filter
+			int[][] indices = CamelUtil.getCamelCaseIndices(strings.label, index, filter
 					.length());
 			return new QuickAccessEntry(this, providerForMatching, indices,
  EMPTY_INDICES,
 					QuickAccessEntry.MATCH_GOOD);
 		}
-		String combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
-		index = combinedCamelCase.indexOf(filter);
+		index = strings.combinedCamelCase.indexOf(filter);
 		if (index != -1) {
-			String providerCamelCase = CamelUtil.getCamelCase(providerForMatching
-					.getName());
 			int lengthOfElementMatch = index + filter.length()
-					- providerCamelCase.length();
+					- strings.providerCamelCase.length();
 			if (lengthOfElementMatch > 0) {
 				return new QuickAccessEntry(
 						this,
 						providerForMatching,
-						CamelUtil.getCamelCaseIndices(sortLabel, 0, lengthOfElementMatch),
-						CamelUtil.getCamelCaseIndices(providerForMatching.getName(),
+						CamelUtil.getCamelCaseIndices(strings.label, 0, lengthOfElementMatch),
+						CamelUtil.getCamelCaseIndices(strings.providerName,
  index,
 								filter.length() - lengthOfElementMatch),
 						QuickAccessEntry.MATCH_GOOD);
 			}
 			return new QuickAccessEntry(this, providerForMatching,
-					EMPTY_INDICES, CamelUtil.getCamelCaseIndices(providerForMatching
-.getName(), index,
+					EMPTY_INDICES, CamelUtil.getCamelCaseIndices(strings.providerName, index,
 							filter.length()), QuickAccessEntry.MATCH_GOOD);
 		}
 		return null;
 	}
+
+	/**
+	 * The label of an element and the name of the provider matching it, in
+	 * the lower case and camel case forms matched against filters.
+	 */
+	static final class MatchStrings {
+		final String label;
+		final String providerName;
+		final String lowerCaseLabel;
+		final String lowerCaseCombinedLabel;
+		final String camelCase;
+		final String combinedCamelCase;
+		final String providerCamelCase;
+
+		MatchStrings(String label, String providerName) {
+			this.label = label;
+			this.providerName = providerName;
+			String combinedLabel = providerName + " " + label; //$NON-NLS-1$
+			lowerCaseLabel = label.toLowerCase();
+			lowerCaseCombinedLabel = combinedLabel.toLowerCase();
+			camelCase = CamelUtil.getCamelCase(label);
+			combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
+			providerCamelCase = CamelUtil.getCamelCase(providerName);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,10 @@ public abstract class QuickAccessProvider {
 
 	private QuickAccessElement[] sortedElements;
 
+	private QuickAccessElement[] indexedElements;
+
+	private QuickAccessElement.MatchStrings[] matchStrings;
+
 	/**
 	 * Returns the unique ID of this provider.
 	 * 
@@ -63,6 +67,29 @@ public abstract class QuickAccessProvider {
 		}
 		return sortedElements;
 	}
+
+	/**
+	 * Returns the strings matched against filters for the given sorted
+	 * elements of this provider, in the same order. They are computed once
+	 * until this provider is reset or returns other sorted elements.
+	 * 
+	 * @param elements
+	 *            the elements returned by {@link #getElementsSorted()}
+	 * @return the strings of the elements
+	 */
+	QuickAccessElement.MatchStrings[] getMatchStrings(
+			QuickAccessElement[] elements) {
+		if (indexedElements != elements) {
+			String name = getName();
+			matchStrings = new QuickAccessElement.MatchStrings[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				matchStrings[i] = new QuickAccessElement.MatchStrings(
+						elements[i].getLabel(), name);
+			}
+			indexedElements = elements;
+		}
+		return matchStrings;
+	}
 	
 	/**
 	 * Returns the element for the given ID if available, or null if no matching
@@ -80,6 +107,8 @@ public abstract class QuickAccessProvider {
 
 	public void reset() {
 		sortedElements = null;
+		indexedElements = null;
+		matchStrings = null;
 		doReset();
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 IBM Corporation and others.
+ * Copyright (c) 2007, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.ui.internal.services;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -30,6 +31,7 @@ import org.eclipse.e4.core.contexts.ContextFunction;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.contexts.RunAndTrack;
 import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.VariableChangeSelector;
 import org.eclipse.e4.ui.services.IServiceConstants;
 import org.eclipse.e4.ui.workbench.UIEvents;
 import org.eclipse.jface.util.IPropertyChangeListener;
@@ -62,13 +64,19 @@ public final class EvaluationService implements IEvaluationService {
 	private ISourceProviderListener contextUpdater;
 
 	private HashSet<String> ratVariables = new HashSet<String>();
+	// the values of the variables, read without tracking them
+	private HashMap<String, Object> ratValues = new HashMap<String, Object>();
 	private RunAndTrack ratUpdater = new RunAndTrack() {
 		@Override
 		public boolean changed(IEclipseContext context) {
 			context.get(RE_EVAL);
 			String[] vars = ratVariables.toArray(new String[ratVariables.size()]);
+			ArrayList<String> changedVars = new ArrayList<String>();
 			for (String var : vars) {
 				Object value = context.getActive(var);
+				if (ratValues.put(var, value) != value) {
+					changedVars.add(var);
+				}
 				if (value == null) {
 					ratContext.remove(var);
 				} else {
@@ -76,9 +84,15 @@ public final class EvaluationService implements IEvaluationService {
 				}
 			}
 			// This ties tool item enablement to variable changes that can
-			// effect the enablement.
-			getEventBroker()
-					.post(UIEvents.REQUEST_ENABLEMENT_UPDATE_TOPIC, UIEvents.ALL_ELEMENT_ID);
+			// effect the enablement. Only the tool items depending on the
+			// changed variables are updated.
+			if (changedVars.isEmpty()) {
+				getEventBroker().post(UIEvents.REQUEST_ENABLEMENT_UPDATE_TOPIC,
+						UIEvents.ALL_ELEMENT_ID);
+			} else {
+				getEventBroker().post(UIEvents.REQUEST_ENABLEMENT_UPDATE_TOPIC,
+						new VariableChangeSelector(changedVars));
+			}
 			return true;
 		}
 	};
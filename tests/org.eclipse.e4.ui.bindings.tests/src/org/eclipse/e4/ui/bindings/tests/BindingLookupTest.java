@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 IBM Corporation and others.
+ * Copyright (c) 2013, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -275,6 +275,40 @@ public class BindingLookupTest {
 		assertEquals(seq, bs.getBestSequenceFor(cmd));
 	}
 
+	@Test
+	public void testLookupAfterBindingChanges() {
+		ECommandService cs = (ECommandService) workbenchContext
+				.get(ECommandService.class.getName());
+		ParameterizedCommand cmd = cs.createCommand(TEST_ID1, null);
+		EBindingService bs = (EBindingService) workbenchContext
+				.get(EBindingService.class.getName());
+		TriggerSequence seq = bs.createSequence("CTRL+5 T");
+		assertNull(bs.getBestSequenceFor(cmd));
+		assertNull(bs.getPerfectMatch(seq));
+
+		Binding db = createDefaultBinding(bs, seq, cmd, ID_DIALOG_AND_WINDOW);
+		bs.activateBinding(db);
+		assertEquals(seq, bs.getBestSequenceFor(cmd));
+		assertEquals(db, bs.getPerfectMatch(seq));
+
+		bs.deactivateBinding(db);
+		assertNull(bs.getBestSequenceFor(cmd));
+		assertNull(bs.getPerfectMatch(seq));
+		assertTrue(bs.getSequencesFor(cmd).isEmpty());
+
+		// a binding in a context that becomes active
+		Binding windowBinding = createDefaultBinding(bs, seq, cmd, ID_WINDOW);
+		bs.activateBinding(windowBinding);
+		assertNull(bs.getPerfectMatch(seq));
+		EContextService es = (EContextService) workbenchContext
+				.get(EContextService.class.getName());
+		es.activateContext(ID_WINDOW);
+		assertEquals(windowBinding, bs.getPerfectMatch(seq));
+		assertEquals(seq, bs.getBestSequenceFor(cmd));
+		es.deactivateContext(ID_WINDOW);
+		assertNull(bs.getPerfectMatch(seq));
+	}
+
 	@Test
 	public void testLookupShortcuts() {
 		ECommandService cs = (ECommandService) workbenchContext
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 IBM Corporation and others.
+ * Copyright (c) 2013, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,18 +11,29 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.tests.css.core;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.eclipse.e4.ui.css.core.dom.IElementProvider;
+import org.eclipse.e4.ui.css.core.dom.properties.ICSSPropertyHandler;
+import org.eclipse.e4.ui.css.core.dom.properties.ICSSPropertyHandlerProvider;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
 import org.eclipse.e4.ui.css.core.impl.engine.CSSEngineImpl;
 import org.eclipse.e4.ui.tests.css.core.util.TestElement;
 import org.junit.Test;
 import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSValue;
 
 public class CSSEngineTest {
 
@@ -32,6 +43,205 @@ public class CSSEngineTest {
 		}
 	}
 
+	/**
+	 * Records the properties applied to the elements.
+	 */
+	private static class RecordingHandlerProvider implements
+			ICSSPropertyHandlerProvider {
+
+		final List<String> applied = new ArrayList<String>();
+
+		private final ICSSPropertyHandler handler = new ICSSPropertyHandler() {
+			@Override
+			public boolean applyCSSProperty(Object element, String property,
+					CSSValue value, String pseudo, CSSEngine engine) {
+				applied.add(((TestElement) element).getLocalName() + " "
+						+ property + ": " + value.getCssText());
+				return true;
+			}
+
+			@Override
+			public String retrieveCSSProperty(Object element, String property,
+					String pseudo, CSSEngine engine) {
+				return null;
+			}
+		};
+
+		@Override
+		public Collection<ICSSPropertyHandler> getCSSPropertyHandlers(
+				String property) {
+			return Collections.singletonList(handler);
+		}
+
+		@Override
+		public CSSStyleDeclaration getDefaultCSSStyleDeclaration(
+				CSSEngine engine, Object element, CSSStyleDeclaration newStyle,
+				String pseudoE) {
+			return null;
+		}
+
+		@Override
+		public Collection<ICSSPropertyHandler> getCSSPropertyHandlers(
+				Object element, String property) {
+			return Collections.singletonList(handler);
+		}
+
+		@Override
+		public Collection<String> getCSSProperties(Object element) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Element which is its own widget, so that it gets its own context, and
+	 * which exposes its CSS class as the class attribute like WidgetElement.
+	 */
+	private static class WidgetTestElement extends TestElement {
+		WidgetTestElement(String type, CSSEngine engine) {
+			super(type, engine);
+		}
+
+		WidgetTestElement(String type, TestElement parent, CSSEngine engine) {
+			super(type, parent, engine);
+		}
+
+		@Override
+		public Object getNativeWidget() {
+			return this;
+		}
+
+		@Override
+		public String getAttribute(String name) {
+			if ("class".equals(name)) {
+				return getCSSClass() != null ? getCSSClass() : "";
+			}
+			return super.getAttribute(name);
+		}
+	}
+
+	private static TestElement createElement(String type, TestElement parent,
+			CSSEngine engine) {
+		if (parent == null) {
+			return new WidgetTestElement(type, engine);
+		}
+		return new WidgetTestElement(type, parent, engine);
+	}
+
+	@Test
+	public void testRestyle() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		RecordingHandlerProvider provider = new RecordingHandlerProvider();
+		engine.registerCSSPropertyHandlerProvider(provider);
+		engine.parseStyleSheet(new StringReader(
+				"Button { color: red; background-color: white; }\n"
+						+ "Button.active { color: blue; }\n"
+						+ ".active Label { color: green; }\n"));
+
+		TestElement button = createElement("Button", null, engine);
+		TestElement label = createElement("Label", button, engine);
+		engine.applyStyles(button, true);
+		assertEquals(2, provider.applied.size());
+		provider.applied.clear();
+
+		// The child is restyled because of the .active ancestor selector
+		button.setClass("active");
+		engine.restyle(button, null, null);
+		assertEquals(Arrays.asList("Button background-color: white",
+				"Button color: blue", "Label color: green"),
+				provider.applied);
+		provider.applied.clear();
+
+		// A class which is not tested on ancestors does not restyle the child
+		button.setClass("active other");
+		label.setClass("inner");
+		engine.restyle(button, "active", null);
+		assertEquals(Arrays.asList("Button background-color: white",
+				"Button color: blue"), provider.applied);
+	}
+
+	@Test
+	public void testRestyleAppliesUnchangedValues() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		RecordingHandlerProvider provider = new RecordingHandlerProvider();
+		engine.registerCSSPropertyHandlerProvider(provider);
+		engine.parseStyleSheet(new StringReader(
+				"Button { color: red; }\n"
+						+ "Button.active { background-color: blue; }\n"));
+
+		TestElement button = createElement("Button", null, engine);
+		engine.applyStyles(button, true);
+		provider.applied.clear();
+
+		// the widget may have been changed by code since it was styled, so
+		// the unchanged color is reset too
+		button.setClass("active");
+		engine.restyle(button, null, null);
+		assertEquals(Arrays.asList("Button color: red",
+				"Button background-color: blue"), provider.applied);
+	}
+
+	@Test
+	public void testRestyleAncestorClassAttribute() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		RecordingHandlerProvider provider = new RecordingHandlerProvider();
+		engine.registerCSSPropertyHandlerProvider(provider);
+		engine.parseStyleSheet(new StringReader(
+				"Label { color: black; }\n"
+						+ "[class~='active'] Label { color: green; }\n"));
+
+		TestElement button = createElement("Button", null, engine);
+		createElement("Label", button, engine);
+		engine.applyStyles(button, true);
+		provider.applied.clear();
+
+		// [class~='active'] on an ancestor is tested like .active
+		button.setClass("active");
+		engine.restyle(button, null, null);
+		assertEquals(Arrays.asList("Label color: green"), provider.applied);
+	}
+
+	@Test
+	public void testRestyleAncestorClassAttributeValue() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		RecordingHandlerProvider provider = new RecordingHandlerProvider();
+		engine.registerCSSPropertyHandlerProvider(provider);
+		engine.parseStyleSheet(new StringReader(
+				"[class='dark'] Text { color: white; }\n"));
+
+		TestElement button = createElement("Button", null, engine);
+		createElement("Text", button, engine);
+		engine.applyStyles(button, true);
+		assertEquals(0, provider.applied.size());
+
+		// [class='dark'] tests the whole attribute, so any class change may
+		// affect it
+		button.setClass("dark");
+		engine.restyle(button, null, null);
+		assertEquals(Arrays.asList("Text color: white"), provider.applied);
+	}
+
+	@Test
+	public void testResetClearsAppliedValues() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		RecordingHandlerProvider provider = new RecordingHandlerProvider();
+		engine.registerCSSPropertyHandlerProvider(provider);
+		String css = "Button { color: red; }\n";
+		engine.parseStyleSheet(new StringReader(css));
+
+		TestElement button = createElement("Button", null, engine);
+		engine.applyStyles(button, true);
+		engine.applyStylesSkippingUnchangedValues(button, true);
+		assertEquals(Arrays.asList("Button color: red"), provider.applied);
+		provider.applied.clear();
+
+		// after a reset the elements are back to their defaults, so the same
+		// value of the new style sheets has to be applied again
+		engine.reset();
+		engine.parseStyleSheet(new StringReader(css));
+		engine.applyStylesSkippingUnchangedValues(button, true);
+		assertEquals(Arrays.asList("Button color: red"), provider.applied);
+	}
+
 	@Test
 	public void testSelectorMatch() throws Exception {
 		TestCSSEngine engine = new TestCSSEngine();
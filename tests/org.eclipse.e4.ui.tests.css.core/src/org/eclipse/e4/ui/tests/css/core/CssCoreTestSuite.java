@@ -20,6 +20,7 @@ import org.eclipse.e4.ui.tests.css.core.parser.MediaRulesTest;
 import org.eclipse.e4.ui.tests.css.core.parser.RGBColorImplTest;
 import org.eclipse.e4.ui.tests.css.core.parser.SelectorTest;
 import org.eclipse.e4.ui.tests.css.core.parser.StyleRuleTest;
+import org.eclipse.e4.ui.tests.css.core.parser.StyleSheetSerializerTest;
 import org.eclipse.e4.ui.tests.css.core.parser.ValueTest;
 import org.eclipse.e4.ui.tests.css.core.parser.ViewCSSTest;
 import org.junit.runner.RunWith;
@@ -38,7 +39,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	SelectorTest.class,
 	CSSEngineTest.class,
 	ImportTest.class,
-	InheritTest.class
+	InheritTest.class,
+	StyleSheetSerializerTest.class
 })
 public class CssCoreTestSuite {
 }
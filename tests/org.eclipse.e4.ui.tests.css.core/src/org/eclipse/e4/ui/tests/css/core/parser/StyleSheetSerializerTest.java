@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.tests.css.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetSerializer;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
+import org.eclipse.e4.ui.tests.css.core.util.TestElement;
+import org.eclipse.swt.widgets.Display;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.css.CSSPrimitiveValue;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.CSSValueList;
+import org.w3c.dom.css.RGBColor;
+import org.w3c.dom.stylesheets.StyleSheet;
+
+public class StyleSheetSerializerTest {
+
+	private static final String CSS = "* { color: black; }\n"
+			+ "Button, Label.special { color: rgb(255, 0, 0); font: Arial 12px; }\n"
+			+ "#main > Button:checked { background-color: #00FF00 !important; }\n"
+			+ "Composite Button[style~='SWT.PUSH'] { margin: 1 2.5 3px 4%; }\n"
+			+ "Label { background-image: url(./images/bg.png); font-family: 'Sans Serif'; }\n"
+			+ "Label:lang(en) { background-color: inherit; }\n";
+
+	private Display display;
+
+	@Before
+	public void setUp() throws Exception {
+		display = Display.getDefault();
+	}
+
+	private CSSSWTEngineImpl readBack(String css) throws IOException {
+		CSSSWTEngineImpl engine = new CSSSWTEngineImpl(display);
+		StyleSheet styleSheet = engine.parseStyleSheet(new StringReader(css));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		engine.writeStyleSheet(styleSheet, out);
+
+		CSSSWTEngineImpl readEngine = new CSSSWTEngineImpl(display);
+		readEngine.readStyleSheet(new ByteArrayInputStream(out.toByteArray()));
+		return readEngine;
+	}
+
+	@Test
+	public void testRulesAndValues() throws Exception {
+		CSSSWTEngineImpl engine = readBack(CSS);
+		CSSStyleSheet styleSheet = (CSSStyleSheet) engine.getDocumentCSS()
+				.getStyleSheets().item(0);
+		assertEquals(6, styleSheet.getCssRules().getLength());
+
+		TestElement label = new TestElement("Label", engine);
+		label.setClass("special");
+		CSSStyleDeclaration style = engine.getViewCSS().getComputedStyle(
+				label, null);
+		RGBColor color = ((CSSPrimitiveValue) style
+				.getPropertyCSSValue("color")).getRGBColorValue();
+		assertEquals(255, color.getRed().getFloatValue(
+				CSSPrimitiveValue.CSS_NUMBER), 0);
+		CSSValueList font = (CSSValueList) style.getPropertyCSSValue("font");
+		assertEquals(2, font.getLength());
+		assertEquals("Arial 12.0px", font.getCssText());
+		assertEquals("Sans Serif", style.getPropertyCSSValue("font-family")
+				.getCssText());
+	}
+
+	@Test
+	public void testSelectors() throws Exception {
+		CSSSWTEngineImpl engine = readBack(CSS);
+
+		TestElement shell = new TestElement("Shell", engine);
+		shell.setId("main");
+		TestElement button = new TestElement("Button", shell, engine) {
+			@Override
+			public boolean isPseudoInstanceOf(String s) {
+				return "checked".equals(s);
+			}
+		};
+		CSSStyleDeclaration style = engine.getViewCSS().getComputedStyle(
+				button, null);
+		assertEquals("rgb(255, 0, 0)", style.getPropertyCSSValue("color")
+				.getCssText());
+		assertEquals("rgb(0, 255, 0)",
+				style.getPropertyCSSValue("background-color").getCssText());
+
+		TestElement composite = new TestElement("Composite", engine);
+		TestElement pushButton = new TestElement("Button", composite, engine);
+		pushButton.setAttribute("style", "SWT.PUSH");
+		style = engine.getViewCSS().getComputedStyle(pushButton, null);
+		assertEquals("1 2.5 3.0px 4.0%", style.getPropertyCSSValue("margin")
+				.getCssText());
+	}
+
+	@Test
+	public void testSameCssText() throws Exception {
+		CSSSWTEngineImpl engine = new CSSSWTEngineImpl(display);
+		engine.parseStyleSheet(new StringReader(CSS));
+		CSSSWTEngineImpl readEngine = readBack(CSS);
+
+		for (String name : new String[] { "Button", "Label" }) {
+			TestElement element = new TestElement(name, engine);
+			TestElement readElement = new TestElement(name, readEngine);
+			assertEquals(engine.getViewCSS().getComputedStyle(element, null)
+					.getCssText(), readEngine.getViewCSS()
+					.getComputedStyle(readElement, null).getCssText());
+		}
+	}
+
+	@Test
+	public void testUnsupportedRule() throws Exception {
+		CSSSWTEngineImpl engine = new CSSSWTEngineImpl(display);
+		StyleSheet styleSheet = engine.parseStyleSheet(new StringReader(
+				"@page { margin: 1in; }\nButton { color: red; }"));
+		try {
+			engine.writeStyleSheet(styleSheet, new ByteArrayOutputStream());
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Unsupported"));
+			return;
+		}
+		throw new AssertionError("@page rules cannot be written");
+	}
+
+	private void assertCorrupted(CSSSWTEngineImpl engine, byte[] bytes) {
+		try {
+			engine.readStyleSheet(new ByteArrayInputStream(bytes));
+		} catch (IOException e) {
+			return;
+		}
+		fail("Corrupted style sheet read");
+	}
+
+	@Test
+	public void testCorruptedLength() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(CSSStyleSheetSerializer.FORMAT_VERSION);
+		out.writeInt(1); // rules
+		out.writeInt(-1); // selectors
+		assertCorrupted(new CSSSWTEngineImpl(display), bytes.toByteArray());
+	}
+
+	@Test
+	public void testCorruptedSelector() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(CSSStyleSheetSerializer.FORMAT_VERSION);
+		out.writeInt(1); // rules
+		out.writeInt(1); // selectors
+		out.writeByte(3); // conditional selector
+		out.writeByte(4); // descendant selector, which is not simple
+		out.writeByte(1); // element selector
+		out.writeBoolean(false);
+		out.writeBoolean(false);
+		out.writeByte(1); // element selector
+		out.writeBoolean(false);
+		out.writeBoolean(false);
+		assertCorrupted(new CSSSWTEngineImpl(display), bytes.toByteArray());
+	}
+
+	@Test
+	public void testCorruptedBytes() throws Exception {
+		CSSSWTEngineImpl engine = new CSSSWTEngineImpl(display);
+		StyleSheet styleSheet = engine.parseStyleSheet(new StringReader(CSS));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		engine.writeStyleSheet(styleSheet, out);
+		byte[] bytes = out.toByteArray();
+
+		CSSSWTEngineImpl readEngine = new CSSSWTEngineImpl(display);
+		for (int i = 0; i < bytes.length; i++) {
+			byte[] corrupted = bytes.clone();
+			corrupted[i] ^= 0xFF;
+			try {
+				readEngine.readStyleSheet(new ByteArrayInputStream(corrupted));
+			} catch (IOException e) {
+				// expected for most bytes
+			}
+		}
+	}
+}
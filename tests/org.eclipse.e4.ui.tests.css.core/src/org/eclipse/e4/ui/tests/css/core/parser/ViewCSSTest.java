@@ -8,6 +8,7 @@
  *   EclipseSource - initial API and implementation
  *   Stefan Winkler <stefan@winklerweb.net> - Bug 419482
  *   Lars Vogel <Lars.Vogel@gmail.com> - Bug 430468
+ *   IBM Corporation - ongoing development
  ******************************************************************************/
 package org.eclipse.e4.ui.tests.css.core.parser;
 
@@ -17,6 +18,7 @@ import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 
+import org.eclipse.e4.ui.css.core.impl.dom.ComputedStyleCache;
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
 import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
@@ -108,6 +110,157 @@ public class ViewCSSTest {
 		assertEquals("color: blue;", buttonStyle.getCssText());
 	}
 
+	@Test
+	public void testIndexedSelectors() throws Exception {
+		String css = "Button { color: black; }\n" + "#ok { color: blue; }\n"
+				+ ".primary { color: red; }\n" + "* > Button.primary { color: green; }\n"
+				+ "Label.primary { color: yellow; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		final TestElement shell = new TestElement("Shell", engine);
+		final TestElement button = new TestElement("Button", shell, engine);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		button.setId("ok");
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		button.setId(null);
+		button.setClass("default  primary");
+		assertEquals("color: green;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		final TestElement label = new TestElement("Label", engine);
+		label.setClass("primary primary");
+		assertEquals("color: yellow;", viewCSS.getComputedStyle(label, null).getCssText());
+
+		final TestElement text = new TestElement("Text", engine);
+		assertNull(viewCSS.getComputedStyle(text, null));
+	}
+
+	@Test
+	public void testIndexRebuiltOnStyleSheetChange() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: black; }"));
+		ViewCSS viewCSS = new ViewCSSImpl(docCss);
+
+		final TestElement button = new TestElement("Button", engine);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: red; }"));
+		assertEquals("color: red;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		docCss.removeAllStyleSheets();
+		assertNull(viewCSS.getComputedStyle(button, null));
+	}
+
+	@Test
+	public void testComputedStyleCache() throws Exception {
+		String css = "Shell Button { color: black; }\n" + "Button.primary { color: red; }\n"
+				+ "Button[style~='SWT.CHECK'] { color: blue; }\n";
+		ViewCSSImpl viewCSS = (ViewCSSImpl) createViewCss(css);
+		ComputedStyleCache cache = viewCSS.getComputedStyleCache();
+		assertNotNull(cache);
+
+		final TestElement shell = new TestElement("Shell", engine);
+		final TestElement button1 = new TestElement("Button", shell, engine);
+		final TestElement button2 = new TestElement("Button", shell, engine);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button1, null).getCssText());
+		assertEquals("color: black;", viewCSS.getComputedStyle(button2, null).getCssText());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		button2.setClass("primary");
+		assertEquals("color: red;", viewCSS.getComputedStyle(button2, null).getCssText());
+		assertEquals(2, cache.getMissCount());
+
+		button1.setAttribute("style", "SWT.CHECK");
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button1, null).getCssText());
+		assertEquals(3, cache.getMissCount());
+
+		final TestElement button3 = new TestElement("Button", engine);
+		assertNull(viewCSS.getComputedStyle(button3, null));
+		assertNull(viewCSS.getComputedStyle(button3, null));
+		assertEquals(4, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void testComputedStyleCacheStylingRun() throws Exception {
+		ViewCSSImpl viewCSS = (ViewCSSImpl) createViewCss("Button { color: black; }\n"
+				+ "Shell.dark Button { color: white; }\n");
+		ComputedStyleCache cache = viewCSS.getComputedStyleCache();
+
+		final TestElement shell = new TestElement("Shell", engine);
+		final TestElement button = new TestElement("Button", shell, engine);
+		cache.startStyling();
+		viewCSS.getComputedStyle(shell, null);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button, null).getCssText());
+		cache.endStyling();
+
+		// outside of a styling run, the changed ancestor is read again
+		shell.setClass("dark");
+		assertEquals("color: white;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		// within a run, the signature of the parent looked up first is reused
+		shell.setClass(null);
+		cache.startStyling();
+		viewCSS.getComputedStyle(shell, null);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button, null).getCssText());
+		cache.endStyling();
+		assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void testComputedStyleCacheConcurrentLookups() throws Exception {
+		final ViewCSSImpl viewCSS = (ViewCSSImpl) createViewCss("Shell Button { color: black; }\n");
+		final TestElement shell = new TestElement("Shell", engine);
+		final TestElement[] buttons = new TestElement[100];
+		for (int i = 0; i < buttons.length; i++) {
+			buttons[i] = new TestElement("Button", shell, engine);
+			buttons[i].setId("button" + i % 10);
+		}
+		assertNull(viewCSS.getComputedStyle(shell, null));
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (TestElement button : buttons) {
+							assertEquals("color: black;", viewCSS.getComputedStyle(button, null)
+									.getCssText());
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure[0]);
+		ComputedStyleCache cache = viewCSS.getComputedStyleCache();
+		assertEquals(threads.length * buttons.length + 1, cache.getHitCount() + cache.getMissCount());
+		assertEquals(11, cache.size());
+	}
+
+	@Test
+	public void testComputedStyleCacheClearedOnStyleSheetChange() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: black; }"));
+		ViewCSSImpl viewCSS = new ViewCSSImpl(docCss);
+
+		final TestElement button = new TestElement("Button", engine);
+		assertEquals("color: black;", viewCSS.getComputedStyle(button, null).getCssText());
+		assertEquals(1, viewCSS.getComputedStyleCache().size());
+
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: red; }"));
+		assertEquals("color: red;", viewCSS.getComputedStyle(button, null).getCssText());
+		assertEquals(0, viewCSS.getComputedStyleCache().getHitCount());
+	}
+
 	private static ViewCSS createViewCss(String css) throws IOException {
 		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(css);
 		DocumentCSSImpl docCss = new DocumentCSSImpl();
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others. All rights reserved. This
+ * program and the accompanying materials are made available under the terms of
+ * the Eclipse Public License v1.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.tests.css.swt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTApplyStylesListener;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.Test;
+
+public class BatchedStylingTest extends CSSSWTTestCase {
+
+	static final RGB RED = new RGB(255, 0, 0);
+
+	@Test
+	public void testSkinnedWidgetsStyledTopDown() {
+		engine = createEngine("Composite { background-color: #FF0000; }\n"
+				+ "Label { background-color: inherit; }", display);
+		new CSSSWTApplyStylesListener(display, engine, true);
+
+		Shell shell = new Shell(display, SWT.SHELL_TRIM);
+		shell.setLayout(new FillLayout());
+		Composite panel = new Composite(shell, SWT.NONE);
+		panel.setLayout(new FillLayout());
+		Label label = new Label(panel, SWT.NONE);
+		while (display.readAndDispatch()) {
+		}
+
+		// skin the child before its parent: the label inherits the
+		// background of the composite only if the composite is styled first
+		label.reskin(SWT.NONE);
+		panel.reskin(SWT.NONE);
+		assertFalse(RED.equals(panel.getBackground().getRGB()));
+		while (display.readAndDispatch()) {
+		}
+
+		assertEquals(RED, panel.getBackground().getRGB());
+		assertEquals(RED, label.getBackground().getRGB());
+	}
+}
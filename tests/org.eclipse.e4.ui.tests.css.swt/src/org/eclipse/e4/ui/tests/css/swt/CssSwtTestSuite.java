@@ -31,7 +31,7 @@ import org.junit.runners.Suite;
 	MarginTest.class, InnerClassElementTest.class, EclipsePreferencesHandlerTest.class,
 	PreferenceOverriddenByCssChangeListenerTest.class, ButtonTextTransformTest.class, LabelTextTransformTest.class,
 		TextTextTransformTest.class, DescendentTest.class, ThemeTest.class, Bug419482Test.class, ShellActiveTest.class,
-		InheritTest.class })
+		InheritTest.class, BatchedStylingTest.class })
 public class CssSwtTestSuite {
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,7 +16,10 @@ import junit.framework.TestSuite;
 import org.eclipse.e4.ui.tests.application.Bug299755Test;
 import org.eclipse.e4.ui.tests.application.Bug308220Test;
 import org.eclipse.e4.ui.tests.application.Bug320857Test;
+import org.eclipse.e4.ui.tests.application.E4BinaryResourceTest;
+import org.eclipse.e4.ui.tests.application.ModelAutoSaveTest;
 import org.eclipse.e4.ui.tests.application.ModelElementTest;
+import org.eclipse.e4.ui.tests.application.ModelJournalTest;
 import org.eclipse.e4.ui.tests.application.ModelRobustnessTest;
 import org.eclipse.e4.ui.tests.application.ResourceHandlerTest;
 import org.eclipse.e4.ui.tests.application.StartupTestSuite;
@@ -41,6 +44,7 @@ import org.eclipse.e4.ui.tests.workbench.TopoSortTests;
 import org.eclipse.e4.ui.workbench.renderers.swt.StackRendererTest;
 import org.eclipse.e4.ui.workbench.renderers.swt.TabStateHandlerTest;
 import org.eclipse.e4.ui.workbench.renderers.swt.ThemeDefinitionChangedHandlerTest;
+import org.eclipse.e4.ui.workbench.renderers.swt.ToolItemUpdaterTest;
 
 //import org.eclipse.e4.ui.workbench.renderers.swt.StackRendererTest;
 
@@ -75,11 +79,15 @@ public class UIAllTests extends TestSuite {
 		addTestSuite(Bug308317Test.class);
 		addTestSuite(ModelRobustnessTest.class);
 		addTestSuite(ResourceHandlerTest.class);
+		addTestSuite(ModelJournalTest.class);
+		addTestSuite(ModelAutoSaveTest.class);
+		addTestSuite(E4BinaryResourceTest.class);
 		addTestSuite(PartFocusTest.class);
 		addTestSuite(ModelElementTest.class);
 		addTestSuite(StackRendererTest.class);
 		addTestSuite(TabStateHandlerTest.class);
 		addTestSuite(ThemeDefinitionChangedHandlerTest.class);
+		addTestSuite(ToolItemUpdaterTest.class);
 		addTestSuite(TopoSortTests.class);
 		addTestSuite(ExtensionsSortTests.class);
 		// addTestSuite(SWTPartRendererTest.class);
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.tests.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import junit.framework.TestCase;
+import org.eclipse.e4.ui.internal.workbench.E4BinaryResource;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+public class E4BinaryResourceTest extends TestCase {
+
+	private MApplication application;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		application = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		MTrimmedWindow window = BasicFactoryImpl.eINSTANCE.createTrimmedWindow();
+		MPartStack stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId("part");
+		part.setLabel("label");
+		part.getTags().add("tag");
+		part.getPersistedState().put("key", "value");
+		part.getTransientData().put("transient", "value");
+		application.getChildren().add(window);
+		window.getChildren().add(stack);
+		stack.getChildren().add(part);
+		stack.setSelectedElement(part);
+	}
+
+	private void assertLoaded(E4XMIResource saved, E4XMIResource loaded) {
+		EObject model = loaded.getContents().get(0);
+		assertTrue(EcoreUtil.equals((EObject) application, model));
+		TreeIterator<EObject> it = saved.getAllContents();
+		TreeIterator<EObject> loadedIt = loaded.getAllContents();
+		while (it.hasNext()) {
+			assertEquals(saved.getID(it.next()), loaded.getID(loadedIt.next()));
+		}
+		assertFalse(loadedIt.hasNext());
+	}
+
+	public void testSaveAndLoad() throws IOException {
+		E4BinaryResource resource = new E4BinaryResource();
+		resource.getContents().add((EObject) application);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out, null);
+
+		E4BinaryResource loaded = new E4BinaryResource();
+		loaded.load(new ByteArrayInputStream(out.toByteArray()), null);
+		MPart part = (MPart) ((MPartStack) ((MApplication) loaded.getContents().get(0))
+				.getChildren().get(0).getChildren().get(0)).getSelectedElement();
+		assertEquals("label", part.getLabel());
+		assertTrue(part.getTransientData().isEmpty());
+		part.getTransientData().put("transient", "value");
+		assertLoaded(resource, loaded);
+	}
+
+	public void testLoadXMI() throws IOException {
+		E4XMIResource resource = new E4XMIResource();
+		resource.getContents().add((EObject) application);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out, null);
+
+		E4BinaryResource loaded = new E4BinaryResource();
+		loaded.load(new ByteArrayInputStream(out.toByteArray()), null);
+		((MApplication) loaded.getContents().get(0)).getChildren().get(0).getChildren().get(0)
+				.getChildren().get(0).getTransientData().put("transient", "value");
+		assertLoaded(resource, loaded);
+	}
+
+	public void testVersion() throws IOException {
+		E4BinaryResource resource = new E4BinaryResource();
+		resource.getContents().add((EObject) application);
+		File file = File.createTempFile("workbench", "." + E4BinaryResource.FILE_EXTENSION);
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			resource.save(out, null);
+			out.close();
+			assertEquals(E4BinaryResource.VERSION, E4BinaryResource.getVersion(file));
+
+			out = new FileOutputStream(file);
+			new E4XMIResource().save(out, null);
+			out.close();
+			assertEquals(-1, E4BinaryResource.getVersion(file));
+		} finally {
+			file.delete();
+		}
+	}
+}
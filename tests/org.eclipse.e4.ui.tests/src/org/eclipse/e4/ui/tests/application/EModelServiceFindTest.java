@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2014 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,11 @@
 package org.eclipse.e4.ui.tests.application;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import junit.framework.TestCase;
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.internal.workbench.ModelIndex;
 import org.eclipse.e4.ui.internal.workbench.ModelServiceImpl;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.model.application.MApplication;
@@ -461,4 +463,61 @@ public class EModelServiceFindTest extends TestCase {
 		assertEquals(1, elements.size());
 		assertEquals(part, elements.get(0));
 	}
+
+	public void testFindElementsAfterChanges() {
+		MApplication application = createApplication();
+		MWindow window = application.getChildren().get(0);
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		assertEquals(1, modelService.findElements(application, "singleValidId", null, null)
+				.size());
+
+		window.getChildren().add(part);
+		part.setElementId("newId");
+		part.getTags().add("newTag");
+		assertEquals(part, modelService.find("newId", application));
+		assertEquals(1, modelService.findElements(application, null, null,
+				Collections.singletonList("newTag")).size());
+
+		part.setElementId("changedId");
+		part.getTags().remove("newTag");
+		assertNull(modelService.find("newId", application));
+		assertEquals(part, modelService.find("changedId", application));
+		assertEquals(0, modelService.findElements(application, null, null,
+				Collections.singletonList("newTag")).size());
+
+		window.getChildren().remove(part);
+		assertNull(modelService.find("changedId", application));
+		assertEquals(part, modelService.find("changedId", part));
+	}
+
+	public void testFindSharedElementById() {
+		MApplication application = createApplication();
+		MWindow window = application.getChildren().get(0);
+		MPartStack sharedStack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		MPart sharedPart = BasicFactoryImpl.eINSTANCE.createPart();
+		sharedPart.setElementId("sharedPart");
+		sharedStack.getChildren().add(sharedPart);
+		window.getSharedElements().add(sharedStack);
+		assertNull(modelService.find("sharedPart", application));
+
+		MPlaceholder placeholder = modelService.createModelElement(MPlaceholder.class);
+		((MPartSashContainer) window.getChildren().get(0)).getChildren().add(placeholder);
+		placeholder.setRef(sharedStack);
+		assertEquals(sharedPart, modelService.find("sharedPart", application));
+		assertEquals(sharedPart, modelService.find("sharedPart", placeholder));
+		assertNull(modelService.find("sharedPart", window.getMainMenu()));
+	}
+
+	public void testIndexFindElementById() {
+		MApplication application = createApplication();
+		MPartStack stack = (MPartStack) ((MPartSashContainer) application.getChildren().get(0)
+				.getChildren().get(0)).getChildren().get(0);
+		ModelIndex index = ModelIndex.getIndex(application);
+		assertSame(index, ModelIndex.getIndex(application));
+		assertEquals(application.getChildren().get(0).getChildren().get(0),
+				index.findElementById("twoValidIds"));
+		assertEquals(stack.getChildren().get(0).getMenus().get(0),
+				index.findElementById("menuId"));
+		assertNull(index.findElementById("unknownId"));
+	}
 }
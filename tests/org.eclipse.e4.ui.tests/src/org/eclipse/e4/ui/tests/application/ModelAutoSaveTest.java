@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.tests.application;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.ModelAutoSave;
+import org.eclipse.e4.ui.internal.workbench.ModelJournal;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimBar;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuFactoryImpl;
+import org.eclipse.e4.ui.workbench.IModelResourceHandler;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Tests that the model saved by {@link ModelAutoSave}, with its journal
+ * replayed as after a crash, is the model which was auto-saved.
+ */
+public class ModelAutoSaveTest extends TestCase {
+
+	private MApplication application;
+
+	private MTrimmedWindow window;
+
+	private MPartStack stack;
+
+	private MPart part;
+
+	private File journalFile;
+
+	private File baseFile;
+
+	private ModelJournal journal;
+
+	private ModelAutoSave autoSave;
+
+	private class TestResourceHandler implements IModelResourceHandler {
+
+		@Override
+		public Resource loadMostRecentModel() {
+			return null;
+		}
+
+		@Override
+		public Resource createResourceWithApp(MApplication theApp) {
+			Resource resource = new E4XMIResource(URI.createFileURI(baseFile.getAbsolutePath()));
+			new ResourceSetImpl().getResources().add(resource);
+			resource.getContents().add((EObject) theApp);
+			return resource;
+		}
+
+		@Override
+		public void save() {
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		application = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		window = BasicFactoryImpl.eINSTANCE.createTrimmedWindow();
+		stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId("part");
+		application.getChildren().add(window);
+		window.getChildren().add(stack);
+		stack.getChildren().add(part);
+		new E4XMIResource().getContents().add((EObject) application);
+
+		File directory = new File(System.getProperty("java.io.tmpdir"));
+		journalFile = new File(directory, getClass().getSimpleName() + "_" + getName()
+				+ ".journal");
+		baseFile = new File(directory, getClass().getSimpleName() + "_" + getName() + ".e4xmi");
+		journalFile.delete();
+		baseFile.delete();
+		journal = new ModelJournal(journalFile, baseFile);
+		autoSave = new ModelAutoSave(application, new TestResourceHandler(), journal) {
+			@Override
+			protected boolean isSaved(EObject container, EStructuralFeature feature,
+					EObject element) {
+				return !ModelJournalTest.isCleanedUp(container, feature, element);
+			}
+
+			@Override
+			protected boolean isValid(MApplication model) {
+				// like the workbench, which does not save a model without
+				// windows
+				return !model.getChildren().isEmpty();
+			}
+		};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		autoSave.dispose();
+		journalFile.delete();
+		baseFile.delete();
+		super.tearDown();
+	}
+
+	private void save() throws InterruptedException {
+		autoSave.save();
+		autoSave.join();
+	}
+
+	/**
+	 * Loads the saved model and replays its journal, like the workbench does
+	 * when it restarts.
+	 */
+	private MApplication loadSavedModel() throws IOException {
+		Resource resource = new E4XMIResource(URI.createFileURI(baseFile.getAbsolutePath()));
+		new ResourceSetImpl().getResources().add(resource);
+		resource.load(null);
+		assertEquals(0, journal.replay((E4XMIResource) resource));
+		return (MApplication) resource.getContents().get(0);
+	}
+
+	public void testFirstSaveInFull() throws Exception {
+		part.setLabel("label");
+		save();
+		assertTrue(baseFile.isFile());
+		assertFalse(journalFile.exists());
+		assertTrue(EcoreUtil.equals((EObject) application, (EObject) loadSavedModel()));
+	}
+
+	public void testChangesReplayed() throws Exception {
+		save();
+		long baseLength = baseFile.length();
+		part.setLabel("label");
+		MPart added = BasicFactoryImpl.eINSTANCE.createPart();
+		added.setElementId("added");
+		stack.getChildren().add(0, added);
+		stack.setSelectedElement(added);
+		save();
+		assertTrue(journalFile.isFile());
+		assertEquals(baseLength, baseFile.length());
+
+		part.getTags().add("tag");
+		save();
+		assertTrue(EcoreUtil.equals((EObject) application, (EObject) loadSavedModel()));
+	}
+
+	public void testNoChangesNotSaved() throws Exception {
+		save();
+		part.setLabel("label");
+		save();
+		long journalLength = journalFile.length();
+		part.setWidget(new Object());
+		save();
+		assertEquals(journalLength, journalFile.length());
+	}
+
+	public void testInvalidModelNotJournaled() throws Exception {
+		save();
+		part.setLabel("label");
+		save();
+		long journalLength = journalFile.length();
+		application.getChildren().remove(window);
+		save();
+		assertEquals(journalLength, journalFile.length());
+		MApplication saved = loadSavedModel();
+		assertEquals(1, saved.getChildren().size());
+
+		application.getChildren().add(window);
+		save();
+		assertFalse(journalFile.exists());
+		assertTrue(EcoreUtil.equals((EObject) application, (EObject) loadSavedModel()));
+	}
+
+	public void testCleanedUpElementsNotReplayed() throws Exception {
+		MTrimBar trimBar = BasicFactoryImpl.eINSTANCE.createTrimBar();
+		MToolBar own = MenuFactoryImpl.eINSTANCE.createToolBar();
+		own.setElementId("own");
+		trimBar.getChildren().add(own);
+		window.getTrimBars().add(trimBar);
+		MToolBar contributed = MenuFactoryImpl.eINSTANCE.createToolBar();
+		contributed.setElementId("contributed");
+		trimBar.getChildren().add(contributed);
+		trimBar.getPendingCleanup().add(contributed);
+		window.setMainMenu(MenuFactoryImpl.eINSTANCE.createMenu());
+		save();
+
+		// like a window opened and rendered after the model was saved
+		MTrimmedWindow other = BasicFactoryImpl.eINSTANCE.createTrimmedWindow();
+		MMenu mainMenu = MenuFactoryImpl.eINSTANCE.createMenu();
+		mainMenu.getChildren().add(MenuFactoryImpl.eINSTANCE.createDirectMenuItem());
+		other.setMainMenu(mainMenu);
+		application.getChildren().add(other);
+		MToolBar otherContributed = MenuFactoryImpl.eINSTANCE.createToolBar();
+		otherContributed.setElementId("otherContributed");
+		trimBar.getChildren().add(0, otherContributed);
+		trimBar.getPendingCleanup().add(otherContributed);
+		part.setLabel("label");
+		save();
+		assertTrue(journalFile.isFile());
+
+		MApplication saved = loadSavedModel();
+		assertEquals(2, saved.getChildren().size());
+		for (int i = 0; i < saved.getChildren().size(); i++) {
+			assertNull(saved.getChildren().get(i).getMainMenu());
+		}
+		MTrimBar savedTrimBar = ((MTrimmedWindow) saved.getChildren().get(0)).getTrimBars()
+				.get(0);
+		assertEquals(1, savedTrimBar.getChildren().size());
+		assertEquals("own", savedTrimBar.getChildren().get(0).getElementId());
+		MPart savedPart = (MPart) ((MPartStack) saved.getChildren().get(0).getChildren().get(0))
+				.getChildren().get(0);
+		assertEquals("label", savedPart.getLabel());
+	}
+}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.tests.application;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import junit.framework.TestCase;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.ModelDeltaApplier;
+import org.eclipse.e4.ui.internal.workbench.ModelDeltaRecorder;
+import org.eclipse.e4.ui.internal.workbench.ModelJournal;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MStackElement;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimBar;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimElement;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.menu.MDirectMenuItem;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuFactoryImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+public class ModelJournalTest extends TestCase {
+
+	private E4XMIResource resource;
+
+	private MApplication application;
+
+	private MTrimmedWindow window;
+
+	private MPartStack stack1;
+
+	private MPartStack stack2;
+
+	private MPart part1;
+
+	private MPart part2;
+
+	private E4XMIResource mirror;
+
+	private ModelDeltaRecorder recorder;
+
+	private File journalFile;
+
+	private File baseFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		resource = new E4XMIResource();
+		application = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		window = BasicFactoryImpl.eINSTANCE.createTrimmedWindow();
+		stack1 = BasicFactoryImpl.eINSTANCE.createPartStack();
+		stack2 = BasicFactoryImpl.eINSTANCE.createPartStack();
+		part1 = createPart("part1");
+		part2 = createPart("part2");
+		application.getChildren().add(window);
+		window.getChildren().add(stack1);
+		window.getChildren().add(stack2);
+		stack1.getChildren().add(part1);
+		stack1.getChildren().add(part2);
+		stack1.setSelectedElement(part1);
+		resource.getContents().add((EObject) application);
+
+		mirror = new E4XMIResource();
+		EcoreUtil.Copier copier = new EcoreUtil.Copier();
+		mirror.getContents().add(copier.copy((EObject) application));
+		copier.copyReferences();
+		for (Map.Entry<EObject, EObject> entry : copier.entrySet()) {
+			if (!(entry.getKey() instanceof Map.Entry<?, ?>)) {
+				mirror.setID(entry.getValue(), resource.getID(entry.getKey()));
+			}
+		}
+
+		recorder = new ModelDeltaRecorder(resource);
+		((EObject) application).eAdapters().add(recorder);
+
+		File directory = new File(System.getProperty("java.io.tmpdir"));
+		journalFile = new File(directory, getClass().getSimpleName() + "_" + getName()
+				+ ".journal");
+		baseFile = new File(directory, getClass().getSimpleName() + "_" + getName() + ".e4xmi");
+		journalFile.delete();
+		FileOutputStream out = new FileOutputStream(baseFile);
+		out.write(1);
+		out.close();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		((EObject) application).eAdapters().remove(recorder);
+		journalFile.delete();
+		baseFile.delete();
+		super.tearDown();
+	}
+
+	private MPart createPart(String id) {
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId(id);
+		return part;
+	}
+
+	private int applyChanges() throws IOException {
+		assertTrue(recorder.isDirty());
+		byte[] changes = recorder.takeChanges();
+		assertFalse(recorder.isDirty());
+		return new ModelDeltaApplier(mirror).apply(changes);
+	}
+
+	private MPart getMirrored(MPart part) {
+		return (MPart) mirror.getEObject(resource.getID((EObject) part));
+	}
+
+	/**
+	 * Records the changes leaving out main menus and the trim elements
+	 * pending clean up, like the workbench does.
+	 */
+	private void recordSavedElementsOnly() {
+		((EObject) application).eAdapters().remove(recorder);
+		recorder = new ModelDeltaRecorder(resource) {
+			@Override
+			protected boolean isRecorded(EObject container, EStructuralFeature feature,
+					EObject element) {
+				return !isCleanedUp(container, feature, element);
+			}
+		};
+		((EObject) application).eAdapters().add(recorder);
+	}
+
+	static boolean isCleanedUp(EObject container, EStructuralFeature feature, EObject element) {
+		return feature == BasicPackageImpl.Literals.WINDOW__MAIN_MENU
+				|| container instanceof MTrimBar
+				&& ((MTrimBar) container).getPendingCleanup().contains(element);
+	}
+
+	private void assertMirrored() {
+		assertTrue(EcoreUtil.equals((EObject) application, mirror.getContents().get(0)));
+	}
+
+	public void testNoChanges() {
+		assertFalse(recorder.isDirty());
+		part1.setWidget(new Object());
+		part1.getTransientData().put("key", "value");
+		assertFalse(recorder.isDirty());
+	}
+
+	public void testAttributes() throws IOException {
+		part1.setLabel("label");
+		part1.setToBeRendered(false);
+		part2.getTags().add("tag1");
+		part2.getTags().add("tag2");
+		((EList<String>) part2.getTags()).move(0, 1);
+		part2.getPersistedState().put("key", "value");
+		part2.getPersistedState().put("key", "other value");
+		part1.setContributionURI("uri");
+		part1.setContributionURI(null);
+		assertEquals(0, applyChanges());
+		assertMirrored();
+	}
+
+	public void testAddMoveRemove() throws IOException {
+		MPart part3 = createPart("part3");
+		part3.setLabel("label");
+		part3.getTags().add("tag");
+		stack1.getChildren().add(0, part3);
+		((EList<MStackElement>) stack1.getChildren()).move(2, 0);
+		stack1.getChildren().remove(part1);
+		assertEquals(0, applyChanges());
+		assertMirrored();
+
+		part3.setLabel("changed");
+		assertEquals(0, applyChanges());
+		assertMirrored();
+	}
+
+	public void testMoveToOtherContainer() throws IOException {
+		stack2.getChildren().add(part2);
+		part2.setLabel("moved");
+		stack2.setSelectedElement(part2);
+		assertEquals(0, applyChanges());
+		assertMirrored();
+	}
+
+	public void testReferenceToAddedElement() throws IOException {
+		MPart part3 = createPart("part3");
+		stack2.getChildren().add(part3);
+		stack2.setSelectedElement(part3);
+		stack1.setSelectedElement(null);
+		assertEquals(0, applyChanges());
+		assertMirrored();
+	}
+
+	public void testUnknownElementSkipped() throws IOException {
+		MPart part3 = createPart("part3");
+		stack1.getChildren().add(part3);
+		recorder.takeChanges();
+		part3.setLabel("label");
+		part1.setLabel("label");
+		assertEquals(1, applyChanges());
+		assertEquals("label", getMirrored(part1).getLabel());
+	}
+
+	public void testMainMenuNotRecorded() throws IOException {
+		recordSavedElementsOnly();
+		MMenu menu = MenuFactoryImpl.eINSTANCE.createMenu();
+		MDirectMenuItem item = MenuFactoryImpl.eINSTANCE.createDirectMenuItem();
+		menu.getChildren().add(item);
+		window.setMainMenu(menu);
+		part1.setLabel("label");
+		assertEquals(0, applyChanges());
+		MTrimmedWindow mirroredWindow = (MTrimmedWindow) mirror.getEObject(resource
+				.getID((EObject) window));
+		assertNull(mirroredWindow.getMainMenu());
+		assertEquals("label", getMirrored(part1).getLabel());
+
+		item.setLabel("item");
+		assertFalse(recorder.isDirty());
+	}
+
+	public void testTrimElementsPendingCleanupRemoved() throws IOException {
+		recordSavedElementsOnly();
+		MTrimBar trimBar = BasicFactoryImpl.eINSTANCE.createTrimBar();
+		MToolBar own = createToolBar("own");
+		trimBar.getChildren().add(own);
+		window.getTrimBars().add(trimBar);
+		MToolBar contributed = createToolBar("contributed");
+		trimBar.getChildren().add(0, contributed);
+		trimBar.getPendingCleanup().add(contributed);
+		MToolBar added = createToolBar("added");
+		trimBar.getChildren().add(added);
+		((EList<MTrimElement>) trimBar.getChildren()).move(2, own);
+		assertEquals(0, applyChanges());
+		MTrimBar mirroredTrimBar = (MTrimBar) mirror.getEObject(resource
+				.getID((EObject) trimBar));
+		assertEquals(2, mirroredTrimBar.getChildren().size());
+		assertEquals("added", mirroredTrimBar.getChildren().get(0).getElementId());
+		assertEquals("own", mirroredTrimBar.getChildren().get(1).getElementId());
+
+		contributed.setVisible(false);
+		assertFalse(recorder.isDirty());
+	}
+
+	private MToolBar createToolBar(String id) {
+		MToolBar toolBar = MenuFactoryImpl.eINSTANCE.createToolBar();
+		toolBar.setElementId(id);
+		return toolBar;
+	}
+
+	public void testReplay() throws IOException {
+		ModelJournal journal = new ModelJournal(journalFile, baseFile);
+		part1.setLabel("label");
+		journal.append(recorder.takeChanges());
+		stack1.getChildren().add(createPart("part3"));
+		journal.append(recorder.takeChanges());
+		assertEquals(0, journal.replay(mirror));
+		assertMirrored();
+	}
+
+	public void testReplayOtherBase() throws IOException {
+		ModelJournal journal = new ModelJournal(journalFile, baseFile);
+		part1.setLabel("label");
+		journal.append(recorder.takeChanges());
+		FileOutputStream out = new FileOutputStream(baseFile, true);
+		out.write(2);
+		out.close();
+		assertEquals(0, journal.replay(mirror));
+		assertNull(getMirrored(part1).getLabel());
+	}
+
+	public void testReplayPartialBlock() throws IOException {
+		ModelJournal journal = new ModelJournal(journalFile, baseFile);
+		part1.setLabel("label");
+		journal.append(recorder.takeChanges());
+		part2.setLabel("label");
+		byte[] changes = recorder.takeChanges();
+		FileOutputStream out = new FileOutputStream(journalFile, true);
+		out.write(new byte[] { 0, 0, 0, (byte) changes.length });
+		out.write(changes, 0, changes.length / 2);
+		out.close();
+		assertEquals(0, journal.replay(mirror));
+		assertEquals("label", getMirrored(part1).getLabel());
+		assertNull(getMirrored(part2).getLabel());
+	}
+}
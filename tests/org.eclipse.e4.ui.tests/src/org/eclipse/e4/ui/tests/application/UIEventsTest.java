@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -328,6 +328,59 @@ public class UIEventsTest extends HeadlessApplicationElementTest {
 		checkForFailures(allTesters, windowTester);
 	}
 
+	public void testBatchedEvents() {
+		IEventBroker eventBroker = applicationContext.get(IEventBroker.class);
+		final List<Event> events = new ArrayList<Event>();
+		EventHandler handler = new EventHandler() {
+			public void handleEvent(Event event) {
+				events.add(event);
+			}
+		};
+		eventBroker.subscribe(UILabel.TOPIC_LABEL, handler);
+		eventBroker.subscribe(ApplicationElement.TOPIC_TAGS, handler);
+
+		MTestHarness allData = MTestFactory.eINSTANCE.createTestHarness();
+		allData.setLabel("Initial");
+		final UIEventPublisher ep = new UIEventPublisher(applicationContext);
+		((Notifier) allData).eAdapters().add(ep);
+
+		ep.beginBatch();
+		ep.beginBatch();
+		allData.setLabel("First");
+		allData.getTags().add("Tag");
+		allData.setLabel("Second");
+		ep.endBatch();
+		allData.setLabel("Third");
+		assertTrue("events sent during a batch", events.isEmpty());
+		ep.endBatch();
+		eventBroker.unsubscribe(handler);
+
+		// the label events are coalesced at the position of the last one,
+		// after the tags event
+		assertEquals(2, events.size());
+		Event tagsEvent = events.get(0);
+		assertEquals(ApplicationElement.TAGS, tagsEvent.getProperty(EventTags.ATTNAME));
+		assertEquals("Tag", tagsEvent.getProperty(EventTags.NEW_VALUE));
+		Event labelEvent = events.get(1);
+		assertEquals(UILabel.LABEL, labelEvent.getProperty(EventTags.ATTNAME));
+		assertEquals("Initial", labelEvent.getProperty(EventTags.OLD_VALUE));
+		assertEquals("Third", labelEvent.getProperty(EventTags.NEW_VALUE));
+
+		events.clear();
+		eventBroker.subscribe(UILabel.TOPIC_LABEL, handler);
+		allData.setLabel("Fourth");
+		assertEquals("events not sent after the batch", 1, events.size());
+
+		// no event if the label gets its original value back
+		events.clear();
+		ep.beginBatch();
+		allData.setLabel("Fifth");
+		allData.setLabel("Fourth");
+		ep.endBatch();
+		eventBroker.unsubscribe(handler);
+		assertTrue("unchanged label", events.isEmpty());
+	}
+
 	// Verify bug 374534
 	public void testBrokerCleanup() {
 		final String testTopic = "test/374534";
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.workbench.renderers.swt;
+
+import java.util.Collections;
+import junit.framework.TestCase;
+import org.eclipse.core.expressions.IEvaluationContext;
+import org.eclipse.e4.core.commands.CommandServiceAddon;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.bindings.BindingServiceAddon;
+import org.eclipse.e4.ui.internal.workbench.E4Workbench;
+import org.eclipse.e4.ui.internal.workbench.addons.CommandProcessingAddon;
+import org.eclipse.e4.ui.internal.workbench.addons.HandlerProcessingAddon;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.ITrackableHandler;
+import org.eclipse.e4.ui.internal.workbench.renderers.swt.VariableChangeSelector;
+import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
+import org.eclipse.e4.ui.internal.workbench.swt.PartRenderingEngine;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.commands.MCommand;
+import org.eclipse.e4.ui.model.application.commands.MHandler;
+import org.eclipse.e4.ui.model.application.commands.impl.CommandsFactoryImpl;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimBar;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.menu.MHandledToolItem;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuFactoryImpl;
+import org.eclipse.e4.ui.services.ContextServiceAddon;
+import org.eclipse.e4.ui.workbench.UIEvents;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Tests that tool items skip the enablement updates for variable changes only
+ * when their handler is known to depend on the variables it reads alone.
+ */
+public class ToolItemUpdaterTest extends TestCase {
+
+	private static final String VARIABLE = "testVariable";
+
+	protected IEclipseContext appContext;
+	protected E4Workbench wb;
+	private TestHandler handler;
+
+	public static class TestHandler implements ITrackableHandler {
+		boolean trackable = true;
+		int evaluations = 0;
+
+		@CanExecute
+		public boolean canExecute(@Optional IEvaluationContext context) {
+			evaluations++;
+			if (context != null) {
+				context.getVariable(VARIABLE);
+			}
+			return true;
+		}
+
+		@Execute
+		public void execute() {
+		}
+
+		@Override
+		public boolean isEnablementTrackable() {
+			return trackable;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		appContext = E4Application.createDefaultContext();
+		ContextInjectionFactory.make(CommandServiceAddon.class, appContext);
+		ContextInjectionFactory.make(ContextServiceAddon.class, appContext);
+		ContextInjectionFactory.make(BindingServiceAddon.class, appContext);
+		appContext.set(E4Workbench.PRESENTATION_URI_ARG,
+				PartRenderingEngine.engineURI);
+
+		MTrimmedWindow window = BasicFactoryImpl.eINSTANCE
+				.createTrimmedWindow();
+		MTrimBar trimBar = BasicFactoryImpl.eINSTANCE.createTrimBar();
+		MToolBar toolBar = MenuFactoryImpl.eINSTANCE.createToolBar();
+		MHandledToolItem toolItem = MenuFactoryImpl.eINSTANCE
+				.createHandledToolItem();
+		MCommand command = CommandsFactoryImpl.eINSTANCE.createCommand();
+		command.setElementId("toolItemUpdaterTest.command");
+		command.setCommandName("Test Command");
+		toolItem.setCommand(command);
+		toolItem.setLabel("item");
+
+		MHandler mhandler = CommandsFactoryImpl.eINSTANCE.createHandler();
+		mhandler.setCommand(command);
+		handler = new TestHandler();
+		mhandler.setObject(handler);
+		window.getHandlers().add(mhandler);
+
+		window.getTrimBars().add(trimBar);
+		trimBar.getChildren().add(toolBar);
+		toolBar.getChildren().add(toolItem);
+
+		MApplication application = ApplicationFactoryImpl.eINSTANCE
+				.createApplication();
+		application.getCommands().add(command);
+		application.getChildren().add(window);
+		application.setContext(appContext);
+		appContext.set(MApplication.class.getName(), application);
+		// The handler processing addon cannot run until the context
+		// contains the MApplication
+		ContextInjectionFactory.make(CommandProcessingAddon.class, appContext);
+		ContextInjectionFactory.make(HandlerProcessingAddon.class, appContext);
+
+		wb = new E4Workbench(window, appContext);
+		wb.createAndRunUI(window);
+		processEvents();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (wb != null) {
+			wb.close();
+		}
+		appContext.dispose();
+	}
+
+	public void testTrackableHandler() {
+		updateAll();
+		postVariableChange("otherVariable");
+		assertEquals(0, handler.evaluations);
+
+		postVariableChange(VARIABLE);
+		assertEquals(1, handler.evaluations);
+	}
+
+	public void testUntrackableHandler() {
+		handler.trackable = false;
+		updateAll();
+		postVariableChange("otherVariable");
+		assertEquals(1, handler.evaluations);
+	}
+
+	public void testHandlerBecomingUntrackable() {
+		updateAll();
+		// like a handler proxy loading its handler
+		handler.trackable = false;
+		postVariableChange("otherVariable");
+		assertEquals(1, handler.evaluations);
+	}
+
+	public void testAllElementsRequest() {
+		updateAll();
+		postEnablementUpdate(UIEvents.ALL_ELEMENT_ID);
+		assertEquals(1, handler.evaluations);
+	}
+
+	/**
+	 * Updates the enablement of all items, so that the variables read are
+	 * recorded, and resets the evaluation count.
+	 */
+	private void updateAll() {
+		postEnablementUpdate(UIEvents.ALL_ELEMENT_ID);
+		assertTrue("The enablement was not computed", handler.evaluations > 0);
+		handler.evaluations = 0;
+	}
+
+	private void postVariableChange(String variable) {
+		postEnablementUpdate(new VariableChangeSelector(
+				Collections.singleton(variable)));
+	}
+
+	private void postEnablementUpdate(Object data) {
+		appContext.get(IEventBroker.class).send(
+				UIEvents.REQUEST_ENABLEMENT_UPDATE_TOPIC, data);
+		processEvents();
+	}
+
+	private static void processEvents() {
+		Display display = Display.getCurrent();
+		while (display.readAndDispatch()) {
+			// process the pending events
+		}
+	}
+}
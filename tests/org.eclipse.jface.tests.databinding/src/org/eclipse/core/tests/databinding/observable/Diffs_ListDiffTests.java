@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,9 @@ package org.eclipse.core.tests.databinding.observable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -215,7 +217,7 @@ public class Diffs_ListDiffTests extends TestCase {
 		assertEntry(diff.getDifferences()[2], true, 0, "c");
 	}
 
-	private static void assertEntry(ListDiffEntry entry, boolean addition, int position, String element) {
+	private static void assertEntry(ListDiffEntry entry, boolean addition, int position, Object element) {
 		assertEquals("addition", addition, entry.isAddition());
 		assertEquals("position", position, entry.getPosition());
 		assertEquals("element", element, entry.getElement());
@@ -253,6 +255,70 @@ public class Diffs_ListDiffTests extends TestCase {
 				Arrays.asList(new Object[] { "c", "a", "b" }));
 	}
 
+	public void testComputeListDiff_LargeReorder() {
+		List<Object> oldList = new ArrayList<Object>();
+		for (int i = 0; i < 500; i++) {
+			oldList.add("element" + i);
+		}
+		List<Object> newList = new ArrayList<Object>(oldList);
+		Collections.shuffle(newList, new Random(42));
+		newList.subList(100, 150).clear();
+		for (int i = 0; i < 50; i++) {
+			newList.add(i * 7, "added" + i);
+		}
+		checkComputedListDiff(oldList, newList);
+		checkComputedListDiff(newList, oldList);
+	}
+
+	public void testComputeListDiff_LargeReverse() {
+		List<Object> oldList = new ArrayList<Object>();
+		for (int i = 0; i < 100; i++) {
+			oldList.add(new Integer(i));
+		}
+		List<Object> newList = new ArrayList<Object>(oldList);
+		Collections.reverse(newList);
+		checkComputedListDiff(oldList, newList);
+	}
+
+	public void testComputeListDiff_LargeWithDuplicatesAndNulls() {
+		List<Object> oldList = new ArrayList<Object>();
+		List<Object> newList = new ArrayList<Object>();
+		Random random = new Random(7);
+		for (int i = 0; i < 300; i++) {
+			oldList.add(random.nextInt(10) == 0 ? null : new Integer(random.nextInt(20)));
+			newList.add(random.nextInt(10) == 0 ? null : new Integer(random.nextInt(20)));
+		}
+		checkComputedListDiff(oldList, newList);
+	}
+
+	public void testComputeListDiff_LargeSingleChange() {
+		List<Object> oldList = new ArrayList<Object>();
+		for (int i = 0; i < 1000; i++) {
+			oldList.add(new Integer(i));
+		}
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.set(500, "changed");
+		ListDiff diff = Diffs.computeListDiff(oldList, newList);
+
+		assertEquals(2, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], true, 500, "changed");
+		assertEntry(diff.getDifferences()[1], false, 501, new Integer(500));
+	}
+
+	public void testComputeListDiff_LargeMoveUpIsAdjacent() {
+		List<Object> oldList = new ArrayList<Object>();
+		for (int i = 0; i < 100; i++) {
+			oldList.add(new Integer(i));
+		}
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.add(10, newList.remove(90));
+		ListDiff diff = Diffs.computeListDiff(oldList, newList);
+
+		assertEquals(2, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], false, 90, new Integer(90));
+		assertEntry(diff.getDifferences()[1], true, 10, new Integer(90));
+	}
+
 	private static void checkComputedListDiff(List<Object> oldList, List<Object> newList) {
 		ListDiff diff = Diffs.computeListDiff(oldList, newList);
 
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.beans;
+
+import java.beans.PropertyDescriptor;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.internal.databinding.beans.BeanPropertyAccessor;
+import org.eclipse.core.internal.databinding.beans.BeanPropertyHelper;
+
+public class BeanPropertyAccessorTest extends TestCase {
+	private BeanPropertyAccessor accessor;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		PropertyDescriptor pd = BeanPropertyHelper.getPropertyDescriptor(
+				Bean.class, "value");
+		accessor = new BeanPropertyAccessor(pd);
+	}
+
+	public void testReadAndWrite() {
+		Bean bean = new Bean("old");
+		assertEquals("old", accessor.read(bean));
+
+		accessor.write(bean, "new");
+		assertEquals("new", bean.getValue());
+		assertEquals("new", accessor.read(bean));
+
+		Bean other = new Bean("other");
+		assertEquals("other", accessor.read(other));
+		accessor.write(other, null);
+		assertNull(other.getValue());
+		assertEquals("new", bean.getValue());
+	}
+
+	public void testExceptionInAccessor() {
+		final IllegalStateException exception = new IllegalStateException();
+		Bean bean = new Bean() {
+			@Override
+			public String getValue() {
+				throw exception;
+			}
+
+			@Override
+			public void setValue(String value) {
+				throw exception;
+			}
+		};
+		try {
+			accessor.read(bean);
+			fail("Expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertSame(exception, e.getCause());
+		}
+		try {
+			accessor.write(bean, "value");
+			fail("Expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertSame(exception, e.getCause());
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -92,6 +92,7 @@ import org.eclipse.core.tests.internal.databinding.QueueTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanObservableListDecoratorTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanObservableSetDecoratorTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanObservableValueDecoratorTest;
+import org.eclipse.core.tests.internal.databinding.beans.BeanPropertyAccessorTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanPropertyHelperTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanPropertyListenerSupportTest;
 import org.eclipse.core.tests.internal.databinding.beans.BeanPropertyListenerTest;
@@ -367,6 +368,7 @@ public class BindingTestSuite extends TestSuite {
 		addTest(JavaBeanObservableValueTest.suite());
 		addTestSuite(JavaBeanPropertyObservableMapTest.class);
 		addTestSuite(BeanPropertyHelperTest.class);
+		addTestSuite(BeanPropertyAccessorTest.class);
 		addTestSuite(BeanPropertyListenerSupportTest.class);
 		addTestSuite(BeanPropertyListenerTest.class);
 
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.eclipse.ui.monitoring.LatencyStatistics;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram} and {@link EventLoopStatistics} classes.
+ */
+public class LatencyHistogramTests {
+	@Test
+	public void testBuckets() throws Exception {
+		for (long value = 0; value < 100000; value++) {
+			int index = LatencyHistogram.getBucketIndex(value);
+			long upperBound = LatencyHistogram.getBucketUpperBound(index);
+			assertTrue(upperBound >= value);
+			assertTrue(upperBound - value <= value / 16);
+			if (index > 0) {
+				assertTrue(LatencyHistogram.getBucketUpperBound(index - 1) < value);
+			}
+		}
+		assertEquals(LatencyHistogram.getBucketIndex(Long.MAX_VALUE),
+				LatencyHistogram.getBucketIndex(1L << 50));
+	}
+
+	@Test
+	public void testPercentiles() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(500.5, histogram.getMean(), 0.001);
+		assertTrue(Math.abs(histogram.getValueAtPercentile(50) - 500) <= 500 / 16);
+		assertTrue(Math.abs(histogram.getValueAtPercentile(99) - 990) <= 990 / 16);
+		assertEquals(1000, histogram.getValueAtPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	public void testEventLoopStatistics() throws Exception {
+		EventLoopStatistics statistics = new EventLoopStatistics();
+		statistics.recordLatency(13, 100);
+		statistics.recordLatency(13, 300);
+		statistics.recordLatency(2, 7);
+		statistics.recordLatency(1000, 7);
+
+		assertArrayEquals(new int[] { 2, 13 }, statistics.getEventTypes());
+		LatencyStatistics selection = statistics.getStatistics(13);
+		assertEquals(2, selection.getCount());
+		assertEquals(200, selection.getMean(), 0.001);
+		assertEquals(300, selection.getMax());
+		assertNull(statistics.getStatistics(3));
+
+		StringWriter writer = new StringWriter();
+		statistics.writeCsv(writer, 42);
+		assertEquals("42,2,1,7,7,7,7,7\n42,13,2,200,103,300,300,300\n", writer.toString());
+
+		statistics.reset();
+		assertEquals(0, statistics.getEventTypes().length);
+	}
+}
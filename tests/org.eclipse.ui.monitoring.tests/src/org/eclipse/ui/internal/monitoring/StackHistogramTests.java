@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link StackHistogram} class.
+ */
+public class StackHistogramTests {
+	private static StackTraceElement[] createStack(String... methods) {
+		// The innermost frame comes first, as in Thread.getStackTrace().
+		StackTraceElement[] stack = new StackTraceElement[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			int dot = methods[i].lastIndexOf('.');
+			stack[methods.length - 1 - i] = new StackTraceElement(methods[i].substring(0, dot),
+					methods[i].substring(dot + 1), null, -1);
+		}
+		return stack;
+	}
+
+	@Test
+	public void testFoldedStacks() throws Exception {
+		StackHistogram histogram = new StackHistogram(10, null);
+		assertTrue(histogram.addSample(createStack("a.Main.main", "a.Display.sleep")));
+		assertTrue(histogram.addSample(createStack("a.Main.main", "b.Job.run")));
+		assertTrue(histogram.addSample(createStack("a.Main.main", "a.Display.sleep")));
+
+		assertEquals(3, histogram.getTotalSamples());
+		assertEquals(2, histogram.getCount("a.Main.main;a.Display.sleep"));
+		StringWriter writer = new StringWriter();
+		histogram.writeCollapsedStacks(writer);
+		assertEquals("a.Main.main;a.Display.sleep 2\na.Main.main;b.Job.run 1\n", writer.toString());
+
+		histogram.clear();
+		assertEquals(0, histogram.getTotalSamples());
+		assertEquals(0, histogram.getCount("a.Main.main;a.Display.sleep"));
+	}
+
+	@Test
+	public void testMaxStacks() throws Exception {
+		StackHistogram histogram = new StackHistogram(3, null);
+		histogram.addSample(createStack("a.Main.main", "a.Main.first"));
+		histogram.addSample(createStack("a.Main.main", "a.Main.second"));
+		histogram.addSample(createStack("a.Main.main", "a.Main.third"));
+		histogram.addSample(createStack("a.Main.main", "a.Main.fourth"));
+		histogram.addSample(createStack("a.Main.main", "a.Main.first"));
+
+		assertEquals(5, histogram.getTotalSamples());
+		assertEquals(2, histogram.getCount("a.Main.main;a.Main.first"));
+		assertEquals(0, histogram.getCount("a.Main.main;a.Main.third"));
+		assertEquals(2, histogram.getCount(StackHistogram.OVERFLOW_STACK));
+		StringWriter writer = new StringWriter();
+		histogram.writeCollapsedStacks(writer);
+		assertEquals(3, writer.toString().split("\n").length);
+	}
+
+	@Test
+	public void testMaxDepth() throws Exception {
+		String[] methods = new String[StackHistogram.MAX_DEPTH + 10];
+		for (int i = 0; i < methods.length; i++) {
+			methods[i] = "a.Main.m" + i;
+		}
+		StackHistogram histogram = new StackHistogram(10, new FilterHandler("b.*"));
+		assertTrue(histogram.addSample(createStack(methods)));
+
+		StringWriter writer = new StringWriter();
+		histogram.writeCollapsedStacks(writer);
+		String[] frames = writer.toString().split(" ")[0].split(";");
+		assertEquals(StackHistogram.MAX_DEPTH + 1, frames.length);
+		assertEquals("a.Main.m0", frames[0]);
+		assertEquals(StackHistogram.TRUNCATED_FRAME, frames[frames.length - 1]);
+
+		// Frames beyond the maximum depth are still checked against the filter.
+		methods[methods.length - 1] = "b.Job.run";
+		assertFalse(histogram.addSample(createStack(methods)));
+	}
+
+	@Test
+	public void testFilter() throws Exception {
+		StackHistogram histogram = new StackHistogram(10, new FilterHandler("b.*"));
+		assertFalse(histogram.addSample(createStack("a.Main.main", "b.Job.run", "a.Main.run")));
+		assertTrue(histogram.addSample(createStack("a.Main.main", "a.Main.run")));
+
+		assertEquals(1, histogram.getTotalSamples());
+		assertEquals(1, histogram.getFilteredSamples());
+	}
+}
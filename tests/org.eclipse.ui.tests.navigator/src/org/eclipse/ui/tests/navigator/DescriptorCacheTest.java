@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.ui.internal.navigator.VisibilityAssistant;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptor;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptorManager;
+import org.eclipse.ui.navigator.INavigatorActivationService;
+import org.eclipse.ui.navigator.INavigatorContentService;
+import org.eclipse.ui.navigator.NavigatorContentServiceFactory;
+
+/**
+ * Tests the descriptors found for elements of a class, which are cached when
+ * the expressions evaluated only test the type of the element.
+ *
+ * @since 3.10
+ */
+public class DescriptorCacheTest extends TestCase {
+
+	private static final String TEST_VIEWER_CACHE = "org.eclipse.ui.tests.navigator.DescriptorCacheTestView";
+
+	private static final String CLASS_ONLY = "org.eclipse.ui.tests.navigator.cache.classOnly";
+
+	private static final String PROPERTY = "org.eclipse.ui.tests.navigator.cache.property";
+
+	private final NavigatorContentDescriptorManager manager = NavigatorContentDescriptorManager
+			.getInstance();
+
+	private INavigatorContentService contentService;
+
+	private INavigatorActivationService activationService;
+
+	private VisibilityAssistant assistant;
+
+	private IProject project;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		contentService = NavigatorContentServiceFactory.INSTANCE
+				.createContentService(TEST_VIEWER_CACHE);
+		activationService = contentService.getActivationService();
+		activationService.activateExtensions(new String[] { CLASS_ONLY,
+				PROPERTY }, false);
+		assistant = new VisibilityAssistant(contentService
+				.getViewerDescriptor(), activationService);
+		// handles are enough to evaluate the expressions
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(
+				"DescriptorCacheTest");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		assistant.dispose();
+		contentService.dispose();
+		super.tearDown();
+	}
+
+	private Set findTriggerPoints(Object anElement) {
+		return manager.findDescriptorsForTriggerPoint(anElement, assistant,
+				false);
+	}
+
+	private static boolean contains(Set descriptors, String id) {
+		for (Iterator i = descriptors.iterator(); i.hasNext();) {
+			if (id.equals(((NavigatorContentDescriptor) i.next()).getId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void testClassOnlyExpressionsCached() {
+		assistant.bindExtensions(new String[] { CLASS_ONLY }, false);
+		IFile file = project.getFile("a.txt");
+		IFolder folder = project.getFolder("folder");
+
+		Set fileDescriptors = findTriggerPoints(file);
+		assertTrue(contains(fileDescriptors, CLASS_ONLY));
+		assertSame("The descriptors of a class should be cached",
+				fileDescriptors, findTriggerPoints(project.getFile("b.dat")));
+
+		Set folderDescriptors = findTriggerPoints(folder);
+		assertTrue(contains(folderDescriptors, CLASS_ONLY));
+		assertSame(folderDescriptors, findTriggerPoints(project
+				.getFolder("other")));
+
+		// excluded by the not expression
+		Set projectDescriptors = findTriggerPoints(project);
+		assertFalse(contains(projectDescriptors, CLASS_ONLY));
+		assertSame(projectDescriptors, findTriggerPoints(project));
+
+		Set childDescriptors = manager.findDescriptorsForPossibleChild(folder,
+				assistant, false);
+		assertTrue(contains(childDescriptors, CLASS_ONLY));
+		assertSame(childDescriptors, manager.findDescriptorsForPossibleChild(
+				project.getFolder("other"), assistant, false));
+		assertFalse(contains(manager.findDescriptorsForPossibleChild(file,
+				assistant, false), CLASS_ONLY));
+	}
+
+	public void testPropertyExpressionsNotCached() {
+		assistant.bindExtensions(new String[] { CLASS_ONLY, PROPERTY }, false);
+		IFile txtFile = project.getFile("a.txt");
+		IFile datFile = project.getFile("b.dat");
+
+		Set txtDescriptors = findTriggerPoints(txtFile);
+		assertTrue(contains(txtDescriptors, CLASS_ONLY));
+		assertTrue(contains(txtDescriptors, PROPERTY));
+		assertNotSame("Descriptors tested on properties should not be cached",
+				txtDescriptors, findTriggerPoints(txtFile));
+
+		Set datDescriptors = findTriggerPoints(datFile);
+		assertTrue(contains(datDescriptors, CLASS_ONLY));
+		assertFalse(contains(datDescriptors, PROPERTY));
+
+		// the possible children of both only test the type
+		Set childDescriptors = manager.findDescriptorsForPossibleChild(project
+				.getFolder("folder"), assistant, false);
+		assertTrue(contains(childDescriptors, CLASS_ONLY));
+		assertTrue(contains(childDescriptors, PROPERTY));
+		assertSame(childDescriptors, manager.findDescriptorsForPossibleChild(
+				project.getFolder("other"), assistant, false));
+	}
+
+	public void testCacheClearedOnVisibilityChange() {
+		assistant.bindExtensions(new String[] { CLASS_ONLY }, false);
+		IFile txtFile = project.getFile("a.txt");
+		Set descriptors = findTriggerPoints(txtFile);
+		assertFalse(contains(descriptors, PROPERTY));
+		assertSame(descriptors, findTriggerPoints(txtFile));
+
+		assistant.bindExtensions(new String[] { PROPERTY }, false);
+		assertTrue(contains(findTriggerPoints(txtFile), PROPERTY));
+	}
+
+	public void testCacheClearedOnActivationChange() {
+		assistant.bindExtensions(new String[] { CLASS_ONLY }, false);
+		IFile file = project.getFile("a.txt");
+		Set descriptors = findTriggerPoints(file);
+		assertTrue(contains(descriptors, CLASS_ONLY));
+		assertSame(descriptors, findTriggerPoints(file));
+
+		activationService.deactivateExtensions(new String[] { CLASS_ONLY },
+				false);
+		assertFalse(contains(findTriggerPoints(file), CLASS_ONLY));
+
+		activationService.activateExtensions(new String[] { CLASS_ONLY },
+				false);
+		assertTrue(contains(findTriggerPoints(file), CLASS_ONLY));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,6 +50,7 @@ public final class NavigatorTestSuite extends TestSuite {
 		addTest(new TestSuite(M12Tests.class));
 		addTest(new TestSuite(FirstClassM1Tests.class));
 		addTest(new TestSuite(LinkHelperTest.class));
+		addTest(new TestSuite(DescriptorCacheTest.class));
 		//addTest(new TestSuite(DnDTest.class));
 		// Does not pass on all platforms see bug 264449
 		//addTest(new TestSuite(PerformanceTest.class));
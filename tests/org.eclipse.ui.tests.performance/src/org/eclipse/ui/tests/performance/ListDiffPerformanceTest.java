@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.internal.databinding.observable.ListDiffAnalyzer;
+
+/**
+ * Compares the list diff algorithms used by
+ * {@link org.eclipse.core.databinding.observable.Diffs#computeListDiff(List, List)}
+ * on a large list whose elements are reordered, and some of them removed and
+ * added.
+ *
+ * @since 3.11
+ */
+public class ListDiffPerformanceTest extends BasicPerformanceTest {
+
+	private static final int SIZE = 5000;
+
+	private final boolean scanning;
+
+	private List oldList;
+
+	private List newList;
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite("List diff performance");
+		suite.addTest(new ListDiffPerformanceTest(true));
+		suite.addTest(new ListDiffPerformanceTest(false));
+		return suite;
+	}
+
+	/**
+	 * @param scanning
+	 *            <code>true</code> to measure the scanning algorithm used for
+	 *            small lists, <code>false</code> to measure the matching
+	 *            algorithm used for large lists
+	 */
+	public ListDiffPerformanceTest(boolean scanning) {
+		super((scanning ? "Scanning" : "Matching") + " list diff of " + SIZE
+				+ " elements");
+		this.scanning = scanning;
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		Random random = new Random(SIZE);
+		oldList = new ArrayList(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			oldList.add("element" + i);
+		}
+		newList = new ArrayList(oldList);
+		Collections.shuffle(newList, random);
+		for (int i = 0; i < SIZE / 10; i++) {
+			newList.remove(random.nextInt(newList.size()));
+			newList.add(random.nextInt(newList.size()), "added" + i);
+		}
+	}
+
+	protected void runTest() throws Throwable {
+		exercise(new TestRunnable() {
+			public void run() throws Exception {
+				List entries = new ArrayList();
+				startMeasuring();
+				if (scanning) {
+					ListDiffAnalyzer.analyzeByScanning(oldList, newList,
+							entries);
+				} else {
+					ListDiffAnalyzer.analyzeByMatching(oldList, newList,
+							entries);
+				}
+				stopMeasuring();
+			}
+		}, 3, 20, 10000);
+		commitMeasurements();
+		assertPerformance();
+	}
+}
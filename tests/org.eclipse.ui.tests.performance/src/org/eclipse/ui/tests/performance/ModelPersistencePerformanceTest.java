@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.io.File;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.e4.ui.internal.workbench.E4BinaryResource;
+import org.eclipse.e4.ui.internal.workbench.E4BinaryResourceFactory;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResourceFactory;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.commands.MBindingContext;
+import org.eclipse.e4.ui.model.application.commands.MBindingTable;
+import org.eclipse.e4.ui.model.application.commands.MCommand;
+import org.eclipse.e4.ui.model.application.commands.MHandler;
+import org.eclipse.e4.ui.model.application.commands.MKeyBinding;
+import org.eclipse.e4.ui.model.application.commands.impl.CommandsFactoryImpl;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartSashContainer;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+/**
+ * Compares the time taken to save and load a large application model as XMI
+ * and in the binary format of {@link E4BinaryResource}, as the workbench does
+ * when it auto-saves and starts.
+ */
+public class ModelPersistencePerformanceTest extends BasicPerformanceTest {
+
+	private static final int WINDOWS = 4;
+
+	private static final int STACKS = 20;
+
+	private static final int PARTS = 20;
+
+	private static final int COMMANDS = 2000;
+
+	private final boolean binary;
+
+	private final boolean load;
+
+	private File file;
+
+	private Resource.Factory factory;
+
+	private MApplication application;
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite("Model persistence performance");
+		suite.addTest(new ModelPersistencePerformanceTest(false, false));
+		suite.addTest(new ModelPersistencePerformanceTest(true, false));
+		suite.addTest(new ModelPersistencePerformanceTest(false, true));
+		suite.addTest(new ModelPersistencePerformanceTest(true, true));
+		return suite;
+	}
+
+	/**
+	 * @param binary
+	 *            <code>true</code> to measure the binary format,
+	 *            <code>false</code> to measure XMI
+	 * @param load
+	 *            <code>true</code> to measure loading the model,
+	 *            <code>false</code> to measure saving it
+	 */
+	public ModelPersistencePerformanceTest(boolean binary, boolean load) {
+		super((load ? "Load" : "Save") + " application model as "
+				+ (binary ? "binary" : "XMI"));
+		this.binary = binary;
+		this.load = load;
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		file = File.createTempFile("workbench", binary ? "."
+				+ E4BinaryResource.FILE_EXTENSION : ".xmi");
+		factory = binary ? new E4BinaryResourceFactory()
+				: new E4XMIResourceFactory();
+		application = createApplication();
+		createResource().getContents().add((EObject) application);
+		if (load) {
+			((EObject) application).eResource().save(null);
+		}
+	}
+
+	protected void doTearDown() throws Exception {
+		file.delete();
+		super.doTearDown();
+	}
+
+	private Resource createResource() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = factory.createResource(URI.createFileURI(file
+				.getAbsolutePath()));
+		resourceSet.getResources().add(resource);
+		return resource;
+	}
+
+	private MApplication createApplication() {
+		MApplication app = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		MBindingContext bindingContext = CommandsFactoryImpl.eINSTANCE
+				.createBindingContext();
+		bindingContext.setElementId("org.eclipse.ui.contexts.window");
+		app.getRootContext().add(bindingContext);
+		MBindingTable bindingTable = CommandsFactoryImpl.eINSTANCE
+				.createBindingTable();
+		bindingTable.setBindingContext(bindingContext);
+		app.getBindingTables().add(bindingTable);
+		for (int i = 0; i < COMMANDS; i++) {
+			MCommand command = CommandsFactoryImpl.eINSTANCE.createCommand();
+			command.setElementId("command" + i);
+			command.setCommandName("Command " + i);
+			command.setDescription("Description of command " + i);
+			app.getCommands().add(command);
+			MHandler handler = CommandsFactoryImpl.eINSTANCE.createHandler();
+			handler.setCommand(command);
+			handler.setContributionURI("bundleclass://bundle/Handler" + i);
+			app.getHandlers().add(handler);
+			MKeyBinding binding = CommandsFactoryImpl.eINSTANCE
+					.createKeyBinding();
+			binding.setCommand(command);
+			binding.setKeySequence("M1+M2+" + i);
+			bindingTable.getBindings().add(binding);
+		}
+		for (int i = 0; i < WINDOWS; i++) {
+			MTrimmedWindow window = BasicFactoryImpl.eINSTANCE
+					.createTrimmedWindow();
+			window.setElementId("window" + i);
+			window.setLabel("Window " + i);
+			MPartSashContainer sash = BasicFactoryImpl.eINSTANCE
+					.createPartSashContainer();
+			window.getChildren().add(sash);
+			for (int j = 0; j < STACKS; j++) {
+				MPartStack stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+				stack.setElementId("stack" + j);
+				stack.setContainerData(Integer.toString(j * 10));
+				sash.getChildren().add(stack);
+				for (int k = 0; k < PARTS; k++) {
+					MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+					part.setElementId("part" + k);
+					part.setLabel("Part " + k);
+					part.setContributionURI("bundleclass://bundle/Part" + k);
+					part.getTags().add("View");
+					part.getPersistedState().put("memento", "<memento id=\"part"
+							+ k + "\"/>");
+					stack.getChildren().add(part);
+				}
+				stack.setSelectedElement(stack.getChildren().get(0));
+			}
+			app.getChildren().add(window);
+		}
+		return app;
+	}
+
+	protected void runTest() throws Throwable {
+		exercise(new TestRunnable() {
+			public void run() throws Exception {
+				if (load) {
+					Resource resource = createResource();
+					startMeasuring();
+					resource.load(null);
+					stopMeasuring();
+					resource.unload();
+				} else {
+					startMeasuring();
+					((EObject) application).eResource().save(null);
+					stopMeasuring();
+				}
+			}
+		}, 3, 20, 10000);
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -36,5 +36,7 @@ public class UIPerformanceTestSuite extends FilteredTestSuite {
         addTest(new EditorPerformanceSuite());
         addTest(new TestSuite(CommandsPerformanceTest.class));
 		addTest(new LabelProviderTestSuite());
+		addTest(ListDiffPerformanceTest.suite());
+		addTest(ModelPersistencePerformanceTest.suite());
     }
 }
@@ -11,6 +11,9 @@
 
 package org.eclipse.jface.tests.viewers;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 import org.eclipse.jface.viewers.ListViewer;
 import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.ViewerComparator;
@@ -60,6 +63,42 @@ public class ListViewerComparatorTest extends ViewerComparatorTest {
 		assertSortedResult(TEAM1_SORTED_WITH_INSERT);
 	}
 
+	public void testViewerComparatorParallelSort(){
+		ViewerComparator comparator = new ViewerComparator();
+		comparator.setParallelSortThreshold(1);
+		fViewer.setComparator(comparator);
+		team1.addMember("Duong");
+		assertSortedResult(TEAM1_SORTED_WITH_INSERT);
+	}
+
+	public void testViewerComparatorSortIsStable(){
+		ViewerComparator comparator = new ViewerComparator() {
+			@Override
+			public int category(Object element) {
+				return ((String) element).length();
+			}
+		};
+		comparator.setParallelSortThreshold(2);
+		String[] elements = new String[1000];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new String(TEAM1[i % TEAM1.length]);
+		}
+		String[] expected = elements.clone();
+		Arrays.sort(expected, new Comparator<String>() {
+			@Override
+			public int compare(String s1, String s2) {
+				if (s1.length() != s2.length()) {
+					return s1.length() - s2.length();
+				}
+				return s1.compareTo(s2);
+			}
+		});
+		comparator.sort(null, elements);
+		for (int i = 0; i < elements.length; i++) {
+			assertSame("Element not expected at " + i, expected[i], elements[i]);
+		}
+	}
+
 	private void assertSortedResult(String[] expected){
 		String[] items = getListViewer().getList().getItems();
 		for (int i = 0; i < items.length; i++){
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 IBM Corporation and others.
+ * Copyright (c) 2007, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -528,6 +528,40 @@ public class CommandEnablementTest extends UITestCase {
 		assertFalse(proxy.isEnabled());
 	}
 
+	public void testHandlerProxyEnablementTrackable() throws Exception {
+		IConfigurationElement handlerProxyConfig = null;
+		IExtensionPoint point = Platform.getExtensionRegistry()
+				.getExtensionPoint("org.eclipse.ui.handlers");
+		IExtension[] extensions = point.getExtensions();
+		for (int i = 0; i < extensions.length && handlerProxyConfig == null; i++) {
+			IConfigurationElement[] configElements = extensions[i]
+					.getConfigurationElements();
+			for (int j = 0; j < configElements.length; j++) {
+				if ("org.eclipse.ui.tests.menus.HelloEHandler".equals(configElements[j]
+						.getAttribute(IWorkbenchRegistryConstants.ATT_CLASS))) {
+					handlerProxyConfig = configElements[j];
+					break;
+				}
+			}
+		}
+		assertNotNull(handlerProxyConfig);
+		Expression enabledWhen = new ActiveContextExpression(CONTEXT_TEST1,
+				new String[] { ISources.ACTIVE_CONTEXT_NAME });
+		HandlerProxy proxy = new HandlerProxy(
+				handlerProxyConfig.getAttribute(IWorkbenchRegistryConstants.ATT_ID),
+				handlerProxyConfig, "class", enabledWhen, evalService);
+		try {
+			// the bundle of the handler is active, so the proxy may load its
+			// handler, which computes its own enablement
+			assertFalse(proxy.isEnablementTrackable());
+			assertFalse(new E4HandlerProxy(cmd1, proxy).isEnablementTrackable());
+			assertFalse(new E4HandlerProxy(cmd1, normalHandler1)
+					.isEnablementTrackable());
+		} finally {
+			proxy.dispose();
+		}
+	}
+
 	private static class Checker implements IHandlerListener {
 		boolean lastChange = false;
 
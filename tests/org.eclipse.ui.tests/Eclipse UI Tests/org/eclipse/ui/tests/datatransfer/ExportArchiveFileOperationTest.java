@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -106,6 +106,104 @@ public class ExportArchiveFileOperationTest extends UITestCase implements
 		verifyCompressed(ZIP_FILE_EXT);
 	}
 
+	public void testExportZipParallel() throws Exception {
+		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
+		List resources = new ArrayList();
+		resources.add(project);
+        ArchiveFileExportOperation operation =
+        	new ArchiveFileExportOperation(resources, filePath);
+
+        operation.setUseCompression(false);
+        operation.setUseTarFormat(false);
+        operation.setUseParallelCompression(true);
+        operation.run(new NullProgressMonitor());
+
+        verifyFolders(directoryNames.length + emptyDirectoryNames.length, ZIP_FILE_EXT);
+        assertEquals(directoryNames.length * fileNames.length, operation.getExportedFileCount());
+        assertTrue(operation.getArchiveSize() > operation.getExportedBytes());
+	}
+
+	public void testExportZipParallelCompressed() throws Exception {
+		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
+		List resources = new ArrayList();
+		resources.add(project);
+        ArchiveFileExportOperation operation =
+        	new ArchiveFileExportOperation(resources, filePath);
+
+        operation.setUseCompression(true);
+        operation.setUseTarFormat(false);
+        operation.setUseParallelCompression(true);
+        operation.run(new NullProgressMonitor());
+		verifyCompressed(ZIP_FILE_EXT);
+		verifyFolders(directoryNames.length + emptyDirectoryNames.length, ZIP_FILE_EXT);
+	}
+
+	public void testExportZipParallelLargeFiles() throws Exception {
+		verifyParallelLargeFiles(true);
+	}
+
+	public void testExportZipParallelLargeFilesStored() throws Exception {
+		verifyParallelLargeFiles(false);
+	}
+
+	/**
+	 * Export a file larger than those compressed in memory, and enough files
+	 * compressed in memory to exceed the bound on their pending contents, and
+	 * check their contents in the archive.
+	 */
+	private void verifyParallelLargeFiles(boolean compress) throws Exception {
+		int[] sizes = { 3500000, 3500000, 5000000, 3500000, 3500000, 3500000 };
+		IFolder folder = project.getFolder("large");
+		folder.create(false, true, new NullProgressMonitor());
+		for (int i = 0; i < sizes.length; i++) {
+			folder.getFile("large" + i + ".bin").create(
+					new ByteArrayInputStream(largeContents(sizes[i], i)), true,
+					new NullProgressMonitor());
+		}
+
+		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
+		ArchiveFileExportOperation operation =
+			new ArchiveFileExportOperation(folder, filePath);
+		operation.setUseCompression(compress);
+		operation.setUseTarFormat(false);
+		operation.setUseParallelCompression(true);
+		operation.run(new NullProgressMonitor());
+
+		assertTrue(operation.getStatus().isOK());
+		assertEquals(sizes.length, operation.getExportedFileCount());
+		ZipFile zipFile = new ZipFile(filePath);
+		try {
+			for (int i = 0; i < sizes.length; i++) {
+				ZipEntry entry = zipFile.getEntry(project.getName() + "/large/large" + i
+						+ ".bin");
+				assertNotNull(entry);
+				assertEquals(sizes[i], entry.getSize());
+				// no ZIP64 field for entries below 4GB
+				assertNull(entry.getExtra());
+				byte[] expected = largeContents(sizes[i], i);
+				InputStream in = zipFile.getInputStream(entry);
+				try {
+					for (int j = 0; j < expected.length; j++) {
+						assertEquals(expected[j], (byte) in.read());
+					}
+					assertEquals(-1, in.read());
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	private static byte[] largeContents(int size, int seed) {
+		byte[] contents = new byte[size];
+		for (int i = 0; i < size; i++) {
+			contents[i] = (byte) (i % 251 + (i >> 16) + seed);
+		}
+		return contents;
+	}
+
 	public void testExportZipCreateSelectedDirectories() throws Exception {
 		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
 		List resources = new ArrayList();
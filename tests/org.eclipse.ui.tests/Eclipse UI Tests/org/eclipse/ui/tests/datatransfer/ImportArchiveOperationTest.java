@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -262,6 +263,28 @@ public class ImportArchiveOperationTest extends UITestCase implements IOverwrite
     }
 
 
+    public void testTarImportInReverseOrder() throws Exception {
+    	setup(ARCHIVE_SOURCE_PROPERTY);
+        project = FileUtil.createProject("ImportTarInReverseOrder");
+        TarFile tarFile = new TarFile(tarFileURL.getPath());
+        TarLeveledStructureProvider structureProvider = new TarLeveledStructureProvider(tarFile);
+
+	    Enumeration tarEntries = tarFile.entries();
+	    List entries = new ArrayList();
+	    while (tarEntries.hasMoreElements()){
+	    	entries.add(tarEntries.nextElement());
+	    }
+	    // every entry is read after the entries following it in the archive
+	    Collections.reverse(entries);
+		ImportOperation operation = new ImportOperation(
+				new Path(project.getName()), structureProvider.getRoot(),
+				structureProvider, this, entries);
+
+        openTestWindow().run(true, true, operation);
+
+        verifyFiles(directoryNames.length, false);
+    }
+
     public void testTarWithFileAtRoot() throws Exception {
     	setup(ARCHIVE_115800_PROPERTY);
         project = FileUtil.createProject("ImportTarWithFileAtRoot");
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import org.eclipse.jface.viewers.IDecoration;
+import org.eclipse.jface.viewers.ILightweightLabelDecorator;
+import org.eclipse.jface.viewers.LabelProvider;
+
+/**
+ * A lightweight decorator which counts its instances and how many of its
+ * decorations run at the same time.
+ *
+ * @since 3.10
+ */
+public abstract class CountingTestDecorator extends LabelProvider implements
+		ILightweightLabelDecorator {
+
+	/**
+	 * The calls made to the decorators of one class.
+	 */
+	public static class Calls {
+
+		int instances;
+
+		int active;
+
+		int maxActive;
+
+		int decorated;
+
+		synchronized void created() {
+			instances++;
+		}
+
+		synchronized void enter() {
+			active++;
+			maxActive = Math.max(maxActive, active);
+		}
+
+		synchronized void exit() {
+			active--;
+			decorated++;
+		}
+
+		/**
+		 * @return the number of decorators created
+		 */
+		public synchronized int getInstances() {
+			return instances;
+		}
+
+		/**
+		 * @return the most decorations which ran at the same time
+		 */
+		public synchronized int getMaxActive() {
+			return maxActive;
+		}
+
+		/**
+		 * @return the number of decorations done
+		 */
+		public synchronized int getDecorated() {
+			return decorated;
+		}
+
+		/**
+		 * Forget the calls made so far.
+		 */
+		public synchronized void reset() {
+			instances = 0;
+			active = 0;
+			maxActive = 0;
+			decorated = 0;
+		}
+	}
+
+	private final Calls calls;
+
+	private final String suffix;
+
+	CountingTestDecorator(Calls calls, String suffix) {
+		this.calls = calls;
+		this.suffix = suffix;
+		calls.created();
+	}
+
+	@Override
+	public void decorate(Object element, IDecoration decoration) {
+		calls.enter();
+		try {
+			// give other workers the chance to overlap
+			Thread.sleep(2);
+		} catch (InterruptedException e) {
+			// just decorate now
+		} finally {
+			calls.exit();
+		}
+		decoration.addSuffix(suffix);
+	}
+}
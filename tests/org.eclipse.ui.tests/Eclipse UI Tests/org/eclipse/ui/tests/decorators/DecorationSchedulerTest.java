@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.decorators.DecoratorDefinition;
+import org.eclipse.ui.internal.decorators.DecoratorManager;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * Tests that the decoration workers decorate every queued element, and that
+ * they only call contributed decorators concurrently when these declare it.
+ *
+ * @since 3.10
+ */
+public class DecorationSchedulerTest extends AbstractNavigatorTest implements
+		ILabelProviderListener {
+
+	private static final int FILE_COUNT = 60;
+
+	private static final long TIMEOUT = 30000;
+
+	private IFile[] files = new IFile[FILE_COUNT];
+
+	private Map labels = new HashMap();
+
+	public DecorationSchedulerTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFolder();
+		for (int i = 0; i < files.length; i++) {
+			files[i] = testFolder.getFile("file" + i + ".txt");
+			files[i].create(new ByteArrayInputStream(new byte[0]), true, null);
+		}
+		SerialTestDecorator.CALLS.reset();
+		ConcurrentTestDecorator.CALLS.reset();
+		setEnabled(true);
+		getDecoratorManager().addListener(this);
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		getDecoratorManager().removeListener(this);
+		setEnabled(false);
+		super.doTearDown();
+	}
+
+	public void testAllElementsDecorated() {
+		decorateFiles();
+		for (int i = 0; i < files.length; i++) {
+			String label = (String) labels.get(files[i]);
+			assertTrue("Missing serial decoration: " + label,
+					label.indexOf(SerialTestDecorator.SUFFIX) >= 0);
+			assertTrue("Missing concurrent decoration: " + label,
+					label.indexOf(ConcurrentTestDecorator.SUFFIX) >= 0);
+		}
+	}
+
+	public void testSerialDecoratorNotCalledConcurrently() {
+		decorateFiles();
+		assertTrue(SerialTestDecorator.CALLS.getDecorated() >= FILE_COUNT);
+		assertEquals("Serial decorator called concurrently", 1,
+				SerialTestDecorator.CALLS.getMaxActive());
+	}
+
+	public void testDecoratorsCreatedOnce() {
+		decorateFiles();
+		assertEquals(1, SerialTestDecorator.CALLS.getInstances());
+		assertEquals(1, ConcurrentTestDecorator.CALLS.getInstances());
+	}
+
+	/**
+	 * Queue the files for decoration and wait until the listeners were told
+	 * about the decoration of all of them. The update job runs in the UI
+	 * thread, so the decoration jobs cannot be joined.
+	 */
+	private void decorateFiles() {
+		DecoratorManager manager = getDecoratorManager();
+		for (int i = 0; i < files.length; i++) {
+			manager.decorateText(files[i].getName(), files[i]);
+		}
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (labels.size() < files.length) {
+			assertTrue("Timed out waiting for the decorations",
+					System.currentTimeMillis() < end);
+			processEvents();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void labelProviderChanged(LabelProviderChangedEvent event) {
+		Object[] elements = event.getElements();
+		if (elements == null) {
+			return;
+		}
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof IFile
+					&& testFolder.equals(((IFile) elements[i]).getParent())) {
+				IFile file = (IFile) elements[i];
+				// the results are kept until all listeners are notified
+				String label = getDecoratorManager().decorateText(
+						file.getName(), file);
+				if (label.indexOf(SerialTestDecorator.SUFFIX) >= 0
+						&& label.indexOf(ConcurrentTestDecorator.SUFFIX) >= 0) {
+					labels.put(file, label);
+				}
+			}
+		}
+	}
+
+	private void setEnabled(boolean enabled) {
+		DecoratorManager manager = getDecoratorManager();
+		DecoratorDefinition[] definitions = manager
+				.getAllDecoratorDefinitions();
+		for (int i = 0; i < definitions.length; i++) {
+			String id = definitions[i].getId();
+			if (id.equals("org.eclipse.ui.tests.decorators.serialdecorator")
+					|| id.equals("org.eclipse.ui.tests.decorators.concurrentdecorator")) {
+				definitions[i].setEnabled(enabled);
+			}
+		}
+		manager.clearCaches();
+		manager.updateForEnablementChange();
+	}
+
+	private static DecoratorManager getDecoratorManager() {
+		return WorkbenchPlugin.getDefault().getDecoratorManager();
+	}
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+/**
+ * A lightweight decorator contributed without the concurrent flag.
+ *
+ * @since 3.10
+ */
+public class SerialTestDecorator extends CountingTestDecorator {
+
+	public static final Calls CALLS = new Calls();
+
+	public static final String SUFFIX = "_SERIAL";
+
+	public SerialTestDecorator() {
+		super(CALLS, SUFFIX);
+	}
+}
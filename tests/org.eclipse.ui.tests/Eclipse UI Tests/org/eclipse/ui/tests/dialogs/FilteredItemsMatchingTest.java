@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.dialogs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.core.runtime.ILogListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.dialogs.DialogSettings;
+import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.dialogs.FilteredItemsSelectionDialog;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests that the items of a {@link FilteredItemsSelectionDialog} matching a
+ * filter are the same, and in the same order, whether they are matched in
+ * parallel and whether the last sorted result is reused.
+ *
+ * @since 3.10
+ */
+public class FilteredItemsMatchingTest extends UITestCase {
+
+	private static final int ITEM_COUNT = 20000;
+
+	private static final long TIMEOUT = 30000;
+
+	private TestDialog dialog;
+
+	public FilteredItemsMatchingTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		String[] items = new String[ITEM_COUNT];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = "item" + i;
+		}
+		dialog = new TestDialog(fWorkbench.getActiveWorkbenchWindow()
+				.getShell(), items);
+		dialog.setBlockOnOpen(false);
+		dialog.setParallelMatching(true);
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		dialog.close();
+		super.doTearDown();
+	}
+
+	public void testSubFilterMatching() {
+		dialog.open();
+		assertMatches("item1", 11111);
+		assertMatches("item12", 1111);
+	}
+
+	public void testOtherFilterMatching() {
+		dialog.open();
+		assertMatches("item12", 1111);
+		assertMatches("item3", 1111);
+	}
+
+	public void testSubFilterMatchingReusingSortedResults() {
+		dialog.setReuseSortedResults(true);
+		dialog.open();
+		assertMatches("item1", 11111);
+		assertMatches("item12", 1111);
+	}
+
+	public void testMatchingFailureReported() {
+		final List logged = Collections.synchronizedList(new ArrayList());
+		ILogListener listener = new ILogListener() {
+			@Override
+			public void logging(IStatus status, String plugin) {
+				if (status.getException() != null) {
+					logged.add(status.getException());
+				}
+			}
+		};
+		Platform.addLogListener(listener);
+		try {
+			dialog.open();
+			assertMatches("item1", 11111);
+
+			// the last item is matched by the last job
+			dialog.failingItem = "item19999";
+			setPattern("item19");
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (logged.isEmpty()) {
+				assertTrue("Timed out waiting for the failure",
+						System.currentTimeMillis() < end);
+				processEvents();
+				sleep();
+			}
+			processEvents();
+			assertTrue("Unexpected failure " + logged.get(0),
+					logged.get(0) instanceof TestError);
+		} finally {
+			Platform.removeLogListener(listener);
+		}
+	}
+
+	private void assertMatches(String pattern, int count) {
+		setPattern(pattern);
+		Table table = findTable(dialog.getShell());
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (table.getItemCount() != count) {
+			assertTrue("Timed out waiting for " + count + " matches of "
+					+ pattern, System.currentTimeMillis() < end);
+			processEvents();
+			sleep();
+		}
+
+		List expected = new ArrayList();
+		for (int i = 0; i < dialog.items.length; i++) {
+			if (dialog.items[i].startsWith(pattern)) {
+				expected.add(dialog.items[i]);
+			}
+		}
+		Collections.sort(expected, TestDialog.COMPARATOR);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(expected.get(i), table.getItem(i).getData());
+		}
+		assertEquals(expected.get(count - 1), table.getItem(count - 1)
+				.getData());
+	}
+
+	private void setPattern(String pattern) {
+		findText(dialog.getShell()).setText(pattern);
+	}
+
+	private static Text findText(Composite parent) {
+		Control[] children = parent.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] instanceof Text) {
+				return (Text) children[i];
+			}
+			if (children[i] instanceof Composite) {
+				Text text = findText((Composite) children[i]);
+				if (text != null) {
+					return text;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Table findTable(Composite parent) {
+		Control[] children = parent.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] instanceof Table) {
+				return (Table) children[i];
+			}
+			if (children[i] instanceof Composite) {
+				Table table = findTable((Composite) children[i]);
+				if (table != null) {
+					return table;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			// check again
+		}
+	}
+
+	private static class TestError extends Error {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class TestDialog extends FilteredItemsSelectionDialog {
+
+		static final Comparator COMPARATOR = new Comparator() {
+			@Override
+			public int compare(Object o1, Object o2) {
+				return ((String) o1).compareTo((String) o2);
+			}
+		};
+
+		final String[] items;
+
+		volatile String failingItem;
+
+		TestDialog(Shell shell, String[] items) {
+			super(shell);
+			this.items = items;
+		}
+
+		@Override
+		protected Control createExtendedContentArea(Composite parent) {
+			return null;
+		}
+
+		@Override
+		protected IDialogSettings getDialogSettings() {
+			return new DialogSettings("FilteredItemsMatchingTest"); //$NON-NLS-1$
+		}
+
+		@Override
+		protected IStatus validateItem(Object item) {
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		protected ItemsFilter createFilter() {
+			return new ItemsFilter() {
+				@Override
+				public boolean matchItem(Object item) {
+					if (item.equals(failingItem)) {
+						throw new TestError();
+					}
+					return matches((String) item);
+				}
+
+				@Override
+				public boolean isConsistentItem(Object item) {
+					return true;
+				}
+			};
+		}
+
+		@Override
+		protected Comparator getItemsComparator() {
+			return COMPARATOR;
+		}
+
+		@Override
+		protected void fillContentProvider(
+				AbstractContentProvider contentProvider,
+				ItemsFilter itemsFilter, IProgressMonitor progressMonitor) {
+			for (int i = 0; i < items.length; i++) {
+				contentProvider.add(items[i], itemsFilter);
+			}
+		}
+
+		@Override
+		public String getElementName(Object item) {
+			return (String) item;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2015 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,15 @@
 
 package org.eclipse.ui.tests.filteredtree;
 
+import java.util.Arrays;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.tests.viewers.TestElement;
 import org.eclipse.jface.tests.viewers.TestModelContentProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
@@ -106,6 +110,51 @@ public class FilteredTreeTests extends UITestCase {
 		dialog.close();
 	}
 
+	/*
+	 * Tests that the results cached for a pattern and reused for the patterns
+	 * refining it are the results of an uncached filter.
+	 */
+	public void testNarrowingFilterPattern() {
+		fRootElement = TestElement.createModel(DEPTH, NUM_ITEMS);
+		final int treeStyle = SWT.SINGLE | SWT.H_SCROLL | SWT.V_SCROLL
+				| SWT.BORDER;
+
+		Dialog dialog = new FilteredTreeDialog((Shell) null, treeStyle) {
+			@Override
+			protected FilteredTree doCreateFilteredTree(Composite comp,
+					int style) {
+				return createFilteredTree(comp, treeStyle);
+			}
+		};
+
+		dialog.create();
+		PatternFilter filter = fTreeViewer.getPatternFilter();
+		String[] patterns = { "1", "1", "1-", "1-1", "1-19", "1", "name",
+				"name-1", "name-1", "name-2", "1-" };
+		for (int i = 0; i < patterns.length; i++) {
+			filter.setPattern(patterns[i]);
+			PatternFilter expected = new PatternFilter();
+			expected.setPattern(patterns[i]);
+			assertFiltered(patterns[i], expected, filter, fRootElement);
+		}
+		dialog.close();
+	}
+
+	private void assertFiltered(String pattern, PatternFilter expected,
+			PatternFilter actual, Object parent) {
+		TreeViewer viewer = fTreeViewer.getViewer();
+		ITreeContentProvider contentProvider = (ITreeContentProvider) viewer
+				.getContentProvider();
+		Object[] children = contentProvider.getChildren(parent);
+		Object[] expectedChildren = expected.filter(viewer, parent, children);
+		assertTrue("filtered children of " + parent + " for " + pattern,
+				Arrays.equals(expectedChildren,
+						actual.filter(viewer, parent, children)));
+		for (int i = 0; i < expectedChildren.length; i++) {
+			assertFiltered(pattern, expected, actual, expectedChildren[i]);
+		}
+	}
+
 	private void runFilteredTreeTest(final int treeStyle){
 		fRootElement = TestElement.createModel(DEPTH, NUM_ITEMS);
 
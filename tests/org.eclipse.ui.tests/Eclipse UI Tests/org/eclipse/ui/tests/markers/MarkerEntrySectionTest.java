@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.ui.internal.views.markers.MarkerEntrySection;
+import org.eclipse.ui.internal.views.markers.MockMarkerEntry;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * Tests that {@link MarkerEntrySection} keeps its sorted entries first while
+ * entries are added and removed.
+ *
+ * @since 3.10
+ */
+public class MarkerEntrySectionTest extends AbstractNavigatorTest {
+
+	private static final Comparator COMPARATOR = new Comparator() {
+		@Override
+		public int compare(Object o1, Object o2) {
+			return ((MockMarkerEntry) o1).name
+					.compareTo(((MockMarkerEntry) o2).name);
+		}
+	};
+
+	public MarkerEntrySectionTest() {
+		super("MarkerEntrySectionTest");
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+	}
+
+	public void testAddMergesBeforeLastSorted() throws CoreException {
+		MarkerEntrySection section = new MarkerEntrySection(entries(new String[] {
+				"b", "d", "f", "x", "h" }), 3);
+		section.add(entries(new String[] { "z", "a", "g" }), COMPARATOR);
+
+		assertNames(new String[] { "a", "b", "d", "f", "x", "h", "g", "z" },
+				section);
+		assertEquals(4, section.getSortedCount());
+		assertInvariant(section);
+	}
+
+	public void testAddToSortedSection() throws CoreException {
+		MarkerEntrySection section = new MarkerEntrySection(entries(new String[] {
+				"b", "d", "f" }), 3);
+		section.add(entries(new String[] { "z", "a", "e" }), COMPARATOR);
+
+		assertNames(new String[] { "a", "b", "d", "e", "f", "z" }, section);
+		assertEquals(6, section.getSortedCount());
+	}
+
+	public void testRemove() throws CoreException {
+		List entries = entries(new String[] { "a", "b", "c", "e", "d" });
+		MarkerEntrySection section = new MarkerEntrySection(entries, 3);
+		Set removed = new HashSet();
+		removed.add(((MockMarkerEntry) entries.get(1)).getMarker());
+		removed.add(((MockMarkerEntry) entries.get(4)).getMarker());
+		section.remove(removed);
+
+		assertNames(new String[] { "a", "c", "e" }, section);
+		assertEquals(2, section.getSortedCount());
+		assertInvariant(section);
+	}
+
+	public void testRemoveDeletedMarker() throws CoreException {
+		List entries = entries(new String[] { "a", "b", "c" });
+		MarkerEntrySection section = new MarkerEntrySection(entries, 3);
+		MockMarkerEntry deleted = (MockMarkerEntry) entries.get(0);
+		deleted.getMarker().delete();
+		// the entry notices the deletion when it is next read
+		deleted.getPath();
+		section.remove(Collections.EMPTY_SET);
+
+		assertNames(new String[] { "b", "c" }, section);
+		assertEquals(2, section.getSortedCount());
+	}
+
+	public void testFillShowing() throws CoreException {
+		MarkerEntrySection section = new MarkerEntrySection(entries(new String[] {
+				"a", "b", "q", "m", "z", "c", "n" }), 2);
+		section.fillShowing(4, COMPARATOR);
+
+		assertEquals(4, section.getSortedCount());
+		assertEquals(Arrays.asList(new String[] { "a", "b", "c", "m" }),
+				names(section).subList(0, 4));
+		assertInvariant(section);
+
+		section.fillShowing(100, COMPARATOR);
+		assertNames(new String[] { "a", "b", "c", "m", "n", "q", "z" }, section);
+		assertEquals(7, section.getSortedCount());
+	}
+
+	public void testRandomUpdates() throws CoreException {
+		Random random = new Random(42);
+		List present = new ArrayList();
+		MarkerEntrySection section = new MarkerEntrySection(present, 0);
+		for (int step = 0; step < 50; step++) {
+			Set removed = new HashSet();
+			for (int i = present.size() - 1; i >= 0; i--) {
+				if (random.nextInt(4) == 0) {
+					removed.add(((MockMarkerEntry) present.remove(i))
+							.getMarker());
+				}
+			}
+			section.remove(removed);
+
+			String[] names = new String[random.nextInt(20)];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = Integer.toString(random.nextInt(1000));
+			}
+			List added = entries(names);
+			present.addAll(added);
+			section.add(new ArrayList(added), COMPARATOR);
+			section.fillShowing(random.nextInt(30), COMPARATOR);
+
+			assertInvariant(section);
+			List expected = new ArrayList(present);
+			Collections.sort(expected, COMPARATOR);
+			List expectedNames = new ArrayList();
+			for (int i = 0; i < expected.size(); i++) {
+				expectedNames.add(((MockMarkerEntry) expected.get(i)).name);
+			}
+			List actualNames = names(section);
+			assertEquals(expectedNames.size(), actualNames.size());
+			int sorted = section.getSortedCount();
+			assertEquals(expectedNames.subList(0, sorted),
+					actualNames.subList(0, sorted));
+			Collections.sort(actualNames);
+			Collections.sort(expectedNames);
+			assertEquals(expectedNames, actualNames);
+		}
+	}
+
+	private List entries(String[] names) throws CoreException {
+		List entries = new ArrayList(names.length);
+		for (int i = 0; i < names.length; i++) {
+			IMarker marker = testFile.createMarker(IMarker.PROBLEM);
+			entries.add(new MockMarkerEntry(names[i], marker));
+		}
+		return entries;
+	}
+
+	private static List names(MarkerEntrySection section) {
+		List entries = section.getEntries();
+		List names = new ArrayList(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			names.add(((MockMarkerEntry) entries.get(i)).name);
+		}
+		return names;
+	}
+
+	private static void assertNames(String[] expected,
+			MarkerEntrySection section) {
+		assertEquals(Arrays.asList(expected), names(section));
+	}
+
+	/**
+	 * Check that the sorted entries are sorted, and that no other entry comes
+	 * before the last of them.
+	 */
+	private static void assertInvariant(MarkerEntrySection section) {
+		List entries = section.getEntries();
+		int sorted = section.getSortedCount();
+		assertTrue(sorted <= entries.size());
+		for (int i = 1; i < sorted; i++) {
+			assertTrue(COMPARATOR.compare(entries.get(i - 1), entries.get(i)) <= 0);
+		}
+		for (int i = sorted; sorted > 0 && i < entries.size(); i++) {
+			assertTrue(COMPARATOR.compare(entries.get(sorted - 1),
+					entries.get(i)) <= 0);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * Tests that the markers view shows the same markers in the same order after
+ * applying marker changes as it does after gathering all markers again.
+ *
+ * @since 3.10
+ */
+public class MarkersIncrementalUpdateTest extends AbstractNavigatorTest {
+
+	private static final String VIEW_ID = "org.eclipse.ui.tests.markerTests";
+
+	private IMarker[] markers = new IMarker[20];
+
+	private IMarker[] addedMarkers = new IMarker[5];
+
+	public MarkersIncrementalUpdateTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+	}
+
+	public void testIncrementalUpdate() throws CoreException {
+		IWorkbenchPage page = PlatformUI.getWorkbench()
+				.getActiveWorkbenchWindow().getActivePage();
+		MarkersTestMarkersView view = (MarkersTestMarkersView) page
+				.showView(VIEW_ID);
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (int i = 0; i < markers.length; i++) {
+					markers[i] = createMarker(i % 3, "Marker " + (i * 7 % 20));
+				}
+			}
+		}, null);
+		waitForUpdate(view);
+
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (int i = 0; i < 5; i++) {
+					markers[i].delete();
+				}
+				markers[5].setAttribute(IMarker.SEVERITY,
+						IMarker.SEVERITY_ERROR);
+				markers[6].setAttribute(IMarker.SEVERITY,
+						IMarker.SEVERITY_INFO);
+				markers[7].setAttribute(IMarker.MESSAGE, "Marker 0 changed");
+				for (int i = 0; i < addedMarkers.length; i++) {
+					addedMarkers[i] = createMarker(i % 3, "Added marker "
+							+ (5 - i));
+				}
+			}
+		}, null);
+		waitForUpdate(view);
+		List updated = Arrays.asList(view.getCurrentMarkers());
+
+		for (int i = 0; i < 5; i++) {
+			assertFalse("Deleted marker shown", updated.contains(markers[i]));
+		}
+		for (int i = 5; i < markers.length; i++) {
+			assertTrue("Marker missing", updated.contains(markers[i]));
+		}
+		for (int i = 0; i < addedMarkers.length; i++) {
+			assertTrue("Added marker missing",
+					updated.contains(addedMarkers[i]));
+		}
+
+		page.hideView(view);
+		view = (MarkersTestMarkersView) page.showView(VIEW_ID);
+		waitForUpdate(view);
+		assertEquals("Markers are not in the order of a full update",
+				Arrays.asList(view.getCurrentMarkers()), updated);
+	}
+
+	private IMarker createMarker(int severity, String message)
+			throws CoreException {
+		IMarker marker = testFile.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		marker.setAttribute(IMarker.MESSAGE, message);
+		return marker;
+	}
+
+	/**
+	 * Wait for the view to gather the markers and show them. The update jobs
+	 * include a UI job, so they cannot be joined from the UI thread.
+	 */
+	private static void waitForUpdate(MarkersTestMarkersView view) {
+		while (Job.getJobManager().find(view.MARKERSVIEW_UPDATE_JOB_FAMILY).length > 0) {
+			processEvents();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+		processEvents();
+	}
+}